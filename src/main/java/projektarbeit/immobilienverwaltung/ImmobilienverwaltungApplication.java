@@ -2,12 +2,14 @@ package projektarbeit.immobilienverwaltung;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Hauptklasse der Immobilienverwaltungsanwendung.
  * Diese Klasse konfiguriert und startet die Spring Boot-Anwendung.
  */
 @SpringBootApplication
+@EnableScheduling
 public class ImmobilienverwaltungApplication {
 
     /**
@@ -0,0 +1,47 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import projektarbeit.immobilienverwaltung.model.CacheStatistik;
+import projektarbeit.immobilienverwaltung.service.CacheRegionFactory;
+
+import java.util.List;
+
+/**
+ * Schnittstelle für die Kennzahlen des Second-Level-Caches.
+ * <p>
+ * {@code GET /api/cache} liefert je Region die Anzahl der Einträge, Treffer und Fehlversuche sowie die Trefferquote.
+ */
+@RestController
+@RequestMapping(CacheController.PATH)
+public class CacheController {
+
+    /**
+     * Pfad der Cache-Schnittstelle.
+     */
+    public static final String PATH = "/api/cache";
+
+    private final CacheRegionFactory cacheRegionFactory;
+
+    /**
+     * Konstruktor für CacheController.
+     *
+     * @param cacheRegionFactory die Regionen des Caches
+     */
+    @Autowired
+    public CacheController(CacheRegionFactory cacheRegionFactory) {
+        this.cacheRegionFactory = cacheRegionFactory;
+    }
+
+    /**
+     * Liefert die Kennzahlen aller Regionen.
+     *
+     * @return die Kennzahlen, nach Regionsnamen sortiert
+     */
+    @GetMapping
+    public List<CacheStatistik> statistik() {
+        return cacheRegionFactory.statistik();
+    }
+}
@@ -0,0 +1,276 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.service.DokumentPostProcessor;
+import projektarbeit.immobilienverwaltung.service.DokumentService;
+import projektarbeit.immobilienverwaltung.service.Kompression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Liefert die Dateien von Dokumenten direkt über Spring MVC aus, ohne die Vaadin-Sitzung zu sperren.
+ * Unterstützt werden Teilanfragen über {@code Range}, bedingte Anfragen über {@code ETag} und
+ * {@code Last-Modified} sowie die Übertragung per Sendfile, wenn der Servlet-Container sie anbietet.
+ * Andernfalls wird die Datei mit {@link FileChannel#transferTo} übertragen.
+ * <p>
+ * Komprimiert gespeicherte Dateien werden Clients, die gzip akzeptieren, unverändert mit
+ * {@code Content-Encoding: gzip} ausgeliefert. Für alle anderen werden sie beim Senden entpackt, dann allerdings
+ * ohne Unterstützung für Teilanfragen.
+ */
+@RestController
+@RequestMapping(DokumentDownloadController.PATH)
+public class DokumentDownloadController {
+
+    /**
+     * Pfad, unter dem die Dateien der Dokumente ausgeliefert werden.
+     */
+    public static final String PATH = "/api/dokumente";
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern BLOB_NAME = Pattern.compile("([0-9a-f]{64})(\\.gz)?");
+
+    private final DokumentService dokumentService;
+    private final DokumentPostProcessor postProcessor;
+
+    /**
+     * Konstruktor für DokumentDownloadController.
+     *
+     * @param dokumentService der Service, über den die Dokumente geladen werden
+     * @param postProcessor   der Service, der die Vorschaubilder erzeugt
+     */
+    @Autowired
+    public DokumentDownloadController(DokumentService dokumentService, DokumentPostProcessor postProcessor) {
+        this.dokumentService = dokumentService;
+        this.postProcessor = postProcessor;
+    }
+
+    /**
+     * Liefert die Datei eines Dokuments ganz oder, bei einer Anfrage mit genau einem Bereich, teilweise aus.
+     * Unbekannte Dokumente und Dokumente, auf die der Benutzer nicht zugreifen darf, werden gleichermaßen
+     * mit 404 beantwortet.
+     *
+     * @param id             die ID des Dokuments
+     * @param download       true, wenn der Browser die Datei speichern statt anzeigen soll
+     * @param authentication der angemeldete Benutzer
+     * @param request        die Anfrage
+     * @param response       die Antwort
+     * @throws IOException falls die Datei nicht gelesen oder übertragen werden kann
+     */
+    @GetMapping("/{id}")
+    public void datei(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean download,
+                      Authentication authentication, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Dokument dokument = dokumentService.findById(id);
+        if (dokument == null || !darfZugreifen(authentication, dokument)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String contentType = dokument.getMimeType() != null ? dokument.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        ausliefern(request, response, Paths.get(dokument.getDateipfad()), contentType, dokument.getDokumententyp(), download);
+    }
+
+    /**
+     * Liefert das Vorschaubild eines Dokuments aus, das bei der Nachverarbeitung erzeugt wurde.
+     *
+     * @param id             die ID des Dokuments
+     * @param authentication der angemeldete Benutzer
+     * @param request        die Anfrage
+     * @param response       die Antwort
+     * @throws IOException falls das Vorschaubild nicht gelesen oder übertragen werden kann
+     */
+    @GetMapping("/{id}/vorschau")
+    public void vorschau(@PathVariable Long id, Authentication authentication,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Dokument dokument = dokumentService.findById(id);
+        if (dokument == null || !darfZugreifen(authentication, dokument) || !Boolean.TRUE.equals(dokument.getVorschau())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ausliefern(request, response, postProcessor.vorschauPfad(dokument), MediaType.IMAGE_PNG_VALUE, "vorschau.png", false);
+    }
+
+    private void ausliefern(HttpServletRequest request, HttpServletResponse response, Path path, String contentType,
+                            String dateiname, boolean download) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long laenge = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean komprimiert = Kompression.istKomprimiert(path);
+        boolean gzip = komprimiert && akzeptiertGzip(request);
+        String etag = etag(path, attributes, gzip);
+        if (komprimiert) response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) return;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder(download ? "attachment" : "inline")
+                .filename(dateiname, StandardCharsets.UTF_8).build().toString());
+        if (komprimiert && !gzip) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            if (!"HEAD".equals(request.getMethod())) {
+                try (InputStream in = Kompression.oeffnen(path)) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+            return;
+        }
+        // Teilanfragen beziehen sich bei gzip auf die komprimierte Darstellung
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, Kompression.GZIP);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long ende = laenge - 1;
+        List<HttpRange> ranges = parseRanges(request, etag, lastModified);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.getFirst().getRangeStart(laenge);
+                ende = ranges.getFirst().getRangeEnd(laenge);
+            } catch (IllegalArgumentException e) {
+                start = laenge;
+            }
+            if (start >= laenge || start > ende) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + laenge);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + ende + "/" + laenge);
+        }
+
+        long anzahl = ende - start + 1;
+        response.setContentLengthLong(anzahl);
+        if (!"HEAD".equals(request.getMethod()) && anzahl > 0) {
+            send(request, response, path, start, anzahl);
+        }
+    }
+
+    /**
+     * Ein Dokument gehört zu seinem Mieter oder seiner Wohnung. Da jeder angemeldete Benutzer den gesamten
+     * Bestand verwaltet, darf er die Dateien aller Dokumente lesen, die einem Mieter oder einer Wohnung
+     * zugeordnet sind. Dateien ohne Besitzer werden nicht ausgeliefert.
+     */
+    boolean darfZugreifen(Authentication authentication, Dokument dokument) {
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return false;
+        }
+        return dokument.getMieter() != null || dokument.getWohnung() != null;
+    }
+
+    /**
+     * Liest die angeforderten Bereiche. Ungültige Angaben werden wie fehlende behandelt und führen zur Auslieferung
+     * der ganzen Datei, ebenso ein {@code If-Range}, der nicht mehr zur Datei passt. Mehrere Bereiche werden nicht
+     * als multipart/byteranges beantwortet, sondern ebenfalls mit der ganzen Datei.
+     */
+    private List<HttpRange> parseRanges(HttpServletRequest request, String etag, long lastModified) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || !ifRangeMatches(request, etag, lastModified)) return List.of();
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(etag);
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gibt an, ob der Client gzip als {@code Content-Encoding} akzeptiert, also weder fehlt noch mit {@code q=0}
+     * ausgeschlossen ist.
+     */
+    static boolean akzeptiertGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        if (headers == null) return false;
+        while (headers.hasMoreElements()) {
+            for (String kodierung : headers.nextElement().split(",")) {
+                String[] teile = kodierung.split(";");
+                String name = teile[0].trim();
+                if (!name.equalsIgnoreCase(Kompression.GZIP) && !name.equalsIgnoreCase("x-gzip")) continue;
+                for (int i = 1; i < teile.length; i++) {
+                    String parameter = teile[i].trim();
+                    if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) return false;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blobs sind nach dem SHA-256-Hash ihres Inhalts benannt, der damit ein starkes ETag ist. Die gzip-Darstellung
+     * einer komprimierten Datei besteht aus anderen Bytes und erhält deshalb ein eigenes ETag.
+     * Für ältere Dateien wird das ETag aus Größe und Änderungszeit gebildet.
+     */
+    static String etag(Path path, BasicFileAttributes attributes, boolean gzip) {
+        Matcher blob = BLOB_NAME.matcher(path.getFileName().toString());
+        if (blob.matches()) return "\"" + blob.group(1) + (gzip ? "-" + Kompression.GZIP : "") + "\"";
+        return "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    /**
+     * Überträgt den Bereich der Datei. Bietet Tomcat Sendfile an, wird die Übertragung nach Rückkehr des Handlers
+     * vom Container ohne Kopie in den Anwendungsspeicher erledigt.
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, Path path, long start, long anzahl) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + anzahl);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long gesendet = 0;
+            while (gesendet < anzahl) {
+                long n = channel.transferTo(start + gesendet, anzahl - gesendet, out);
+                if (n <= 0) break;
+                gesendet += n;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import projektarbeit.immobilienverwaltung.service.ExportService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Schnittstelle für den Export von Wohnungen, Mietern, Mietverträgen, Zählerständen und Dokumenten.
+ * <p>
+ * {@code GET /api/export/{art}?format=csv|jsonl|xlsx} liefert die Datei als Download. Die Parameter
+ * {@code suchbegriff}, {@code mieterId} und {@code wohnungId} entsprechen den Filtern der Übersichten.
+ * Die Zeilen werden geschrieben, während sie aus der Datenbank gelesen werden.
+ */
+@RestController
+@RequestMapping(ExportController.PATH)
+public class ExportController {
+
+    /**
+     * Pfad der Export-Schnittstelle.
+     */
+    public static final String PATH = "/api/export";
+
+    private final ExportService exportService;
+
+    /**
+     * Konstruktor für ExportController.
+     *
+     * @param exportService der Service, der die Zeilen liest und schreibt
+     */
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Erstellt die URL eines Exports.
+     *
+     * @param art    die zu exportierenden Daten
+     * @param format das Format
+     * @param filter die Filterkriterien
+     * @return die URL des Downloads
+     */
+    public static String url(ExportService.Art art, ExportService.Format format, ExportService.Filter filter) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath(PATH).pathSegment(art.getPfad())
+                .queryParam("format", format.name().toLowerCase(Locale.ROOT));
+        if (filter.mieterId() != null) builder.queryParam("mieterId", filter.mieterId());
+        if (filter.wohnungId() != null) builder.queryParam("wohnungId", filter.wohnungId());
+        if (filter.suchbegriff() != null && !filter.suchbegriff().isBlank()) {
+            builder.queryParam("suchbegriff", filter.suchbegriff().trim());
+        }
+        return builder.encode().toUriString();
+    }
+
+    /**
+     * Schreibt einen Export in die Antwort.
+     *
+     * @param art         die zu exportierenden Daten, z.B. {@code wohnungen}
+     * @param format      das Format, standardmäßig CSV
+     * @param suchbegriff der Suchbegriff oder null
+     * @param mieterId    die ID des Mieters oder null
+     * @param wohnungId   die ID der Wohnung oder null
+     * @param response    die Antwort, in die die Datei geschrieben wird
+     * @throws IOException falls nicht in die Antwort geschrieben werden kann
+     */
+    @GetMapping("/{art}")
+    public void exportieren(@PathVariable String art,
+                            @RequestParam(defaultValue = "csv") String format,
+                            @RequestParam(required = false) String suchbegriff,
+                            @RequestParam(required = false) Long mieterId,
+                            @RequestParam(required = false) Long wohnungId,
+                            HttpServletResponse response) throws IOException {
+        ExportService.Art exportArt = ExportService.Art.valueOf(art.toUpperCase(Locale.ROOT));
+        ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        String dateiname = exportArt.getPfad() + "-" + LocalDate.now() + "." + exportFormat.getEndung();
+
+        response.setContentType(exportFormat.getMimeType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(dateiname).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        exportService.exportieren(exportArt, new ExportService.Filter(mieterId, wohnungId, suchbegriff),
+                exportFormat, response.getOutputStream());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<String> ungueltig(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,63 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import projektarbeit.immobilienverwaltung.security.ApiSecurityConfig;
+import projektarbeit.immobilienverwaltung.service.ImportService;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Schnittstelle für den Massenimport von Wohnungen mit ihren Mietern und Mietverträgen.
+ * <p>
+ * {@code POST /api/import} erwartet die Datei als Inhalt der Anfrage, als CSV ({@code text/csv}) oder als JSON
+ * ({@code application/json} oder {@code application/x-ndjson}). Die Datei wird gelesen, während sie empfangen wird,
+ * und die Antwort enthält den {@link ImportService.Bericht} mit den Fehlern einzelner Datensätze.
+ * Die Anfrage erfordert die Rolle ADMIN und den Header {@link ApiSecurityConfig#API_HEADER} oder ein CSRF-Token.
+ */
+@RestController
+@RequestMapping(ImportController.PATH)
+public class ImportController {
+
+    /**
+     * Pfad der Import-Schnittstelle.
+     */
+    public static final String PATH = "/api/import";
+
+    private final ImportService importService;
+
+    /**
+     * Konstruktor für ImportController.
+     *
+     * @param importService der Service, der die Datensätze prüft und speichert
+     */
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Importiert die Datei im Inhalt der Anfrage.
+     *
+     * @param format  das Format ({@code csv} oder {@code json}), standardmäßig anhand des Content-Types erkannt
+     * @param request die Anfrage mit der Datei als Inhalt
+     * @return der Bericht über den Import
+     * @throws IOException falls der Inhalt der Anfrage nicht geöffnet werden kann
+     */
+    @PostMapping
+    public ResponseEntity<ImportService.Bericht> importieren(@RequestParam(required = false) String format,
+                                                             HttpServletRequest request) throws IOException {
+        ImportService.Format importFormat = format != null
+                ? ImportService.Format.valueOf(format.toUpperCase(Locale.ROOT))
+                : ImportService.Format.von(request.getContentType());
+        return ResponseEntity.ok(importService.importieren(request.getInputStream(), importFormat));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<String> ungueltig(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
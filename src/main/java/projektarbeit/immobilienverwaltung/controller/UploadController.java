@@ -0,0 +1,183 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.security.ApiSecurityConfig;
+import projektarbeit.immobilienverwaltung.service.DokumentService;
+import projektarbeit.immobilienverwaltung.service.MieterService;
+import projektarbeit.immobilienverwaltung.service.UploadService;
+import projektarbeit.immobilienverwaltung.service.WohnungService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Schnittstelle für fortsetzbare Uploads in mehreren Teilen.
+ * <ol>
+ *     <li>{@code POST /api/uploads} beginnt einen Upload und liefert dessen ID.</li>
+ *     <li>{@code PATCH /api/uploads/{id}} hängt einen Teil an. Der Header {@code Upload-Offset} muss dem bisher
+ *     empfangenen Stand entsprechen.</li>
+ *     <li>{@code HEAD /api/uploads/{id}} liefert nach einem Verbindungsabbruch den Offset, ab dem fortgesetzt wird.</li>
+ *     <li>{@code POST /api/uploads/{id}/abschluss} speichert das Dokument zu einem Mieter oder einer Wohnung.</li>
+ * </ol>
+ * Ändernde Anfragen senden den Header {@link ApiSecurityConfig#API_HEADER} oder ein CSRF-Token mit.
+ */
+@RestController
+@RequestMapping(UploadController.PATH)
+public class UploadController {
+
+    /**
+     * Pfad der Upload-Schnittstelle.
+     */
+    public static final String PATH = "/api/uploads";
+
+    /**
+     * Header mit dem Offset eines Uploads.
+     */
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    /**
+     * Header mit der angekündigten Größe eines Uploads.
+     */
+    public static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final UploadService uploadService;
+    private final DokumentService dokumentService;
+    private final MieterService mieterService;
+    private final WohnungService wohnungService;
+
+    /**
+     * Konstruktor für UploadController.
+     *
+     * @param uploadService   der Service für laufende Uploads
+     * @param dokumentService der Service, über den abgeschlossene Uploads als Dokument gespeichert werden
+     * @param mieterService   der Service, über den der Mieter eines Dokuments geladen wird
+     * @param wohnungService  der Service, über den die Wohnung eines Dokuments geladen wird
+     */
+    @Autowired
+    public UploadController(UploadService uploadService, DokumentService dokumentService,
+                            MieterService mieterService, WohnungService wohnungService) {
+        this.uploadService = uploadService;
+        this.dokumentService = dokumentService;
+        this.mieterService = mieterService;
+        this.wohnungService = wohnungService;
+    }
+
+    /**
+     * Beginnt einen Upload.
+     *
+     * @param dateiname der Name der Datei
+     * @param groesse   die Größe der Datei in Bytes
+     * @param mimeType  der MIME-Typ der Datei
+     * @return die ID des Uploads
+     * @throws IOException falls die temporäre Datei nicht angelegt werden kann
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> start(@RequestParam String dateiname, @RequestParam long groesse,
+                                                     @RequestParam(required = false) String mimeType) throws IOException {
+        if (groesse < 0) throw new IllegalArgumentException("Die Größe darf nicht negativ sein");
+        UploadService.UploadSession session = uploadService.start(dateiname, mimeType, groesse);
+        return ResponseEntity.created(URI.create(PATH + "/" + session.getId()))
+                .header(UPLOAD_OFFSET, "0")
+                .body(Map.of("id", session.getId()));
+    }
+
+    /**
+     * Liefert den Stand eines Uploads.
+     *
+     * @param id die ID des Uploads
+     * @return eine leere Antwort mit Offset und Größe in den Headern
+     */
+    @RequestMapping(path = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> stand(@PathVariable String id) {
+        UploadService.UploadSession session = uploadService.get(id);
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, Long.toString(session.getOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(session.getGroesse()))
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    /**
+     * Hängt den Inhalt der Anfrage an den Upload an. Bricht die Verbindung ab, bleiben die bis dahin
+     * empfangenen Bytes erhalten.
+     *
+     * @param id      die ID des Uploads
+     * @param offset  der Offset, ab dem der Teil geschrieben wird
+     * @param request die Anfrage mit dem Teil als Inhalt
+     * @return eine leere Antwort mit dem neuen Offset
+     * @throws IOException falls der Teil nicht vollständig empfangen werden kann
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> teil(@PathVariable String id, @RequestHeader(UPLOAD_OFFSET) long offset,
+                                     HttpServletRequest request) throws IOException {
+        long neuerOffset = uploadService.append(id, offset, request.getInputStream());
+        return ResponseEntity.noContent().header(UPLOAD_OFFSET, Long.toString(neuerOffset)).build();
+    }
+
+    /**
+     * Schließt einen vollständigen Upload ab und speichert das Dokument zu genau einem Mieter oder einer Wohnung.
+     *
+     * @param id            die ID des Uploads
+     * @param mieterId      die ID des Mieters
+     * @param wohnungId     die ID der Wohnung
+     * @param dokumententyp der Typ des Dokuments, standardmäßig der Dateiname
+     * @return die ID des gespeicherten Dokuments
+     * @throws IOException falls die Datei nicht übernommen werden kann
+     */
+    @PostMapping("/{id}/abschluss")
+    public ResponseEntity<Map<String, Object>> abschluss(@PathVariable String id,
+                                                         @RequestParam(required = false) Long mieterId,
+                                                         @RequestParam(required = false) Long wohnungId,
+                                                         @RequestParam(required = false) String dokumententyp) throws IOException {
+        if ((mieterId == null) == (wohnungId == null)) {
+            throw new IllegalArgumentException("Es muss genau ein Mieter oder eine Wohnung angegeben werden");
+        }
+        Mieter mieter = mieterId != null ? mieterService.findById(mieterId) : null;
+        Wohnung wohnung = wohnungId != null ? wohnungService.findWohnungById(wohnungId) : null;
+        if (mieter == null && wohnung == null) throw new NoSuchElementException("Mieter oder Wohnung existiert nicht");
+
+        String typ = dokumententyp != null && !dokumententyp.isBlank() ? dokumententyp : uploadService.get(id).getDateiname();
+        Dokument dokument = dokumentService.saveUpload(id, wohnung, mieter, typ);
+        return ResponseEntity.created(URI.create(DokumentDownloadController.PATH + "/" + dokument.getDokument_id()))
+                .body(Map.of("id", dokument.getDokument_id()));
+    }
+
+    /**
+     * Bricht einen Upload ab.
+     *
+     * @param id die ID des Uploads
+     * @return eine leere Antwort
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abbrechen(@PathVariable String id) {
+        uploadService.abbrechen(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    ResponseEntity<String> nichtGefunden(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    /**
+     * Ein falscher Offset oder ein gleichzeitiger Schreibvorgang. Der Client fragt den Stand mit HEAD ab.
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    ResponseEntity<String> konflikt(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ResponseEntity<String> ungueltig(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -13,6 +13,7 @@ import projektarbeit.immobilienverwaltung.repository.ZaehlerstandRepository;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -75,6 +76,7 @@ public class ZaehlerstandDemo implements CommandLineRunner {
             // Zaehlerstand-Einträge erstellen, falls Wohnungen verfügbar sind
             if (!wohnungen.isEmpty()) {
                 Random random = new Random();
+                List<Zaehlerstand> zaehlerstaende = new ArrayList<>();
 
                 for (Wohnung wohnung : wohnungen) {
                     double stromValue = 10000 * random.nextDouble();
@@ -85,15 +87,13 @@ public class ZaehlerstandDemo implements CommandLineRunner {
                     gasValue = roundToTwoDecimalPlaces(gasValue);
                     wasserValue = roundToTwoDecimalPlaces(wasserValue);
 
-                    Zaehlerstand strom = new Zaehlerstand(wohnung, LocalDate.of(2023, 1, 1), stromValue, "Strom");
-                    zaehlerstandRepository.save(strom);
-
-                    Zaehlerstand gas = new Zaehlerstand(wohnung, LocalDate.of(2023, 6, 1), gasValue, "Gas");
-                    zaehlerstandRepository.save(gas);
-
-                    Zaehlerstand wasser = new Zaehlerstand(wohnung, LocalDate.of(2023, 11, 1), wasserValue, "Wasser");
-                    zaehlerstandRepository.save(wasser);
+                    zaehlerstaende.add(new Zaehlerstand(wohnung, LocalDate.of(2023, 1, 1), stromValue, "Strom"));
+                    zaehlerstaende.add(new Zaehlerstand(wohnung, LocalDate.of(2023, 6, 1), gasValue, "Gas"));
+                    zaehlerstaende.add(new Zaehlerstand(wohnung, LocalDate.of(2023, 11, 1), wasserValue, "Wasser"));
                 }
+
+                // In einer Transaktion speichern, damit die Einträge gebündelt eingefügt werden
+                zaehlerstandRepository.saveAll(zaehlerstaende);
                 logger.info("Zaehlerstand-Daten geladen.");
             } else {
                 logger.warn("Keine Wohnungen gefunden, Initialisierung der Zaehlerstand-Daten wird übersprungen.");
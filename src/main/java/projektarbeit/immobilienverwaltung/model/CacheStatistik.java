@@ -0,0 +1,35 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Kennzahlen einer Region des Second-Level-Caches.
+ *
+ * @param region       der Name der Region.
+ * @param eintraege    die Anzahl der gespeicherten Einträge.
+ * @param groesse      die maximale Anzahl an Einträgen.
+ * @param treffer      die Anzahl der Zugriffe, die aus dem Cache beantwortet wurden.
+ * @param fehlversuche die Anzahl der Zugriffe, für die kein Eintrag vorhanden war.
+ * @param trefferquote der Anteil der Treffer an allen Zugriffen zwischen 0 und 1.
+ */
+public record CacheStatistik(String region,
+                             int eintraege,
+                             int groesse,
+                             long treffer,
+                             long fehlversuche,
+                             double trefferquote) {
+
+    /**
+     * Erstellt die Kennzahlen und berechnet die Trefferquote.
+     *
+     * @param region       der Name der Region.
+     * @param eintraege    die Anzahl der gespeicherten Einträge.
+     * @param groesse      die maximale Anzahl an Einträgen.
+     * @param treffer      die Anzahl der Treffer.
+     * @param fehlversuche die Anzahl der Fehlversuche.
+     * @return die Kennzahlen.
+     */
+    public static CacheStatistik of(String region, int eintraege, int groesse, long treffer, long fehlversuche) {
+        long zugriffe = treffer + fehlversuche;
+        return new CacheStatistik(region, eintraege, groesse, treffer, fehlversuche,
+                zugriffe == 0 ? 0 : (double) treffer / zugriffe);
+    }
+}
@@ -2,15 +2,31 @@ package projektarbeit.immobilienverwaltung.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
 import jakarta.validation.constraints.NotNull;
 
+import java.io.Serializable;
+import java.util.Objects;
+
 /**
  * Entity-Klasse zur Darstellung einer Konfigurationseinstellung.
  * Diese Klasse enthält die Schlüssel-Wert-Paare für Konfigurationseinstellungen.
+ * Jede Einstellung gehört einem Benutzer; Einstellungen mit dem Benutzer {@link #GLOBAL} gelten für die ganze
+ * Anwendung und für alle Benutzer, die den Schlüssel nicht selbst gesetzt haben.
  */
 @Entity
+@IdClass(Configuration.Schluessel.class)
 public class Configuration {
 
+    /**
+     * Benutzer der anwendungsweiten Einstellungen.
+     */
+    public static final String GLOBAL = "";
+
+    @Id
+    @NotNull
+    private String benutzer = GLOBAL;
+
     @Id
     @NotNull
     private String configKey;
@@ -18,6 +34,43 @@ public class Configuration {
     @NotNull
     private String configValue;
 
+    /**
+     * Standardkonstruktor für JPA.
+     */
+    public Configuration() {
+    }
+
+    /**
+     * Erstellt eine Konfigurationseinstellung.
+     *
+     * @param benutzer    der Benutzername oder {@link #GLOBAL}.
+     * @param configKey   der Schlüssel der Konfigurationseinstellung.
+     * @param configValue der Wert der Konfigurationseinstellung.
+     */
+    public Configuration(String benutzer, String configKey, String configValue) {
+        this.benutzer = benutzer;
+        this.configKey = configKey;
+        this.configValue = configValue;
+    }
+
+    /**
+     * Ruft den Benutzer der Konfigurationseinstellung ab.
+     *
+     * @return der Benutzername oder {@link #GLOBAL}.
+     */
+    public String getBenutzer() {
+        return benutzer;
+    }
+
+    /**
+     * Setzt den Benutzer der Konfigurationseinstellung.
+     *
+     * @param benutzer der Benutzername oder {@link #GLOBAL}.
+     */
+    public void setBenutzer(String benutzer) {
+        this.benutzer = benutzer;
+    }
+
     /**
      * Ruft den Schlüssel der Konfigurationseinstellung ab.
      *
@@ -53,4 +106,73 @@ public class Configuration {
     public void setConfigValue(String configValue) {
         this.configValue = configValue;
     }
-}
\ No newline at end of file
+
+    /**
+     * Ruft den zusammengesetzten Primärschlüssel ab.
+     *
+     * @return Benutzer und Schlüssel der Konfigurationseinstellung.
+     */
+    public Schluessel getSchluessel() {
+        return new Schluessel(benutzer, configKey);
+    }
+
+    /**
+     * Zusammengesetzter Primärschlüssel aus Benutzer und Schlüssel.
+     */
+    public static class Schluessel implements Serializable {
+
+        private String benutzer;
+        private String configKey;
+
+        /**
+         * Standardkonstruktor für JPA.
+         */
+        public Schluessel() {
+        }
+
+        /**
+         * Erstellt einen Primärschlüssel.
+         *
+         * @param benutzer  der Benutzername oder {@link #GLOBAL}.
+         * @param configKey der Schlüssel der Konfigurationseinstellung.
+         */
+        public Schluessel(String benutzer, String configKey) {
+            this.benutzer = benutzer;
+            this.configKey = configKey;
+        }
+
+        /**
+         * Ruft den Benutzer ab.
+         *
+         * @return der Benutzername oder {@link #GLOBAL}.
+         */
+        public String getBenutzer() {
+            return benutzer;
+        }
+
+        /**
+         * Ruft den Schlüssel ab.
+         *
+         * @return der Schlüssel der Konfigurationseinstellung.
+         */
+        public String getConfigKey() {
+            return configKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Schluessel other && Objects.equals(benutzer, other.benutzer)
+                    && Objects.equals(configKey, other.configKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(benutzer, configKey);
+        }
+
+        @Override
+        public String toString() {
+            return benutzer + "/" + configKey;
+        }
+    }
+}
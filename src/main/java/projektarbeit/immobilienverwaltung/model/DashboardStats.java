@@ -0,0 +1,16 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Unveränderlicher Schnappschuss der Kennzahlen, die auf dem Dashboard angezeigt werden.
+ * Alle Werte werden gemeinsam in einer einzigen Datenbankabfrage ermittelt.
+ *
+ * @param mieteinnahmen       die Summe der monatlichen Mieten aller Mietverträge.
+ * @param totalWohnungen      die Gesamtzahl der Wohnungen.
+ * @param vermieteteWohnungen die Anzahl der Wohnungen mit einem Mietvertrag.
+ * @param totalMieter         die Gesamtzahl der Mieter.
+ */
+public record DashboardStats(double mieteinnahmen,
+                             long totalWohnungen,
+                             long vermieteteWohnungen,
+                             long totalMieter) {
+}
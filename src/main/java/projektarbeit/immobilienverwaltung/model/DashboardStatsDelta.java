@@ -0,0 +1,98 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Beschreibt eine inkrementelle Änderung der Dashboard-Kennzahlen.
+ * Wird von den Services beim Speichern und Löschen von Entitäten als Ereignis veröffentlicht
+ * und vom DashboardStatsStore auf den aktuellen Schnappschuss angewendet.
+ *
+ * @param mieteinnahmen       die Änderung der Summe der monatlichen Mieten.
+ * @param totalWohnungen      die Änderung der Anzahl der Wohnungen.
+ * @param vermieteteWohnungen die Änderung der Anzahl der vermieteten Wohnungen.
+ * @param totalMieter         die Änderung der Anzahl der Mieter.
+ */
+public record DashboardStatsDelta(double mieteinnahmen,
+                                  long totalWohnungen,
+                                  long vermieteteWohnungen,
+                                  long totalMieter) {
+
+    /**
+     * Erstellt eine Änderung für eine neu angelegte Wohnung.
+     *
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta wohnungAdded() {
+        return new DashboardStatsDelta(0, 1, 0, 0);
+    }
+
+    /**
+     * Erstellt eine Änderung für eine gelöschte Wohnung.
+     *
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta wohnungRemoved() {
+        return new DashboardStatsDelta(0, -1, 0, 0);
+    }
+
+    /**
+     * Erstellt eine Änderung für einen neu angelegten Mieter.
+     *
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta mieterAdded() {
+        return new DashboardStatsDelta(0, 0, 0, 1);
+    }
+
+    /**
+     * Erstellt eine Änderung für einen gelöschten Mieter.
+     *
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta mieterRemoved() {
+        return new DashboardStatsDelta(0, 0, 0, -1);
+    }
+
+    /**
+     * Erstellt eine Änderung für einen neu angelegten Mietvertrag.
+     *
+     * @param miete die monatliche Miete des Mietvertrags.
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta mietvertragAdded(double miete) {
+        return new DashboardStatsDelta(miete, 0, 1, 0);
+    }
+
+    /**
+     * Erstellt eine Änderung für einen gelöschten Mietvertrag.
+     *
+     * @param miete die monatliche Miete des gelöschten Mietvertrags.
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta mietvertragRemoved(double miete) {
+        return new DashboardStatsDelta(-miete, 0, -1, 0);
+    }
+
+    /**
+     * Erstellt eine Änderung für einen Mietvertrag, dessen Miete angepasst wurde.
+     *
+     * @param alteMiete die bisher gespeicherte Miete.
+     * @param neueMiete die neue Miete.
+     * @return die Änderung der Kennzahlen.
+     */
+    public static DashboardStatsDelta mieteChanged(double alteMiete, double neueMiete) {
+        return new DashboardStatsDelta(neueMiete - alteMiete, 0, 0, 0);
+    }
+
+    /**
+     * Wendet diese Änderung auf einen Schnappschuss an.
+     *
+     * @param stats der bisherige Schnappschuss.
+     * @return ein neuer Schnappschuss mit den angepassten Werten.
+     */
+    public DashboardStats applyTo(DashboardStats stats) {
+        return new DashboardStats(
+                stats.mieteinnahmen() + mieteinnahmen,
+                stats.totalWohnungen() + totalWohnungen,
+                stats.vermieteteWohnungen() + vermieteteWohnungen,
+                stats.totalMieter() + totalMieter);
+    }
+}
@@ -10,12 +10,20 @@ import jakarta.validation.constraints.NotBlank;
 @Entity
 @Table(name = "dokument", indexes = {
         @Index(name = "idx_dokument_wohnung_id", columnList = "wohnung_id"),
-        @Index(name = "idx_dokument_mieter_id", columnList = "mieter_id")
+        @Index(name = "idx_dokument_mieter_id", columnList = "mieter_id"),
+        @Index(name = "idx_dokument_dokumententyp", columnList = "dokumententyp"),
+        @Index(name = "idx_dokument_dateipfad", columnList = "dateipfad")
 })
 public class Dokument {
 
+    /**
+     * Maximale Länge des extrahierten Textes, der für die Suche gespeichert wird.
+     */
+    public static final int TEXTINHALT_LAENGE = 4000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dokument_seq")
+    @SequenceGenerator(name = "dokument_seq", sequenceName = "dokument_seq", allocationSize = 50)
     private Long dokument_id;
 
     @ManyToOne()
@@ -37,6 +45,18 @@ public class Dokument {
     @Column
     private String mimeType;
 
+    @Column(length = TEXTINHALT_LAENGE)
+    private String textinhalt;
+
+    @Column
+    private Boolean vorschau;
+
+    @Column
+    private Long groesse;
+
+    @Column
+    private Long gespeicherteGroesse;
+
     /**
      * Standardkonstruktor für JPA.
      */
@@ -160,6 +180,43 @@ public class Dokument {
         this.mimeType = mimeType;
     }
 
+    /**
+     * Gibt den Anfang des aus der Datei extrahierten Textes zurück, über den das Dokument gesucht werden kann.
+     *
+     * @return der extrahierte Text oder null, wenn die Datei keinen lesbaren Text enthält.
+     */
+    public String getTextinhalt() {
+        return textinhalt;
+    }
+
+    /**
+     * Setzt den extrahierten Text dieses Dokuments.
+     *
+     * @param textinhalt der extrahierte Text.
+     */
+    public void setTextinhalt(String textinhalt) {
+        this.textinhalt = textinhalt;
+    }
+
+    /**
+     * Gibt an, ob für dieses Dokument eine Vorschau erzeugt wurde.
+     *
+     * @return true, wenn eine Vorschau existiert, false, wenn keine erzeugt werden konnte, und null, solange das
+     * Dokument noch nicht verarbeitet wurde.
+     */
+    public Boolean getVorschau() {
+        return vorschau;
+    }
+
+    /**
+     * Setzt, ob für dieses Dokument eine Vorschau erzeugt wurde.
+     *
+     * @param vorschau true, wenn eine Vorschau existiert.
+     */
+    public void setVorschau(Boolean vorschau) {
+        this.vorschau = vorschau;
+    }
+
     /**
      * Gibt eine String-Darstellung dieses Dokuments zurück.
      *
@@ -176,4 +233,51 @@ public class Dokument {
                 "', mimeType='" + mimeType +
                 "']";
     }
-}
\ No newline at end of file
+
+    /**
+     * Gibt die Größe des Inhalts dieses Dokuments zurück.
+     *
+     * @return die Größe in Bytes oder null bei Dokumenten, die vor der Komprimierung gespeichert wurden.
+     */
+    public Long getGroesse() {
+        return groesse;
+    }
+
+    /**
+     * Setzt die Größe des Inhalts dieses Dokuments.
+     *
+     * @param groesse die Größe in Bytes.
+     */
+    public void setGroesse(Long groesse) {
+        this.groesse = groesse;
+    }
+
+    /**
+     * Gibt die Größe der gespeicherten, gegebenenfalls komprimierten Datei zurück.
+     *
+     * @return die Größe in Bytes oder null bei Dokumenten, die vor der Komprimierung gespeichert wurden.
+     */
+    public Long getGespeicherteGroesse() {
+        return gespeicherteGroesse;
+    }
+
+    /**
+     * Setzt die Größe der gespeicherten, gegebenenfalls komprimierten Datei.
+     *
+     * @param gespeicherteGroesse die Größe in Bytes.
+     */
+    public void setGespeicherteGroesse(Long gespeicherteGroesse) {
+        this.gespeicherteGroesse = gespeicherteGroesse;
+    }
+
+    /**
+     * Gibt das Verhältnis der gespeicherten Größe zur Größe des Inhalts zurück.
+     *
+     * @return die Kompressionsrate, 1.0 bei unkomprimiert gespeicherten Dateien, oder null, wenn die Größen
+     * nicht bekannt sind.
+     */
+    public Double getKompressionsrate() {
+        if (groesse == null || gespeicherteGroesse == null) return null;
+        return groesse == 0 ? 1.0 : (double) gespeicherteGroesse / groesse;
+    }
+}
@@ -0,0 +1,21 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Filterkriterien für die Dokumentenübersicht.
+ * Alle gesetzten Kriterien müssen gleichzeitig erfüllt sein, nicht gesetzte Kriterien schränken nicht ein.
+ *
+ * @param mieterId    die ID des Mieters, zu dem die Dokumente gehören, oder null.
+ * @param wohnungId   die ID der Wohnung, zu der die Dokumente gehören, oder null.
+ * @param suchbegriff der Suchbegriff für Dokumenttyp, Mietername und Adresse, oder null.
+ */
+public record DokumentFilter(Long mieterId, Long wohnungId, String suchbegriff) {
+
+    /**
+     * Erstellt einen Filter ohne Einschränkungen.
+     *
+     * @return der Filter
+     */
+    public static DokumentFilter alle() {
+        return new DokumentFilter(null, null, null);
+    }
+}
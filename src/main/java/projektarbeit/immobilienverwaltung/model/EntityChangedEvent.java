@@ -0,0 +1,31 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Ereignis, das die Services nach dem Speichern oder Löschen einer Entität veröffentlichen.
+ * Abhängige Strukturen im Speicher, z.B. der Suchindex, werden damit nach dem Commit aktualisiert.
+ *
+ * @param entity  die gespeicherte oder gelöschte Entität.
+ * @param deleted true, wenn die Entität gelöscht wurde, sonst false.
+ */
+public record EntityChangedEvent(Object entity, boolean deleted) {
+
+    /**
+     * Erstellt ein Ereignis für eine gespeicherte Entität.
+     *
+     * @param entity die gespeicherte Entität
+     * @return das Ereignis
+     */
+    public static EntityChangedEvent saved(Object entity) {
+        return new EntityChangedEvent(entity, false);
+    }
+
+    /**
+     * Erstellt ein Ereignis für eine gelöschte Entität.
+     *
+     * @param entity die gelöschte Entität
+     * @return das Ereignis
+     */
+    public static EntityChangedEvent deleted(Object entity) {
+        return new EntityChangedEvent(entity, true);
+    }
+}
@@ -0,0 +1,101 @@
+package projektarbeit.immobilienverwaltung.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Entity-Klasse für ein zwischengespeichertes Ergebnis der Geokodierung.
+ * Der Schlüssel ist die normalisierte Adresse. Wurde für eine Adresse nichts gefunden, bleiben
+ * Breiten- und Längengrad leer, damit die Adresse nicht bei jedem Speichern erneut abgefragt wird.
+ */
+@Entity
+@Table(name = "geocoding_cache")
+public class GeocodingCacheEintrag {
+
+    /**
+     * Maximale Länge einer normalisierten Adresse.
+     */
+    public static final int ADRESSE_LAENGE = 500;
+
+    @Id
+    @Column(length = ADRESSE_LAENGE)
+    private String adresse;
+
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
+    @Column(nullable = false)
+    private Instant abgerufen;
+
+    /**
+     * Standardkonstruktor für JPA.
+     */
+    public GeocodingCacheEintrag() {
+    }
+
+    /**
+     * Erstellt einen neuen Eintrag.
+     *
+     * @param adresse     die normalisierte Adresse.
+     * @param koordinaten Breiten- und Längengrad oder null, wenn die Adresse nicht gefunden wurde.
+     * @param abgerufen   der Zeitpunkt der Abfrage.
+     */
+    public GeocodingCacheEintrag(String adresse, double[] koordinaten, Instant abgerufen) {
+        this.adresse = adresse;
+        this.latitude = koordinaten != null ? koordinaten[0] : null;
+        this.longitude = koordinaten != null ? koordinaten[1] : null;
+        this.abgerufen = abgerufen;
+    }
+
+    /**
+     * Gibt die normalisierte Adresse zurück.
+     *
+     * @return die Adresse.
+     */
+    public String getAdresse() {
+        return adresse;
+    }
+
+    /**
+     * Gibt den Breitengrad zurück.
+     *
+     * @return der Breitengrad oder null, wenn die Adresse nicht gefunden wurde.
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Gibt den Längengrad zurück.
+     *
+     * @return der Längengrad oder null, wenn die Adresse nicht gefunden wurde.
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Gibt den Zeitpunkt der Abfrage zurück.
+     *
+     * @return der Zeitpunkt.
+     */
+    public Instant getAbgerufen() {
+        return abgerufen;
+    }
+
+    /**
+     * Gibt die Koordinaten als Array zurück.
+     *
+     * @return Breiten- und Längengrad oder null, wenn die Adresse nicht gefunden wurde.
+     */
+    public double[] getKoordinaten() {
+        return latitude != null && longitude != null ? new double[]{latitude, longitude} : null;
+    }
+}
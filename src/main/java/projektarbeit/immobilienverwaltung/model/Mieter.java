@@ -1,6 +1,8 @@
 package projektarbeit.immobilienverwaltung.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.*;
 
 import java.util.ArrayList;
@@ -12,13 +14,16 @@ import java.util.List;
  */
 @SuppressWarnings({"unused", "SpellCheckingInspection"})
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mieter")
 @Table(name = "mieter", indexes = {
         @Index(name = "idx_mieter_email", columnList = "email")
 })
 public class Mieter implements Comparable<Mieter>{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mieter_seq")
+    @SequenceGenerator(name = "mieter_seq", sequenceName = "mieter_seq", allocationSize = 50)
     private Long mieterId;
 
     @OneToMany(mappedBy = "mieter", fetch = FetchType.LAZY)
@@ -42,6 +47,7 @@ public class Mieter implements Comparable<Mieter>{
     private String telefonnummer; // can start with 0
 
     @OneToMany(mappedBy = "mieter", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mieter-mietvertraege")
     private List<Mietvertrag> mietvertraege = new ArrayList<>();
 
     @Column
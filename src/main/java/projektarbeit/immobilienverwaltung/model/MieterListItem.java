@@ -0,0 +1,14 @@
+package projektarbeit.immobilienverwaltung.model;
+
+import java.util.List;
+
+/**
+ * Lesemodell für eine Zeile der Mieterübersicht.
+ * Enthält den Mieter zusammen mit seinen Mietverträgen (inklusive Wohnung), die für alle Zeilen
+ * einer Seite gemeinsam in einer einzigen Abfrage geladen werden.
+ *
+ * @param mieter         der Mieter dieser Zeile.
+ * @param mietvertraege  die Mietverträge des Mieters mit bereits geladener Wohnung.
+ */
+public record MieterListItem(Mieter mieter, List<Mietvertrag> mietvertraege) {
+}
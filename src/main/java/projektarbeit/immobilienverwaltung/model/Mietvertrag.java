@@ -1,6 +1,8 @@
 package projektarbeit.immobilienverwaltung.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -14,6 +16,8 @@ import java.time.LocalDate;
  */
 @ValidMietPeriod
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "mietvertrag")
 @Table(name = "mietvertrag", indexes = {
         @Index(name = "idx_mietvertrag_mieter_id", columnList = "mieter_id"),
         @Index(name = "idx_mietvertrag_wohnung_id", columnList = "wohnung_id")
@@ -21,7 +25,8 @@ import java.time.LocalDate;
 public class Mietvertrag {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mietvertrag_seq")
+    @SequenceGenerator(name = "mietvertrag_seq", sequenceName = "mietvertrag_seq", allocationSize = 50)
     private Long mietvertrag_id;
 
     @ManyToOne
@@ -0,0 +1,141 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Treffer der globalen Schnellsuche.
+ * Enthält nur die Texte für die Vorschlagsliste und die IDs, die für die Navigation zum Treffer benötigt werden,
+ * damit die Suche ohne Zugriff auf die Entitäten beantwortet werden kann.
+ *
+ * @param typ          der Entitätstyp des Treffers.
+ * @param id           die ID der Entität.
+ * @param titel        die Hauptzeile des Vorschlags.
+ * @param beschreibung die Zusatzzeile des Vorschlags, kann leer sein.
+ * @param mieterId     die ID des zugehörigen Mieters oder null.
+ * @param wohnungId    die ID der zugehörigen Wohnung oder null.
+ */
+public record QuickSearchHit(Typ typ, Long id, String titel, String beschreibung, Long mieterId, Long wohnungId) {
+
+    /**
+     * Die Entitätstypen, die von der Schnellsuche gefunden werden.
+     */
+    public enum Typ {
+        MIETER("Mieter"),
+        WOHNUNG("Wohnung"),
+        MIETVERTRAG("Mietvertrag"),
+        DOKUMENT("Dokument");
+
+        private final String bezeichnung;
+
+        Typ(String bezeichnung) {
+            this.bezeichnung = bezeichnung;
+        }
+
+        /**
+         * Gibt die Bezeichnung des Typs für die Anzeige zurück.
+         *
+         * @return die Bezeichnung des Typs
+         */
+        public String getBezeichnung() {
+            return bezeichnung;
+        }
+    }
+
+    /**
+     * Gibt den Text zurück, über den der Treffer gefunden wird.
+     *
+     * @return Titel und Beschreibung, durch ein Leerzeichen getrennt
+     */
+    public String suchtext() {
+        return titel + " " + beschreibung;
+    }
+
+    /**
+     * Erstellt den Treffer eines Mieters mit Name, E-Mail und Telefonnummer.
+     *
+     * @param mieter der Mieter
+     * @return der Treffer
+     */
+    public static QuickSearchHit of(Mieter mieter) {
+        return mieter(mieter.getMieter_id(), mieter.getVorname(), mieter.getName(), mieter.getEmail(), mieter.getTelefonnummer());
+    }
+
+    /**
+     * Erstellt den Treffer einer Wohnung mit ihrer Adresse und Wohnungsnummer.
+     *
+     * @param wohnung die Wohnung
+     * @return der Treffer
+     */
+    public static QuickSearchHit of(Wohnung wohnung) {
+        return wohnung(wohnung.getWohnung_id(), wohnung.getStrasse(), wohnung.getHausnummer(), wohnung.getPostleitzahl(),
+                wohnung.getStadt(), wohnung.getWohnungsnummer());
+    }
+
+    /**
+     * Erstellt einen Treffer aus einer Zeile der Projektion {@code findQuickSearchZeilen} des Repositories
+     * des jeweiligen Typs, ohne die Entität zu laden. Die Reihenfolge der Spalten ist dort dokumentiert.
+     *
+     * @param typ   der Entitätstyp der Zeile
+     * @param zeile die Spalten der Zeile
+     * @return der Treffer
+     */
+    public static QuickSearchHit ausZeile(Typ typ, Object[] zeile) {
+        return switch (typ) {
+            case MIETER -> mieter((Long) zeile[0], (String) zeile[1], (String) zeile[2], (String) zeile[3], (String) zeile[4]);
+            case WOHNUNG -> wohnung((Long) zeile[0], (String) zeile[1], (String) zeile[2], (String) zeile[3],
+                    (String) zeile[4], (String) zeile[5]);
+            case MIETVERTRAG -> mietvertrag((Long) zeile[0], (Long) zeile[1], (String) zeile[2], (String) zeile[3],
+                    (Long) zeile[4], (String) zeile[5], (String) zeile[6], (String) zeile[7]);
+            case DOKUMENT -> dokument((Long) zeile[0], (String) zeile[1], (Long) zeile[2], (String) zeile[3],
+                    (String) zeile[4], (Long) zeile[5], (String) zeile[6], (String) zeile[7]);
+        };
+    }
+
+    private static QuickSearchHit mieter(Long mieterId, String vorname, String name, String email, String telefonnummer) {
+        return new QuickSearchHit(Typ.MIETER, mieterId, join(" ", vorname, name), join(" · ", email, telefonnummer),
+                mieterId, null);
+    }
+
+    private static QuickSearchHit wohnung(Long wohnungId, String strasse, String hausnummer, String postleitzahl,
+                                          String stadt, String wohnungsnummer) {
+        return new QuickSearchHit(Typ.WOHNUNG, wohnungId,
+                join(", ", join(" ", strasse, hausnummer), wohnungsnummer != null ? "Wohnung " + wohnungsnummer : null),
+                join(" ", postleitzahl, stadt), null, wohnungId);
+    }
+
+    /**
+     * Treffer eines Mietvertrags mit dem Namen des Mieters und der Adresse der Wohnung.
+     */
+    private static QuickSearchHit mietvertrag(Long mietvertragId, Long mieterId, String vorname, String name,
+                                              Long wohnungId, String strasse, String hausnummer, String stadt) {
+        return new QuickSearchHit(Typ.MIETVERTRAG, mietvertragId,
+                join(" ", "Mietvertrag", fullName(mieterId, vorname, name)),
+                wohnungId != null ? join(", ", join(" ", strasse, hausnummer), stadt) : "",
+                mieterId, wohnungId);
+    }
+
+    /**
+     * Treffer eines Dokuments mit seinem Typ sowie dem Mieter oder der Wohnung, zu der es gehört.
+     */
+    private static QuickSearchHit dokument(Long dokumentId, String dokumententyp, Long mieterId, String vorname,
+                                           String name, Long wohnungId, String strasse, String hausnummer) {
+        return new QuickSearchHit(Typ.DOKUMENT, dokumentId, dokumententyp,
+                join(", ", fullName(mieterId, vorname, name), wohnungId != null ? join(" ", strasse, hausnummer) : null),
+                mieterId, wohnungId);
+    }
+
+    /**
+     * Entspricht {@link Mieter#getFullName()}, wenn ein Mieter vorhanden ist.
+     */
+    private static String fullName(Long mieterId, String vorname, String name) {
+        return mieterId != null ? vorname + " " + name : null;
+    }
+
+    private static String join(String separator, String... parts) {
+        StringBuilder text = new StringBuilder();
+        for (String part : parts) {
+            if (part == null || part.isBlank()) continue;
+            if (!text.isEmpty()) text.append(separator);
+            text.append(part);
+        }
+        return text.toString();
+    }
+}
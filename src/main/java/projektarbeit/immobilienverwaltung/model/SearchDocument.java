@@ -0,0 +1,53 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Durchsuchbarer Text einer Entität für den Suchindex.
+ * Die Repositories liefern die Dokumente als Projektion, ohne die Entitäten selbst zu laden.
+ *
+ * @param id   die ID der Entität.
+ * @param text die durchsuchbaren Felder, durch Leerzeichen getrennt.
+ */
+public record SearchDocument(Long id, String text) {
+
+    /**
+     * Erstellt das Suchdokument eines Mieters aus Name, Vorname, E-Mail und Telefonnummer.
+     *
+     * @param mieter der Mieter
+     * @return das Suchdokument
+     */
+    public static SearchDocument of(Mieter mieter) {
+        return new SearchDocument(mieter.getMieter_id(), join(mieter.getName(), mieter.getVorname(),
+                mieter.getEmail(), mieter.getTelefonnummer()));
+    }
+
+    /**
+     * Erstellt das Suchdokument einer Wohnung aus Straße, Hausnummer, Postleitzahl und Stadt.
+     *
+     * @param wohnung die Wohnung
+     * @return das Suchdokument
+     */
+    public static SearchDocument of(Wohnung wohnung) {
+        return of(WohnungAdresse.of(wohnung));
+    }
+
+    /**
+     * Erstellt das Suchdokument einer Wohnung aus Straße, Hausnummer, Postleitzahl und Stadt ihrer Adresse.
+     *
+     * @param adresse die Adresse der Wohnung
+     * @return das Suchdokument
+     */
+    public static SearchDocument of(WohnungAdresse adresse) {
+        return new SearchDocument(adresse.wohnungId(), join(adresse.strasse(), adresse.hausnummer(),
+                adresse.postleitzahl(), adresse.stadt()));
+    }
+
+    private static String join(String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field == null) continue;
+            if (!text.isEmpty()) text.append(' ');
+            text.append(field);
+        }
+        return text.toString();
+    }
+}
@@ -1,9 +1,15 @@
 package projektarbeit.immobilienverwaltung.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import jakarta.validation.constraints.*;
 import projektarbeit.immobilienverwaltung.validation.ValidYear;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,15 +19,21 @@ import java.util.List;
  */
 @SuppressWarnings({"SpellCheckingInspection", "unused"})
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wohnung")
+@DynamicUpdate
 @Table(name = "wohnung", indexes = {
         @Index(name = "idx_wohnung_strasse", columnList = "strasse"),
         @Index(name = "idx_wohnung_postleitzahl", columnList = "postleitzahl"),
-        @Index(name = "idx_wohnung_stadt", columnList = "stadt")
+        @Index(name = "idx_wohnung_stadt", columnList = "stadt"),
+        @Index(name = "idx_wohnung_adresse", columnList = "strasse, hausnummer, postleitzahl, stadt"),
+        @Index(name = "idx_wohnung_gebaeude_id", columnList = "gebaeude_id")
 })
 public class Wohnung implements Comparable<Wohnung>{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wohnung_seq")
+    @SequenceGenerator(name = "wohnung_seq", sequenceName = "wohnung_seq", allocationSize = 50)
     private Long wohnung_id;
 
     @Column
@@ -83,7 +95,7 @@ public class Wohnung implements Comparable<Wohnung>{
     private boolean hatKlimaanlage;
 
     @Transient
-    private List<Wohnung> subWohnungen = new ArrayList<>();
+    private long anzahlSubWohnungen;
 
     @Transient
     private boolean isHeader = false;
@@ -96,10 +108,19 @@ public class Wohnung implements Comparable<Wohnung>{
     @Pattern(regexp = "^[a-zA-Z0-9]*$", message = "Illegal Wohnungsnummer")
     private String wohnungsnummer;
 
+    @Column()
     private Double latitude;
 
+    @Column()
     private Double longitude;
 
+    // Aus der Adresse berechnet, damit aufgeklappte Gebäude per Index statt über alle Adressen gefunden werden
+    @Column()
+    private Long gebaeudeId;
+
+    @Transient
+    private String gespeicherteAdresse;
+
     /**
      * Standardkonstruktor für JPA.
      */
@@ -500,21 +521,21 @@ public class Wohnung implements Comparable<Wohnung>{
     }
 
     /**
-     * Gibt die Liste der Subwohnungen für diese Wohnung zurück.
+     * Gibt die Anzahl der Subwohnungen zurück, wenn diese Wohnung ein Header ist.
      *
-     * @return die Liste der Subwohnungen
+     * @return die Anzahl der Subwohnungen
      */
-    public List<Wohnung> getSubWohnungen() {
-        return subWohnungen;
+    public long getAnzahlSubWohnungen() {
+        return anzahlSubWohnungen;
     }
 
     /**
-     * Setzt die Liste der Subwohnungen für diese Wohnung.
+     * Setzt die Anzahl der Subwohnungen für diesen Header.
      *
-     * @param subWohnungen die Liste der Subwohnungen
+     * @param anzahlSubWohnungen die Anzahl der Subwohnungen
      */
-    public void setSubWohnungen(List<Wohnung> subWohnungen) {
-        this.subWohnungen = subWohnungen;
+    public void setAnzahlSubWohnungen(long anzahlSubWohnungen) {
+        this.anzahlSubWohnungen = anzahlSubWohnungen;
     }
 
     /**
@@ -535,6 +556,55 @@ public class Wohnung implements Comparable<Wohnung>{
         isHeader = header;
     }
 
+    /**
+     * Gibt die ID des Gebäudes zurück, das dieser Header zusammenfasst.
+     * Sie wird aus der Adresse berechnet und bleibt daher gleich, wenn an der Adresse Wohnungen hinzukommen oder
+     * gelöscht werden.
+     *
+     * @return die Gebäude-ID oder null, wenn diese Wohnung kein Header ist
+     */
+    public Long getGebaeudeId() {
+        return isHeader ? gebaeudeId : null;
+    }
+
+    /**
+     * Setzt die Gebäude-ID eines Header-Knotens, wie sie an den Wohnungen der Adresse gespeichert ist.
+     *
+     * @param gebaeudeId die Gebäude-ID
+     */
+    void setGebaeudeId(Long gebaeudeId) {
+        this.gebaeudeId = gebaeudeId;
+    }
+
+    /**
+     * Berechnet die Gebäude-ID vor dem Speichern neu, wenn sie fehlt oder sich die Adresse geändert hat.
+     * Wird von JPA aufgerufen.
+     */
+    @PrePersist
+    @PreUpdate
+    public void berechneGebaeudeId() {
+        if (gebaeudeId == null || isAdresseGeaendert()) gebaeudeId = gebaeudeId(adressSchluessel());
+    }
+
+    /**
+     * Berechnet die Gebäude-ID zu einem Adressschlüssel. Das Skript {@code db/gebaeude-postgresql.sql} berechnet sie
+     * für bestehende Wohnungen auf dieselbe Weise.
+     *
+     * @param adressSchluessel die mit | verbundenen Adressfelder
+     * @return die Gebäude-ID
+     */
+    static long gebaeudeId(String adressSchluessel) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(adressSchluessel.getBytes(StandardCharsets.UTF_8));
+            // 48 Bit genügen für eindeutige Gebäude und halten den gespeicherten Zustand kurz
+            long id = 0;
+            for (int i = 0; i < 6; i++) id = id << 8 | (hash[i] & 0xFF);
+            return id;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
     /**
      * Gibt die Breite der Wohnung zurück.
      *
@@ -571,6 +641,31 @@ public class Wohnung implements Comparable<Wohnung>{
         this.longitude = longitude;
     }
 
+    /**
+     * Merkt sich die Adresse, mit der die Wohnung geladen oder gespeichert wurde. Wird von JPA aufgerufen.
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    public void merkeAdresse() {
+        gespeicherteAdresse = adressSchluessel();
+    }
+
+    /**
+     * Überprüft, ob sich eines der Adressfelder (Straße, Hausnummer, Postleitzahl, Stadt, Land) seit dem Laden
+     * oder Speichern geändert hat. Neue Wohnungen gelten als geändert.
+     *
+     * @return true, wenn die Adresse neu geokodiert werden muss, sonst false
+     */
+    public boolean isAdresseGeaendert() {
+        return gespeicherteAdresse == null || !gespeicherteAdresse.equals(adressSchluessel());
+    }
+
+    private String adressSchluessel() {
+        return String.join("|", String.valueOf(strasse), String.valueOf(hausnummer), String.valueOf(postleitzahl),
+                String.valueOf(stadt), land != null ? land.name() : "");
+    }
+
     /**
      * Überprüft, ob die Wohnung vermietet ist.
      *
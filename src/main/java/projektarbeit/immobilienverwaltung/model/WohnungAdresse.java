@@ -0,0 +1,31 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Adresse einer Wohnung für den Suchindex.
+ * Die Repositories liefern die Adressen als Projektion, ohne die Wohnungen selbst zu laden.
+ *
+ * @param wohnungId    die ID der Wohnung.
+ * @param strasse      die Straße der Adresse.
+ * @param hausnummer   die Hausnummer der Adresse.
+ * @param postleitzahl die Postleitzahl der Adresse.
+ * @param stadt        die Stadt der Adresse.
+ * @param land         das Land der Adresse.
+ */
+public record WohnungAdresse(Long wohnungId,
+                             String strasse,
+                             String hausnummer,
+                             String postleitzahl,
+                             String stadt,
+                             Land land) {
+
+    /**
+     * Übernimmt die Adresse einer Wohnung.
+     *
+     * @param wohnung die Wohnung
+     * @return die Adresse der Wohnung
+     */
+    public static WohnungAdresse of(Wohnung wohnung) {
+        return new WohnungAdresse(wohnung.getWohnung_id(), wohnung.getStrasse(), wohnung.getHausnummer(),
+                wohnung.getPostleitzahl(), wohnung.getStadt(), wohnung.getLand());
+    }
+}
@@ -0,0 +1,42 @@
+package projektarbeit.immobilienverwaltung.model;
+
+/**
+ * Lesemodell für eine Adresse der Wohnungsübersicht.
+ * Fasst alle Wohnungen mit derselben Adresse zusammen und wird direkt per {@code GROUP BY} aus der Datenbank geladen.
+ *
+ * @param strasse         die Straße der Adresse.
+ * @param hausnummer      die Hausnummer der Adresse.
+ * @param postleitzahl    die Postleitzahl der Adresse.
+ * @param stadt           die Stadt der Adresse.
+ * @param land            das Land der Adresse.
+ * @param anzahlWohnungen die Anzahl der Wohnungen an dieser Adresse.
+ * @param wohnungId       die kleinste Wohnungs-ID der Adresse, bei genau einer Wohnung deren ID.
+ * @param gebaeudeId      die an den Wohnungen der Adresse gespeicherte Gebäude-ID.
+ */
+public record WohnungGruppe(String strasse,
+                            String hausnummer,
+                            String postleitzahl,
+                            String stadt,
+                            Land land,
+                            long anzahlWohnungen,
+                            Long wohnungId,
+                            Long gebaeudeId) {
+
+    /**
+     * Erstellt einen Header-Knoten für die Wohnungsübersicht, unter dem die Wohnungen dieser Adresse angezeigt werden.
+     *
+     * @return eine nicht gespeicherte Wohnung, die als Header-Knoten markiert ist.
+     */
+    public Wohnung toHeader() {
+        Wohnung header = new Wohnung();
+        header.setStrasse(strasse);
+        header.setHausnummer(hausnummer);
+        header.setPostleitzahl(postleitzahl);
+        header.setStadt(stadt);
+        header.setLand(land);
+        header.setHeader(true);
+        header.setAnzahlSubWohnungen(anzahlWohnungen);
+        header.setGebaeudeId(gebaeudeId);
+        return header;
+    }
+}
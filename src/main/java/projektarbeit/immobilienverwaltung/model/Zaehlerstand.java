@@ -20,7 +20,8 @@ import java.time.LocalDate;
 public class Zaehlerstand {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "zaehlerstand_seq")
+    @SequenceGenerator(name = "zaehlerstand_seq", sequenceName = "zaehlerstand_seq", allocationSize = 50)
     private Long zaehlerstandId;
 
     @ManyToOne
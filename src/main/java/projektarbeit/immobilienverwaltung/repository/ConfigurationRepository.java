@@ -3,9 +3,19 @@ package projektarbeit.immobilienverwaltung.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import projektarbeit.immobilienverwaltung.model.Configuration;
 
+import java.util.List;
+
 /**
  * Repository-Schnittstelle zur Verwaltung von Configuration-Entitäten.
  * Diese Schnittstelle erweitert JpaRepository und bietet CRUD-Operationen für die Configuration-Entität.
  */
-public interface ConfigurationRepository extends JpaRepository<Configuration, String> {
-}
\ No newline at end of file
+public interface ConfigurationRepository extends JpaRepository<Configuration, Configuration.Schluessel> {
+
+    /**
+     * Findet alle Einstellungen eines Benutzers.
+     *
+     * @param benutzer der Benutzername oder {@link Configuration#GLOBAL} für die anwendungsweiten Einstellungen
+     * @return die Einstellungen des Benutzers
+     */
+    List<Configuration> findByBenutzer(String benutzer);
+}
@@ -1,31 +1,99 @@
 package projektarbeit.immobilienverwaltung.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import projektarbeit.immobilienverwaltung.model.Dokument;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface DokumentRepository extends JpaRepository<Dokument, Long> {
+public interface DokumentRepository extends JpaRepository<Dokument, Long>, JpaSpecificationExecutor<Dokument>, DokumentRepositoryCustom {
     /**
      * Findet alle Dokumente, die mit einer bestimmten Wohnung verknüpft sind.
+     * Der Mieter wird direkt mitgeladen, sodass nicht für jedes Dokument eine weitere Abfrage entsteht.
      *
      * @param wohnung Die Wohnung, für die die Dokumente abgerufen werden sollen.
      * @return Eine Liste von Dokumenten, die mit der angegebenen Wohnung verknüpft sind.
      */
-    @Query("SELECT d FROM Dokument d JOIN FETCH d.wohnung WHERE d.wohnung = :wohnung")
+    @Query("SELECT d FROM Dokument d JOIN FETCH d.wohnung LEFT JOIN FETCH d.mieter WHERE d.wohnung = :wohnung")
     List<Dokument> findByWohnung(Wohnung wohnung);
 
     /**
      * Findet alle Dokumente, die mit einem bestimmten Mieter verknüpft sind.
+     * Die Wohnung wird direkt mitgeladen, sodass nicht für jedes Dokument eine weitere Abfrage entsteht.
      *
      * @param mieter Der Mieter, für den die Dokumente abgerufen werden sollen.
      * @return Eine Liste von Dokumenten, die mit dem angegebenen Mieter verknüpft sind.
      */
-    @Query("SELECT d FROM Dokument d JOIN FETCH d.mieter WHERE d.mieter = :mieter")
+    @Query("SELECT d FROM Dokument d JOIN FETCH d.mieter LEFT JOIN FETCH d.wohnung WHERE d.mieter = :mieter")
     List<Dokument> findByMieter(Mieter mieter);
-}
\ No newline at end of file
+
+    /**
+     * Zählt die Dokumente, die auf die angegebene Datei verweisen.
+     *
+     * @param dateipfad Der Pfad der Datei.
+     * @return Die Anzahl der Dokumente mit diesem Dateipfad.
+     */
+    long countByDateipfad(String dateipfad);
+
+    /**
+     * Liefert ID und Dateipfad aller Dokumente als Stream, ohne die Dokumente zu laden.
+     * Der Stream muss innerhalb einer Transaktion gelesen und geschlossen werden.
+     *
+     * @return Ein Stream aus Paaren von ID und Dateipfad.
+     */
+    @Query("SELECT d.dokument_id, d.dateipfad FROM Dokument d")
+    Stream<Object[]> streamDateipfade();
+
+    /**
+     * Findet die IDs aller Dokumente, deren Datei noch nicht nachverarbeitet wurde.
+     *
+     * @return Die IDs der unverarbeiteten Dokumente.
+     */
+    @Query("SELECT d.dokument_id FROM Dokument d WHERE d.vorschau IS NULL")
+    List<Long> findUnverarbeiteteIds();
+
+    /**
+     * Speichert das Ergebnis der Nachverarbeitung, ohne die übrigen Felder des Dokuments zu überschreiben.
+     *
+     * @param id         Die ID des Dokuments.
+     * @param mimeType   Der aus dem Inhalt ermittelte MIME-Typ.
+     * @param vorschau   Ob eine Vorschau erzeugt wurde.
+     * @param textinhalt Der extrahierte Text oder null.
+     * @return Die Anzahl der geänderten Dokumente.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Dokument d SET d.mimeType = :mimeType, d.vorschau = :vorschau, d.textinhalt = :textinhalt WHERE d.dokument_id = :id")
+    int updateVerarbeitung(@Param("id") Long id, @Param("mimeType") String mimeType,
+                           @Param("vorschau") boolean vorschau, @Param("textinhalt") String textinhalt);
+
+    /**
+     * Liefert die Felder aller Dokumente mit Mieter und Wohnung für die Schnellsuche, ohne die Dokumente und
+     * deren Textinhalt zu laden.
+     *
+     * @return Zeilen aus ID, Dokumententyp, Mieter-ID, Vorname, Name, Wohnungs-ID, Straße und Hausnummer.
+     */
+    @Query("SELECT d.dokument_id, d.dokumententyp, c.mieterId, c.vorname, c.name, w.wohnung_id, w.strasse, w.hausnummer " +
+            "FROM Dokument d LEFT JOIN d.mieter c LEFT JOIN d.wohnung w")
+    List<Object[]> findQuickSearchZeilen();
+
+    /**
+     * Wie {@link #findQuickSearchZeilen()} für die Dokumente mit den angegebenen IDs.
+     *
+     * @param ids Die IDs der Dokumente.
+     * @return Die Zeilen der gefundenen Dokumente.
+     */
+    @Query("SELECT d.dokument_id, d.dokumententyp, c.mieterId, c.vorname, c.name, w.wohnung_id, w.strasse, w.hausnummer " +
+            "FROM Dokument d LEFT JOIN d.mieter c LEFT JOIN d.wohnung w WHERE d.dokument_id IN :ids")
+    List<Object[]> findQuickSearchZeilenByIds(@Param("ids") Collection<Long> ids);
+}
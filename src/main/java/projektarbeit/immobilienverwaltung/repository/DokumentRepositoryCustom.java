@@ -0,0 +1,24 @@
+package projektarbeit.immobilienverwaltung.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+
+import java.util.List;
+
+/**
+ * Ergänzende Abfragen für {@link DokumentRepository}, die nicht über abgeleitete Methoden abgebildet werden können.
+ */
+public interface DokumentRepositoryCustom {
+
+    /**
+     * Lädt einen Ausschnitt der Dokumente, die die Specification erfüllen, mit bereits geladenem Mieter und
+     * geladener Wohnung. Anders als {@code findAll(Specification, Pageable)} wird dabei keine Zählabfrage
+     * ausgeführt, da die Übersicht die Anzahl getrennt ermittelt.
+     *
+     * @param specification die Filterkriterien
+     * @param pageable      Position, Größe und Sortierung des Ausschnitts
+     * @return die Dokumente des Ausschnitts
+     */
+    List<Dokument> findSlice(Specification<Dokument> specification, Pageable pageable);
+}
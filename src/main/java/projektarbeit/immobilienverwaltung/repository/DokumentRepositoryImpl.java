@@ -0,0 +1,63 @@
+package projektarbeit.immobilienverwaltung.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.query.NullPrecedence;
+import org.hibernate.query.criteria.JpaOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementierung von {@link DokumentRepositoryCustom} über die Criteria API.
+ */
+class DokumentRepositoryImpl implements DokumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Dokument> findSlice(Specification<Dokument> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Dokument> query = cb.createQuery(Dokument.class);
+        Root<Dokument> root = query.from(Dokument.class);
+        // Die Fetch-Joins werden auch zum Sortieren verwendet, damit Dokumente ohne Mieter oder Wohnung erhalten bleiben
+        Map<String, Join<?, ?>> joins = Map.of(
+                "mieter", (Join<?, ?>) root.fetch("mieter", JoinType.LEFT),
+                "wohnung", (Join<?, ?>) root.fetch("wohnung", JoinType.LEFT));
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.orderBy(toOrders(pageable.getSort(), root, joins, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    /**
+     * Übersetzt die Sortierung in Criteria-Ausdrücke. Eigenschaften der Form "mieter.name" werden über die
+     * Fetch-Joins aufgelöst, da implizite Joins Dokumente ohne Mieter oder Wohnung ausschließen würden.
+     * Dokumente ohne Mieter oder Wohnung stehen in jeder Datenbank am Ende.
+     */
+    private static List<Order> toOrders(Sort sort, Root<Dokument> root, Map<String, Join<?, ?>> joins, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            int dot = property.indexOf('.');
+            Path<?> path = dot < 0
+                    ? root.get(property)
+                    : joins.get(property.substring(0, dot)).get(property.substring(dot + 1));
+            Order jpaOrder = order.isAscending() ? cb.asc(path) : cb.desc(path);
+            orders.add(((JpaOrder) jpaOrder).nullPrecedence(NullPrecedence.LAST));
+        }
+        return orders;
+    }
+}
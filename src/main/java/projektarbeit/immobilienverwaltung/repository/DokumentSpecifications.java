@@ -0,0 +1,90 @@
+package projektarbeit.immobilienverwaltung.repository;
+
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DokumentFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Specifications für die Suche nach Dokumenten in der Datenbank.
+ * Die einzelnen Kriterien lassen sich mit {@link Specification#and(Specification)} kombinieren.
+ */
+public final class DokumentSpecifications {
+
+    private DokumentSpecifications() {
+    }
+
+    /**
+     * Erstellt die Specification für alle gesetzten Kriterien des angegebenen Filters.
+     *
+     * @param filter der Filter
+     * @return die kombinierte Specification
+     */
+    public static Specification<Dokument> of(DokumentFilter filter) {
+        return Specification.allOf(
+                gehoertZuMieter(filter.mieterId()),
+                gehoertZuWohnung(filter.wohnungId()),
+                suche(filter.suchbegriff()));
+    }
+
+    /**
+     * Schränkt auf die Dokumente eines Mieters ein.
+     *
+     * @param mieterId die ID des Mieters, bei null wird nicht eingeschränkt
+     * @return die Specification
+     */
+    public static Specification<Dokument> gehoertZuMieter(Long mieterId) {
+        return (root, query, cb) -> mieterId == null ? null : cb.equal(root.get("mieter").get("mieterId"), mieterId);
+    }
+
+    /**
+     * Schränkt auf die Dokumente einer Wohnung ein.
+     *
+     * @param wohnungId die ID der Wohnung, bei null wird nicht eingeschränkt
+     * @return die Specification
+     */
+    public static Specification<Dokument> gehoertZuWohnung(Long wohnungId) {
+        return (root, query, cb) -> wohnungId == null ? null : cb.equal(root.get("wohnung").get("wohnung_id"), wohnungId);
+    }
+
+    /**
+     * Sucht Dokumente, bei denen jedes Wort des Suchbegriffs im Dokumenttyp, im extrahierten Text der Datei,
+     * im Namen des Mieters oder in der Adresse der Wohnung vorkommt. Groß- und Kleinschreibung wird ignoriert.
+     *
+     * @param suchbegriff der Suchbegriff, bei null oder leer wird nicht eingeschränkt
+     * @return die Specification
+     */
+    public static Specification<Dokument> suche(String suchbegriff) {
+        return (root, query, cb) -> {
+            if (suchbegriff == null || suchbegriff.isBlank()) return null;
+            Join<Object, Object> mieter = root.join("mieter", JoinType.LEFT);
+            Join<Object, Object> wohnung = root.join("wohnung", JoinType.LEFT);
+            List<Expression<String>> felder = List.of(
+                    root.get("dokumententyp"),
+                    root.get("textinhalt"),
+                    mieter.get("vorname"),
+                    mieter.get("name"),
+                    wohnung.get("strasse"),
+                    wohnung.get("hausnummer"),
+                    wohnung.get("postleitzahl"),
+                    wohnung.get("stadt"));
+
+            List<Predicate> woerter = new ArrayList<>();
+            for (String wort : suchbegriff.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+                String pattern = "%" + escape(wort) + "%";
+                woerter.add(cb.or(felder.stream()
+                        .map(feld -> cb.like(cb.lower(feld), pattern, '\\'))
+                        .toArray(Predicate[]::new)));
+            }
+            return cb.and(woerter.toArray(Predicate[]::new));
+        };
+    }
+
+    private static String escape(String wort) {
+        return wort.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
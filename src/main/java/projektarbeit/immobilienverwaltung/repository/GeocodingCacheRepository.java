@@ -0,0 +1,27 @@
+package projektarbeit.immobilienverwaltung.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import projektarbeit.immobilienverwaltung.model.GeocodingCacheEintrag;
+
+import java.time.Instant;
+
+/**
+ * Repository-Schnittstelle für den persistenten Cache der Geokodierung.
+ */
+public interface GeocodingCacheRepository extends JpaRepository<GeocodingCacheEintrag, String> {
+
+    /**
+     * Löscht alle Einträge, die vor dem angegebenen Zeitpunkt abgerufen wurden.
+     *
+     * @param grenze Der Zeitpunkt, vor dem abgerufene Einträge abgelaufen sind.
+     * @return Die Anzahl der gelöschten Einträge.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GeocodingCacheEintrag g WHERE g.abgerufen < :grenze")
+    int deleteAbgerufenVor(@Param("grenze") Instant grenze);
+}
@@ -1,25 +1,46 @@
 package projektarbeit.immobilienverwaltung.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.SearchDocument;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MieterRepository extends JpaRepository<Mieter, Long> {
 
     /**
-     * Sucht Mieter mit einem bestimmten Suchbegriff.
-     * Die Suche wird sowohl im Namen als auch im Vornamen durchgeführt.
+     * Lädt eine Seite aller Mieter. Die Mietverträge und Wohnungen werden mitgejoint,
+     * damit auch nach Vertragsdaten (z.B. {@code min(v.miete)}) sortiert werden kann.
      *
-     * @param searchTerm Der Suchbegriff, nach dem gesucht werden soll.
-     * @return Eine Liste von Mietern, deren Name oder Vorname den Suchbegriff enthält.
+     * @param pageable Die Seite und Sortierung, die geladen werden soll.
+     * @return Die Mieter der angeforderten Seite.
      */
     @Query("select c from Mieter c " +
-            "where lower(c.name) like lower(concat('%', :searchTerm, '%')) " +
-            "or lower(c.vorname) like lower(concat('%', :searchTerm, '%'))")
-    List<Mieter> search(@Param("searchTerm") String searchTerm);
+            "left join c.mietvertraege v " +
+            "left join v.wohnung w " +
+            "group by c")
+    List<Mieter> findPage(Pageable pageable);
+
+    /**
+     * Liefert die durchsuchbaren Felder aller Mieter für den Suchindex, ohne die Entitäten zu laden.
+     *
+     * @return Die Suchdokumente aller Mieter.
+     */
+    @Query("select new projektarbeit.immobilienverwaltung.model.SearchDocument(c.mieterId, " +
+            "concat(coalesce(c.name, ''), ' ', coalesce(c.vorname, ''), ' ', coalesce(c.email, ''), ' ', coalesce(c.telefonnummer, ''))) " +
+            "from Mieter c")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * Liefert die Felder aller Mieter für die Schnellsuche, ohne die Entitäten zu laden.
+     *
+     * @return Zeilen aus ID, Vorname, Name, E-Mail und Telefonnummer
+     */
+    @Query("select c.mieterId, c.vorname, c.name, c.email, c.telefonnummer from Mieter c")
+    List<Object[]> findQuickSearchZeilen();
 
     /**
      * Prüft, ob ein Mieter mit der angegebenen E-Mail existiert.
@@ -28,4 +49,12 @@ public interface MieterRepository extends JpaRepository<Mieter, Long> {
      * @return true, wenn ein Mieter mit der E-Mail existiert, sonst false.
      */
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Findet die Mieter mit den angegebenen E-Mail-Adressen.
+     *
+     * @param emails die E-Mail-Adressen.
+     * @return die gefundenen Mieter.
+     */
+    List<Mieter> findByEmailIn(Collection<String> emails);
+}
@@ -1,10 +1,18 @@
 package projektarbeit.immobilienverwaltung.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository-Schnittstelle zur Verwaltung von Mietvertrag-Entitäten.
@@ -12,19 +20,101 @@ import java.util.List;
  */
 public interface MietvertragRepository extends JpaRepository<Mietvertrag, Long> {
 
+    /**
+     * Region des Abfrage-Caches für die Mietverträge eines Mieters oder einer Wohnung.
+     */
+    String ABFRAGE_REGION = "mietvertrag-abfragen";
+
     /**
      * Findet alle Mietvertrag-Entitäten, die mit einer bestimmten Mieter-ID verknüpft sind.
+     * Das Ergebnis wird im Abfrage-Cache gehalten, bis ein Mietvertrag geändert wird.
      *
      * @param mieterId die ID des Mieters
      * @return eine Liste von Mietvertrag-Entitäten, die mit der angegebenen Mieter-ID verknüpft sind
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ABFRAGE_REGION)
+    })
     List<Mietvertrag> findByMieter_MieterId(Long mieterId);
 
+    /**
+     * Findet alle Mietvertrag-Entitäten der angegebenen Mieter in einer einzigen Abfrage.
+     * Mieter und Wohnung werden direkt mitgeladen, sodass beim Anzeigen keine weiteren Abfragen entstehen.
+     *
+     * @param mieterIds die IDs der Mieter
+     * @return eine Liste der Mietverträge aller angegebenen Mieter
+     */
+    @Query("SELECT m FROM Mietvertrag m JOIN FETCH m.mieter JOIN FETCH m.wohnung WHERE m.mieter.mieterId IN :mieterIds")
+    List<Mietvertrag> findByMieterIdsWithWohnung(@Param("mieterIds") Collection<Long> mieterIds);
+
+    /**
+     * Liefert die Felder aller Mietverträge mit Mieter und Wohnung für die Schnellsuche, ohne die Entitäten zu laden.
+     *
+     * @return Zeilen aus ID, Mieter-ID, Vorname, Name, Wohnungs-ID, Straße, Hausnummer und Stadt
+     */
+    @Query("SELECT m.mietvertrag_id, c.mieterId, c.vorname, c.name, w.wohnung_id, w.strasse, w.hausnummer, w.stadt " +
+            "FROM Mietvertrag m LEFT JOIN m.mieter c LEFT JOIN m.wohnung w")
+    List<Object[]> findQuickSearchZeilen();
+
+    /**
+     * Wie {@link #findQuickSearchZeilen()} für die Mietverträge mit den angegebenen IDs.
+     *
+     * @param ids die IDs der Mietverträge
+     * @return die Zeilen der gefundenen Mietverträge
+     */
+    @Query("SELECT m.mietvertrag_id, c.mieterId, c.vorname, c.name, w.wohnung_id, w.strasse, w.hausnummer, w.stadt " +
+            "FROM Mietvertrag m LEFT JOIN m.mieter c LEFT JOIN m.wohnung w WHERE m.mietvertrag_id IN :ids")
+    List<Object[]> findQuickSearchZeilenByIds(@Param("ids") Collection<Long> ids);
+
     /**
      * Findet die Mietvertrag-Entität, die mit einer bestimmten Wohnung verknüpft ist.
+     * Das Ergebnis wird im Abfrage-Cache gehalten, bis ein Mietvertrag geändert wird.
      *
      * @param wohnung die Wohnung-Entität
      * @return die Mietvertrag-Entität, die mit der angegebenen Wohnung verknüpft ist, oder null, falls keine gefunden wurde
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ABFRAGE_REGION)
+    })
     Mietvertrag findByWohnung(Wohnung wohnung);
-}
\ No newline at end of file
+
+    /**
+     * Liest die aktuell gespeicherte Miete eines Mietvertrags, ohne die Entität zu laden.
+     *
+     * @param mietvertragId die ID des Mietvertrags
+     * @return die gespeicherte Miete oder ein leeres Optional, wenn der Mietvertrag nicht existiert
+     */
+    @Query("SELECT m.miete FROM Mietvertrag m WHERE m.mietvertrag_id = :mietvertragId")
+    Optional<Double> findMieteById(@Param("mietvertragId") Long mietvertragId);
+
+    /**
+     * Liefert die IDs aller Wohnungen, für die ein Mietvertrag existiert, ohne die Entitäten zu laden.
+     *
+     * @return die IDs der vermieteten Wohnungen
+     */
+    @Query("SELECT m.wohnung.wohnung_id FROM Mietvertrag m")
+    List<Long> findWohnungIds();
+
+    /**
+     * Berechnet die Summe der monatlichen Mieten aller Mietverträge in der Datenbank.
+     *
+     * @return die Summe der Mieten oder 0, wenn keine Mietverträge existieren
+     */
+    @Query("SELECT COALESCE(SUM(m.miete), 0.0) FROM Mietvertrag m")
+    double sumMiete();
+
+    /**
+     * Ermittelt alle Kennzahlen des Dashboards mit einer einzigen Abfrage.
+     * Die Werte werden über Aggregat-Unterabfragen berechnet, sodass keine Entitäten geladen werden.
+     *
+     * @return ein Schnappschuss mit Mieteinnahmen, Anzahl der Wohnungen, vermieteten Wohnungen und Mietern
+     */
+    @Query("SELECT new projektarbeit.immobilienverwaltung.model.DashboardStats(" +
+            "(SELECT COALESCE(SUM(m.miete), 0.0) FROM Mietvertrag m), " +
+            "(SELECT COUNT(w) FROM Wohnung w), " +
+            "(SELECT COUNT(v) FROM Mietvertrag v), " +
+            "(SELECT COUNT(t) FROM Mieter t))")
+    DashboardStats loadDashboardStats();
+}
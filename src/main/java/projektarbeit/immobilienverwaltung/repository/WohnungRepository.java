@@ -1,11 +1,16 @@
 package projektarbeit.immobilienverwaltung.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import projektarbeit.immobilienverwaltung.model.Land;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.model.WohnungAdresse;
+import projektarbeit.immobilienverwaltung.model.WohnungGruppe;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,14 +21,124 @@ import java.util.List;
 public interface WohnungRepository extends JpaRepository<Wohnung, Long> {
 
     /**
-     * Sucht nach Wohnungen basierend auf dem angegebenen Suchbegriff.
-     * Die Suche wird auf den Feldern 'strasse' und 'hausnummer' durchgeführt.
+     * Findet die Wohnungen mit den angegebenen IDs. Mietvertrag und Mieter werden direkt mitgeladen, da Hibernate
+     * die Gegenseite einer 1:1-Beziehung sonst für jede Wohnung einzeln abfragt.
      *
-     * @param searchTerm der Suchbegriff, um Wohnungen zu filtern
-     * @return eine Liste von Wohnungen, die dem Suchbegriff entsprechen
+     * @param ids die IDs der Wohnungen
+     * @return die gefundenen Wohnungen
+     */
+    @Query("SELECT w FROM Wohnung w LEFT JOIN FETCH w.mietvertrag m LEFT JOIN FETCH m.mieter WHERE w.wohnung_id IN :ids")
+    List<Wohnung> findAllWithMietvertragByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lädt eine Seite von Adressen, gruppiert nach Straße, Hausnummer, Postleitzahl, Stadt und Land.
+     * Für jede Adresse wird die Anzahl der Wohnungen und die kleinste Wohnungs-ID mitgeliefert.
+     *
+     * @param pageable die Seite und Sortierung, die geladen werden soll
+     * @return die Adressen der angeforderten Seite
+     */
+    @Query("SELECT new projektarbeit.immobilienverwaltung.model.WohnungGruppe(" +
+            "w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land, COUNT(w), MIN(w.wohnung_id), MIN(w.gebaeudeId)) " +
+            "FROM Wohnung w " +
+            "GROUP BY w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land")
+    List<WohnungGruppe> findGruppen(Pageable pageable);
+
+    /**
+     * Zählt alle Adressen.
+     *
+     * @return die Anzahl der Adressen
+     */
+    @Query("SELECT COUNT(*) FROM (" +
+            "SELECT w.strasse AS strasse FROM Wohnung w " +
+            "GROUP BY w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land)")
+    long countGruppen();
+
+    /**
+     * Lädt eine Seite der Adressen, an denen mindestens eine der angegebenen Wohnungen liegt, z.B. die Treffer einer
+     * Seite der Volltextsuche. Gezählt werden alle Wohnungen der Adresse, nicht nur die angegebenen.
+     *
+     * @param ids      die IDs der Wohnungen
+     * @param pageable die Seite und Sortierung, die geladen werden soll
+     * @return die Adressen der angeforderten Seite
+     */
+    @Query("SELECT new projektarbeit.immobilienverwaltung.model.WohnungGruppe(" +
+            "w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land, COUNT(w), MIN(w.wohnung_id), MIN(w.gebaeudeId)) " +
+            "FROM Wohnung w " +
+            "WHERE EXISTS (SELECT t FROM Wohnung t WHERE t.wohnung_id IN :ids " +
+            "AND t.strasse = w.strasse AND t.hausnummer = w.hausnummer " +
+            "AND t.postleitzahl = w.postleitzahl AND t.stadt = w.stadt AND t.land = w.land) " +
+            "GROUP BY w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land")
+    List<WohnungGruppe> findGruppenByIds(@Param("ids") Collection<Long> ids, Pageable pageable);
+
+    /**
+     * Lädt die Adressen mit mindestens zwei Wohnungen, deren Gebäude-ID in der angegebenen Menge enthalten ist.
+     *
+     * @param gebaeudeIds die Gebäude-IDs
+     * @return die gefundenen Adressen
+     */
+    @Query("SELECT new projektarbeit.immobilienverwaltung.model.WohnungGruppe(" +
+            "w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land, COUNT(w), MIN(w.wohnung_id), MIN(w.gebaeudeId)) " +
+            "FROM Wohnung w " +
+            "WHERE w.gebaeudeId IN :gebaeudeIds " +
+            "GROUP BY w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land " +
+            "HAVING COUNT(w) > 1")
+    List<WohnungGruppe> findGruppenByGebaeudeIds(@Param("gebaeudeIds") Collection<Long> gebaeudeIds);
+
+    /**
+     * Lädt eine Seite der Wohnungen an einer bestimmten Adresse.
+     *
+     * @param strasse      die Straße der Adresse
+     * @param hausnummer   die Hausnummer der Adresse
+     * @param postleitzahl die Postleitzahl der Adresse
+     * @param stadt        die Stadt der Adresse
+     * @param land         das Land der Adresse
+     * @param pageable     die Seite und Sortierung, die geladen werden soll
+     * @return die Wohnungen der angeforderten Seite
      */
     @Query("SELECT w FROM Wohnung w " +
-            "WHERE lower(w.strasse) LIKE lower(concat('%', :searchTerm, '%')) " +
-            "OR lower(w.hausnummer) LIKE lower(concat('%', :searchTerm, '%'))")
-    List<Wohnung> search(@Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+            "WHERE w.strasse = :strasse AND w.hausnummer = :hausnummer " +
+            "AND w.postleitzahl = :postleitzahl AND w.stadt = :stadt AND w.land = :land")
+    List<Wohnung> findByAdresse(@Param("strasse") String strasse,
+                                @Param("hausnummer") String hausnummer,
+                                @Param("postleitzahl") String postleitzahl,
+                                @Param("stadt") String stadt,
+                                @Param("land") Land land,
+                                Pageable pageable);
+
+    /**
+     * Lädt eine Seite der Wohnungen, für die kein Mietvertrag existiert.
+     *
+     * @param pageable die Seite und Sortierung, die geladen werden soll
+     * @return die freien Wohnungen der angeforderten Seite
+     */
+    @Query("SELECT w FROM Wohnung w " +
+            "WHERE NOT EXISTS (SELECT m FROM Mietvertrag m WHERE m.wohnung = w)")
+    List<Wohnung> findWithoutMietvertrag(Pageable pageable);
+
+    /**
+     * Zählt die Wohnungen, für die kein Mietvertrag existiert.
+     *
+     * @return die Anzahl der freien Wohnungen
+     */
+    @Query("SELECT COUNT(w) FROM Wohnung w " +
+            "WHERE NOT EXISTS (SELECT m FROM Mietvertrag m WHERE m.wohnung = w)")
+    long countWithoutMietvertrag();
+
+    /**
+     * Liefert die Adressen aller Wohnungen für den Suchindex, ohne die Entitäten zu laden.
+     *
+     * @return die Adressen aller Wohnungen
+     */
+    @Query("SELECT new projektarbeit.immobilienverwaltung.model.WohnungAdresse(" +
+            "w.wohnung_id, w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.land) " +
+            "FROM Wohnung w")
+    List<WohnungAdresse> findAdressen();
+
+    /**
+     * Liefert die Felder aller Wohnungen für die Schnellsuche, ohne die Entitäten zu laden.
+     *
+     * @return Zeilen aus ID, Straße, Hausnummer, Postleitzahl, Stadt und Wohnungsnummer
+     */
+    @Query("SELECT w.wohnung_id, w.strasse, w.hausnummer, w.postleitzahl, w.stadt, w.wohnungsnummer FROM Wohnung w")
+    List<Object[]> findQuickSearchZeilen();
+}
@@ -0,0 +1,53 @@
+package projektarbeit.immobilienverwaltung.security;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestHeaderRequestMatcher;
+import projektarbeit.immobilienverwaltung.controller.ImportController;
+import projektarbeit.immobilienverwaltung.controller.UploadController;
+
+/**
+ * Sicherheitskonfiguration für die Schnittstellen, die nicht über Vaadin, sondern direkt von einem Client
+ * aufgerufen werden.
+ * <p>
+ * Die Anfragen werden über die Sitzung der Anmeldung authentifiziert. Statt eines CSRF-Tokens genügt der Header
+ * {@link #API_HEADER}: Ein Browser sendet eigene Header an eine fremde Seite nur nach einer CORS-Freigabe, die es
+ * hier nicht gibt. Anfragen ohne den Header werden weiterhin auf ein gültiges CSRF-Token geprüft.
+ * <p>
+ * Der Massenimport ist wie in der Oberfläche nur Administratoren erlaubt.
+ */
+@Configuration
+public class ApiSecurityConfig {
+
+    /**
+     * Header, der eine Anfrage als Aufruf der Schnittstelle von derselben Seite ausweist.
+     */
+    public static final String API_HEADER = "X-Requested-With";
+
+    /**
+     * Konfiguriert die Filterkette für die Schnittstellen. Sie wird vor der Filterkette von Vaadin geprüft.
+     *
+     * @param http das HttpSecurity-Objekt zum Konfigurieren der Sicherheitsanforderungen.
+     * @return die Filterkette.
+     * @throws Exception wenn ein Fehler bei der Konfiguration auftritt.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        http.securityMatchers(matchers -> matchers.requestMatchers(
+                        AntPathRequestMatcher.antMatcher(UploadController.PATH + "/**"),
+                        AntPathRequestMatcher.antMatcher(ImportController.PATH)))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(AntPathRequestMatcher.antMatcher(ImportController.PATH)).hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .csrf(csrf -> csrf.ignoringRequestMatchers(new RequestHeaderRequestMatcher(API_HEADER)))
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return http.build();
+    }
+}
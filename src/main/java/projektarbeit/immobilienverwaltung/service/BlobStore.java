@@ -0,0 +1,342 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Inhaltsadressierter Speicher für Dokumentdateien.
+ * Jede Datei wird unter ihrem SHA-256-Hash abgelegt, der beim Schreiben berechnet wird, sodass die Datei nur einmal
+ * gelesen wird. Identische Dateien werden nur einmal gespeichert und von mehreren Dokumenten gemeinsam genutzt.
+ * <p>
+ * Dateien komprimierbarer MIME-Typen werden gemäß {@link Kompression} komprimiert abgelegt. Der Hash bezieht sich
+ * immer auf den unkomprimierten Inhalt, sodass gleiche Inhalte unabhängig von der Speicherform erkannt werden.
+ * <p>
+ * Die Referenzen eines Blobs sind die Dokumente, deren Dateipfad auf ihn zeigt. Ein Blob wird erst gelöscht, wenn
+ * kein Dokument mehr auf ihn verweist und er nicht gerade neu referenziert wird. Die Referenzen werden außerhalb der
+ * Sperre gezählt; wird währenddessen ein Blob vorgemerkt, wird neu gezählt.
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final DokumentRepository dokumentRepository;
+    private final Object lock = new Object();
+    private final Map<Path, Integer> pendingReferences = new HashMap<>();
+    private long vormerkungen;
+
+    @Value("${document.storage.path}")
+    private String storagePath;
+
+    private Path blobLocation;
+    private Path tempLocation;
+
+    /**
+     * Konstruktor für BlobStore.
+     *
+     * @param dokumentRepository das Repository, über das die Referenzen eines Blobs gezählt werden
+     */
+    @Autowired
+    public BlobStore(DokumentRepository dokumentRepository) {
+        this.dokumentRepository = dokumentRepository;
+    }
+
+    /**
+     * Legt die Verzeichnisse für Blobs und unvollständige Uploads an. Temporäre Dateien eines früheren Laufs
+     * gehören zu keinem Upload mehr und werden gelöscht.
+     */
+    @PostConstruct
+    public void init() {
+        Path rootLocation = Paths.get(storagePath).toAbsolutePath();
+        this.blobLocation = rootLocation.resolve("blobs");
+        this.tempLocation = rootLocation.resolve("tmp");
+        try {
+            Files.createDirectories(blobLocation);
+            Files.createDirectories(tempLocation);
+            try (DirectoryStream<Path> reste = Files.newDirectoryStream(tempLocation, "*" + TEMP_SUFFIX)) {
+                for (Path rest : reste) {
+                    Files.deleteIfExists(rest);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize blob storage", e);
+        }
+    }
+
+    /**
+     * Speichert den Inhalt des Streams als Blob und übergibt ihn an {@code referenzieren}, wo das Dokument mit dem
+     * Pfad des Blobs gespeichert wird. Bis {@code referenzieren} zurückkehrt, innerhalb einer Transaktion bis zu
+     * deren Abschluss, wird der Blob nicht freigegeben, auch wenn gleichzeitig das letzte andere Dokument mit
+     * demselben Inhalt gelöscht wird. Schlägt {@code referenzieren} fehl oder wird die Transaktion zurückgerollt,
+     * wird ein nicht mehr referenzierter Blob wieder entfernt.
+     *
+     * @param inputStream   der zu speichernde Inhalt, wird vollständig gelesen und geschlossen
+     * @param mimeType      der MIME-Typ des Inhalts, nach dem über die Komprimierung entschieden wird
+     * @param referenzieren speichert die Referenz auf den Blob
+     * @return der gespeicherte Blob
+     * @throws IOException falls der Inhalt nicht gelesen oder geschrieben werden kann
+     */
+    public StoredBlob store(InputStream inputStream, String mimeType, Consumer<StoredBlob> referenzieren) throws IOException {
+        return referenzieren(write(inputStream, mimeType), referenzieren);
+    }
+
+    /**
+     * Übernimmt eine vollständig geschriebene temporäre Datei aus {@link #createTempFile()} als Blob, ohne sie
+     * erneut zu lesen, sofern sie nicht komprimiert wird. Ansonsten gilt dasselbe wie bei
+     * {@link #store(InputStream, String, Consumer)}.
+     *
+     * @param temp          die temporäre Datei, wird verschoben oder gelöscht
+     * @param hash          der beim Schreiben berechnete SHA-256-Hash des Inhalts
+     * @param groesse       die Größe des Inhalts in Bytes
+     * @param mimeType      der MIME-Typ des Inhalts, nach dem über die Komprimierung entschieden wird
+     * @param referenzieren speichert die Referenz auf den Blob
+     * @return der gespeicherte Blob
+     * @throws IOException falls die Datei nicht verschoben werden kann
+     */
+    StoredBlob store(Path temp, String hash, long groesse, String mimeType, Consumer<StoredBlob> referenzieren) throws IOException {
+        StoredBlob blob;
+        try {
+            blob = commit(temp, hash, groesse, mimeType);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return referenzieren(blob, referenzieren);
+    }
+
+    /**
+     * Legt eine temporäre Datei im Speicher an, die später mit {@link #store(Path, String, long, String, Consumer)}
+     * atomar als Blob übernommen werden kann.
+     *
+     * @return die neue, leere Datei
+     * @throws IOException falls die Datei nicht angelegt werden kann
+     */
+    Path createTempFile() throws IOException {
+        return Files.createTempFile(tempLocation, "upload-", TEMP_SUFFIX);
+    }
+
+    private StoredBlob referenzieren(StoredBlob blob, Consumer<StoredBlob> referenzieren) {
+        boolean referenziert = false;
+        try {
+            referenzieren.accept(blob);
+            referenziert = true;
+        } finally {
+            if (!referenziert) {
+                vormerkungAufheben(blob.path());
+                releaseNow(blob.path().toString());
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Bis zum Commit sieht eine Freigabe in einer anderen Transaktion das neue Dokument nicht
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    vormerkungAufheben(blob.path());
+                    if (status != STATUS_COMMITTED) releaseNow(blob.path().toString());
+                }
+            });
+        } else {
+            vormerkungAufheben(blob.path());
+        }
+        return blob;
+    }
+
+    private void vormerkungAufheben(Path path) {
+        synchronized (lock) {
+            pendingReferences.computeIfPresent(path, (p, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Gibt die Referenz eines gelöschten Dokuments auf seine Datei frei. Die Datei wird gelöscht, sobald kein
+     * anderes Dokument mehr auf sie verweist. Innerhalb einer Transaktion geschieht das erst nach dem Commit,
+     * damit ein Rollback keine Dokumente ohne Datei hinterlässt.
+     *
+     * @param dateipfad der Dateipfad des gelöschten Dokuments
+     */
+    public void release(String dateipfad) {
+        if (dateipfad == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(dateipfad);
+                }
+            });
+        } else {
+            releaseNow(dateipfad);
+        }
+    }
+
+    /**
+     * Löscht die Datei, wenn kein Dokument mehr auf sie verweist.
+     *
+     * @return true, wenn die Datei gelöscht wurde
+     */
+    boolean releaseNow(String dateipfad) {
+        Path path = Paths.get(dateipfad);
+        try {
+            return wennUnreferenziert(path, dateipfad, () -> Files.deleteIfExists(path));
+        } catch (IOException e) {
+            logger.error("Fehler beim Löschen der Datei {}", dateipfad, e);
+            return false;
+        }
+    }
+
+    /**
+     * Verschiebt eine Datei, auf die kein Dokument verweist, in die Quarantäne. Wie bei {@link #releaseNow(String)}
+     * wird geprüft, dass sie weder gerade neu referenziert wird noch von einem Dokument verwendet wird.
+     *
+     * @param datei       die verwaiste Datei
+     * @param quarantaene das Verzeichnis, in das die Datei verschoben wird
+     * @return true, wenn die Datei verschoben wurde
+     * @throws IOException falls die Datei nicht verschoben werden kann
+     */
+    boolean quarantaene(Path datei, Path quarantaene) throws IOException {
+        return wennUnreferenziert(datei, datei.toString(), () -> {
+            Files.createDirectories(quarantaene);
+            Files.move(datei, quarantaene.resolve(datei.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        });
+    }
+
+    /**
+     * Führt {@code entfernen} unter der Sperre aus, wenn der Blob weder vorgemerkt ist noch von einem Dokument
+     * verwendet wird. Gezählt wird außerhalb der Sperre, damit Uploads nicht auf die Datenbank warten. Wurde
+     * währenddessen ein Blob vorgemerkt, könnte es dieser sein und die Zählung wird wiederholt.
+     */
+    private boolean wennUnreferenziert(Path path, String dateipfad, Entfernen entfernen) throws IOException {
+        while (true) {
+            long stand;
+            synchronized (lock) {
+                if (pendingReferences.containsKey(path)) return false;
+                stand = vormerkungen;
+            }
+            if (dokumentRepository.countByDateipfad(dateipfad) > 0) return false;
+            synchronized (lock) {
+                if (vormerkungen == stand) return entfernen.ausfuehren();
+            }
+        }
+    }
+
+    /**
+     * Schreibt den Inhalt in eine temporäre Datei, berechnet dabei den Hash und verschiebt die Datei anschließend
+     * an ihren endgültigen Platz. Existiert dort bereits ein Blob mit gleichem Inhalt, wird die temporäre Datei verworfen.
+     */
+    private StoredBlob write(InputStream inputStream, String mimeType) throws IOException {
+        Path temp = createTempFile();
+        try {
+            MessageDigest digest = newDigest();
+            long groesse;
+            try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                groesse = Files.copy(digestStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return commit(temp, HexFormat.of().formatHex(digest.digest()), groesse, mimeType);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Verschiebt die temporäre Datei an den Platz des Blobs und merkt ihn als gerade referenziert vor.
+     * Ist der Inhalt komprimierbar, wird stattdessen eine komprimierte Kopie übernommen, falls sie
+     * ausreichend kleiner ist.
+     */
+    private StoredBlob commit(Path temp, String hash, long groesse, String mimeType) throws IOException {
+        Path roh = blobPath(hash);
+        Path komprimiert = roh.resolveSibling(hash + Kompression.ENDUNG);
+        Files.createDirectories(roh.getParent());
+
+        Path gepackt = null;
+        try {
+            // Außerhalb der Sperre, da das Komprimieren großer Dateien dauert
+            int stufe = Kompression.stufe(mimeType);
+            if (stufe >= 0 && !Files.exists(roh) && !Files.exists(komprimiert)) {
+                gepackt = createTempFile();
+                if (Kompression.komprimieren(temp, gepackt, stufe) > groesse * Kompression.MAX_RATE) {
+                    Files.delete(gepackt);
+                    gepackt = null;
+                }
+            }
+
+            synchronized (lock) {
+                Path target = Files.exists(komprimiert) ? komprimiert : Files.exists(roh) ? roh : null;
+                boolean dedupliziert = target != null;
+                if (!dedupliziert) {
+                    target = gepackt != null ? komprimiert : roh;
+                    Files.move(gepackt != null ? gepackt : temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                pendingReferences.merge(target, 1, Integer::sum);
+                vormerkungen++;
+                return new StoredBlob(hash, target, groesse, Files.size(target), dedupliziert);
+            }
+        } finally {
+            if (gepackt != null) Files.deleteIfExists(gepackt);
+        }
+    }
+
+    /**
+     * Gibt den Pfad eines unkomprimierten Blobs zurück. Die ersten beiden Zeichen des Hashs bilden ein Unterverzeichnis,
+     * damit einzelne Verzeichnisse nicht zu groß werden.
+     */
+    Path blobPath(String hash) {
+        return blobLocation.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " nicht verfügbar", e);
+        }
+    }
+
+    /**
+     * Entfernt einen nicht referenzierten Blob.
+     */
+    @FunctionalInterface
+    private interface Entfernen {
+
+        boolean ausfuehren() throws IOException;
+    }
+
+    /**
+     * Ein gespeicherter Blob.
+     *
+     * @param hash                der SHA-256-Hash des Inhalts in Hexadezimalschreibweise.
+     * @param path                der absolute Pfad des Blobs.
+     * @param groesse             die Größe des Inhalts in Bytes.
+     * @param gespeicherteGroesse die Größe der gespeicherten, gegebenenfalls komprimierten Datei in Bytes.
+     * @param dedupliziert        true, wenn bereits ein Blob mit gleichem Inhalt existierte.
+     */
+    public record StoredBlob(String hash, Path path, long groesse, long gespeicherteGroesse, boolean dedupliziert) {
+
+        /**
+         * Gibt an, ob der Blob komprimiert gespeichert ist.
+         *
+         * @return true, wenn die Datei gzip-komprimiert ist
+         */
+        public boolean komprimiert() {
+            return Kompression.istKomprimiert(path);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import projektarbeit.immobilienverwaltung.model.CacheStatistik;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stellt Hibernate die Regionen des Second-Level-Caches bereit und aktiviert Entitäts- und Abfrage-Cache.
+ * <p>
+ * Jede Region ist ein begrenzter Speicher im Heap der Anwendung. Größe und Ablaufzeit lassen sich je Region über
+ * {@code cache.region.<name>.groesse} und {@code cache.region.<name>.ttl-minuten} festlegen, sonst gelten
+ * {@code cache.groesse} und {@code cache.ttl-minuten}. Die Region der Änderungszeitpunkte, über die Hibernate
+ * veraltete Abfrageergebnisse erkennt, wird nie verdrängt.
+ */
+@Component
+public class CacheRegionFactory extends RegionFactoryTemplate implements HibernatePropertiesCustomizer {
+
+    private final Environment environment;
+    private final int standardGroesse;
+    private final long standardTtlMinuten;
+    private final Map<String, RegionSpeicher> regionen = new ConcurrentHashMap<>();
+
+    /**
+     * Konstruktor für CacheRegionFactory.
+     *
+     * @param environment        die Umgebung, aus der die Einstellungen der Regionen gelesen werden
+     * @param standardGroesse    die maximale Anzahl an Einträgen je Region
+     * @param standardTtlMinuten die Ablaufzeit der Einträge in Minuten
+     */
+    @Autowired
+    public CacheRegionFactory(Environment environment,
+                              @Value("${cache.groesse:1000}") int standardGroesse,
+                              @Value("${cache.ttl-minuten:30}") long standardTtlMinuten) {
+        this.environment = environment;
+        this.standardGroesse = standardGroesse;
+        this.standardTtlMinuten = standardTtlMinuten;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, this);
+        hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+        // Wird ein Mietvertrag gespeichert oder gelöscht, wird die Liste der Verträge seines Mieters verworfen
+        hibernateProperties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+    }
+
+    /**
+     * Liefert die Kennzahlen aller Regionen.
+     *
+     * @return die Kennzahlen, nach Regionsnamen sortiert
+     */
+    public List<CacheStatistik> statistik() {
+        return regionen.values().stream()
+                .map(RegionSpeicher::statistik)
+                .sorted(Comparator.comparing(CacheStatistik::region))
+                .toList();
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        // Die Regionen werden erst angelegt, wenn Hibernate sie anfordert
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regionen.values().forEach(RegionSpeicher::release);
+        regionen.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return region(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return region(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return regionen.computeIfAbsent(regionName, name -> new RegionSpeicher(name, Integer.MAX_VALUE, null));
+    }
+
+    private RegionSpeicher region(String regionName) {
+        return regionen.computeIfAbsent(regionName, name -> {
+            int groesse = environment.getProperty("cache.region." + name + ".groesse", Integer.class, standardGroesse);
+            long ttlMinuten = environment.getProperty("cache.region." + name + ".ttl-minuten", Long.class, standardTtlMinuten);
+            return new RegionSpeicher(name, groesse, ttlMinuten > 0 ? Duration.ofMinutes(ttlMinuten) : null);
+        });
+    }
+}
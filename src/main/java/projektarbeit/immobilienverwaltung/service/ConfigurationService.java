@@ -1,29 +1,65 @@
 package projektarbeit.immobilienverwaltung.service;
 
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.VaadinSession;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import projektarbeit.immobilienverwaltung.model.Configuration;
 import projektarbeit.immobilienverwaltung.repository.ConfigurationRepository;
 
-import java.util.Collections;
-import java.util.List;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service-Klasse zur Verwaltung von Konfigurationseinstellungen.
  * Diese Klasse bietet Methoden zum Speichern und Abrufen von Konfigurationswerten aus der Datenbank.
+ * <p>
+ * Die Einstellungen der Oberfläche gehören dem angemeldeten Benutzer. Sie werden je Vaadin-Sitzung mit einer
+ * Abfrage geladen und als unveränderlicher Schnappschuss in der Sitzung gehalten; hat der Benutzer einen Schlüssel
+ * nicht gesetzt, gilt der anwendungsweite Wert. Änderungen eines Benutzers werden geschrieben, wenn seine Sitzung
+ * endet oder er eine Weile nichts geändert hat. Außerhalb einer Sitzung und für den Demo-Modus wird mit den
+ * anwendungsweiten Werten gearbeitet, die beim ersten Zugriff geladen und regelmäßig geschrieben werden.
+ * Wird ein Schlüssel mehrmals geändert, bevor geschrieben wird, wird nur der letzte Wert gespeichert.
  */
 @Service
-public class ConfigurationService {
+public class ConfigurationService implements VaadinServiceInitListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
 
     private final ConfigurationRepository configurationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicReference<Map<String, String>> globaleWerte = new AtomicReference<>();
+    private final Map<Configuration.Schluessel, String> ausstehend = new ConcurrentHashMap<>();
+    private final Set<Sitzung> sitzungen = ConcurrentHashMap.newKeySet();
+
+    @Value("${configuration.idle-timeout:60000}")
+    private long leerlaufMillis = 60000;
 
     /**
      * Konstruktor für ConfigurationService.
      *
      * @param configurationRepository Das Repository zur Verwaltung von Configuration-Entitäten.
+     * @param transactionManager      Der Transaktionsmanager, mit dem die Änderungen gesammelt geschrieben werden.
      */
-    public ConfigurationService(ConfigurationRepository configurationRepository) {
+    @Autowired
+    public ConfigurationService(ConfigurationRepository configurationRepository, PlatformTransactionManager transactionManager) {
         this.configurationRepository = configurationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -31,7 +67,6 @@ public class ConfigurationService {
      *
      * @return true, wenn der Dark Mode aktiviert ist, sonst false.
      */
-    @Transactional
     public boolean isDarkMode() {
         return getBooleanValue("darkMode", true);
     }
@@ -41,7 +76,6 @@ public class ConfigurationService {
      *
      * @param isDarkMode Der neue Dark Mode-Status.
      */
-    @Transactional
     public void setDarkMode(boolean isDarkMode) {
         setBooleanValue("darkMode", isDarkMode);
     }
@@ -51,9 +85,9 @@ public class ConfigurationService {
      *
      * @return true, wenn der Demo-Modus aktiviert ist, sonst false.
      */
-    @Transactional
     public boolean isDemoMode() {
-        return getBooleanValue("demoMode", false);
+        String value = globaleWerte().get("demoMode");
+        return value != null && Boolean.parseBoolean(value);
     }
 
     /**
@@ -61,9 +95,8 @@ public class ConfigurationService {
      *
      * @param isDemoMode Der neue Demo-Modus-Status.
      */
-    @Transactional
     public void setDemoMode(boolean isDemoMode) {
-        setBooleanValue("demoMode", isDemoMode);
+        setGlobalValue("demoMode", Boolean.toString(isDemoMode));
     }
 
     /**
@@ -71,7 +104,6 @@ public class ConfigurationService {
      *
      * @return true, wenn die Checkbox für vermietete Wohnungen aktiviert ist, sonst false.
      */
-    @Transactional
     public boolean getVermieteteChecked() {
         return getBooleanValue("vermieteteChecked", true);
     }
@@ -81,7 +113,6 @@ public class ConfigurationService {
      *
      * @param checked Der neue Status der Checkbox für vermietete Wohnungen.
      */
-    @Transactional
     public void setVermieteteChecked(boolean checked) {
         setBooleanValue("vermieteteChecked", checked);
     }
@@ -91,7 +122,6 @@ public class ConfigurationService {
      *
      * @return true, wenn die Checkbox für unvermietete Wohnungen aktiviert ist, sonst false.
      */
-    @Transactional
     public boolean getUnvermieteteChecked() {
         return getBooleanValue("unvermieteteChecked", true);
     }
@@ -101,37 +131,26 @@ public class ConfigurationService {
      *
      * @param checked Der neue Status der Checkbox für unvermietete Wohnungen.
      */
-    @Transactional
     public void setUnvermieteteChecked(boolean checked) {
         setBooleanValue("unvermieteteChecked", checked);
     }
 
     /**
-     * Speichert die IDs der expandierten Knoten.
-     * Die IDs werden als kommaseparierte Zeichenkette in der Konfiguration gespeichert.
+     * Speichert die aufgeklappten Gebäude der Wohnungsübersicht.
      *
-     * @param expandedNodeIds Eine Liste der IDs der expandierten Knoten.
+     * @param expandedState der von {@link ExpandedStateStore} kodierte Zustand.
      */
-    @Transactional
-    public void saveExpandedNodes(List<String> expandedNodeIds) {
-        Configuration config = configurationRepository.findById("expandedNodes")
-                .orElse(new Configuration());
-        config.setConfigKey("expandedNodes");
-        config.setConfigValue(String.join(",", expandedNodeIds));
-        configurationRepository.save(config);
+    public void saveExpandedState(String expandedState) {
+        setValue("expandedState", expandedState);
     }
 
     /**
-     * Ruft die IDs der expandierten Knoten ab.
-     * Die IDs werden als kommaseparierte Zeichenkette in der Konfiguration gespeichert und hier in eine Liste umgewandelt.
+     * Ruft die aufgeklappten Gebäude der Wohnungsübersicht ab.
      *
-     * @return Eine Liste der IDs der expandierten Knoten. Wenn keine IDs gespeichert sind, wird eine leere Liste zurückgegeben.
+     * @return der von {@link ExpandedStateStore} kodierte Zustand oder null, wenn nichts gespeichert ist.
      */
-    @Transactional
-    public List<String> getExpandedNodes() {
-        return configurationRepository.findById("expandedNodes")
-                .map(config -> List.of(config.getConfigValue().split(",")))
-                .orElse(Collections.emptyList());
+    public String getExpandedState() {
+        return getValue("expandedState");
     }
 
     /**
@@ -140,7 +159,6 @@ public class ConfigurationService {
      * @param key        Der Schlüssel der Konfiguration.
      * @param isExpanded Der zu setzende boolesche Wert.
      */
-    @Transactional
     public void setAccordionState(String key, boolean isExpanded) {
         setBooleanValue(key, isExpanded);
     }
@@ -152,7 +170,6 @@ public class ConfigurationService {
      * @param defaultValue Der Standardwert, der zurückgegeben wird, wenn der Schlüssel nicht gefunden wird.
      * @return Der boolesche Wert aus der Konfiguration.
      */
-    @Transactional
     public boolean getAccordionState(String key, boolean defaultValue) {
         return getBooleanValue(key, defaultValue);
     }
@@ -163,7 +180,6 @@ public class ConfigurationService {
      * @param key   Der Schlüssel der Konfiguration.
      * @param value Der zu setzende boolesche Wert für den Checkbox-Zustand.
      */
-    @Transactional
     public void setCheckboxState(String key, boolean value) {
         setBooleanValue(key, value);
     }
@@ -175,7 +191,6 @@ public class ConfigurationService {
      * @param defaultValue Der Standardwert, der zurückgegeben wird, wenn der Schlüssel nicht gefunden wird.
      * @return Der boolesche Wert aus der Konfiguration.
      */
-    @Transactional
     public boolean getCheckboxState(String key, boolean defaultValue) {
         return getBooleanValue(key, defaultValue);
     }
@@ -186,12 +201,8 @@ public class ConfigurationService {
      * @param key   Der Schlüssel der Konfiguration.
      * @param value Der zu setzende boolesche Wert.
      */
-    @Transactional
     public void setBooleanValue(String key, boolean value) {
-        Configuration config = configurationRepository.findById(key).orElse(new Configuration());
-        config.setConfigKey(key);
-        config.setConfigValue(Boolean.toString(value));
-        configurationRepository.save(config);
+        setValue(key, Boolean.toString(value));
     }
 
     /**
@@ -201,10 +212,194 @@ public class ConfigurationService {
      * @param defaultValue Der Standardwert, der zurückgegeben wird, wenn der Schlüssel nicht gefunden wird.
      * @return Der boolesche Wert aus der Konfiguration.
      */
-    @Transactional
     public boolean getBooleanValue(String key, boolean defaultValue) {
-        return configurationRepository.findById(key)
-                .map(config -> Boolean.parseBoolean(config.getConfigValue()))
-                .orElse(defaultValue);
+        String value = getValue(key);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    /**
+     * Schreibt alle noch nicht gespeicherten Änderungen in einer Transaktion in die Datenbank.
+     * Schlägt das Schreiben fehl, bleiben die Änderungen vorgemerkt und werden beim nächsten Lauf erneut geschrieben.
+     */
+    @Scheduled(fixedDelayString = "${configuration.flush-interval:2000}")
+    public void flush() {
+        long jetzt = System.currentTimeMillis();
+        for (Sitzung sitzung : sitzungen) {
+            if (jetzt - sitzung.letzteAenderung >= leerlaufMillis) uebernehmen(sitzung);
+        }
+        if (ausstehend.isEmpty()) return;
+        Map<Configuration.Schluessel, String> aenderungen = new HashMap<>(ausstehend);
+        try {
+            transactionTemplate.executeWithoutResult(status -> speichern(aenderungen));
+        } catch (RuntimeException e) {
+            logger.error("Konfiguration konnte nicht gespeichert werden, {} Änderungen bleiben vorgemerkt", aenderungen.size(), e);
+            return;
+        }
+        // Nur entfernen, was nicht in der Zwischenzeit erneut geändert wurde
+        aenderungen.forEach(ausstehend::remove);
+    }
+
+    /**
+     * Schreibt beim Herunterfahren die Änderungen aller offenen Sitzungen, unabhängig davon, wie lange sie
+     * zurückliegen. Beim Herunterfahren werden keine Vaadin-Sitzungen beendet, sodass {@link #sitzungBeendet}
+     * nicht aufgerufen wird.
+     */
+    @PreDestroy
+    public void herunterfahren() {
+        sitzungen.forEach(this::uebernehmen);
+        flush();
+    }
+
+    /**
+     * Aktualisiert die vorhandenen Einträge und legt die fehlenden an.
+     */
+    private void speichern(Map<Configuration.Schluessel, String> aenderungen) {
+        Map<Configuration.Schluessel, Configuration> configs = new HashMap<>();
+        for (Configuration config : configurationRepository.findAllById(aenderungen.keySet())) {
+            configs.put(config.getSchluessel(), config);
+        }
+        aenderungen.forEach((schluessel, value) -> configs.computeIfAbsent(schluessel,
+                        k -> new Configuration(k.getBenutzer(), k.getConfigKey(), value))
+                .setConfigValue(value));
+        configurationRepository.saveAll(configs.values());
+    }
+
+    /**
+     * Übernimmt die Änderungen einer Sitzung, sobald die Vaadin-Sitzung endet.
+     *
+     * @param event das Ereignis beim Start des Vaadin-Services
+     */
+    @Override
+    public void serviceInit(ServiceInitEvent event) {
+        event.getSource().addSessionDestroyListener(destroyEvent -> sitzungBeendet(destroyEvent.getSession()));
+    }
+
+    /**
+     * Schreibt die Änderungen der Sitzung des Benutzers und gibt sie frei.
+     *
+     * @param session die beendete Vaadin-Sitzung
+     */
+    void sitzungBeendet(VaadinSession session) {
+        Sitzung sitzung = session.getAttribute(Sitzung.class);
+        if (sitzung != null) {
+            session.setAttribute(Sitzung.class, null);
+            beenden(sitzung);
+        }
+    }
+
+    /**
+     * Gibt den Wert des angemeldeten Benutzers zurück oder, falls er ihn nicht gesetzt hat, den anwendungsweiten Wert.
+     */
+    private String getValue(String key) {
+        Sitzung sitzung = sitzung();
+        String value = sitzung != null ? sitzung.werte.get(key) : null;
+        return value != null ? value : globaleWerte().get(key);
+    }
+
+    /**
+     * Setzt einen Wert für den angemeldeten Benutzer oder, außerhalb einer Sitzung, anwendungsweit.
+     */
+    private void setValue(String key, String value) {
+        Sitzung sitzung = sitzung();
+        if (sitzung != null) {
+            sitzung.setzen(key, value);
+        } else {
+            setGlobalValue(key, value);
+        }
+    }
+
+    /**
+     * Setzt einen anwendungsweiten Wert im Speicher und merkt ihn zum Schreiben vor.
+     */
+    private void setGlobalValue(String key, String value) {
+        globaleWerte().put(key, value);
+        ausstehend.put(new Configuration.Schluessel(Configuration.GLOBAL, key), value);
+    }
+
+    /**
+     * Gibt die anwendungsweiten Werte zurück. Beim ersten Zugriff werden sie aus der Datenbank geladen.
+     */
+    private Map<String, String> globaleWerte() {
+        Map<String, String> current = globaleWerte.get();
+        if (current == null) {
+            Map<String, String> loaded = new ConcurrentHashMap<>(laden(Configuration.GLOBAL));
+            current = globaleWerte.compareAndExchange(null, loaded);
+            if (current == null) current = loaded;
+        }
+        return current;
+    }
+
+    /**
+     * Gibt die Sitzung des angemeldeten Benutzers zurück und legt sie beim ersten Zugriff an.
+     *
+     * @return die Sitzung oder null, wenn keine Vaadin-Sitzung besteht oder niemand angemeldet ist
+     */
+    private Sitzung sitzung() {
+        VaadinSession session = VaadinSession.getCurrent();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (session == null || authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        Sitzung sitzung = session.getAttribute(Sitzung.class);
+        if (sitzung == null || !sitzung.benutzer.equals(authentication.getName())) {
+            if (sitzung != null) beenden(sitzung);
+            sitzung = new Sitzung(authentication.getName(), laden(authentication.getName()));
+            session.setAttribute(Sitzung.class, sitzung);
+            sitzungen.add(sitzung);
+        }
+        return sitzung;
+    }
+
+    /**
+     * Lädt die Werte eines Benutzers. Zeilen ohne Wert aus älteren Datenbeständen werden übergangen, sie gelten
+     * wie ein nicht gesetzter Wert.
+     */
+    private Map<String, String> laden(String benutzer) {
+        Map<String, String> werte = new HashMap<>();
+        for (Configuration config : configurationRepository.findByBenutzer(benutzer)) {
+            if (config.getConfigValue() != null) werte.put(config.getConfigKey(), config.getConfigValue());
+        }
+        return werte;
+    }
+
+    private void beenden(Sitzung sitzung) {
+        sitzungen.remove(sitzung);
+        uebernehmen(sitzung);
+        flush();
+    }
+
+    /**
+     * Merkt die Änderungen einer Sitzung zum Schreiben vor.
+     */
+    private void uebernehmen(Sitzung sitzung) {
+        for (Map.Entry<String, String> aenderung : Map.copyOf(sitzung.geaendert).entrySet()) {
+            ausstehend.put(new Configuration.Schluessel(sitzung.benutzer, aenderung.getKey()), aenderung.getValue());
+            sitzung.geaendert.remove(aenderung.getKey(), aenderung.getValue());
+        }
+    }
+
+    /**
+     * Die Einstellungen eines Benutzers während einer Vaadin-Sitzung.
+     * Gelesen wird ohne Sperre aus einem unveränderlichen Schnappschuss, der bei jeder Änderung ersetzt wird.
+     */
+    static final class Sitzung implements Serializable {
+        private final String benutzer;
+        private final Map<String, String> geaendert = new ConcurrentHashMap<>();
+        private volatile Map<String, String> werte;
+        private volatile long letzteAenderung = System.currentTimeMillis();
+
+        private Sitzung(String benutzer, Map<String, String> werte) {
+            this.benutzer = benutzer;
+            this.werte = Map.copyOf(werte);
+        }
+
+        private synchronized void setzen(String key, String value) {
+            Map<String, String> neu = new HashMap<>(werte);
+            neu.put(key, value);
+            werte = Map.copyOf(neu);
+            geaendert.put(key, value);
+            letzteAenderung = System.currentTimeMillis();
+        }
     }
-}
\ No newline at end of file
+}
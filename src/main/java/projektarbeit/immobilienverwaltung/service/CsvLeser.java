@@ -0,0 +1,128 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Liest CSV-Dateien Datensatz für Datensatz, ohne die ganze Datei in den Speicher zu laden.
+ * <p>
+ * Die erste Zeile enthält die Spaltennamen. Als Trennzeichen wird Semikolon oder Komma verwendet, je nachdem,
+ * welches in der Kopfzeile häufiger vorkommt. Felder können in Anführungszeichen stehen und dann Trennzeichen,
+ * Zeilenumbrüche und verdoppelte Anführungszeichen enthalten.
+ */
+final class CsvLeser {
+
+    private static final int MAX_KOPFZEILE = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final char trennzeichen;
+    private final List<String> spalten;
+    private long zeile = 1;
+    private long naechsteZeile = 1;
+
+    /**
+     * Liest die Kopfzeile.
+     *
+     * @param reader der Reader mit dem Inhalt der Datei
+     * @throws IOException falls die Kopfzeile nicht gelesen werden kann oder fehlt
+     */
+    CsvLeser(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader gepuffert ? gepuffert : new BufferedReader(reader);
+        this.reader.mark(MAX_KOPFZEILE);
+        String kopf = this.reader.readLine();
+        if (kopf == null) throw new IOException("Die CSV-Datei enthält keine Kopfzeile");
+        this.reader.reset();
+        this.trennzeichen = anzahl(kopf, ';') > anzahl(kopf, ',') ? ';' : ',';
+
+        List<String> kopfzeile = leseDatensatz();
+        if (kopfzeile == null) throw new IOException("Die CSV-Datei enthält keine Kopfzeile");
+        if (!kopfzeile.isEmpty() && kopfzeile.getFirst().startsWith("\uFEFF")) {
+            kopfzeile.set(0, kopfzeile.getFirst().substring(1));
+        }
+        this.spalten = kopfzeile.stream().map(spalte -> spalte.trim().toLowerCase(Locale.ROOT)).toList();
+    }
+
+    /**
+     * Liest den nächsten Datensatz. Leere Zeilen werden übersprungen.
+     *
+     * @return die Werte nach kleingeschriebenem Spaltennamen oder null am Ende der Datei
+     * @throws IOException falls die Datei nicht gelesen werden kann oder ein Anführungszeichen nicht geschlossen wird
+     */
+    Map<String, String> naechster() throws IOException {
+        List<String> felder;
+        do {
+            felder = leseDatensatz();
+            if (felder == null) return null;
+        } while (felder.stream().allMatch(String::isBlank));
+
+        Map<String, String> werte = new LinkedHashMap<>();
+        for (int i = 0; i < spalten.size(); i++) {
+            werte.put(spalten.get(i), i < felder.size() ? felder.get(i) : "");
+        }
+        return werte;
+    }
+
+    /**
+     * Gibt die Zeile zurück, in der der zuletzt gelesene Datensatz beginnt.
+     *
+     * @return die Zeilennummer, beginnend bei 1 für die Kopfzeile
+     */
+    long zeile() {
+        return zeile;
+    }
+
+    /**
+     * Gibt das erkannte Trennzeichen zurück.
+     *
+     * @return Semikolon oder Komma
+     */
+    char trennzeichen() {
+        return trennzeichen;
+    }
+
+    private List<String> leseDatensatz() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        zeile = naechsteZeile;
+        List<String> felder = new ArrayList<>();
+        StringBuilder feld = new StringBuilder();
+        boolean inAnfuehrungszeichen = false;
+        while (true) {
+            if (inAnfuehrungszeichen) {
+                if (c == -1) throw new IOException("Nicht geschlossenes Anführungszeichen ab Zeile " + zeile);
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        inAnfuehrungszeichen = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    naechsteZeile++;
+                }
+                feld.append((char) c);
+            } else if (c == '"' && feld.isEmpty()) {
+                inAnfuehrungszeichen = true;
+            } else if (c == trennzeichen) {
+                felder.add(feld.toString());
+                feld.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                naechsteZeile++;
+                felder.add(feld.toString());
+                return felder;
+            } else if (c != '\r') {
+                feld.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static int anzahl(String text, char zeichen) {
+        return (int) text.chars().filter(c -> c == zeichen).count();
+    }
+}
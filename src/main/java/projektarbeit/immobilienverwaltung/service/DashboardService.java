@@ -2,31 +2,33 @@ package projektarbeit.immobilienverwaltung.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import projektarbeit.immobilienverwaltung.model.Mietvertrag;
-import projektarbeit.immobilienverwaltung.repository.MieterRepository;
-import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
-import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Service-Klasse für das Dashboard, die Methoden zur Berechnung von Statistiken und Einnahmen bereitstellt.
+ * Die Werte stammen aus dem {@link DashboardStatsStore}, der inkrementell aktualisiert wird,
+ * sodass Lesezugriffe keine Datenbankabfragen auslösen.
  */
 @Service
 public class DashboardService {
 
-    private final MieterRepository mieterRepository;
-    private final WohnungRepository wohnungRepository;
-    private final MietvertragRepository mietvertragRepository;
+    private final DashboardStatsStore dashboardStatsStore;
 
     @Autowired
-    public DashboardService(MieterRepository mieterRepository,
-                            WohnungRepository wohnungRepository,
-                            MietvertragRepository mietvertragRepository) {
-        this.mieterRepository = mieterRepository;
-        this.wohnungRepository = wohnungRepository;
-        this.mietvertragRepository = mietvertragRepository;
+    public DashboardService(DashboardStatsStore dashboardStatsStore) {
+        this.dashboardStatsStore = dashboardStatsStore;
+    }
+
+    /**
+     * Gibt alle Kennzahlen des Dashboards als gemeinsamen Schnappschuss zurück.
+     *
+     * @return ein unveränderlicher Schnappschuss der Dashboard-Statistiken.
+     */
+    public DashboardStats getDashboardStats() {
+        return dashboardStatsStore.getStats();
     }
 
     /**
@@ -35,9 +37,7 @@ public class DashboardService {
      * @return die Gesamtsumme der Mieteinnahmen.
      */
     public double getMieteinnahmen() {
-        return mietvertragRepository.findAll().stream()
-                .mapToDouble(Mietvertrag::getMiete)
-                .sum();
+        return getDashboardStats().mieteinnahmen();
     }
 
     /**
@@ -46,12 +46,11 @@ public class DashboardService {
      * @return eine Map mit der Gesamtzahl der Immobilien und der Anzahl der vermieteten Immobilien.
      */
     public Map<String, Long> getImmobilienStats() {
-        Map<String, Long> stats = new HashMap<>();
-        long totalImmobilien = wohnungRepository.count();
-        long vermieteteImmobilien = mietvertragRepository.findAll().size();
-        stats.put("total", totalImmobilien);
-        stats.put("vermietet", vermieteteImmobilien);
-        return stats;
+        DashboardStats stats = getDashboardStats();
+        Map<String, Long> immobilienStats = new HashMap<>();
+        immobilienStats.put("total", stats.totalWohnungen());
+        immobilienStats.put("vermietet", stats.vermieteteWohnungen());
+        return immobilienStats;
     }
 
     /**
@@ -60,6 +59,6 @@ public class DashboardService {
      * @return die Gesamtzahl der Mieter.
      */
     public long getTotalMieter() {
-        return mieterRepository.count();
+        return getDashboardStats().totalMieter();
     }
-}
\ No newline at end of file
+}
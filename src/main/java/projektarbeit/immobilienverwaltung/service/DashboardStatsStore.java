@@ -0,0 +1,160 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hält die Kennzahlen des Dashboards im Speicher und aktualisiert sie inkrementell.
+ * Die Services veröffentlichen beim Speichern und Löschen ein {@link DashboardStatsDelta}, das nach dem
+ * erfolgreichen Commit der Transaktion auf den Schnappschuss angewendet wird. Lesezugriffe benötigen
+ * dadurch keine Datenbankabfrage. Ein periodischer Abgleich berechnet die Werte neu aus der Datenbank
+ * und protokolliert Abweichungen.
+ * <p>
+ * Jede Änderung erhöht beim Veröffentlichen und beim Abschluss ihrer Transaktion eine Version. Werte aus der
+ * Datenbank werden nur übernommen, wenn während der Abfrage keine Transaktion mit einer Änderung offen war und
+ * sich die Version nicht geändert hat. Sonst ist unklar, ob eine Änderung bereits enthalten ist, und sie würde
+ * verloren gehen oder doppelt gezählt.
+ */
+@Component
+public class DashboardStatsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsStore.class);
+    private static final double MIETE_TOLERANZ = 0.005;
+    private static final int MAX_LADEVERSUCHE = 5;
+
+    private final MietvertragRepository mietvertragRepository;
+    private final AtomicReference<DashboardStats> snapshot = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger offeneAenderungen = new AtomicInteger();
+
+    /**
+     * Konstruktor für DashboardStatsStore.
+     *
+     * @param mietvertragRepository das Repository, über das die Kennzahlen aggregiert werden
+     */
+    @Autowired
+    public DashboardStatsStore(MietvertragRepository mietvertragRepository) {
+        this.mietvertragRepository = mietvertragRepository;
+    }
+
+    /**
+     * Gibt den aktuellen Schnappschuss zurück. Beim ersten Zugriff werden die Werte aus der Datenbank geladen.
+     * Ändern sich die Kennzahlen während des Ladens, wird erneut geladen. Gelingt das nicht ohne gleichzeitige
+     * Änderung oder ist eine Transaktion mit einer Änderung offen, werden die geladenen Werte zurückgegeben, aber
+     * nicht als Schnappschuss übernommen.
+     *
+     * @return die aktuellen Dashboard-Kennzahlen
+     */
+    public DashboardStats getStats() {
+        DashboardStats current = snapshot.get();
+        if (current != null) return current;
+
+        DashboardStats loaded = null;
+        for (int versuch = 0; versuch < MAX_LADEVERSUCHE; versuch++) {
+            Stand stand = stand();
+            loaded = mietvertragRepository.loadDashboardStats();
+            if (unveraendert(stand)) {
+                current = snapshot.compareAndExchange(null, loaded);
+                return current != null ? current : loaded;
+            }
+            // Eine offene Transaktion ist bei einem sofortigen neuen Versuch meist noch nicht abgeschlossen
+            if (stand.offen() > 0) break;
+        }
+        return loaded;
+    }
+
+    /**
+     * Wendet eine Änderung auf den Schnappschuss an, sobald die auslösende Transaktion erfolgreich
+     * abgeschlossen wurde. Ohne aktive Transaktion wird die Änderung sofort angewendet.
+     * Solange noch kein Schnappschuss geladen wurde, wird die Änderung ignoriert.
+     *
+     * @param delta die anzuwendende Änderung
+     */
+    @EventListener
+    public void onStatsChanged(DashboardStatsDelta delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            anwenden(delta);
+            return;
+        }
+        offeneAenderungen.incrementAndGet();
+        version.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) anwenden(delta);
+                } finally {
+                    version.incrementAndGet();
+                    offeneAenderungen.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void anwenden(DashboardStatsDelta delta) {
+        version.incrementAndGet();
+        snapshot.updateAndGet(stats -> stats == null ? null : delta.applyTo(stats));
+    }
+
+    /**
+     * Berechnet die Kennzahlen neu aus der Datenbank und ersetzt den Schnappschuss.
+     * Weicht der bisherige Schnappschuss von den berechneten Werten ab, wird eine Warnung protokolliert.
+     * Wurden die Kennzahlen während der Berechnung verändert, wird der Abgleich im nächsten Lauf wiederholt.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.stats.reconcile-interval:300000}",
+            initialDelayString = "${dashboard.stats.reconcile-interval:300000}")
+    public void reconcile() {
+        DashboardStats current = snapshot.get();
+        if (current == null) return;
+
+        Stand stand = stand();
+        DashboardStats fresh = mietvertragRepository.loadDashboardStats();
+        if (!unveraendert(stand)) {
+            logger.debug("Abgleich der Dashboard-Statistiken wegen gleichzeitiger Änderungen verschoben");
+            return;
+        }
+        if (hasDrift(current, fresh)) {
+            logger.warn("Abweichung der Dashboard-Statistiken erkannt: gespeichert {}, berechnet {}", current, fresh);
+        }
+        snapshot.compareAndSet(current, fresh);
+    }
+
+    private boolean hasDrift(DashboardStats current, DashboardStats fresh) {
+        return Math.abs(current.mieteinnahmen() - fresh.mieteinnahmen()) > MIETE_TOLERANZ
+                || current.totalWohnungen() != fresh.totalWohnungen()
+                || current.vermieteteWohnungen() != fresh.vermieteteWohnungen()
+                || current.totalMieter() != fresh.totalMieter();
+    }
+
+    /**
+     * Hält vor einer Abfrage fest, ob Änderungen offen sind und welche Version gilt. Die Version wird zuerst
+     * gelesen, damit eine dazwischen veröffentlichte Änderung an der Version erkannt wird.
+     */
+    private Stand stand() {
+        long v = version.get();
+        return new Stand(v, offeneAenderungen.get());
+    }
+
+    /**
+     * Prüft, ob die Werte einer Abfrage seit {@link #stand()} verlässlich sind.
+     */
+    private boolean unveraendert(Stand stand) {
+        return stand.offen() == 0 && version.get() == stand.version();
+    }
+
+    private record Stand(long version, int offen) {
+    }
+}
@@ -0,0 +1,285 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Untersucht den Inhalt von Dokumentdateien: Erkennung des MIME-Typs anhand der ersten Bytes und Extraktion
+ * von Text für die Suche.
+ * <p>
+ * Die Textextraktion für PDFs liest nur Textoperatoren aus unkomprimierten und mit FlateDecode komprimierten
+ * Inhaltsströmen. Komprimiert gespeicherte Dateien werden beim Lesen entpackt. Text in eingebetteten Schriften mit eigener Kodierung oder in gescannten Seiten wird nicht erkannt.
+ */
+final class DokumentInhalt {
+
+    /**
+     * PDFs bis zu dieser Größe werden nach Text durchsucht.
+     */
+    static final long MAX_PDF_GROESSE = 20L * 1024 * 1024;
+
+    private static final int MAX_STREAM_GROESSE = 4 * 1024 * 1024;
+
+    private DokumentInhalt() {
+    }
+
+    /**
+     * Ermittelt den MIME-Typ aus den ersten Bytes der Datei. Ohne bekannte Signatur wird der anhand des
+     * Dateinamens ermittelte Typ übernommen, sonst wird zwischen Text und Binärdaten unterschieden.
+     *
+     * @param datei    die Datei
+     * @param fallback der anhand des Dateinamens ermittelte MIME-Typ oder null
+     * @return der MIME-Typ
+     * @throws IOException falls die Datei nicht gelesen werden kann
+     */
+    static String detectMimeType(Path datei, String fallback) throws IOException {
+        byte[] header;
+        try (InputStream in = Kompression.oeffnen(datei)) {
+            header = in.readNBytes(512);
+        }
+        return detectMimeType(header, fallback);
+    }
+
+    static String detectMimeType(byte[] header, String fallback) {
+        if (startsWith(header, "%PDF-")) return "application/pdf";
+        if (startsWith(header, 0x89, 'P', 'N', 'G')) return "image/png";
+        if (startsWith(header, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (startsWith(header, "GIF87a") || startsWith(header, "GIF89a")) return "image/gif";
+        if (startsWith(header, "RIFF") && header.length >= 12 && new String(header, 8, 4, StandardCharsets.ISO_8859_1).equals("WEBP")) {
+            return "image/webp";
+        }
+        if (startsWith(header, "BM")) return "image/bmp";
+        if (startsWith(header, 'I', 'I', '*', 0) || startsWith(header, 'M', 'M', 0, '*')) return "image/tiff";
+        if (startsWith(header, 'P', 'K', 3, 4)) {
+            // Office-Dokumente sind ZIP-Archive, hier ist der Dateiname genauer
+            return fallback != null && (fallback.contains("officedocument") || fallback.contains("opendocument")) ? fallback : "application/zip";
+        }
+
+        if (fallback != null && !fallback.equals("application/octet-stream")) return fallback;
+        try {
+            String erkannt = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(header));
+            if (erkannt != null) return erkannt;
+        } catch (IOException e) {
+            // nicht möglich bei einem ByteArrayInputStream
+        }
+        return isText(header) ? "text/plain" : "application/octet-stream";
+    }
+
+    /**
+     * Liest den Anfang einer Textdatei als UTF-8.
+     *
+     * @param datei     die Datei
+     * @param maxLaenge die maximale Anzahl an Zeichen
+     * @return der normalisierte Text oder null, wenn die Datei keinen Text enthält
+     * @throws IOException falls die Datei nicht gelesen werden kann
+     */
+    static String plainText(Path datei, int maxLaenge) throws IOException {
+        byte[] bytes;
+        try (InputStream in = Kompression.oeffnen(datei)) {
+            bytes = in.readNBytes(maxLaenge * 4);
+        }
+        return normalize(new String(bytes, StandardCharsets.UTF_8), maxLaenge);
+    }
+
+    /**
+     * Extrahiert den Text aus den Inhaltsströmen eines PDFs.
+     *
+     * @param datei     die PDF-Datei
+     * @param maxLaenge die maximale Anzahl an Zeichen
+     * @return der normalisierte Text oder null, wenn kein Text gefunden wurde oder die Datei zu groß ist
+     * @throws IOException falls die Datei nicht gelesen werden kann
+     */
+    static String pdfText(Path datei, int maxLaenge) throws IOException {
+        if (Files.size(datei) > MAX_PDF_GROESSE) return null;
+        byte[] pdf;
+        try (InputStream in = Kompression.oeffnen(datei)) {
+            pdf = in.readNBytes((int) MAX_PDF_GROESSE + 1);
+        }
+        if (pdf.length > MAX_PDF_GROESSE) return null;
+        String roh = new String(pdf, StandardCharsets.ISO_8859_1);
+
+        StringBuilder text = new StringBuilder();
+        int position = 0;
+        while (text.length() < maxLaenge) {
+            int stream = roh.indexOf("stream", position);
+            if (stream < 0) break;
+            int ende = roh.indexOf("endstream", stream);
+            if (ende < 0) break;
+            position = ende + "endstream".length();
+            if (stream > 0 && roh.charAt(stream - 1) == 'd') continue; // "endstream" eines vorherigen Treffers
+
+            int dictStart = roh.lastIndexOf("<<", stream);
+            String dictionary = dictStart >= 0 ? roh.substring(dictStart, stream) : "";
+            if (dictionary.contains("/Subtype") || dictionary.contains("/Length1") || dictionary.contains("/Type /XRef")
+                    || dictionary.contains("/Type/XRef") || dictionary.contains("/ObjStm")) continue;
+
+            int datenStart = stream + "stream".length();
+            if (datenStart < roh.length() && roh.charAt(datenStart) == '\r') datenStart++;
+            if (datenStart < roh.length() && roh.charAt(datenStart) == '\n') datenStart++;
+
+            byte[] daten;
+            if (dictionary.contains("/FlateDecode")) {
+                daten = inflate(pdf, datenStart, ende - datenStart);
+                if (daten == null) continue;
+            } else if (!dictionary.contains("/Filter")) {
+                daten = Arrays.copyOfRange(pdf, datenStart, ende);
+            } else {
+                continue;
+            }
+            appendTextOperators(new String(daten, StandardCharsets.ISO_8859_1), text);
+        }
+        return normalize(text.toString(), maxLaenge);
+    }
+
+    /**
+     * Sammelt die Zeichenketten, die innerhalb von BT/ET-Blöcken ausgegeben werden. Zeichenketten eines
+     * TJ-Arrays gehören zu einem Wort, andere werden durch Leerzeichen getrennt.
+     */
+    static void appendTextOperators(String inhalt, StringBuilder text) {
+        boolean imText = false;
+        boolean imArray = false;
+        int i = 0;
+        while (i < inhalt.length()) {
+            char c = inhalt.charAt(i);
+            if (c == '(' && imText) {
+                StringBuilder zeichenkette = new StringBuilder();
+                i = readLiteral(inhalt, i + 1, zeichenkette);
+                text.append(zeichenkette);
+                if (!imArray) text.append(' ');
+                continue;
+            }
+            if (c == '[' && imText) {
+                imArray = true;
+            } else if (c == ']' && imArray) {
+                imArray = false;
+                text.append(' ');
+            } else if (isOperator(inhalt, i, "BT")) {
+                imText = true;
+            } else if (isOperator(inhalt, i, "ET")) {
+                imText = false;
+                text.append(' ');
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Liest eine Zeichenkette in runden Klammern mit Escape-Sequenzen und verschachtelten Klammern.
+     *
+     * @return die Position nach der schließenden Klammer
+     */
+    private static int readLiteral(String inhalt, int i, StringBuilder ziel) {
+        int tiefe = 1;
+        while (i < inhalt.length()) {
+            char c = inhalt.charAt(i++);
+            if (c == '\\' && i < inhalt.length()) {
+                char e = inhalt.charAt(i++);
+                switch (e) {
+                    case 'n', 'r', 't', 'f', 'b' -> ziel.append(' ');
+                    case '\r', '\n' -> {
+                        if (e == '\r' && i < inhalt.length() && inhalt.charAt(i) == '\n') i++;
+                    }
+                    default -> {
+                        if (e >= '0' && e <= '7') {
+                            int wert = e - '0';
+                            for (int n = 0; n < 2 && i < inhalt.length() && inhalt.charAt(i) >= '0' && inhalt.charAt(i) <= '7'; n++) {
+                                wert = wert * 8 + inhalt.charAt(i++) - '0';
+                            }
+                            ziel.append((char) (wert & 0xFF));
+                        } else {
+                            ziel.append(e);
+                        }
+                    }
+                }
+            } else if (c == '(') {
+                tiefe++;
+                ziel.append(c);
+            } else if (c == ')') {
+                if (--tiefe == 0) return i;
+                ziel.append(c);
+            } else {
+                ziel.append(c);
+            }
+        }
+        return i;
+    }
+
+    private static boolean isOperator(String inhalt, int i, String operator) {
+        if (!inhalt.startsWith(operator, i)) return false;
+        boolean davor = i == 0 || Character.isWhitespace(inhalt.charAt(i - 1));
+        int nach = i + operator.length();
+        boolean danach = nach == inhalt.length() || Character.isWhitespace(inhalt.charAt(nach));
+        return davor && danach;
+    }
+
+    private static byte[] inflate(byte[] pdf, int start, int laenge) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(pdf, start, Math.max(0, laenge));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] puffer = new byte[8192];
+        try {
+            while (!inflater.finished() && out.size() < MAX_STREAM_GROESSE) {
+                int n = inflater.inflate(puffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(puffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Entfernt Steuerzeichen, fasst Leerraum zusammen und kürzt auf die maximale Länge.
+     */
+    static String normalize(String text, int maxLaenge) {
+        StringBuilder ergebnis = new StringBuilder();
+        boolean leerzeichen = false;
+        for (int i = 0; i < text.length() && ergebnis.length() < maxLaenge; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c) || c == '\uFFFD') {
+                leerzeichen = !ergebnis.isEmpty();
+            } else {
+                if (leerzeichen) ergebnis.append(' ');
+                leerzeichen = false;
+                ergebnis.append(c);
+            }
+        }
+        String normalisiert = ergebnis.length() > maxLaenge ? ergebnis.substring(0, maxLaenge) : ergebnis.toString();
+        return normalisiert.isBlank() ? null : normalisiert;
+    }
+
+    /**
+     * Text enthält keine Nullbytes und ist gültiges UTF-8. Eine am Ende abgeschnittene Mehrbyte-Sequenz wird toleriert.
+     */
+    private static boolean isText(byte[] header) {
+        if (header.length == 0) return false;
+        for (byte b : header) {
+            if (b == 0) return false;
+        }
+        String text = new String(header, StandardCharsets.UTF_8);
+        return text.chars().filter(c -> c == '\uFFFD').count() <= 1;
+    }
+
+    private static boolean startsWith(byte[] header, String signatur) {
+        return startsWith(header, signatur.chars().toArray());
+    }
+
+    private static boolean startsWith(byte[] header, int... signatur) {
+        if (header.length < signatur.length) return false;
+        for (int i = 0; i < signatur.length; i++) {
+            if ((header[i] & 0xFF) != signatur[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,253 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Verarbeitet die Dateien neuer Dokumente im Hintergrund nach:
+ * Der MIME-Typ wird aus dem Inhalt bestimmt, für Bilder wird eine Vorschau erzeugt und aus PDFs und Textdateien
+ * wird Text für die Suche extrahiert.
+ * <p>
+ * Jedes Dokument wird auf einem eigenen virtuellen Thread verarbeitet, gleichzeitig aber höchstens
+ * {@link #PARALLELITAET} Dateien, damit das Dekodieren großer Bilder den Speicher nicht erschöpft.
+ * Komprimiert gespeicherte Dateien werden dabei als Stream entpackt.
+ * Vorschaubilder liegen als PNG im Verzeichnis {@code vorschau} des Dokumentenspeichers.
+ */
+@Service
+public class DokumentPostProcessor {
+
+    /**
+     * Maximale Anzahl gleichzeitig verarbeiteter Dateien.
+     */
+    public static final int PARALLELITAET = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Längste Kante eines Vorschaubilds in Pixeln.
+     */
+    public static final int VORSCHAU_KANTE = 128;
+
+    private static final Logger logger = LoggerFactory.getLogger(DokumentPostProcessor.class);
+
+    private final DokumentRepository dokumentRepository;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dokument-verarbeitung-", 0).factory());
+    private final Semaphore plaetze = new Semaphore(PARALLELITAET);
+    private final Set<Long> inArbeit = ConcurrentHashMap.newKeySet();
+
+    @Value("${document.storage.path}")
+    private String storagePath;
+
+    private Path vorschauLocation;
+
+    /**
+     * Konstruktor für DokumentPostProcessor.
+     *
+     * @param dokumentRepository das Repository, in dem die Ergebnisse gespeichert werden
+     */
+    @Autowired
+    public DokumentPostProcessor(DokumentRepository dokumentRepository) {
+        this.dokumentRepository = dokumentRepository;
+    }
+
+    /**
+     * Legt das Verzeichnis für Vorschaubilder an.
+     */
+    @PostConstruct
+    public void init() {
+        this.vorschauLocation = Paths.get(storagePath).toAbsolutePath().resolve("vorschau");
+        try {
+            Files.createDirectories(vorschauLocation);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize preview storage", e);
+        }
+    }
+
+    /**
+     * Beendet laufende Verarbeitungen beim Herunterfahren. Nicht verarbeitete Dokumente werden beim nächsten
+     * Start nachgeholt.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Holt beim Start die Verarbeitung aller Dokumente nach, die noch nicht verarbeitet wurden.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verarbeiteAusstehende() {
+        dokumentRepository.findUnverarbeiteteIds().forEach(this::submit);
+    }
+
+    /**
+     * Plant die Verarbeitung eines gespeicherten Dokuments ein, sobald die Transaktion abgeschlossen ist.
+     *
+     * @param event das Ereignis
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.deleted() || !(event.entity() instanceof Dokument dokument)) return;
+        if (dokument.getDokument_id() != null && dokument.getVorschau() == null) {
+            submit(dokument.getDokument_id());
+        }
+    }
+
+    /**
+     * Gibt den Pfad des Vorschaubilds eines Dokuments zurück. Da Blobs nach ihrem Inhalt benannt sind,
+     * teilen sich Dokumente mit gleichem Inhalt ein Vorschaubild.
+     *
+     * @param dokument das Dokument
+     * @return der Pfad des Vorschaubilds, das nicht existieren muss
+     */
+    public Path vorschauPfad(Dokument dokument) {
+        return vorschauLocation.resolve(Paths.get(dokument.getDateipfad()).getFileName() + ".png");
+    }
+
+    private void submit(Long id) {
+        if (!inArbeit.add(id)) return;
+        executor.execute(() -> {
+            try {
+                plaetze.acquire();
+                try {
+                    verarbeiten(id);
+                } finally {
+                    plaetze.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Fehler bei der Verarbeitung von Dokument {}", id, e);
+            } finally {
+                inArbeit.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Verarbeitet ein Dokument und speichert MIME-Typ, Vorschau und Text. Fehlt die Datei, wird das Dokument
+     * als verarbeitet ohne Vorschau markiert.
+     *
+     * @param id die ID des Dokuments
+     * @throws IOException falls die Datei nicht gelesen werden kann
+     */
+    void verarbeiten(Long id) throws IOException {
+        Dokument dokument = dokumentRepository.findById(id).orElse(null);
+        if (dokument == null) return;
+        Path datei = Paths.get(dokument.getDateipfad());
+        if (!Files.isRegularFile(datei)) {
+            logger.warn("Datei von Dokument {} nicht gefunden: {}", id, datei);
+            dokumentRepository.updateVerarbeitung(id, dokument.getMimeType(), false, null);
+            return;
+        }
+
+        String mimeType = DokumentInhalt.detectMimeType(datei, dokument.getMimeType());
+        boolean vorschau = false;
+        if (mimeType.startsWith("image/")) {
+            try {
+                vorschau = erzeugeVorschau(datei, vorschauPfad(dokument));
+            } catch (IOException e) {
+                logger.warn("Keine Vorschau für Dokument {}: {}", id, e.getMessage());
+            }
+        }
+        String text = null;
+        if (mimeType.equals("application/pdf")) {
+            text = DokumentInhalt.pdfText(datei, Dokument.TEXTINHALT_LAENGE);
+        } else if (mimeType.startsWith("text/")) {
+            text = DokumentInhalt.plainText(datei, Dokument.TEXTINHALT_LAENGE);
+        }
+        dokumentRepository.updateVerarbeitung(id, mimeType, vorschau, text);
+    }
+
+    /**
+     * Erzeugt ein Vorschaubild, sofern es noch nicht existiert. Große Bilder werden schon beim Dekodieren
+     * unterabgetastet, sodass nie das ganze Bild im Speicher liegt.
+     *
+     * @return true, wenn das Vorschaubild existiert
+     */
+    boolean erzeugeVorschau(Path datei, Path ziel) throws IOException {
+        if (Files.exists(ziel)) return true;
+        BufferedImage bild = leseVerkleinert(datei);
+        if (bild == null) return false;
+
+        double faktor = Math.min(1.0, (double) VORSCHAU_KANTE / Math.max(bild.getWidth(), bild.getHeight()));
+        int breite = Math.max(1, (int) Math.round(bild.getWidth() * faktor));
+        int hoehe = Math.max(1, (int) Math.round(bild.getHeight() * faktor));
+        BufferedImage vorschau = new BufferedImage(breite, hoehe, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = vorschau.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(bild, 0, 0, breite, hoehe, null);
+        } finally {
+            g.dispose();
+        }
+
+        Path temp = Files.createTempFile(vorschauLocation, "vorschau-", ".tmp");
+        try {
+            ImageIO.write(vorschau, "png", temp.toFile());
+            Files.move(temp, ziel, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    private BufferedImage leseVerkleinert(Path datei) throws IOException {
+        if (!Kompression.istKomprimiert(datei)) {
+            try (ImageInputStream in = ImageIO.createImageInputStream(datei.toFile())) {
+                return leseVerkleinert(in);
+            }
+        }
+        try (InputStream entpackt = Kompression.oeffnen(datei);
+             ImageInputStream in = ImageIO.createImageInputStream(entpackt)) {
+            return leseVerkleinert(in);
+        }
+    }
+
+    private BufferedImage leseVerkleinert(ImageInputStream in) throws IOException {
+        if (in == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) return null;
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            int kante = Math.max(reader.getWidth(0), reader.getHeight(0));
+            ImageReadParam param = reader.getDefaultReadParam();
+            int schritt = Math.max(1, kante / (VORSCHAU_KANTE * 2));
+            param.setSourceSubsampling(schritt, schritt, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package projektarbeit.immobilienverwaltung.service;
 
+import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.dialog.Dialog;
@@ -7,33 +8,40 @@ import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Image;
 import com.vaadin.flow.component.icon.Icon;
+import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import projektarbeit.immobilienverwaltung.controller.DokumentDownloadController;
 import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DokumentFilter;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+import projektarbeit.immobilienverwaltung.repository.DokumentSpecifications;
 import projektarbeit.immobilienverwaltung.ui.components.NotificationPopup;
 import projektarbeit.immobilienverwaltung.ui.components.TableUtils;
 import projektarbeit.immobilienverwaltung.ui.views.dialog.ConfirmationDialog;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.createCustomHeader;
 
@@ -44,7 +52,19 @@ import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.create
 public class DokumentService {
 
     private static final Logger logger = LoggerFactory.getLogger(DokumentService.class);
+
+    /**
+     * Sortiereigenschaften der Dokumentenübersicht und die Entitätspfade, nach denen die Datenbank sortiert.
+     */
+    private static final Map<String, List<String>> LIST_SORT_PROPERTIES = Map.of(
+            "dokumententyp", List.of("dokumententyp"),
+            "mieter", List.of("mieter.name", "mieter.vorname"),
+            "wohnung", List.of("wohnung.postleitzahl", "wohnung.stadt", "wohnung.strasse", "wohnung.hausnummer"));
+
     private final DokumentRepository dokumentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlobStore blobStore;
+    private final UploadService uploadService;
     @Value("${document.storage.path}")
     private String storagePath;
 
@@ -54,10 +74,17 @@ public class DokumentService {
      * Konstruktor für DokumentService mit dem angegebenen DokumentRepository.
      *
      * @param dokumentRepository das Repository für Dokument-Entitäten
+     * @param eventPublisher     der Publisher für Änderungen an Dokumenten
+     * @param blobStore          der Speicher für die Dateien der Dokumente
+     * @param uploadService      der Service für laufende Uploads
      */
     @Autowired
-    public DokumentService(DokumentRepository dokumentRepository) {
+    public DokumentService(DokumentRepository dokumentRepository, ApplicationEventPublisher eventPublisher, BlobStore blobStore,
+                           UploadService uploadService) {
         this.dokumentRepository = dokumentRepository;
+        this.eventPublisher = eventPublisher;
+        this.blobStore = blobStore;
+        this.uploadService = uploadService;
     }
 
     /**
@@ -82,6 +109,68 @@ public class DokumentService {
         return dokumentRepository.findAll();
     }
 
+    /**
+     * Findet ein Dokument anhand seiner ID.
+     *
+     * @param id die ID des Dokuments
+     * @return das Dokument oder null, wenn es nicht existiert
+     */
+    public Dokument findById(Long id) {
+        return dokumentRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Lädt einen Ausschnitt der Dokumente, die den Filter erfüllen, mit Mieter und Wohnung.
+     * Filter, Sortierung und Paging übernimmt die Datenbank. Unterstützte Sortiereigenschaften sind
+     * "dokumententyp", "mieter" und "wohnung", bei gleichen Werten wird nach der ID sortiert.
+     *
+     * @param filter   die Filterkriterien
+     * @param pageable Position, Größe und Sortierung des Ausschnitts
+     * @return die Dokumente des Ausschnitts
+     */
+    public List<Dokument> findDokumente(DokumentFilter filter, Pageable pageable) {
+        Pageable resolved = OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize(), toListSort(pageable.getSort()));
+        return dokumentRepository.findSlice(DokumentSpecifications.of(filter), resolved);
+    }
+
+    /**
+     * Zählt die Dokumente, die den Filter erfüllen.
+     *
+     * @param filter die Filterkriterien
+     * @return die Anzahl der Dokumente
+     */
+    public long countDokumente(DokumentFilter filter) {
+        return dokumentRepository.count(DokumentSpecifications.of(filter));
+    }
+
+    private Sort toListSort(Sort sort) {
+        Sort result = Sort.unsorted();
+        for (Sort.Order order : sort) {
+            List<String> properties = LIST_SORT_PROPERTIES.get(order.getProperty());
+            if (properties == null) continue;
+            for (String property : properties) {
+                result = result.and(Sort.by(order.getDirection(), property));
+            }
+        }
+        return result.and(Sort.by("dokument_id"));
+    }
+
+    /**
+     * Löscht die angegebenen Dokumente, etwa beim Löschen ihrer Wohnung oder ihres Mieters. Die Dateien werden wie
+     * beim Löschen eines einzelnen Dokuments nach dem Commit freigegeben.
+     *
+     * @param dokumente die zu löschenden Dokumente
+     */
+    @Transactional
+    public void deleteDokumente(List<Dokument> dokumente) {
+        if (dokumente.isEmpty()) return;
+        dokumentRepository.deleteAll(dokumente);
+        for (Dokument dokument : dokumente) {
+            blobStore.release(dokument.getDateipfad());
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(dokument));
+        }
+    }
+
     /**
      * Löscht alle Dokument-Entitäten, die mit der angegebenen Wohnung verknüpft sind.
      * Wenn ein Dokument keinen zugehörigen Mieter hat, wird es gelöscht. Andernfalls wird die Referenz zur Wohnung auf null gesetzt und das Dokument wird aktualisiert.
@@ -95,10 +184,12 @@ public class DokumentService {
         for (Dokument dokument : dokumente) {
             dokument.setWohnung(null);
             if (dokument.getMieter() == null) {
-                deleteFile(dokument.getDateipfad());
                 dokumentRepository.delete(dokument);
+                blobStore.release(dokument.getDateipfad());
+                eventPublisher.publishEvent(EntityChangedEvent.deleted(dokument));
             } else {
                 dokumentRepository.save(dokument);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(dokument));
             }
         }
     }
@@ -115,10 +206,12 @@ public class DokumentService {
         for (Dokument dokument : dokumente) {
             dokument.setMieter(null);
             if (dokument.getWohnung() == null) {
-                deleteFile(dokument.getDateipfad());
                 dokumentRepository.delete(dokument);
+                blobStore.release(dokument.getDateipfad());
+                eventPublisher.publishEvent(EntityChangedEvent.deleted(dokument));
             } else {
                 dokumentRepository.save(dokument);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(dokument));
             }
         }
     }
@@ -143,6 +236,43 @@ public class DokumentService {
         return dokumentRepository.findByMieter(mieter);
     }
 
+    /**
+     * Gibt die URL zurück, unter der {@link DokumentDownloadController} die Datei eines Dokuments ausliefert.
+     * Die Datei wird damit außerhalb der Vaadin-Sitzung übertragen.
+     *
+     * @param dokument Das Dokument.
+     * @param download true, wenn der Browser die Datei speichern statt anzeigen soll.
+     * @return Die relative URL der Datei.
+     */
+    public static String getDateiUrl(Dokument dokument, boolean download) {
+        String url = DokumentDownloadController.PATH.substring(1) + "/" + dokument.getDokument_id();
+        return download ? url + "?download=true" : url;
+    }
+
+    /**
+     * Erstellt die Vorschau eines Dokuments für die Dokumenten-Grids. Ist ein Vorschaubild vorhanden, wird es
+     * vom Browser nachgeladen, sonst wird ein Symbol für den Dateityp angezeigt.
+     *
+     * @param dokument Das Dokument.
+     * @return Die Komponente für die Vorschau.
+     */
+    public static Component createVorschau(Dokument dokument) {
+        if (Boolean.TRUE.equals(dokument.getVorschau())) {
+            Image image = new Image(DokumentDownloadController.PATH.substring(1) + "/" + dokument.getDokument_id() + "/vorschau",
+                    dokument.getDokumententyp());
+            image.setMaxHeight("40px");
+            image.setMaxWidth("48px");
+            image.getElement().setAttribute("loading", "lazy");
+            return image;
+        }
+        String mimeType = dokument.getMimeType() != null ? dokument.getMimeType() : "";
+        VaadinIcon symbol = mimeType.equals("application/pdf") ? VaadinIcon.FILE_TEXT_O
+                : mimeType.startsWith("image/") ? VaadinIcon.FILE_PICTURE : VaadinIcon.FILE_O;
+        Icon icon = symbol.create();
+        icon.setSize("24px");
+        return icon;
+    }
+
     /**
      * Zeigt ein Dokument in einem Dialog an.
      *
@@ -150,30 +280,18 @@ public class DokumentService {
      */
     public void viewDokument(Dokument dokument) {
         String mimeType = dokument.getMimeType();
-        StreamResource resource = new StreamResource(dokument.getDokumententyp(),
-                () -> {
-                    try {
-                        return Files.newInputStream(Paths.get(dokument.getDateipfad()));
-                    } catch (IOException e) {
-                        logger.error("Fehler beim Öffnen der Datei", e);
-                        return null;
-                    }
-                });
-
-        resource.setContentType(mimeType);
-        resource.setCacheTime(0);
+        String url = getDateiUrl(dokument, false);
 
         if ("application/pdf".equals(mimeType)) {
-            Anchor anchor = new Anchor(resource, "PDF öffnen");
+            Anchor anchor = new Anchor(url, "PDF öffnen");
             anchor.setTarget("_blank");
             anchor.getElement().setAttribute("style", "display: none;");
             com.vaadin.flow.component.UI.getCurrent().getElement().appendChild(anchor.getElement());
             anchor.getElement().callJsFunction("click");
-        } else if (mimeType.startsWith("image/")) {
+        } else if (mimeType != null && mimeType.startsWith("image/")) {
             // Bild anzeigen
-            resource.setCacheTime(0);
             Dialog dialog = new Dialog();
-            Image image = new Image(resource, "Dokument");
+            Image image = new Image(url, "Dokument");
             image.setWidth("100%");
             image.setHeight("100%");
             dialog.add(image);
@@ -190,17 +308,7 @@ public class DokumentService {
      * @param dokument Das herunterzuladende Dokument.
      */
     public void downloadDokument(Dokument dokument) {
-        StreamResource resource = new StreamResource(dokument.getDokumententyp(),
-                () -> {
-                    try {
-                        return Files.newInputStream(Paths.get(dokument.getDateipfad()));
-                    } catch (IOException e) {
-                        logger.error("Fehler beim Öffnen der Datei", e);
-                        return null;
-                    }
-                });
-
-        Anchor downloadLink = new Anchor(resource, "Download");
+        Anchor downloadLink = new Anchor(getDateiUrl(dokument, true), "Download");
         downloadLink.getElement().setAttribute("download", true);
         downloadLink.getStyle().set("display", "none"); // Verstecke den Link
 
@@ -223,8 +331,9 @@ public class DokumentService {
                 "Löschen",
                 "Möchten Sie dieses Dokument wirklich löschen?",
                 () -> {
-                    deleteFile(dokument.getDateipfad());
                     dokumentRepository.delete(dokument);
+                    blobStore.release(dokument.getDateipfad());
+                    eventPublisher.publishEvent(EntityChangedEvent.deleted(dokument));
                     refreshDokumentGrid(dokumentGrid, entity, tableRowHeight);
                     refreshView.run();  // Aktualisiere die Ansicht nach dem Löschen
                     NotificationPopup.showSuccessNotification("Dokument erfolgreich gelöscht.");
@@ -235,132 +344,136 @@ public class DokumentService {
     }
 
     /**
-     * Löscht die Datei an dem angegebenen Pfad.
+     * Speichert eine hochgeladene Datei und erstellt ein entsprechendes Dokument.
      *
-     * @param filePath Der Pfad der zu löschenden Datei.
+     * @param file          Die hochgeladene Datei.
+     * @param wohnung       Die Wohnung, zu der das Dokument gehört.
+     * @param mieter        Der Mieter, zu dem das Dokument gehört.
+     * @param dokumententyp Der Typ des Dokuments.
      */
-    private void deleteFile(String filePath) {
+    public void saveFile(MultipartFile file, Wohnung wohnung, Mieter mieter, String dokumententyp) {
+        String mimeType = determineMimeType(file.getOriginalFilename(), file.getContentType());
         try {
-            Files.deleteIfExists(Paths.get(filePath));
+            blobStore.store(file.getInputStream(), mimeType, blob -> {
+                Dokument dokument = createDokument(wohnung, mieter, dokumententyp, blob, mimeType);
+                dokumentRepository.save(dokument);
+                eventPublisher.publishEvent(EntityChangedEvent.saved(dokument));
+            });
         } catch (IOException e) {
-            logger.error("Fehler beim Löschen der Datei", e);
+            logger.error("Fehler beim Speichern der Datei", e);
+            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
         }
     }
 
     /**
-     * Speichert eine hochgeladene Datei und erstellt ein entsprechendes Dokument.
+     * Erstellt ein Dokument zu einem gespeicherten Blob und übernimmt dessen Größen.
      *
-     * @param file          Die hochgeladene Datei.
      * @param wohnung       Die Wohnung, zu der das Dokument gehört.
      * @param mieter        Der Mieter, zu dem das Dokument gehört.
      * @param dokumententyp Der Typ des Dokuments.
+     * @param blob          Der gespeicherte Blob.
+     * @param mimeType      Der MIME-Typ der Datei.
+     * @return Das noch nicht gespeicherte Dokument.
      */
-    public void saveFile(MultipartFile file, Wohnung wohnung, Mieter mieter, String dokumententyp) {
-        String fileExtension = getFileExtension(file.getOriginalFilename());
-        String newFileName = UUID.randomUUID() + "." + fileExtension;
-        Path destinationFile = rootLocation.resolve(
-                        Paths.get(newFileName))
-                .normalize().toAbsolutePath();
+    private Dokument createDokument(Wohnung wohnung, Mieter mieter, String dokumententyp, BlobStore.StoredBlob blob, String mimeType) {
+        Dokument dokument = new Dokument(wohnung, mieter, dokumententyp, blob.path().toString());
+        dokument.setMimeType(mimeType);
+        dokument.setGroesse(blob.groesse());
+        dokument.setGespeicherteGroesse(blob.gespeicherteGroesse());
+        return dokument;
+    }
 
-        try {
-            Files.copy(file.getInputStream(), destinationFile);
+    /**
+     * Ermittelt den MIME-Typ einer Datei anhand ihres Namens, ohne die Datei zu lesen.
+     *
+     * @param filename       Der Name der Datei.
+     * @param angegebenerTyp Der vom Browser angegebene MIME-Typ oder null.
+     * @return Der MIME-Typ, "application/octet-stream" falls er nicht ermittelt werden kann.
+     */
+    private String determineMimeType(String filename, String angegebenerTyp) {
+        String mimeType = filename != null ? URLConnection.guessContentTypeFromName(filename) : null;
+        if (mimeType == null) mimeType = angegebenerTyp;
+        return mimeType != null && !mimeType.isBlank() ? mimeType : "application/octet-stream";
+    }
 
-            // Automatisch den MIME-Typ setzen
-            String mimeType = Files.probeContentType(destinationFile);
-            if (mimeType == null) {
-                mimeType = "application/octet-stream"; // Standard-MIME-Typ, falls nicht ermittelt werden kann
-            }
+    /**
+     * Beginnt einen Upload, dessen Inhalt direkt in eine temporäre Datei geschrieben wird.
+     *
+     * @param fileName Der Name der hochgeladenen Datei.
+     * @param mimeType Der MIME-Typ der hochgeladenen Datei.
+     * @return Der neue Upload.
+     * @throws IOException falls die temporäre Datei nicht angelegt werden kann.
+     */
+    public UploadService.UploadSession startUpload(String fileName, String mimeType) throws IOException {
+        return uploadService.start(fileName, mimeType, -1);
+    }
 
-            Dokument dokument = new Dokument(wohnung, mieter, dokumententyp, destinationFile.toString());
-            dokument.setMimeType(mimeType); // MIME-Typ setzen
-            dokumentRepository.save(dokument);
-        } catch (IOException e) {
-            logger.error("Fehler beim Speichern der Datei", e);
-            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-        }
+    /**
+     * Öffnet den Stream, über den der Inhalt eines Uploads geschrieben wird.
+     *
+     * @param uploadId Die ID des Uploads.
+     * @return Der Stream, der an die temporäre Datei des Uploads anhängt.
+     * @throws IOException falls die temporäre Datei nicht geöffnet werden kann.
+     */
+    public OutputStream openUploadStream(String uploadId) throws IOException {
+        return uploadService.openStream(uploadId, -1);
     }
 
     /**
-     * Gibt die Dateierweiterung einer Datei zurück.
+     * Bricht einen Upload ab und löscht die bisher empfangenen Daten.
      *
-     * @param filename Der Name der Datei.
-     * @return Die Dateierweiterung.
+     * @param uploadId Die ID des Uploads.
      */
-    private String getFileExtension(String filename) {
-        if (filename == null) {
-            return null;
-        }
-        int dotIndex = filename.lastIndexOf('.');
-        return (dotIndex == -1) ? "" : filename.substring(dotIndex + 1);
+    public void cancelUpload(String uploadId) {
+        uploadService.abbrechen(uploadId);
+    }
+
+    /**
+     * Schließt einen Upload ab und speichert ein Dokument mit der hochgeladenen Datei.
+     * Die Datei wird dabei nicht erneut gelesen, sondern atomar in den Dokumentenspeicher verschoben.
+     *
+     * @param uploadId      Die ID des Uploads.
+     * @param wohnung       Die Wohnung, zu der das Dokument gehört.
+     * @param mieter        Der Mieter, zu dem das Dokument gehört.
+     * @param dokumententyp Der Typ des Dokuments.
+     * @return Das gespeicherte Dokument.
+     * @throws IOException falls die Datei nicht übernommen werden kann.
+     */
+    public Dokument saveUpload(String uploadId, Wohnung wohnung, Mieter mieter, String dokumententyp) throws IOException {
+        UploadService.UploadSession session = uploadService.get(uploadId);
+        String mimeType = determineMimeType(session.getDateiname(), session.getMimeType());
+        AtomicReference<Dokument> gespeichert = new AtomicReference<>();
+        uploadService.abschliessen(uploadId, mimeType, blob -> {
+            Dokument dokument = createDokument(wohnung, mieter, dokumententyp, blob, mimeType);
+            gespeichert.set(dokumentRepository.save(dokument));
+            eventPublisher.publishEvent(EntityChangedEvent.saved(gespeichert.get()));
+        });
+        return gespeichert.get();
     }
 
     /**
-     * Behandelt das Hochladen von Dateien.
+     * Behandelt einen abgeschlossenen Upload aus der Oberfläche.
      *
+     * @param uploadId    Die ID des Uploads.
      * @param fileName    Der Name der hochgeladenen Datei.
-     * @param inputStream Der InputStream der hochgeladenen Datei.
-     * @param mimeType    Der MIME-Typ der hochgeladenen Datei.
      * @param entity      Das Objekt (Wohnung oder Mieter), zu dem das Dokument gehört.
      * @param refreshView Die Methode zum Aktualisieren der Ansicht.
      */
-    public void handleFileUpload(String fileName, InputStream inputStream, String mimeType, Object entity, Runnable refreshView) {
+    public void handleFileUpload(String uploadId, String fileName, Object entity, Runnable refreshView) {
         try {
-            MultipartFile multipartFile = new MultipartFile() {
-                @Override
-                public String getName() {
-                    return fileName;
-                }
-
-                @Override
-                public String getOriginalFilename() {
-                    return fileName;
-                }
-
-                @Override
-                public String getContentType() {
-                    return mimeType;
-                }
-
-                @Override
-                public boolean isEmpty() {
-                    return inputStream == null;
-                }
-
-                @Override
-                public long getSize() {
-                    try {
-                        return inputStream.available();
-                    } catch (IOException e) {
-                        return 0;
-                    }
-                }
-
-                @Override
-                public byte[] getBytes() throws IOException {
-                    return inputStream.readAllBytes();
-                }
-
-                @Override
-                public InputStream getInputStream() {
-                    return inputStream;
-                }
-
-                @Override
-                public void transferTo(File dest) throws IOException, IllegalStateException {
-                    Files.copy(inputStream, dest.toPath());
-                }
-            };
-
             if (entity instanceof Wohnung) {
-                saveFile(multipartFile, (Wohnung) entity, null, fileName);
+                saveUpload(uploadId, (Wohnung) entity, null, fileName);
             } else if (entity instanceof Mieter) {
-                saveFile(multipartFile, null, (Mieter) entity, fileName);
+                saveUpload(uploadId, null, (Mieter) entity, fileName);
+            } else {
+                cancelUpload(uploadId);
             }
 
             refreshView.run();
             NotificationPopup.showSuccessNotification("Dokument erfolgreich hochgeladen.");
         } catch (Exception e) {
             logger.error("Fehler beim Hochladen der Datei", e);
+            cancelUpload(uploadId);
             NotificationPopup.showErrorNotification("Fehler beim Hochladen des Dokuments: " + e.getMessage());
         }
     }
@@ -398,6 +511,7 @@ public class DokumentService {
      */
     public void configureDokumentGrid(Grid<Dokument> dokumentGrid, List<Dokument> dokuments, Object entity, int tableRowHeight, ConfigurationService configurationService, Runnable refreshView) {
         dokumentGrid.setColumns(); // Entferne die automatische Spalteneinstellung
+        dokumentGrid.addComponentColumn(DokumentService::createVorschau).setFlexGrow(0).setWidth("72px");
         dokumentGrid.addColumn(Dokument::getDokumententyp).setHeader(createCustomHeader("Dokumententyp"));
 
         dokumentGrid.addComponentColumn(dokument -> {
@@ -446,21 +560,12 @@ public class DokumentService {
      * @throws IOException falls ein Fehler beim Kopieren der Datei auftritt.
      */
     public void saveFileAsDemo(Path sourcePath, Wohnung wohnung, Mieter mieter, String dokumententyp, int iteration, String dateiendung) throws IOException {
-        String fileExtension = getFileExtension(sourcePath.getFileName().toString());
-        String newFileName = UUID.randomUUID() + "_demo_data_" + iteration + "." + fileExtension;
         String anzeigeName = dokumententyp + iteration + "." + dateiendung;
-        Path destinationFile = rootLocation.resolve(Paths.get(newFileName)).normalize().toAbsolutePath();
-
-        Files.copy(sourcePath, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        String mimeType = determineMimeType(sourcePath.getFileName().toString(), null);
 
-        // Automatisch den MIME-Typ setzen
-        String mimeType = Files.probeContentType(destinationFile);
-        if (mimeType == null) {
-            mimeType = "application/octet-stream"; // Standard-MIME-Typ, falls nicht ermittelt werden kann
-        }
-
-        Dokument dokument = new Dokument(wohnung, mieter, anzeigeName, destinationFile.toString());
-        dokument.setMimeType(mimeType); // MIME-Typ setzen
-        dokumentRepository.save(dokument);
+        blobStore.store(Files.newInputStream(sourcePath), mimeType, blob -> {
+            Dokument dokument = createDokument(wohnung, mieter, anzeigeName, blob, mimeType);
+            dokumentRepository.save(dokument);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+/**
+ * Merkt sich, welche Gebäude in der Wohnungsübersicht aufgeklappt sind.
+ * <p>
+ * Die Gebäude werden über ihre {@link projektarbeit.immobilienverwaltung.model.Wohnung#getGebaeudeId() Gebäude-ID}
+ * identifiziert. Auf- und Zuklappen ändert nur die Menge im Speicher; geschrieben wird erst, wenn für die
+ * eingestellte Verzögerung nichts mehr geändert wurde, sodass mehrere Klicks zu einem Schreibvorgang zusammengefasst
+ * werden. Gespeichert wird die sortierte Menge als Folge der Abstände zwischen den IDs, jeder Abstand als
+ * Varint mit 7 Bit je Byte und das Ergebnis Base64-kodiert. Die Gebäude-IDs sind höchstens 48 Bit lang, sodass
+ * jedes Gebäude höchstens sieben Byte statt einer vollständigen Adresse belegt, bei vielen aufgeklappten Gebäuden
+ * wegen der kleineren Abstände weniger.
+ */
+public final class ExpandedStateStore {
+
+    private final NavigableSet<Long> gebaeudeIds;
+    private final TaskScheduler scheduler;
+    private final Duration verzoegerung;
+    private final Consumer<String> speichern;
+    private boolean geaendert;
+    private ScheduledFuture<?> geplant;
+
+    /**
+     * Konstruktor für ExpandedStateStore.
+     *
+     * @param gespeichert  der zuletzt gespeicherte, kodierte Zustand oder null
+     * @param scheduler    führt das verzögerte Schreiben aus
+     * @param verzoegerung die Zeit ohne Änderung, nach der geschrieben wird
+     * @param speichern    schreibt den kodierten Zustand
+     */
+    public ExpandedStateStore(String gespeichert, TaskScheduler scheduler, Duration verzoegerung, Consumer<String> speichern) {
+        this.gebaeudeIds = dekodieren(gespeichert);
+        this.scheduler = scheduler;
+        this.verzoegerung = verzoegerung;
+        this.speichern = speichern;
+    }
+
+    /**
+     * Merkt ein Gebäude als aufgeklappt vor.
+     *
+     * @param gebaeudeId die Gebäude-ID, null wird ignoriert
+     */
+    public synchronized void aufklappen(Long gebaeudeId) {
+        if (gebaeudeId != null && gebaeudeIds.add(gebaeudeId)) geaendert();
+    }
+
+    /**
+     * Merkt ein Gebäude als zugeklappt vor.
+     *
+     * @param gebaeudeId die Gebäude-ID, null wird ignoriert
+     */
+    public synchronized void zuklappen(Long gebaeudeId) {
+        if (gebaeudeId != null && gebaeudeIds.remove(gebaeudeId)) geaendert();
+    }
+
+    /**
+     * Gibt die aufgeklappten Gebäude zurück.
+     *
+     * @return eine unveränderliche, sortierte Kopie der Gebäude-IDs
+     */
+    public synchronized NavigableSet<Long> getGebaeudeIds() {
+        return Collections.unmodifiableNavigableSet(new TreeSet<>(gebaeudeIds));
+    }
+
+    /**
+     * Prüft, ob mindestens ein Gebäude aufgeklappt ist.
+     *
+     * @return true, wenn kein Gebäude aufgeklappt ist
+     */
+    public synchronized boolean isEmpty() {
+        return gebaeudeIds.isEmpty();
+    }
+
+    /**
+     * Schreibt ausstehende Änderungen sofort, z.B. wenn die Ansicht geschlossen wird.
+     */
+    public void flush() {
+        String kodiert;
+        synchronized (this) {
+            if (geplant != null) {
+                geplant.cancel(false);
+                geplant = null;
+            }
+            if (!geaendert) return;
+            geaendert = false;
+            kodiert = kodieren(gebaeudeIds);
+        }
+        speichern.accept(kodiert);
+    }
+
+    private void geaendert() {
+        geaendert = true;
+        if (geplant != null) geplant.cancel(false);
+        // Der Benutzer der auslösenden Anfrage wird in den Thread des Schedulers übernommen
+        geplant = scheduler.schedule(new DelegatingSecurityContextRunnable(this::flush), Instant.now().plus(verzoegerung));
+    }
+
+    /**
+     * Kodiert eine Menge von Gebäude-IDs.
+     *
+     * @param gebaeudeIds die nicht negativen Gebäude-IDs in aufsteigender Reihenfolge
+     * @return der kodierte Zustand, für eine leere Menge ein leerer String
+     */
+    static String kodieren(NavigableSet<Long> gebaeudeIds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(gebaeudeIds.size() * 2);
+        long vorherige = 0;
+        for (long id : gebaeudeIds) {
+            long abstand = id - vorherige;
+            vorherige = id;
+            while ((abstand & ~0x7FL) != 0) {
+                bytes.write((int) (abstand & 0x7F) | 0x80);
+                abstand >>>= 7;
+            }
+            bytes.write((int) abstand);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Dekodiert einen mit {@link #kodieren(NavigableSet)} erzeugten Zustand.
+     * Ein fehlender oder ungültiger Zustand ergibt eine leere Menge.
+     *
+     * @param kodiert der kodierte Zustand oder null
+     * @return die Gebäude-IDs
+     */
+    static NavigableSet<Long> dekodieren(String kodiert) {
+        NavigableSet<Long> gebaeudeIds = new TreeSet<>();
+        if (kodiert == null || kodiert.isEmpty()) return gebaeudeIds;
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(kodiert);
+        } catch (IllegalArgumentException e) {
+            return gebaeudeIds;
+        }
+        long id = 0;
+        long abstand = 0;
+        int verschiebung = 0;
+        for (byte b : bytes) {
+            if (verschiebung > 56) return new TreeSet<>();
+            abstand |= (long) (b & 0x7F) << verschiebung;
+            if ((b & 0x80) != 0) {
+                verschiebung += 7;
+                continue;
+            }
+            id += abstand;
+            gebaeudeIds.add(id);
+            abstand = 0;
+            verschiebung = 0;
+        }
+        return verschiebung == 0 ? gebaeudeIds : new TreeSet<>();
+    }
+}
@@ -0,0 +1,275 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Schreibt die Zeilen eines Exports fortlaufend in einen Stream.
+ * <p>
+ * Werte werden so geschrieben, dass der {@link ImportService} CSV- und JSON-Exporte wieder einlesen kann:
+ * Zahlen mit Punkt als Dezimaltrennzeichen, Datumswerte im ISO-Format und Länder als ISO-Code.
+ * Der zugrunde liegende Stream wird beim Schließen nicht geschlossen.
+ */
+abstract class ExportSchreiber implements AutoCloseable {
+
+    /**
+     * Schreibt die Kopfzeile.
+     *
+     * @param spalten die Namen der Spalten
+     * @throws IOException falls nicht geschrieben werden kann
+     */
+    abstract void kopf(List<String> spalten) throws IOException;
+
+    /**
+     * Schreibt eine Zeile.
+     *
+     * @param werte die Werte in der Reihenfolge der Spalten
+     * @throws IOException falls nicht geschrieben werden kann
+     */
+    abstract void zeile(Object[] werte) throws IOException;
+
+    /**
+     * Schließt das Format ab und schreibt gepufferte Daten.
+     *
+     * @throws IOException falls nicht geschrieben werden kann
+     */
+    @Override
+    public abstract void close() throws IOException;
+
+    /**
+     * Erstellt einen Schreiber für ein Format.
+     *
+     * @param format das Format
+     * @param out    der Stream, in den geschrieben wird
+     * @param blatt  der Name des Tabellenblatts in XLSX-Dateien
+     * @return der Schreiber
+     * @throws IOException falls nicht geschrieben werden kann
+     */
+    static ExportSchreiber fuer(ExportService.Format format, OutputStream out, String blatt) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out);
+            case JSONL -> new JsonLines(out);
+            case XLSX -> new Xlsx(out, blatt);
+        };
+    }
+
+    /**
+     * Wandelt einen Wert in Text um. Dezimalzahlen werden ohne Exponent geschrieben.
+     */
+    static String text(Object wert) {
+        return switch (wert) {
+            case null -> "";
+            case Double zahl -> BigDecimal.valueOf(zahl).toPlainString();
+            case Float zahl -> BigDecimal.valueOf(zahl).toPlainString();
+            case Enum<?> konstante -> konstante.name();
+            default -> wert.toString();
+        };
+    }
+
+    /**
+     * CSV mit Semikolon als Trennzeichen und einer BOM, damit Excel Umlaute richtig anzeigt.
+     */
+    static final class Csv extends ExportSchreiber {
+        private static final char TRENNZEICHEN = ';';
+
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        void kopf(List<String> spalten) throws IOException {
+            zeile(spalten.toArray());
+        }
+
+        @Override
+        void zeile(Object[] werte) throws IOException {
+            for (int i = 0; i < werte.length; i++) {
+                if (i > 0) writer.write(TRENNZEICHEN);
+                String wert = text(werte[i]);
+                if (wert.indexOf(TRENNZEICHEN) >= 0 || wert.indexOf('"') >= 0 || wert.indexOf('\n') >= 0 || wert.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(wert.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(wert);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Ein JSON-Objekt je Zeile.
+     */
+    static final class JsonLines extends ExportSchreiber {
+        private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+        private final JsonGenerator generator;
+        private List<String> spalten;
+
+        JsonLines(OutputStream out) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        void kopf(List<String> spalten) {
+            this.spalten = spalten;
+        }
+
+        @Override
+        void zeile(Object[] werte) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < werte.length; i++) {
+                generator.writeFieldName(spalten.get(i));
+                switch (werte[i]) {
+                    case null -> generator.writeNull();
+                    case Integer zahl -> generator.writeNumber(zahl);
+                    case Long zahl -> generator.writeNumber(zahl);
+                    case Number zahl -> generator.writeNumber(text(zahl));
+                    case Boolean wahrheitswert -> generator.writeBoolean(wahrheitswert);
+                    default -> generator.writeString(text(werte[i]));
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+
+    /**
+     * Eine Excel-Arbeitsmappe im Office-Open-XML-Format mit einem Tabellenblatt. Das Blatt wird als XML direkt
+     * in das ZIP-Archiv geschrieben, Texte stehen als Inline-Strings in den Zellen, sodass keine Tabelle gemeinsamer
+     * Strings im Speicher aufgebaut werden muss.
+     */
+    static final class Xlsx extends ExportSchreiber {
+        private static final String CONTENT_TYPES = """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+                <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+                <Default Extension="xml" ContentType="application/xml"/>\
+                <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+                <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+                </Types>""";
+        private static final String RELS = """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+                </Relationships>""";
+        private static final String WORKBOOK = """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+                xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+                <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets></workbook>""";
+        private static final String WORKBOOK_RELS = """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>\
+                </Relationships>""";
+
+        private final ZipOutputStream zip;
+        private final Writer writer;
+
+        Xlsx(OutputStream out, String blatt) throws IOException {
+            this.zip = new ZipOutputStream(new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            });
+            this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            eintrag("[Content_Types].xml", CONTENT_TYPES);
+            eintrag("_rels/.rels", RELS);
+            eintrag("xl/workbook.xml", WORKBOOK.formatted(xml(blatt)));
+            eintrag("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            writer.write("""
+                    <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                    <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"><sheetData>""");
+        }
+
+        @Override
+        void kopf(List<String> spalten) throws IOException {
+            zeile(spalten.toArray());
+        }
+
+        @Override
+        void zeile(Object[] werte) throws IOException {
+            writer.write("<row>");
+            for (Object wert : werte) {
+                switch (wert) {
+                    case null -> writer.write("<c/>");
+                    case Number zahl -> writer.write("<c><v>" + text(zahl) + "</v></c>");
+                    case Boolean wahrheitswert -> writer.write("<c t=\"b\"><v>" + (wahrheitswert ? 1 : 0) + "</v></c>");
+                    default -> writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">" + xml(text(wert)) + "</t></is></c>");
+                }
+            }
+            writer.write("</row>");
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.write("</sheetData></worksheet>");
+            writer.flush();
+            zip.closeEntry();
+            zip.close();
+        }
+
+        private void eintrag(String name, String inhalt) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            writer.write(inhalt);
+            writer.flush();
+            zip.closeEntry();
+        }
+
+        /**
+         * Maskiert Sonderzeichen und entfernt Steuerzeichen, die in XML nicht erlaubt sind.
+         */
+        static String xml(String text) {
+            StringBuilder ergebnis = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&' -> ergebnis.append("&amp;");
+                    case '<' -> ergebnis.append("&lt;");
+                    case '>' -> ergebnis.append("&gt;");
+                    case '"' -> ergebnis.append("&quot;");
+                    default -> {
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') ergebnis.append(c);
+                    }
+                }
+            }
+            return ergebnis.toString();
+        }
+    }
+}
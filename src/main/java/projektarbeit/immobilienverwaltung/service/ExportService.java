@@ -0,0 +1,336 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import projektarbeit.immobilienverwaltung.model.*;
+import projektarbeit.immobilienverwaltung.repository.DokumentSpecifications;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Exportiert Wohnungen, Mieter, Mietverträge, Zählerstände und die Metadaten von Dokumenten als CSV, JSON Lines
+ * oder XLSX.
+ * <p>
+ * Die Zeilen werden über eine {@link StatelessSession} als {@link ScrollableResults} gelesen und sofort in den
+ * Ausgabestream geschrieben. Es werden nur die exportierten Spalten abgefragt und keine Entitäten im
+ * Persistenzkontext gehalten, sodass der Speicherbedarf unabhängig von der Anzahl der Zeilen ist.
+ * Die Spalten von Wohnungen, Mietern und Mietverträgen heißen wie beim {@link ImportService}.
+ */
+@Service
+public class ExportService {
+
+    /**
+     * Anzahl der Zeilen, die der JDBC-Treiber je Roundtrip aus der Datenbank holt.
+     */
+    static final int FETCH_SIZE = 500;
+
+    private final SessionFactory sessionFactory;
+    private final SearchIndex searchIndex;
+
+    /**
+     * Konstruktor für ExportService.
+     *
+     * @param entityManagerFactory die EntityManagerFactory, aus der die zustandslosen Sessions geöffnet werden
+     * @param searchIndex          der Suchindex, über den Suchbegriffe wie in den Übersichten aufgelöst werden
+     */
+    @Autowired
+    public ExportService(EntityManagerFactory entityManagerFactory, SearchIndex searchIndex) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Das Format eines Exports.
+     */
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        JSONL("application/x-ndjson", "jsonl"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String mimeType;
+        private final String endung;
+
+        Format(String mimeType, String endung) {
+            this.mimeType = mimeType;
+            this.endung = endung;
+        }
+
+        /**
+         * Gibt den MIME-Typ des Formats zurück.
+         *
+         * @return der MIME-Typ
+         */
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * Gibt die Dateiendung des Formats zurück.
+         *
+         * @return die Endung ohne Punkt
+         */
+        public String getEndung() {
+            return endung;
+        }
+    }
+
+    /**
+     * Die exportierbaren Daten.
+     */
+    public enum Art {
+        WOHNUNGEN("Wohnungen"),
+        MIETER("Mieter"),
+        MIETVERTRAEGE("Mietverträge"),
+        ZAEHLERSTAENDE("Zählerstände"),
+        DOKUMENTE("Dokumente");
+
+        private final String bezeichnung;
+
+        Art(String bezeichnung) {
+            this.bezeichnung = bezeichnung;
+        }
+
+        /**
+         * Gibt die Bezeichnung für die Oberfläche und das Tabellenblatt zurück.
+         *
+         * @return die Bezeichnung
+         */
+        public String getBezeichnung() {
+            return bezeichnung;
+        }
+
+        /**
+         * Gibt den Namen der Art in URLs und Dateinamen zurück.
+         *
+         * @return der Name in Kleinbuchstaben
+         */
+        public String getPfad() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Filterkriterien eines Exports. Nicht gesetzte Kriterien schränken nicht ein.
+     * <p>
+     * Der Suchbegriff wird wie in den Übersichten über den {@link SearchIndex} aufgelöst: bei Wohnungen und deren
+     * Zählerständen über die Adresse, bei Mietern und deren Mietverträgen über den Mieter. Bei Dokumenten gilt
+     * die Suche der Dokumentenübersicht.
+     *
+     * @param mieterId    die ID des Mieters für Mietverträge und Dokumente oder null
+     * @param wohnungId   die ID der Wohnung für Mietverträge, Zählerstände und Dokumente oder null
+     * @param suchbegriff der Suchbegriff oder null
+     */
+    public record Filter(Long mieterId, Long wohnungId, String suchbegriff) {
+
+        /**
+         * Erstellt einen Filter ohne Einschränkungen.
+         *
+         * @return der Filter
+         */
+        public static Filter alle() {
+            return new Filter(null, null, null);
+        }
+    }
+
+    /**
+     * Schreibt einen Export in einen Stream.
+     *
+     * @param art    die zu exportierenden Daten
+     * @param filter die Filterkriterien
+     * @param format das Format
+     * @param out    der Stream, in den geschrieben wird, wird nicht geschlossen
+     * @return die Anzahl der exportierten Zeilen
+     * @throws IOException falls nicht in den Stream geschrieben werden kann
+     */
+    public long exportieren(Art art, Filter filter, Format format, OutputStream out) throws IOException {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                Abfrage abfrage = abfrage(art, filter, session.getCriteriaBuilder());
+                long zeilen = 0;
+                try (ExportSchreiber schreiber = ExportSchreiber.fuer(format, out, art.getBezeichnung());
+                     ScrollableResults<Object[]> ergebnis = session.createQuery(abfrage.query())
+                             .setFetchSize(FETCH_SIZE)
+                             .scroll(ScrollMode.FORWARD_ONLY)) {
+                    schreiber.kopf(abfrage.spalten());
+                    while (ergebnis.next()) {
+                        schreiber.zeile(ergebnis.get());
+                        zeilen++;
+                    }
+                }
+                return zeilen;
+            } finally {
+                // Es wird nur gelesen
+                transaction.rollback();
+            }
+        }
+    }
+
+    private Abfrage abfrage(Art art, Filter filter, CriteriaBuilder cb) {
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Spalten spalten = new Spalten();
+        List<Predicate> bedingungen = new ArrayList<>();
+        switch (art) {
+            case WOHNUNGEN -> {
+                Root<Wohnung> wohnung = query.from(Wohnung.class);
+                adressSpalten(spalten.add("id", wohnung.get("wohnung_id")), wohnung)
+                        .add("gesamtQuadratmeter", wohnung.get("gesamtQuadratmeter"))
+                        .add("baujahr", wohnung.get("baujahr"))
+                        .add("anzahlBaeder", wohnung.get("anzahlBaeder"))
+                        .add("anzahlSchlafzimmer", wohnung.get("anzahlSchlafzimmer"))
+                        .add("hatBalkon", wohnung.get("hatBalkon"))
+                        .add("hatTerrasse", wohnung.get("hatTerrasse"))
+                        .add("hatGarten", wohnung.get("hatGarten"))
+                        .add("hatKlimaanlage", wohnung.get("hatKlimaanlage"))
+                        .add("latitude", wohnung.get("latitude"))
+                        .add("longitude", wohnung.get("longitude"));
+                bedingungen.add(inTreffern(cb, wohnung.get("wohnung_id"), wohnungTreffer(filter)));
+                query.orderBy(cb.asc(wohnung.get("wohnung_id")));
+            }
+            case MIETER -> {
+                Root<Mieter> mieter = query.from(Mieter.class);
+                spalten.add("id", mieter.get("mieterId"))
+                        .add("name", mieter.get("name"))
+                        .add("vorname", mieter.get("vorname"))
+                        .add("telefonnummer", mieter.get("telefonnummer"))
+                        .add("email", mieter.get("email"))
+                        .add("einkommen", mieter.get("einkommen"));
+                bedingungen.add(inTreffern(cb, mieter.get("mieterId"), mieterTreffer(filter)));
+                query.orderBy(cb.asc(mieter.get("mieterId")));
+            }
+            case MIETVERTRAEGE -> {
+                Root<Mietvertrag> mietvertrag = query.from(Mietvertrag.class);
+                Join<Mietvertrag, Mieter> mieter = mietvertrag.join("mieter");
+                Join<Mietvertrag, Wohnung> wohnung = mietvertrag.join("wohnung");
+                spalten.add("id", mietvertrag.get("mietvertrag_id"))
+                        .add("mieter_id", mieter.get("mieterId"))
+                        .add("wohnung_id", wohnung.get("wohnung_id"));
+                adressSpalten(spalten, wohnung)
+                        .add("name", mieter.get("name"))
+                        .add("vorname", mieter.get("vorname"))
+                        .add("telefonnummer", mieter.get("telefonnummer"))
+                        .add("email", mieter.get("email"))
+                        .add("einkommen", mieter.get("einkommen"))
+                        .add("mietbeginn", mietvertrag.get("mietbeginn"))
+                        .add("mietende", mietvertrag.get("mietende"))
+                        .add("kaution", mietvertrag.get("kaution"))
+                        .add("miete", mietvertrag.get("miete"))
+                        .add("anzahlBewohner", mietvertrag.get("anzahlBewohner"));
+                bedingungen.add(gleich(cb, mieter.get("mieterId"), filter.mieterId()));
+                bedingungen.add(gleich(cb, wohnung.get("wohnung_id"), filter.wohnungId()));
+                bedingungen.add(inTreffern(cb, mieter.get("mieterId"), mieterTreffer(filter)));
+                query.orderBy(cb.asc(mietvertrag.get("mietvertrag_id")));
+            }
+            case ZAEHLERSTAENDE -> {
+                Root<Zaehlerstand> zaehlerstand = query.from(Zaehlerstand.class);
+                Join<Zaehlerstand, Wohnung> wohnung = zaehlerstand.join("wohnung");
+                spalten.add("id", zaehlerstand.get("zaehlerstandId"))
+                        .add("wohnung_id", wohnung.get("wohnung_id"))
+                        .add("name", zaehlerstand.get("name"))
+                        .add("ablesedatum", zaehlerstand.get("ablesedatum"))
+                        .add("ablesewert", zaehlerstand.get("ablesewert"));
+                bedingungen.add(gleich(cb, wohnung.get("wohnung_id"), filter.wohnungId()));
+                bedingungen.add(inTreffern(cb, wohnung.get("wohnung_id"), wohnungTreffer(filter)));
+                query.orderBy(cb.asc(zaehlerstand.get("zaehlerstandId")));
+            }
+            case DOKUMENTE -> {
+                Root<Dokument> dokument = query.from(Dokument.class);
+                Join<Dokument, Mieter> mieter = dokument.join("mieter", JoinType.LEFT);
+                Join<Dokument, Wohnung> wohnung = dokument.join("wohnung", JoinType.LEFT);
+                spalten.add("id", dokument.get("dokument_id"))
+                        .add("mieter_id", mieter.get("mieterId"))
+                        .add("wohnung_id", wohnung.get("wohnung_id"))
+                        .add("dokumententyp", dokument.get("dokumententyp"))
+                        .add("mimeType", dokument.get("mimeType"))
+                        .add("groesse", dokument.get("groesse"))
+                        .add("gespeicherteGroesse", dokument.get("gespeicherteGroesse"))
+                        .add("vorschau", dokument.get("vorschau"));
+                DokumentFilter dokumentFilter = new DokumentFilter(filter.mieterId(), filter.wohnungId(), filter.suchbegriff());
+                bedingungen.add(DokumentSpecifications.of(dokumentFilter).toPredicate(dokument, query, cb));
+                query.orderBy(cb.asc(dokument.get("dokument_id")));
+            }
+        }
+        query.multiselect(spalten.pfade);
+        query.where(bedingungen.stream().filter(Objects::nonNull).toArray(Predicate[]::new));
+        return new Abfrage(query, List.copyOf(spalten.namen));
+    }
+
+    private static Spalten adressSpalten(Spalten spalten, Path<Wohnung> wohnung) {
+        return spalten.add("strasse", wohnung.get("strasse"))
+                .add("hausnummer", wohnung.get("hausnummer"))
+                .add("postleitzahl", wohnung.get("postleitzahl"))
+                .add("stadt", wohnung.get("stadt"))
+                .add("land", wohnung.get("land"))
+                .add("stockwerk", wohnung.get("stockwerk"))
+                .add("wohnungsnummer", wohnung.get("wohnungsnummer"));
+    }
+
+    /**
+     * Sucht alle Wohnungen zum Suchbegriff des Filters. Anders als in der Schnellsuche wird die Anzahl der
+     * Treffer nicht begrenzt, damit der Export keine Zeilen auslässt.
+     *
+     * @return die IDs der Treffer oder null, wenn kein Suchbegriff gesetzt ist
+     */
+    private List<Long> wohnungTreffer(Filter filter) {
+        return hatSuchbegriff(filter) ? searchIndex.searchWohnungen(filter.suchbegriff().trim()) : null;
+    }
+
+    /**
+     * Sucht alle Mieter zum Suchbegriff des Filters, ohne die Anzahl der Treffer zu begrenzen.
+     *
+     * @return die IDs der Treffer oder null, wenn kein Suchbegriff gesetzt ist
+     */
+    private List<Long> mieterTreffer(Filter filter) {
+        return hatSuchbegriff(filter) ? searchIndex.searchMieter(filter.suchbegriff().trim()) : null;
+    }
+
+    private static boolean hatSuchbegriff(Filter filter) {
+        return filter.suchbegriff() != null && !filter.suchbegriff().isBlank();
+    }
+
+    private static Predicate inTreffern(CriteriaBuilder cb, Expression<Long> id, List<Long> treffer) {
+        if (treffer == null) return null;
+        return treffer.isEmpty() ? cb.disjunction() : id.in(treffer);
+    }
+
+    private static Predicate gleich(CriteriaBuilder cb, Expression<Long> id, Long wert) {
+        return wert == null ? null : cb.equal(id, wert);
+    }
+
+    private record Abfrage(CriteriaQuery<Object[]> query, List<String> spalten) {
+    }
+
+    /**
+     * Sammelt die Namen und Ausdrücke der exportierten Spalten in derselben Reihenfolge.
+     */
+    private static final class Spalten {
+        private final List<String> namen = new ArrayList<>();
+        private final List<Selection<?>> pfade = new ArrayList<>();
+
+        private Spalten add(String name, Selection<?> pfad) {
+            namen.add(name);
+            pfade.add(pfad);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Quelle für Geokoordinaten. Welche Implementierung verwendet wird, legt die Eigenschaft
+ * {@code geocoding.provider} fest: {@code nominatim} (Standard) oder {@code stub} für Umgebungen ohne Netzwerk.
+ */
+public interface GeocodingProvider {
+
+    /**
+     * Ermittelt die Koordinaten einer Adresse.
+     *
+     * @param adresse die Adresse
+     * @return Breiten- und Längengrad oder null, wenn die Adresse nicht gefunden wurde
+     * @throws IOException falls die Abfrage vorübergehend fehlschlägt, etwa weil der Dienst nicht erreichbar ist
+     */
+    double[] lookup(String adresse) throws IOException;
+
+    /**
+     * Gibt den Mindestabstand zwischen zwei Abfragen zurück, den der Anbieter vorschreibt.
+     *
+     * @return der Mindestabstand
+     */
+    default Duration mindestabstand() {
+        return Duration.ZERO;
+    }
+}
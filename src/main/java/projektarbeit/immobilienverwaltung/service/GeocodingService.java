@@ -1,52 +1,279 @@
 package projektarbeit.immobilienverwaltung.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import projektarbeit.immobilienverwaltung.model.GeocodingCacheEintrag;
+import projektarbeit.immobilienverwaltung.repository.GeocodingCacheRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
 
 import java.io.IOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Ein Dienst zum Abrufen von Geokoordinaten für gegebene Adressen
- * unter Verwendung der Nominatim-API von OpenStreetMap.
+ * Ein Dienst zum Abrufen von Geokoordinaten für gegebene Adressen.
+ * <p>
+ * Die Koordinaten kommen von einem austauschbaren {@link GeocodingProvider}. Ergebnisse werden unter der
+ * normalisierten Adresse in der Tabelle {@code geocoding_cache} gespeichert und sind
+ * {@code geocoding.cache.ttl-tage} Tage gültig, nicht gefundene Adressen nur {@link #NEGATIV_TTL}.
+ * Davor liegt ein LRU-Cache im Speicher mit {@code geocoding.cache.groesse} Einträgen.
+ * <p>
+ * Abfragen beim Anbieter laufen nacheinander auf einem eigenen Thread und halten dessen Mindestabstand ein.
+ * Gleichzeitige Anfragen für dieselbe Adresse teilen sich eine Abfrage.
  */
 @Service
 public class GeocodingService {
 
+    /**
+     * Gültigkeit eines Eintrags für eine Adresse, die nicht gefunden wurde.
+     */
+    public static final Duration NEGATIV_TTL = Duration.ofDays(1);
+
     private static final Logger logger = LoggerFactory.getLogger(GeocodingService.class);
-    private static final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search?q=%s&format=json&addressdetails=1&limit=1";
+
+    private final GeocodingProvider provider;
+    private final GeocodingCacheRepository cacheRepository;
+    private final WohnungRepository wohnungRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, GeocodingCacheEintrag> lru = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GeocodingCacheEintrag> eldest) {
+            return size() > lruGroesse;
+        }
+    };
+    private final Map<String, CompletableFuture<double[]>> laufend = new ConcurrentHashMap<>();
+    private final Map<Long, String> nachzutragen = new ConcurrentHashMap<>();
+    private final ExecutorService abfrageThread = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("geocoding").factory());
+    private final ExecutorService nachtraege = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("geocoding-nachtrag-", 0).factory());
+    private long naechsteAbfrage = System.nanoTime();
+
+    @Value("${geocoding.cache.ttl-tage:90}")
+    private long ttlTage = 90;
+
+    @Value("${geocoding.cache.groesse:1000}")
+    private int lruGroesse = 1000;
 
     /**
-     * Ruft die Geokoordinaten für eine gegebene Adresse ab.
+     * Konstruktor für GeocodingService.
+     *
+     * @param provider           der Anbieter, bei dem nicht zwischengespeicherte Adressen abgefragt werden
+     * @param cacheRepository    das Repository des persistenten Caches
+     * @param wohnungRepository  das Repository, in dem nachträglich ermittelte Koordinaten gespeichert werden
+     * @param transactionManager der Transaktionsmanager für das Speichern nachgetragener Koordinaten
+     */
+    @Autowired
+    public GeocodingService(GeocodingProvider provider, GeocodingCacheRepository cacheRepository,
+                            WohnungRepository wohnungRepository, PlatformTransactionManager transactionManager) {
+        this.provider = provider;
+        this.cacheRepository = cacheRepository;
+        this.wohnungRepository = wohnungRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Beendet laufende Abfragen beim Herunterfahren.
+     */
+    @PreDestroy
+    public void shutdown() {
+        abfrageThread.shutdownNow();
+        nachtraege.shutdownNow();
+    }
+
+    /**
+     * Ruft die Geokoordinaten für eine gegebene Adresse ab und wartet dabei gegebenenfalls auf den Anbieter.
      *
      * @param address Die Adresse, für die die Geokoordinaten abgerufen werden sollen.
      * @return Ein Array mit der Breiten- und Längengrad oder null, wenn keine Koordinaten gefunden werden.
      */
     public double[] getCoordinates(String address) {
-        String url = String.format(NOMINATIM_URL, address.replace(" ", "+"));
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(url);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(response.getEntity().getContent());
-                if (root.isArray() && !root.isEmpty()) {
-                    JsonNode location = root.get(0);
-                    double latitude = location.get("lat").asDouble();
-                    double longitude = location.get("lon").asDouble();
-                    return new double[]{latitude, longitude};
-                } else {
-                    logger.warn("Keine Koordinaten für die angegebene Adresse gefunden: {}", address);
+        try {
+            return aufloesen(address).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Fehler beim Abrufen der Koordinaten für die Adresse: {}", address, e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Sucht eine Adresse nur im Cache, ohne den Anbieter abzufragen.
+     *
+     * @param address Die Adresse.
+     * @return Der gültige Eintrag oder null, wenn die Adresse nicht oder nicht mehr im Cache ist.
+     */
+    public GeocodingCacheEintrag ausCache(String address) {
+        String schluessel = normalisieren(address);
+        GeocodingCacheEintrag eintrag;
+        synchronized (lru) {
+            eintrag = lru.get(schluessel);
+        }
+        if (eintrag == null) {
+            eintrag = cacheRepository.findById(schluessel).orElse(null);
+            if (eintrag == null) return null;
+            synchronized (lru) {
+                lru.put(schluessel, eintrag);
+            }
+        }
+        if (istAbgelaufen(eintrag)) {
+            synchronized (lru) {
+                lru.remove(schluessel, eintrag);
+            }
+            return null;
+        }
+        return eintrag;
+    }
+
+    /**
+     * Ermittelt die Koordinaten einer Adresse asynchron. Ist die Adresse im Cache, ist das Ergebnis sofort verfügbar.
+     *
+     * @param address Die Adresse.
+     * @return Breiten- und Längengrad oder null, wenn die Adresse nicht gefunden wurde. Schlägt die Abfrage beim
+     * Anbieter fehl, wird das Ergebnis mit dem Fehler abgeschlossen und nichts zwischengespeichert.
+     */
+    public CompletableFuture<double[]> aufloesen(String address) {
+        GeocodingCacheEintrag eintrag = ausCache(address);
+        if (eintrag != null) return CompletableFuture.completedFuture(eintrag.getKoordinaten());
+
+        String schluessel = normalisieren(address);
+        CompletableFuture<double[]> ergebnis = new CompletableFuture<>();
+        CompletableFuture<double[]> vorhanden = laufend.putIfAbsent(schluessel, ergebnis);
+        if (vorhanden != null) return vorhanden;
+        abfrageThread.execute(() -> {
+            try {
+                ergebnis.complete(abfragen(schluessel, address));
+            } catch (Throwable e) {
+                ergebnis.completeExceptionally(e);
+            } finally {
+                laufend.remove(schluessel, ergebnis);
+            }
+        });
+        return ergebnis;
+    }
+
+    /**
+     * Ermittelt die Koordinaten einer gespeicherten Wohnung im Hintergrund und trägt sie nach. Innerhalb einer
+     * Transaktion beginnt das erst nach dem Commit. Wird für dieselbe Wohnung inzwischen eine andere Adresse
+     * nachgetragen, wird das ältere Ergebnis verworfen. Schlägt die Abfrage fehl, bleiben die bisherigen
+     * Koordinaten der Wohnung unverändert.
+     *
+     * @param wohnungId Die ID der Wohnung.
+     * @param address   Die Adresse der Wohnung.
+     */
+    public void koordinatenNachtragen(Long wohnungId, String address) {
+        alleKoordinatenNachtragen(List.of(wohnungId), address);
+    }
+
+    /**
+     * Wie {@link #koordinatenNachtragen(Long, String)} für mehrere Wohnungen mit derselben Adresse, etwa alle
+     * Wohnungen eines Hauses. Die Adresse wird nur einmal abgefragt und die Koordinaten in einer Transaktion an den
+     * geladenen Wohnungen gesetzt, sodass nur deren Einträge im Cache aktualisiert werden.
+     *
+     * @param wohnungIds Die IDs der Wohnungen.
+     * @param address    Die gemeinsame Adresse der Wohnungen.
+     */
+    public void alleKoordinatenNachtragen(Collection<Long> wohnungIds, String address) {
+        if (wohnungIds.isEmpty()) return;
+        String schluessel = normalisieren(address);
+        List<Long> ids = List.copyOf(wohnungIds);
+        ids.forEach(id -> nachzutragen.put(id, schluessel));
+        Runnable start = () -> aufloesen(address).whenCompleteAsync((koordinaten, fehler) -> {
+            List<Long> aktuell = ids.stream().filter(id -> nachzutragen.remove(id, schluessel)).toList();
+            if (aktuell.isEmpty()) return;
+            if (fehler != null) {
+                logger.warn("Koordinaten für Wohnungen {} konnten nicht ermittelt werden: {}", aktuell, fehler.getMessage());
+                return;
+            }
+            Double latitude = koordinaten != null ? koordinaten[0] : null;
+            Double longitude = koordinaten != null ? koordinaten[1] : null;
+            transactionTemplate.executeWithoutResult(status -> wohnungRepository.findAllById(aktuell).forEach(wohnung -> {
+                wohnung.setLatitude(latitude);
+                wohnung.setLongitude(longitude);
+            }));
+        }, nachtraege);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    start.run();
                 }
+            });
+        } else {
+            start.run();
+        }
+    }
+
+    /**
+     * Löscht abgelaufene Einträge aus dem persistenten Cache.
+     */
+    @Scheduled(fixedDelay = 24 * 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void abgelaufeneEntfernen() {
+        int geloescht = cacheRepository.deleteAbgerufenVor(Instant.now().minus(Duration.ofDays(ttlTage)));
+        if (geloescht > 0) logger.info("{} abgelaufene Einträge aus dem Geocoding-Cache gelöscht", geloescht);
+    }
+
+    /**
+     * Normalisiert eine Adresse für den Cache, sodass sich Schreibweisen in Groß- und Kleinschreibung,
+     * Leerraum und Satzzeichen nicht unterscheiden.
+     *
+     * @param address Die Adresse.
+     * @return Die normalisierte Adresse.
+     */
+    static String normalisieren(String address) {
+        String normalisiert = Normalizer.normalize(address, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s*[,;]+\\s*", ", ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        return normalisiert.length() > GeocodingCacheEintrag.ADRESSE_LAENGE
+                ? normalisiert.substring(0, GeocodingCacheEintrag.ADRESSE_LAENGE) : normalisiert;
+    }
+
+    /**
+     * Fragt eine Adresse beim Anbieter ab und speichert das Ergebnis. Läuft nur auf dem Abfrage-Thread.
+     */
+    private double[] abfragen(String schluessel, String address) throws IOException, InterruptedException {
+        GeocodingCacheEintrag eintrag = ausCache(address);
+        if (eintrag != null) return eintrag.getKoordinaten();
+
+        long warten = naechsteAbfrage - System.nanoTime();
+        if (warten > 0) Thread.sleep(Duration.ofNanos(warten));
+        try {
+            double[] koordinaten = provider.lookup(address);
+            if (koordinaten == null) logger.warn("Keine Koordinaten für die angegebene Adresse gefunden: {}", address);
+            eintrag = cacheRepository.save(new GeocodingCacheEintrag(schluessel, koordinaten, Instant.now()));
+            synchronized (lru) {
+                lru.put(schluessel, eintrag);
             }
-        } catch (IOException e) {
-            logger.error("Fehler beim Abrufen der Koordinaten für die Adresse: " + address, e);
+            return koordinaten;
+        } finally {
+            naechsteAbfrage = System.nanoTime() + provider.mindestabstand().toNanos();
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    private boolean istAbgelaufen(GeocodingCacheEintrag eintrag) {
+        Duration ttl = eintrag.getKoordinaten() != null ? Duration.ofDays(ttlTage) : NEGATIV_TTL;
+        return eintrag.getAbgerufen().plus(ttl).isBefore(Instant.now());
+    }
+}
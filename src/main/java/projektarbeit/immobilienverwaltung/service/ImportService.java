@@ -0,0 +1,430 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import projektarbeit.immobilienverwaltung.model.*;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Importiert Wohnungen mit ihren Mietern und Mietverträgen aus CSV- oder JSON-Dateien.
+ * <p>
+ * Jeder Datensatz beschreibt eine Wohnung und optional ihren Mieter und Mietvertrag. Die Spalten bzw. Felder heißen
+ * wie die Attribute der Entitäten, z.B. {@code strasse}, {@code hausnummer}, {@code land}, {@code name},
+ * {@code email}, {@code mietbeginn} oder {@code miete}. Mieter werden über ihre E-Mail-Adresse wiedererkannt,
+ * sodass mehrere Datensätze und bereits gespeicherte Mieter denselben Mieter verwenden können.
+ * <p>
+ * Die Eingabe wird Datensatz für Datensatz gelesen und mit den Bean-Validation-Regeln der Entitäten geprüft.
+ * Gültige Datensätze werden in Stapeln von {@code import.batch-groesse} Datensätzen in je einer Transaktion
+ * gespeichert, wobei Hibernate die Inserts mit {@code hibernate.jdbc.batch_size} bündelt. Schlägt ein Stapel fehl,
+ * werden seine Datensätze einzeln gespeichert, damit nur die fehlerhaften verworfen werden.
+ * Die Wohnungen werden ohne Koordinaten angelegt und nach dem Commit jedes Stapels je Adresse einmal geokodiert.
+ */
+@Service
+public class ImportService {
+
+    /**
+     * Maximale Anzahl an Fehlern, die im Bericht einzeln aufgeführt werden.
+     */
+    public static final int MAX_FEHLER = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DATUM_DE = DateTimeFormatter.ofPattern("d.M.uuuu");
+    private static final Set<String> WAHR = Set.of("true", "ja", "yes", "wahr", "1", "x");
+    private static final Set<String> FALSCH = Set.of("false", "nein", "no", "falsch", "0");
+    private static final List<String> MIETER_FELDER = List.of("name", "vorname", "telefonnummer", "email", "einkommen");
+    private static final List<String> MIETVERTRAG_FELDER = List.of("mietbeginn", "mietende", "kaution", "miete", "anzahlbewohner");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final MieterRepository mieterRepository;
+    private final GeocodingService geocodingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${import.batch-groesse:500}")
+    private int batchGroesse = 500;
+
+    /**
+     * Konstruktor für ImportService.
+     *
+     * @param mieterRepository   das Repository, in dem bereits gespeicherte Mieter über ihre E-Mail gesucht werden
+     * @param geocodingService   der Service, der die Koordinaten der importierten Wohnungen nachträgt
+     * @param eventPublisher     der Publisher für Änderungen der Dashboard-Statistiken und des Suchindex
+     * @param validator          der Validator für die Bean-Validation-Regeln der Entitäten
+     * @param transactionManager der Transaktionsmanager für die Transaktionen der einzelnen Stapel
+     */
+    @Autowired
+    public ImportService(MieterRepository mieterRepository, GeocodingService geocodingService,
+                         ApplicationEventPublisher eventPublisher, Validator validator,
+                         PlatformTransactionManager transactionManager) {
+        this.mieterRepository = mieterRepository;
+        this.geocodingService = geocodingService;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Das Format einer Importdatei.
+     */
+    public enum Format {
+        /**
+         * CSV mit Kopfzeile, getrennt durch Semikolon oder Komma.
+         */
+        CSV,
+        /**
+         * Ein JSON-Array von Objekten oder ein Objekt je Zeile (JSON Lines).
+         */
+        JSON;
+
+        /**
+         * Bestimmt das Format anhand des Content-Types.
+         *
+         * @param contentType der Content-Type oder null
+         * @return {@link #JSON} für JSON-Typen, sonst {@link #CSV}
+         */
+        public static Format von(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json") ? JSON : CSV;
+        }
+    }
+
+    /**
+     * Ein Fehler in einem Datensatz.
+     *
+     * @param nummer  die Zeile in der CSV-Datei bzw. die laufende Nummer des Objekts in der JSON-Datei
+     * @param meldung die Beschreibung des Fehlers
+     */
+    public record Fehler(long nummer, String meldung) {
+    }
+
+    /**
+     * Das Ergebnis eines Imports.
+     *
+     * @param datensaetze   die Anzahl der gelesenen Datensätze
+     * @param wohnungen     die Anzahl der angelegten Wohnungen
+     * @param mieter        die Anzahl der angelegten Mieter
+     * @param mietvertraege die Anzahl der angelegten Mietverträge
+     * @param fehlerhaft    die Anzahl der verworfenen Datensätze
+     * @param fehler        die ersten {@link #MAX_FEHLER} Fehler
+     * @param abgebrochen   true, wenn die Datei nicht bis zum Ende gelesen werden konnte
+     */
+    public record Bericht(long datensaetze, int wohnungen, int mieter, int mietvertraege,
+                          long fehlerhaft, List<Fehler> fehler, boolean abgebrochen) {
+    }
+
+    /**
+     * Importiert eine Datei. Bereits gespeicherte Stapel bleiben auch dann erhalten, wenn die Datei später nicht
+     * weiter gelesen werden kann.
+     *
+     * @param in     der Inhalt der Datei, wird nicht geschlossen
+     * @param format das Format der Datei
+     * @return der Bericht über den Import
+     */
+    public Bericht importieren(InputStream in, Format format) {
+        Lauf lauf = new Lauf();
+        List<Zeile> stapel = new ArrayList<>(batchGroesse);
+        boolean abgebrochen = false;
+        try {
+            Quelle quelle = format == Format.JSON ? json(in) : csv(in);
+            for (Datensatz datensatz = quelle.naechster(); datensatz != null; datensatz = quelle.naechster()) {
+                lauf.datensaetze++;
+                Zeile zeile = lesen(datensatz, lauf);
+                if (zeile == null) continue;
+                stapel.add(zeile);
+                if (stapel.size() >= batchGroesse) {
+                    speichern(stapel, lauf);
+                    stapel.clear();
+                }
+            }
+        } catch (IOException e) {
+            abgebrochen = true;
+            lauf.fehler.add(new Fehler(lauf.datensaetze + 1, "Import abgebrochen: " + e.getMessage()));
+        }
+        if (!stapel.isEmpty()) speichern(stapel, lauf);
+
+        logger.info("Import: {} Datensätze, {} Wohnungen, {} Mieter, {} Mietverträge, {} fehlerhaft",
+                lauf.datensaetze, lauf.wohnungen, lauf.mieter, lauf.mietvertraege, lauf.fehlerhaft);
+        return new Bericht(lauf.datensaetze, lauf.wohnungen, lauf.mieter, lauf.mietvertraege,
+                lauf.fehlerhaft, List.copyOf(lauf.fehler), abgebrochen);
+    }
+
+    /**
+     * Wandelt einen Datensatz in Entitäten um und prüft sie.
+     *
+     * @return die Entitäten oder null, wenn der Datensatz fehlerhaft ist
+     */
+    private Zeile lesen(Datensatz datensatz, Lauf lauf) {
+        Map<String, String> werte = datensatz.werte();
+        try {
+            Wohnung wohnung = new Wohnung(text(werte, "strasse"), text(werte, "hausnummer"),
+                    text(werte, "postleitzahl"), text(werte, "stadt"), land(text(werte, "land")),
+                    ganzzahl(werte, "gesamtquadratmeter"), ganzzahl(werte, "baujahr"),
+                    ganzzahl(werte, "anzahlbaeder"), ganzzahl(werte, "anzahlschlafzimmer"),
+                    wahrheitswert(werte, "hatbalkon"), wahrheitswert(werte, "hatterrasse"),
+                    wahrheitswert(werte, "hatgarten"), wahrheitswert(werte, "hatklimaanlage"),
+                    text(werte, "stockwerk"), text(werte, "wohnungsnummer"));
+            Mieter mieter = null;
+            if (MIETER_FELDER.stream().anyMatch(feld -> text(werte, feld) != null)) {
+                mieter = new Mieter(text(werte, "name"), text(werte, "vorname"), text(werte, "telefonnummer"),
+                        text(werte, "email"), dezimal(werte, "einkommen"));
+            }
+            Mietvertrag mietvertrag = null;
+            if (MIETVERTRAG_FELDER.stream().anyMatch(feld -> text(werte, feld) != null)) {
+                if (mieter == null) throw new IllegalArgumentException("Mietvertrag ohne Mieter");
+                mietvertrag = new Mietvertrag(mieter, wohnung, datum(werte, "mietbeginn"), datum(werte, "mietende"),
+                        dezimal(werte, "kaution"), dezimal(werte, "miete"), ganzzahl(werte, "anzahlbewohner"));
+            }
+
+            Set<ConstraintViolation<?>> verletzungen = new LinkedHashSet<>(validator.validate(wohnung));
+            if (mieter != null) verletzungen.addAll(validator.validate(mieter));
+            if (mietvertrag != null) verletzungen.addAll(validator.validate(mietvertrag));
+            if (!verletzungen.isEmpty()) {
+                lauf.fehler(datensatz.nummer(), verletzungen.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining("; ")));
+                return null;
+            }
+            return new Zeile(datensatz.nummer(), wohnung, mieter, mietvertrag);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            lauf.fehler(datensatz.nummer(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Speichert einen Stapel in einer Transaktion. Schlägt das fehl, werden die Datensätze einzeln gespeichert.
+     */
+    private void speichern(List<Zeile> stapel, Lauf lauf) {
+        Gespeichert gespeichert;
+        try {
+            gespeichert = transactionTemplate.execute(status -> speichernInTransaktion(stapel, lauf.mieterIds));
+        } catch (RuntimeException e) {
+            stapel.forEach(this::zuruecksetzen);
+            if (stapel.size() == 1) {
+                lauf.fehler(stapel.getFirst().nummer(), "Speichern fehlgeschlagen: " + e.getMessage());
+                return;
+            }
+            logger.warn("Stapel ab Datensatz {} konnte nicht gespeichert werden, speichere einzeln: {}",
+                    stapel.getFirst().nummer(), e.getMessage());
+            stapel.forEach(zeile -> speichern(List.of(zeile), lauf));
+            return;
+        }
+        gespeichert.neueMieter().forEach((email, mieter) -> lauf.mieterIds.put(email, mieter.getMieter_id()));
+        lauf.wohnungen += stapel.size();
+        lauf.mieter += gespeichert.neueMieter().size();
+        lauf.mietvertraege += gespeichert.mietvertraege();
+    }
+
+    private Gespeichert speichernInTransaktion(List<Zeile> stapel, Map<String, Long> mieterIds) {
+        Set<String> unbekannt = stapel.stream()
+                .filter(zeile -> zeile.mieter() != null && !mieterIds.containsKey(zeile.mieter().getEmail()))
+                .map(zeile -> zeile.mieter().getEmail())
+                .collect(Collectors.toSet());
+        Map<String, Long> vorhandeneMieter = unbekannt.isEmpty() ? Map.of() : mieterRepository.findByEmailIn(unbekannt)
+                .stream()
+                .collect(Collectors.toMap(Mieter::getEmail, Mieter::getMieter_id, (a, b) -> a));
+
+        Map<String, Mieter> neueMieter = new HashMap<>();
+        Map<String, List<Long>> wohnungenNachAdresse = new LinkedHashMap<>();
+        List<Object> entities = new ArrayList<>();
+        int mietvertraege = 0;
+        double mieten = 0;
+        for (Zeile zeile : stapel) {
+            Mieter mieter = null;
+            if (zeile.mieter() != null) {
+                String email = zeile.mieter().getEmail();
+                Long id = mieterIds.getOrDefault(email, vorhandeneMieter.get(email));
+                if (id != null) {
+                    mieter = entityManager.getReference(Mieter.class, id);
+                } else {
+                    mieter = neueMieter.get(email);
+                    if (mieter == null) {
+                        mieter = zeile.mieter();
+                        entityManager.persist(mieter);
+                        neueMieter.put(email, mieter);
+                        entities.add(mieter);
+                    }
+                }
+            }
+
+            entityManager.persist(zeile.wohnung());
+            entities.add(zeile.wohnung());
+            wohnungenNachAdresse.computeIfAbsent(WohnungService.formatAdresse(zeile.wohnung()), adresse -> new ArrayList<>())
+                    .add(zeile.wohnung().getWohnung_id());
+
+            if (zeile.mietvertrag() != null) {
+                zeile.mietvertrag().setMieter(mieter);
+                entityManager.persist(zeile.mietvertrag());
+                entities.add(zeile.mietvertrag());
+                mietvertraege++;
+                mieten += zeile.mietvertrag().getMiete();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Die Geokodierung und die Ereignisse werden erst nach dem Commit verarbeitet
+        wohnungenNachAdresse.forEach((adresse, ids) -> geocodingService.alleKoordinatenNachtragen(ids, adresse));
+        eventPublisher.publishEvent(new DashboardStatsDelta(mieten, stapel.size(), mietvertraege, neueMieter.size()));
+        entities.forEach(entity -> eventPublisher.publishEvent(EntityChangedEvent.saved(entity)));
+        return new Gespeichert(neueMieter, mietvertraege);
+    }
+
+    /**
+     * Entfernt die IDs, die bei einem zurückgerollten Speichern vergeben wurden.
+     */
+    private void zuruecksetzen(Zeile zeile) {
+        zeile.wohnung().setWohnung_id(null);
+        if (zeile.mieter() != null) zeile.mieter().setMieter_id(null);
+        if (zeile.mietvertrag() != null) {
+            zeile.mietvertrag().setMietvertrag_id(null);
+            zeile.mietvertrag().setMieter(zeile.mieter());
+        }
+    }
+
+    private Quelle csv(InputStream in) throws IOException {
+        CsvLeser leser = new CsvLeser(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        return () -> {
+            Map<String, String> werte = leser.naechster();
+            return werte != null ? new Datensatz(leser.zeile(), werte) : null;
+        };
+    }
+
+    private Quelle json(InputStream in) throws IOException {
+        MappingIterator<Map<String, Object>> objekte = OBJECT_MAPPER.readerForMapOf(Object.class).readValues(in);
+        long[] nummer = {0};
+        return () -> {
+            try {
+                if (!objekte.hasNextValue()) return null;
+                Map<String, String> werte = new HashMap<>();
+                objekte.nextValue().forEach((feld, wert) ->
+                        werte.put(feld.toLowerCase(Locale.ROOT), wert != null ? wert.toString() : null));
+                return new Datensatz(++nummer[0], werte);
+            } catch (RuntimeException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+    }
+
+    private static String text(Map<String, String> werte, String feld) {
+        String wert = werte.get(feld);
+        if (wert == null) return null;
+        wert = wert.trim();
+        return wert.isEmpty() ? null : wert;
+    }
+
+    private static int ganzzahl(Map<String, String> werte, String feld) {
+        String wert = text(werte, feld);
+        if (wert == null) return 0;
+        try {
+            return Integer.parseInt(wert);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige Zahl in " + feld + ": " + wert);
+        }
+    }
+
+    /**
+     * Liest eine Dezimalzahl mit Punkt oder Komma als Dezimaltrennzeichen, z.B. "1234.5", "1234,5" oder "1.234,5".
+     */
+    static double dezimal(Map<String, String> werte, String feld) {
+        String wert = text(werte, feld);
+        if (wert == null) return 0;
+        String zahl = wert.contains(",") ? wert.replace(".", "").replace(',', '.') : wert;
+        try {
+            return Double.parseDouble(zahl);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige Zahl in " + feld + ": " + wert);
+        }
+    }
+
+    private static boolean wahrheitswert(Map<String, String> werte, String feld) {
+        String wert = text(werte, feld);
+        if (wert == null) return false;
+        String klein = wert.toLowerCase(Locale.ROOT);
+        if (WAHR.contains(klein)) return true;
+        if (FALSCH.contains(klein)) return false;
+        throw new IllegalArgumentException("Ungültiger Wahrheitswert in " + feld + ": " + wert);
+    }
+
+    private static LocalDate datum(Map<String, String> werte, String feld) {
+        String wert = text(werte, feld);
+        if (wert == null) return null;
+        try {
+            return wert.contains(".") ? LocalDate.parse(wert, DATUM_DE) : LocalDate.parse(wert);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Ungültiges Datum in " + feld + ": " + wert);
+        }
+    }
+
+    /**
+     * Erkennt ein Land am ISO-Code oder am deutschen Namen.
+     */
+    private static Land land(String wert) {
+        if (wert == null) return null;
+        for (Land land : Land.values()) {
+            if (land.name().equalsIgnoreCase(wert) || land.getName().equalsIgnoreCase(wert)) return land;
+        }
+        throw new IllegalArgumentException("Unbekanntes Land: " + wert);
+    }
+
+    /**
+     * Liefert die Datensätze einer Datei nacheinander.
+     */
+    @FunctionalInterface
+    private interface Quelle {
+        Datensatz naechster() throws IOException;
+    }
+
+    private record Datensatz(long nummer, Map<String, String> werte) {
+    }
+
+    private record Zeile(long nummer, Wohnung wohnung, Mieter mieter, Mietvertrag mietvertrag) {
+    }
+
+    private record Gespeichert(Map<String, Mieter> neueMieter, int mietvertraege) {
+    }
+
+    /**
+     * Der Zustand eines laufenden Imports.
+     */
+    private static final class Lauf {
+        private final Map<String, Long> mieterIds = new HashMap<>();
+        private final List<Fehler> fehler = new ArrayList<>();
+        private long datensaetze;
+        private long fehlerhaft;
+        private int wohnungen;
+        private int mieter;
+        private int mietvertraege;
+
+        private void fehler(long nummer, String meldung) {
+            fehlerhaft++;
+            if (fehler.size() < MAX_FEHLER) fehler.add(new Fehler(nummer, meldung));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import projektarbeit.immobilienverwaltung.model.*;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * {@link SearchIndex} mit einem invertierten Index im Speicher, der außerhalb des Profils {@code prod} verwendet wird.
+ * Der Index wird beim ersten Suchzugriff über Projektionen aus der Datenbank aufgebaut und danach über
+ * {@link EntityChangedEvent}s nach jedem Commit aktualisiert.
+ * Je Entitätstyp wird ein eigener {@link InvertedIndex} geführt. Für die Suche nach Adressen und freien Wohnungen
+ * werden zusätzlich die Adresse jeder Wohnung und die vermieteten Wohnungen vorgehalten, sodass auch diese
+ * Abfragen ohne Datenbankzugriff gepaged und gezählt werden.
+ */
+@Component
+@Profile("!prod")
+public class InMemorySearchIndex implements SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemorySearchIndex.class);
+
+    private final MieterRepository mieterRepository;
+    private final WohnungRepository wohnungRepository;
+    private final MietvertragRepository mietvertragRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final InvertedIndex<Long> mieterIndex = new InvertedIndex<>();
+    private final InvertedIndex<Long> wohnungIndex = new InvertedIndex<>();
+    private final Map<Long, Adresse> adresseByWohnung = new HashMap<>();
+    private final Set<Long> vermieteteWohnungen = new HashSet<>();
+    private volatile boolean loaded;
+
+    /**
+     * Konstruktor für InMemorySearchIndex.
+     *
+     * @param mieterRepository      das Repository, aus dem die Mieter geladen werden
+     * @param wohnungRepository     das Repository, aus dem die Wohnungen geladen werden
+     * @param mietvertragRepository das Repository, aus dem die vermieteten Wohnungen geladen werden
+     */
+    @Autowired
+    public InMemorySearchIndex(MieterRepository mieterRepository, WohnungRepository wohnungRepository,
+                               MietvertragRepository mietvertragRepository) {
+        this.mieterRepository = mieterRepository;
+        this.wohnungRepository = wohnungRepository;
+        this.mietvertragRepository = mietvertragRepository;
+    }
+
+    @Override
+    public List<Long> searchMieter(String term, long offset, int limit) {
+        return search(mieterIndex, term, offset, limit);
+    }
+
+    @Override
+    public long countMieter(String term) {
+        return read(term, 0L, tokens -> (long) mieterIndex.count(tokens));
+    }
+
+    @Override
+    public List<Long> searchWohnungen(String term, long offset, int limit) {
+        return search(wohnungIndex, term, offset, limit);
+    }
+
+    @Override
+    public List<Long> searchAdressen(String term, long offset, int limit) {
+        if (limit < 1) return List.of();
+        return read(term, List.of(), tokens -> InvertedIndex.top(adressTreffer(tokens),
+                        InvertedIndex.<Long>byScore(), offset, limit).stream()
+                .map(Map.Entry::getKey)
+                .toList());
+    }
+
+    @Override
+    public long countAdressen(String term) {
+        return read(term, 0L, tokens -> (long) adressTreffer(tokens).size());
+    }
+
+    @Override
+    public List<Long> searchFreieWohnungen(String term, long offset, int limit) {
+        if (limit < 1) return List.of();
+        return read(term, List.of(), tokens -> InvertedIndex.top(freieTreffer(tokens),
+                        InvertedIndex.<Long>byScore(), offset, limit).stream()
+                .map(Map.Entry::getKey)
+                .toList());
+    }
+
+    @Override
+    public long countFreieWohnungen(String term) {
+        return read(term, 0L, tokens -> (long) freieTreffer(tokens).size());
+    }
+
+    /**
+     * Übernimmt eine gespeicherte oder gelöschte Entität in den Index, sobald die auslösende Transaktion
+     * erfolgreich abgeschlossen wurde. Solange der Index noch nicht aufgebaut ist, wird das Ereignis ignoriert,
+     * da der Aufbau die Änderung bereits aus der Datenbank liest. Läuft der Aufbau gerade, wartet das Ereignis auf
+     * die Schreibsperre und wird danach übernommen, denn die Projektionen wurden womöglich vor dem Commit gelesen.
+     *
+     * @param event das Ereignis
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) return;
+            if (event.entity() instanceof Mieter mieter && mieter.getMieter_id() != null) {
+                update(mieterIndex, SearchDocument.of(mieter), event.deleted());
+            } else if (event.entity() instanceof Wohnung wohnung && wohnung.getWohnung_id() != null) {
+                update(wohnungIndex, SearchDocument.of(wohnung), event.deleted());
+                if (event.deleted()) {
+                    adresseByWohnung.remove(wohnung.getWohnung_id());
+                    vermieteteWohnungen.remove(wohnung.getWohnung_id());
+                } else {
+                    adresseByWohnung.put(wohnung.getWohnung_id(), Adresse.of(WohnungAdresse.of(wohnung)));
+                }
+            } else if (event.entity() instanceof Mietvertrag mietvertrag && mietvertrag.getWohnung() != null) {
+                // Die Wohnung eines Mietvertrags wird nach dem Anlegen nicht mehr geändert
+                Long wohnungId = mietvertrag.getWohnung().getWohnung_id();
+                if (event.deleted()) {
+                    vermieteteWohnungen.remove(wohnungId);
+                } else {
+                    vermieteteWohnungen.add(wohnungId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(InvertedIndex<Long> index, SearchDocument document, boolean deleted) {
+        if (deleted) {
+            index.remove(document.id());
+        } else {
+            index.put(document.id(), SearchIndex.tokenize(document.text()));
+        }
+    }
+
+    private List<Long> search(InvertedIndex<Long> index, String term, long offset, int limit) {
+        if (limit < 1) return List.of();
+        return read(term, List.of(), tokens -> index.search(tokens, offset, limit));
+    }
+
+    /**
+     * Fasst die Wohnungstreffer je Adresse zusammen: Schlüssel ist die kleinste Wohnungs-ID der Adresse,
+     * Wert die beste Bewertung einer ihrer Wohnungen. Da nur die Adressfelder durchsucht werden, sind alle
+     * Wohnungen einer Adresse gemeinsam Treffer oder nicht.
+     */
+    private Collection<Map.Entry<Long, Integer>> adressTreffer(List<String> tokens) {
+        Map<Adresse, Map.Entry<Long, Integer>> besteByAdresse = new HashMap<>();
+        wohnungIndex.scores(tokens).forEach((id, score) -> besteByAdresse.merge(adresseByWohnung.get(id), Map.entry(id, score),
+                (a, b) -> Map.entry(Math.min(a.getKey(), b.getKey()), Math.max(a.getValue(), b.getValue()))));
+        return besteByAdresse.values();
+    }
+
+    private Collection<Map.Entry<Long, Integer>> freieTreffer(List<String> tokens) {
+        Map<Long, Integer> scores = wohnungIndex.scores(tokens);
+        scores.keySet().removeAll(vermieteteWohnungen);
+        return scores.entrySet();
+    }
+
+    /**
+     * Führt eine Abfrage unter dem Lesezugriff aus. Bei einem leeren Suchbegriff wird der Standardwert geliefert,
+     * ohne den Index aufzubauen.
+     */
+    private <T> T read(String term, T leer, Function<List<String>, T> abfrage) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty()) return leer;
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            return abfrage.apply(tokens);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            long start = System.currentTimeMillis();
+            mieterRepository.findSearchDocuments()
+                    .forEach(document -> mieterIndex.put(document.id(), SearchIndex.tokenize(document.text())));
+            for (WohnungAdresse adresse : wohnungRepository.findAdressen()) {
+                wohnungIndex.put(adresse.wohnungId(), SearchIndex.tokenize(SearchDocument.of(adresse).text()));
+                adresseByWohnung.put(adresse.wohnungId(), Adresse.of(adresse));
+            }
+            vermieteteWohnungen.addAll(mietvertragRepository.findWohnungIds());
+            loaded = true;
+            logger.info("Suchindex mit {} Mietern und {} Wohnungen in {} ms aufgebaut",
+                    mieterIndex.size(), wohnungIndex.size(), System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Schlüssel einer Adresse, unter dem die Wohnungen wie in {@link WohnungRepository#findGruppen} gruppiert werden.
+     */
+    private record Adresse(String strasse, String hausnummer, String postleitzahl, String stadt, Land land) {
+
+        static Adresse of(WohnungAdresse adresse) {
+            return new Adresse(adresse.strasse(), adresse.hausnummer(), adresse.postleitzahl(), adresse.stadt(), adresse.land());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.util.*;
+
+/**
+ * Invertierter Index über normalisierte Suchwörter, der Dokumente eines beliebigen Schlüsseltyps findet.
+ * Wortanfänge werden über eine sortierte Wortliste gefunden, Tippfehler über einen Trigramm-Index, dessen
+ * Kandidaten mit der Editierdistanz zum Wortanfang geprüft werden. Ein Treffer zählt als exaktes Wort
+ * mehr als ein Wortanfang und dieser mehr als ein unscharfer Treffer.
+ * <p>
+ * Nicht threadsicher, die Aufrufer schützen den Zugriff über ein Lock.
+ *
+ * @param <K> der Typ der Dokumentschlüssel, bei gleicher Bewertung wird nach ihm sortiert
+ */
+final class InvertedIndex<K extends Comparable<K>> {
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int LONG_TOKEN_LENGTH = 8;
+
+    private final Map<K, Set<String>> tokensById = new HashMap<>();
+    private final NavigableMap<String, Set<K>> idsByToken = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+
+    int size() {
+        return tokensById.size();
+    }
+
+    void put(K id, List<String> tokens) {
+        remove(id);
+        Set<String> tokenSet = new HashSet<>(tokens);
+        tokensById.put(id, tokenSet);
+        for (String token : tokenSet) {
+            Set<K> ids = idsByToken.get(token);
+            if (ids == null) {
+                ids = new HashSet<>();
+                idsByToken.put(token, ids);
+                for (String trigram : trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(token);
+                }
+            }
+            ids.add(id);
+        }
+    }
+
+    void remove(K id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Set<K> ids = idsByToken.get(token);
+            ids.remove(id);
+            if (!ids.isEmpty()) continue;
+            idsByToken.remove(token);
+            for (String trigram : trigrams(token)) {
+                Set<String> trigramTokens = tokensByTrigram.get(trigram);
+                trigramTokens.remove(token);
+                if (trigramTokens.isEmpty()) tokensByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Sucht Dokumente, die alle Suchwörter enthalten, und sortiert sie nach der Summe der Einzelbewertungen.
+     */
+    List<K> search(List<String> queryTokens, int limit) {
+        return search(queryTokens, 0, limit);
+    }
+
+    /**
+     * Sucht wie {@link #search(List, int)}, überspringt aber die ersten {@code offset} Treffer.
+     */
+    List<K> search(List<String> queryTokens, long offset, int limit) {
+        return top(scores(queryTokens).entrySet(), byScore(), offset, limit).stream()
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Zählt die Dokumente, die alle Suchwörter enthalten.
+     */
+    int count(List<String> queryTokens) {
+        return scores(queryTokens).size();
+    }
+
+    /**
+     * Liefert die Bewertung jedes Dokuments, das alle Suchwörter enthält. Die Map darf verändert werden.
+     */
+    Map<K, Integer> scores(List<String> queryTokens) {
+        Map<K, Integer> scores = null;
+        for (String queryToken : queryTokens) {
+            Map<K, Integer> tokenScores = match(queryToken);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) return new HashMap<>();
+        }
+        return scores == null ? new HashMap<>() : scores;
+    }
+
+    /**
+     * Reihenfolge der Treffer: höchste Bewertung zuerst, bei gleicher Bewertung nach Schlüssel.
+     */
+    static <K extends Comparable<K>> Comparator<Map.Entry<K, Integer>> byScore() {
+        return Map.Entry.<K, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+    }
+
+    /**
+     * Wählt die Elemente {@code offset} bis {@code offset + limit} in der angegebenen Reihenfolge aus, ohne alle
+     * Elemente zu sortieren. Dazu wird ein Heap mit höchstens {@code offset + limit} Elementen geführt.
+     */
+    static <T> List<T> top(Collection<T> items, Comparator<? super T> order, long offset, int limit) {
+        if (limit < 1 || offset >= items.size()) return List.of();
+        int size = (int) Math.min(items.size(), offset + limit);
+        PriorityQueue<T> heap = new PriorityQueue<>(size, order.reversed());
+        for (T item : items) {
+            if (heap.size() < size) {
+                heap.add(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted.subList((int) offset, sorted.size());
+    }
+
+    private Map<K, Integer> match(String queryToken) {
+        Map<K, Integer> result = new HashMap<>();
+        SortedMap<String, Set<K>> prefixMatches = idsByToken.subMap(queryToken, queryToken + Character.MAX_VALUE);
+        prefixMatches.forEach((token, ids) -> {
+            int score = token.equals(queryToken) ? EXACT : PREFIX;
+            ids.forEach(id -> result.merge(id, score, Math::max));
+        });
+        if (queryToken.length() >= MIN_FUZZY_LENGTH) {
+            int maxDistance = queryToken.length() >= LONG_TOKEN_LENGTH ? 2 : 1;
+            for (String candidate : fuzzyCandidates(queryToken)) {
+                if (prefixMatches.containsKey(candidate)) continue;
+                if (prefixDistance(queryToken, candidate, maxDistance) <= maxDistance) {
+                    idsByToken.get(candidate).forEach(id -> result.merge(id, FUZZY, Math::max));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<String> fuzzyCandidates(String queryToken) {
+        Set<String> candidates = new HashSet<>();
+        for (String trigram : trigrams(queryToken)) {
+            Set<String> tokens = tokensByTrigram.get(trigram);
+            if (tokens != null) candidates.addAll(tokens);
+        }
+        return candidates;
+    }
+
+    /**
+     * Zerlegt ein Wort in Trigramme. Der Wortanfang wird markiert, damit auch kurze Wörter gefunden werden.
+     */
+    static List<String> trigrams(String token) {
+        String padded = "$" + token;
+        List<String> trigrams = new ArrayList<>(Math.max(1, padded.length() - 2));
+        if (padded.length() < 3) {
+            trigrams.add(padded);
+            return trigrams;
+        }
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Berechnet die kleinste Editierdistanz zwischen dem Suchwort und einem beliebigen Anfang des Kandidaten.
+     * Die Berechnung bricht ab, sobald die Distanz nicht mehr unter {@code maxDistance} fallen kann.
+     */
+    static int prefixDistance(String query, String candidate, int maxDistance) {
+        int[] previous = new int[candidate.length() + 1];
+        int[] current = new int[candidate.length() + 1];
+        for (int j = 0; j <= candidate.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= candidate.length(); j++) {
+                int cost = query.charAt(i - 1) == candidate.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) return rowMin;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int distance : previous) best = Math.min(best, distance);
+        return best;
+    }
+}
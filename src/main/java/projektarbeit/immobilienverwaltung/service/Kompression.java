@@ -0,0 +1,118 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Komprimierung gespeicherter Dokumentdateien im gzip-Format.
+ * <p>
+ * Ob und wie stark eine Datei komprimiert wird, hängt von ihrem MIME-Typ ab: Text, XML und SVG werden mit der
+ * höchsten Stufe komprimiert, unkomprimierte Bildformate wie BMP und TIFF, die meist groß sind, mit der schnellsten.
+ * Formate, die bereits komprimiert sind (PDF, JPEG, PNG, Office-Dokumente), werden unverändert gespeichert.
+ * Komprimierte Dateien tragen die Endung {@value #ENDUNG}, sodass sie direkt mit {@code Content-Encoding: gzip}
+ * ausgeliefert werden können.
+ */
+public final class Kompression {
+
+    /**
+     * Wert für {@code Content-Encoding} bei komprimiert gespeicherten Dateien.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * Endung komprimiert gespeicherter Dateien.
+     */
+    public static final String ENDUNG = ".gz";
+
+    /**
+     * Eine komprimierte Datei wird nur behalten, wenn sie höchstens diesen Anteil der ursprünglichen Größe hat.
+     * Das gilt etwa nicht für TIFFs, deren Bilddaten bereits komprimiert sind.
+     */
+    static final double MAX_RATE = 0.9;
+
+    private static final int PUFFER = 64 * 1024;
+
+    private static final Set<String> TEXT_TYPEN = Set.of(
+            "image/svg+xml", "application/xml", "application/json", "application/javascript",
+            "application/rtf", "application/x-yaml", "application/x-sh");
+
+    private static final Map<String, Integer> BILD_TYPEN = Map.of(
+            "image/bmp", Deflater.BEST_SPEED,
+            "image/x-ms-bmp", Deflater.BEST_SPEED,
+            "image/tiff", Deflater.BEST_SPEED);
+
+    private Kompression() {
+    }
+
+    /**
+     * Gibt die Kompressionsstufe für einen MIME-Typ zurück.
+     *
+     * @param mimeType der MIME-Typ oder null
+     * @return die Stufe für {@link Deflater} oder -1, wenn Dateien dieses Typs nicht komprimiert werden
+     */
+    static int stufe(String mimeType) {
+        if (mimeType == null) return -1;
+        String typ = mimeType.toLowerCase().split(";", 2)[0].trim();
+        if (typ.startsWith("text/") || TEXT_TYPEN.contains(typ) || typ.endsWith("+xml") || typ.endsWith("+json")) {
+            return Deflater.BEST_COMPRESSION;
+        }
+        return BILD_TYPEN.getOrDefault(typ, -1);
+    }
+
+    /**
+     * Gibt an, ob die Datei komprimiert gespeichert ist.
+     *
+     * @param datei die Datei
+     * @return true, wenn die Datei gzip-komprimiert ist
+     */
+    public static boolean istKomprimiert(Path datei) {
+        return datei.getFileName().toString().endsWith(ENDUNG);
+    }
+
+    /**
+     * Öffnet den Inhalt einer gespeicherten Datei. Komprimierte Dateien werden beim Lesen entpackt.
+     *
+     * @param datei die Datei
+     * @return der Stream mit dem ursprünglichen Inhalt
+     * @throws IOException falls die Datei nicht geöffnet werden kann
+     */
+    public static InputStream oeffnen(Path datei) throws IOException {
+        InputStream in = Files.newInputStream(datei);
+        if (!istKomprimiert(datei)) return in;
+        try {
+            return new GZIPInputStream(in, PUFFER);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Komprimiert eine Datei in eine andere.
+     *
+     * @param quelle die unkomprimierte Datei
+     * @param ziel   die Datei, in die der komprimierte Inhalt geschrieben wird
+     * @param stufe  die Kompressionsstufe
+     * @return die Größe der komprimierten Datei in Bytes
+     * @throws IOException falls eine der Dateien nicht gelesen oder geschrieben werden kann
+     */
+    static long komprimieren(Path quelle, Path ziel, int stufe) throws IOException {
+        try (InputStream in = Files.newInputStream(quelle);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(ziel), PUFFER) {
+                 {
+                     def.setLevel(stufe);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+        return Files.size(ziel);
+    }
+}
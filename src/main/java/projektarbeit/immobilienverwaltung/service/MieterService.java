@@ -1,18 +1,27 @@
 package projektarbeit.immobilienverwaltung.service;
 
 import jakarta.validation.Valid;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.MieterListItem;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.repository.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service-Klasse zur Verwaltung von Mieter-Entitäten und damit verbundenen Operationen.
@@ -21,12 +30,29 @@ import java.util.List;
 @Service
 public class MieterService {
 
+    private static final Map<String, String> LIST_SORT_EXPRESSIONS = Map.ofEntries(
+            Map.entry("name", "c.name"),
+            Map.entry("vorname", "c.vorname"),
+            Map.entry("telefonnummer", "c.telefonnummer"),
+            Map.entry("email", "c.email"),
+            Map.entry("einkommen", "c.einkommen"),
+            Map.entry("miete", "min(v.miete)"),
+            Map.entry("kaution", "min(v.kaution)"),
+            Map.entry("anzahlBewohner", "min(v.anzahlBewohner)"),
+            Map.entry("mietbeginn", "min(v.mietbeginn)"),
+            Map.entry("mietende", "min(v.mietende)"),
+            Map.entry("mietobjekt", "min(concat(w.postleitzahl, ' ', w.stadt, ' ', w.strasse, ' ', w.hausnummer))"));
+    private static final int SEARCH_BATCH_SIZE = 1000;
+
     private final WohnungRepository wohnungRepository;
     private final MieterRepository mieterRepository;
     private final ZaehlerstandRepository zaehlerstandRepository;
     private final DokumentRepository dokumentRepository;
+    private final DokumentService dokumentService;
     private final MietvertragRepository mietvertragRepository;
     private final MietvertragService mietvertragService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SearchIndex searchIndex;
 
     /**
      * Konstruktor für MieterService mit den angegebenen Repositories.
@@ -35,21 +61,31 @@ public class MieterService {
      * @param mieterRepository       das Repository für Mieter-Entitäten
      * @param zaehlerstandRepository das Repository für Zaehlerstand-Entitäten
      * @param dokumentRepository     das Repository für Dokument-Entitäten
+     * @param dokumentService        der Service, über den die Dokumente eines gelöschten Mieters gelöscht werden
      * @param mietvertragRepository  das Repository für Mietvertrag-Entitäten
+     * @param mietvertragService     der Service für Mietvertrag-Entitäten
+     * @param eventPublisher         der Publisher für Änderungen der Dashboard-Statistiken und des Suchindex
+     * @param searchIndex            der Suchindex für die Volltextsuche
      */
     @Autowired
     public MieterService(WohnungRepository wohnungRepository,
                          MieterRepository mieterRepository,
                          ZaehlerstandRepository zaehlerstandRepository,
                          DokumentRepository dokumentRepository,
+                         DokumentService dokumentService,
                          MietvertragRepository mietvertragRepository,
-                         MietvertragService mietvertragService) {
+                         MietvertragService mietvertragService,
+                         ApplicationEventPublisher eventPublisher,
+                         SearchIndex searchIndex) {
         this.wohnungRepository = wohnungRepository;
         this.mieterRepository = mieterRepository;
         this.zaehlerstandRepository = zaehlerstandRepository;
         this.dokumentRepository = dokumentRepository;
+        this.dokumentService = dokumentService;
         this.mietvertragRepository = mietvertragRepository;
         this.mietvertragService = mietvertragService;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -100,12 +136,113 @@ public class MieterService {
     /**
      * Ruft alle Mieter-Entitäten ab, die dem angegebenen Filterstring entsprechen.
      * Wenn der Filterstring null oder leer ist, werden alle Mieter-Entitäten zurückgegeben.
+     * Sonst wird über den {@link SearchIndex} in Name, Vorname, E-Mail und Telefonnummer gesucht
+     * und die Treffer nach Relevanz sortiert.
      *
      * @param stringFilter der Filterstring, nach dem gesucht werden soll
      * @return eine Liste der passenden Mieter-Entitäten
      */
+    @Transactional(readOnly = true)
     public List<Mieter> findAllMieter(String stringFilter) {
-        return stringFilter == null || stringFilter.isEmpty() ? mieterRepository.findAll() : mieterRepository.search(stringFilter);
+        String term = normalizeFilter(stringFilter);
+        if (term.isEmpty()) return mieterRepository.findAll();
+
+        // Die Treffer seitenweise laden, damit keine Abfrage mehr als SEARCH_BATCH_SIZE IDs erhält
+        List<Mieter> mieterList = new ArrayList<>();
+        List<Long> treffer;
+        long offset = 0;
+        do {
+            treffer = searchIndex.searchMieter(term, offset, SEARCH_BATCH_SIZE);
+            mieterList.addAll(findAllByIdInOrder(treffer));
+            offset += treffer.size();
+        } while (treffer.size() == SEARCH_BATCH_SIZE);
+        return mieterList;
+    }
+
+    /**
+     * Lädt eine Seite der Mieterübersicht. Sortierung und Paging werden in der Datenbank ausgeführt,
+     * die Mietverträge der Seite werden anschließend mit einer einzigen Abfrage ergänzt.
+     * Mit Filterstring pagt der {@link SearchIndex} die Treffer und sortiert sie nach Relevanz; die gewählte
+     * Sortierung gilt dann nicht.
+     * Unterstützte Sortiereigenschaften sind die Felder des Mieters sowie die Vertragsspalten
+     * {@code miete}, {@code kaution}, {@code anzahlBewohner}, {@code mietbeginn}, {@code mietende} und {@code mietobjekt}.
+     *
+     * @param stringFilter der Filterstring, nach dem gesucht werden soll
+     * @param pageable     die angeforderte Seite und Sortierung
+     * @return die Mieter der Seite mit ihren Mietverträgen
+     */
+    @Transactional(readOnly = true)
+    public List<MieterListItem> findMieterListItems(String stringFilter, Pageable pageable) {
+        String term = normalizeFilter(stringFilter);
+        if (term.isEmpty()) {
+            return toListItems(mieterRepository.findPage(
+                    OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize(), toListSort(pageable.getSort()))));
+        }
+
+        // Nur die Treffer der Seite aus dem Index holen
+        return toListItems(findAllByIdInOrder(
+                searchIndex.searchMieter(term, pageable.getOffset(), pageable.getPageSize())));
+    }
+
+    /**
+     * Zählt die Mieter, die dem angegebenen Filterstring entsprechen.
+     *
+     * @param stringFilter der Filterstring, nach dem gesucht werden soll
+     * @return die Anzahl der passenden Mieter
+     */
+    public long countMieter(String stringFilter) {
+        String term = normalizeFilter(stringFilter);
+        if (term.isEmpty()) return mieterRepository.count();
+        return searchIndex.countMieter(term);
+    }
+
+    /**
+     * Lädt die Mieter mit den angegebenen IDs in der Reihenfolge der IDs.
+     */
+    private List<Mieter> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Mieter> mieterById = mieterRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Mieter::getMieter_id, Function.identity()));
+        return ids.stream().map(mieterById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Übersetzt die Sortierung der Mieterübersicht in Ausdrücke der Abfrage {@link MieterRepository#findPage}.
+     * Vertragsspalten werden über den kleinsten Wert aller Mietverträge eines Mieters sortiert.
+     * Die Mieter-ID wird immer als letztes Kriterium ergänzt, damit das Paging stabil bleibt.
+     */
+    private Sort toListSort(Sort sort) {
+        Sort result = Sort.unsorted();
+        for (Sort.Order order : sort) {
+            String expression = LIST_SORT_EXPRESSIONS.get(order.getProperty());
+            if (expression == null) continue;
+            result = result.and(JpaSort.unsafe(order.getDirection(), expression));
+        }
+        return result.and(Sort.by("mieterId"));
+    }
+
+    private String normalizeFilter(String stringFilter) {
+        return stringFilter == null ? "" : stringFilter.trim();
+    }
+
+    /**
+     * Ergänzt die angegebenen Mieter um ihre Mietverträge. Die Mietverträge aller Mieter
+     * werden dabei gemeinsam mit einer einzigen Abfrage geladen.
+     *
+     * @param mieterList die Mieter, für die die Zeilen erstellt werden sollen
+     * @return eine Liste der Mieter mit ihren Mietverträgen in der Reihenfolge der Eingabe
+     */
+    @Transactional(readOnly = true)
+    public List<MieterListItem> toListItems(List<Mieter> mieterList) {
+        if (mieterList.isEmpty()) return List.of();
+
+        List<Long> mieterIds = mieterList.stream().map(Mieter::getMieter_id).toList();
+        Map<Long, List<Mietvertrag>> mietvertraegeByMieter = mietvertragRepository.findByMieterIdsWithWohnung(mieterIds).stream()
+                .collect(Collectors.groupingBy(mietvertrag -> mietvertrag.getMieter().getMieter_id()));
+
+        return mieterList.stream()
+                .map(mieter -> new MieterListItem(mieter, mietvertraegeByMieter.getOrDefault(mieter.getMieter_id(), List.of())))
+                .toList();
     }
 
     /**
@@ -126,17 +263,18 @@ public class MieterService {
     public void deleteMieter(Mieter mieter) {
         if (mieter == null) throw new NullPointerException("Mieter ist null");
 
-        List<Mietvertrag> mietvertraege = mietvertragRepository.findByMieter_MieterId(mieter.getMieter_id());
+        // Verträge mit Wohnung laden, damit beim Löschen nicht jede Wohnung einzeln nachgeladen wird
+        List<Mietvertrag> mietvertraege = mietvertragRepository.findByMieterIdsWithWohnung(List.of(mieter.getMieter_id()));
         if (!mietvertraege.isEmpty()) mietvertraege.forEach(mietvertragService::deleteMietvertrag);
 
-        // Initialisieren der Dokumente-Sammlung
+        // Ist der Mieter über seine Verträge bereits geladen, entsteht hier keine Abfrage
         mieter = mieterRepository.findById(mieter.getMieter_id()).orElse(null);
         if (mieter != null) {
-            Hibernate.initialize(mieter.getDokument());
-            List<Dokument> dokumente = new ArrayList<>(mieter.getDokument());
-            if (!dokumente.isEmpty()) dokumentRepository.deleteAll(dokumente);
+            dokumentService.deleteDokumente(dokumentRepository.findByMieter(mieter));
 
             mieterRepository.delete(mieter);
+            eventPublisher.publishEvent(DashboardStatsDelta.mieterRemoved());
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(mieter));
         }
     }
 
@@ -147,7 +285,10 @@ public class MieterService {
      * @param mieter Der zu speichernde Mieter. Darf nicht null sein.
      */
     public void saveMieter(@Valid Mieter mieter) {
+        boolean isNew = mieter.getMieter_id() == null;
         mieterRepository.save(mieter);
+        if (isNew) eventPublisher.publishEvent(DashboardStatsDelta.mieterAdded());
+        eventPublisher.publishEvent(EntityChangedEvent.saved(mieter));
     }
 
     /**
@@ -5,8 +5,11 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.validation.Valid;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
@@ -14,6 +17,7 @@ import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service-Klasse zur Verwaltung von Mietvertrag-Entitäten.
@@ -26,25 +30,39 @@ public class MietvertragService {
 
     private final MietvertragRepository mietvertragRepository;
     private final WohnungService wohnungService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Konstruktor für MietvertragService mit dem angegebenen Repository.
      *
      * @param mietvertragRepository das Repository zur Verwaltung von Mietvertrag-Entitäten
+     * @param wohnungService        der Service zur Verwaltung von Wohnung-Entitäten
+     * @param eventPublisher        der Publisher für Änderungen der Dashboard-Statistiken
      */
     @Autowired
-    public MietvertragService(MietvertragRepository mietvertragRepository, WohnungService wohnungService) {
+    public MietvertragService(MietvertragRepository mietvertragRepository, WohnungService wohnungService, ApplicationEventPublisher eventPublisher) {
         this.mietvertragRepository = mietvertragRepository;
         this.wohnungService = wohnungService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Speichert eine Mietvertrag-Entität.
+     * Speichert eine Mietvertrag-Entität und veröffentlicht die Änderung der Dashboard-Statistiken.
      *
      * @param mietvertrag die zu speichernde Mietvertrag-Entität
      */
+    @Transactional
     public void saveMietvertrag(@Valid Mietvertrag mietvertrag) {
+        Optional<Double> alteMiete = mietvertrag.getMietvertrag_id() == null
+                ? Optional.empty()
+                : mietvertragRepository.findMieteById(mietvertrag.getMietvertrag_id());
+
         mietvertragRepository.save(mietvertrag);
+
+        eventPublisher.publishEvent(alteMiete
+                .map(miete -> DashboardStatsDelta.mieteChanged(miete, mietvertrag.getMiete()))
+                .orElseGet(() -> DashboardStatsDelta.mietvertragAdded(mietvertrag.getMiete())));
+        eventPublisher.publishEvent(EntityChangedEvent.saved(mietvertrag));
     }
 
     /**
@@ -65,6 +83,8 @@ public class MietvertragService {
 
             // Löschen Sie den Mietvertrag aus dem Repository
             mietvertragRepository.delete(managedMietvertrag);
+            eventPublisher.publishEvent(DashboardStatsDelta.mietvertragRemoved(managedMietvertrag.getMiete()));
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(managedMietvertrag));
         }
     }
 
@@ -0,0 +1,71 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Ermittelt Koordinaten über die Nominatim-API von OpenStreetMap.
+ * HTTP-Client und {@link ObjectMapper} werden für alle Abfragen wiederverwendet. Die Nutzungsbedingungen von
+ * Nominatim erlauben höchstens eine Abfrage pro Sekunde.
+ */
+@Component
+@ConditionalOnProperty(name = "geocoding.provider", havingValue = "nominatim", matchIfMissing = true)
+public class NominatimGeocodingProvider implements GeocodingProvider {
+
+    private static final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search?q=%s&format=json&limit=1";
+    private static final String USER_AGENT = "immobilienverwaltung";
+    private static final int TIMEOUT_MS = 10_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CloseableHttpClient httpClient = HttpClients.custom()
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectTimeout(TIMEOUT_MS)
+                    .setConnectionRequestTimeout(TIMEOUT_MS)
+                    .setSocketTimeout(TIMEOUT_MS)
+                    .build())
+            .setUserAgent(USER_AGENT)
+            .build();
+
+    @Override
+    public double[] lookup(String adresse) throws IOException {
+        HttpGet request = new HttpGet(String.format(NOMINATIM_URL, URLEncoder.encode(adresse, StandardCharsets.UTF_8)));
+        request.setHeader(HttpHeaders.ACCEPT, "application/json");
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status != 200) throw new IOException("Nominatim antwortet mit Status " + status);
+            JsonNode root = mapper.readTree(response.getEntity().getContent());
+            if (!root.isArray() || root.isEmpty()) return null;
+            JsonNode location = root.get(0);
+            return new double[]{location.get("lat").asDouble(), location.get("lon").asDouble()};
+        }
+    }
+
+    @Override
+    public Duration mindestabstand() {
+        return Duration.ofSeconds(1);
+    }
+
+    /**
+     * Schließt den HTTP-Client beim Herunterfahren.
+     *
+     * @throws IOException falls der Client nicht geschlossen werden kann
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
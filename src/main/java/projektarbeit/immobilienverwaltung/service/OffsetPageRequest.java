@@ -0,0 +1,82 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * {@link Pageable}, das einen beliebigen Offset statt einer Seitennummer verwendet.
+ * Das TreeGrid fordert Bereiche an, die nicht an Seitengrenzen ausgerichtet sind; mit einem
+ * {@link org.springframework.data.domain.PageRequest} würden dabei Zeilen doppelt oder gar nicht geladen.
+ *
+ * @param offset die Position der ersten Zeile.
+ * @param limit  die maximale Anzahl an Zeilen.
+ * @param sort   die Sortierung der Zeilen.
+ */
+public record OffsetPageRequest(long offset, int limit, Sort sort) implements Pageable {
+
+    /**
+     * Erstellt eine neue Anfrage und prüft die Grenzen.
+     */
+    public OffsetPageRequest {
+        if (offset < 0) throw new IllegalArgumentException("Offset darf nicht negativ sein");
+        if (limit < 1) throw new IllegalArgumentException("Limit muss mindestens 1 sein");
+        if (sort == null) sort = Sort.unsorted();
+    }
+
+    /**
+     * Erstellt eine Anfrage für den angegebenen Bereich.
+     *
+     * @param offset die Position der ersten Zeile
+     * @param limit  die maximale Anzahl an Zeilen
+     * @param sort   die Sortierung der Zeilen
+     * @return die erstellte Anfrage
+     */
+    public static OffsetPageRequest of(long offset, int limit, Sort sort) {
+        return new OffsetPageRequest(offset, limit, sort);
+    }
+
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / limit);
+    }
+
+    @Override
+    public int getPageSize() {
+        return limit;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Sort getSort() {
+        return sort;
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageRequest(offset + limit, limit, sort);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageRequest(Math.max(0, offset - limit), limit, sort) : first();
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageRequest(0, limit, sort);
+    }
+
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageRequest((long) pageNumber * limit, limit, sort);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
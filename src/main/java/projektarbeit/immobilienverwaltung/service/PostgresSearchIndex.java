@@ -0,0 +1,211 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SearchIndex} für PostgreSQL, der im Profil {@code prod} verwendet wird.
+ * Wörter und Wortanfänge werden über einen {@code tsvector}-Ausdrucksindex gefunden, Tippfehler über einen
+ * Trigramm-Index der Erweiterung {@code pg_trgm}. Die Indizes werden beim Start angelegt, falls sie fehlen.
+ * Steht {@code pg_trgm} nicht zur Verfügung, wird ohne unscharfe Treffer gesucht.
+ */
+@Component
+@Profile("prod")
+public class PostgresSearchIndex implements SearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresSearchIndex.class);
+
+    private static final Target MIETER = new Target("mieter", "mieter_id",
+            document("name", "vorname", "email", "telefonnummer"));
+    private static final Target WOHNUNG = new Target("wohnung", "wohnung_id",
+            document("strasse", "hausnummer", "postleitzahl", "stadt"));
+    private static final String ADRESSE = "strasse, hausnummer, postleitzahl, stadt, land";
+    private static final String FREI = " AND NOT EXISTS (SELECT 1 FROM mietvertrag m WHERE m.wohnung_id = wohnung.wohnung_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean trigramAvailable;
+
+    /**
+     * Konstruktor für PostgresSearchIndex.
+     *
+     * @param jdbcTemplate das Template, über das die Suchabfragen ausgeführt werden
+     */
+    @Autowired
+    public PostgresSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Legt die Erweiterung {@code pg_trgm} sowie die Such-Indizes an, sobald das Schema erstellt wurde.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            trigramAvailable = true;
+        } catch (DataAccessException e) {
+            logger.warn("Erweiterung pg_trgm nicht verfügbar, Suche ohne Tippfehlertoleranz: {}", e.getMessage());
+        }
+        for (Target target : List.of(MIETER, WOHNUNG)) {
+            try {
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + target.table + "_fts ON " + target.table
+                        + " USING gin (" + target.vector() + ")");
+                if (trigramAvailable) {
+                    jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + target.table + "_trgm ON " + target.table
+                            + " USING gin ((" + target.document + ") gin_trgm_ops)");
+                }
+            } catch (DataAccessException e) {
+                logger.error("Such-Index für Tabelle {} konnte nicht angelegt werden", target.table, e);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> searchMieter(String term, long offset, int limit) {
+        return search(MIETER, term, "", offset, limit);
+    }
+
+    @Override
+    public long countMieter(String term) {
+        return count(MIETER, term, "");
+    }
+
+    @Override
+    public List<Long> searchWohnungen(String term, long offset, int limit) {
+        return search(WOHNUNG, term, "", offset, limit);
+    }
+
+    @Override
+    public List<Long> searchAdressen(String term, long offset, int limit) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty() || limit < 1) return List.of();
+
+        return jdbcTemplate.queryForList("SELECT min(" + WOHNUNG.id + ") FROM " + WOHNUNG.table
+                        + " WHERE " + where(WOHNUNG) + " GROUP BY " + ADRESSE
+                        + " ORDER BY max(" + rank(WOHNUNG) + ") DESC, min(" + WOHNUNG.id + ")"
+                        + " LIMIT ? OFFSET ?",
+                Long.class, paged(parameters(tokens, true), offset, limit));
+    }
+
+    @Override
+    public long countAdressen(String term) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty()) return 0;
+
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM (SELECT 1 FROM " + WOHNUNG.table
+                        + " WHERE " + where(WOHNUNG) + " GROUP BY " + ADRESSE + ") adressen",
+                Long.class, parameters(tokens, false));
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public List<Long> searchFreieWohnungen(String term, long offset, int limit) {
+        return search(WOHNUNG, term, FREI, offset, limit);
+    }
+
+    @Override
+    public long countFreieWohnungen(String term) {
+        return count(WOHNUNG, term, FREI);
+    }
+
+    /**
+     * Sucht eine Seite der Treffer, die zusätzlich die angegebene Bedingung erfüllen, nach Relevanz sortiert.
+     */
+    private List<Long> search(Target target, String term, String bedingung, long offset, int limit) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty() || limit < 1) return List.of();
+
+        return jdbcTemplate.queryForList("SELECT " + target.id + " FROM " + target.table
+                        + " WHERE (" + where(target) + ")" + bedingung
+                        + " ORDER BY " + rank(target) + " DESC, " + target.id
+                        + " LIMIT ? OFFSET ?",
+                Long.class, paged(parameters(tokens, true), offset, limit));
+    }
+
+    /**
+     * Zählt die Treffer, die zusätzlich die angegebene Bedingung erfüllen.
+     */
+    private long count(Target target, String term, String bedingung) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty()) return 0;
+
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + target.table
+                        + " WHERE (" + where(target) + ")" + bedingung,
+                Long.class, parameters(tokens, false));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Relevanz eines Treffers für die Sortierung, die Parameter liefert {@link #parameters(List, boolean)}.
+     */
+    private String rank(Target target) {
+        String rank = "ts_rank(" + target.vector() + ", to_tsquery('simple', ?))";
+        return trigramAvailable ? rank + " + word_similarity(?, " + target.document + ")" : rank;
+    }
+
+    private static Object[] paged(Object[] parameters, long offset, int limit) {
+        Object[] paged = Arrays.copyOf(parameters, parameters.length + 2);
+        paged[parameters.length] = limit;
+        paged[parameters.length + 1] = offset;
+        return paged;
+    }
+
+    /**
+     * Bedingung für einen Treffer: Jedes Wort muss vorkommen, das letzte darf noch unvollständig sein.
+     * Mit {@code pg_trgm} genügt alternativ ein unscharfer Treffer.
+     */
+    private String where(Target target) {
+        String where = target.vector() + " @@ to_tsquery('simple', ?)";
+        return trigramAvailable ? where + " OR ? <% (" + target.document + ")" : where;
+    }
+
+    /**
+     * Parameter zu {@link #where(Target)} und, falls gewünscht, zu {@link #rank(Target)}.
+     */
+    private Object[] parameters(List<String> tokens, boolean ranked) {
+        String tsQuery = tokens.stream().map(token -> token + ":*").collect(Collectors.joining(" & "));
+        String plainTerm = String.join(" ", tokens);
+        List<Object> parameters = new ArrayList<>(List.of(tsQuery));
+        if (trigramAvailable) parameters.add(plainTerm);
+        if (ranked) {
+            parameters.add(tsQuery);
+            if (trigramAvailable) parameters.add(plainTerm);
+        }
+        return parameters.toArray();
+    }
+
+    /**
+     * Erstellt den normalisierten Dokument-Ausdruck. Er entspricht {@link SearchIndex#tokenize(String)}:
+     * Kleinschreibung, "ß" als "ss", Umlaute und Akzente ohne Zeichen, Sonderzeichen als Trenner.
+     * Alle verwendeten Funktionen sind {@code IMMUTABLE}, damit der Ausdruck indiziert werden kann.
+     */
+    private static String document(String... columns) {
+        String joined = Arrays.stream(columns)
+                .map(column -> "coalesce(" + column + ", '')")
+                .collect(Collectors.joining(" || ' ' || "));
+        return "regexp_replace(translate(replace(lower(" + joined + "), 'ß', 'ss'), "
+                + "'äöüáàâéèêíìîóòôúùûç', 'aouaaaeeeiiiooouuuc'), '[^[:alnum:]]+', ' ', 'g')";
+    }
+
+    /**
+     * Tabelle, ID-Spalte und Dokument-Ausdruck einer durchsuchbaren Entität.
+     */
+    private record Target(String table, String id, String document) {
+
+        String vector() {
+            return "to_tsvector('simple', " + document + ")";
+        }
+    }
+}
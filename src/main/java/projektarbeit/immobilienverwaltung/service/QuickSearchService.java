@@ -0,0 +1,287 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import projektarbeit.immobilienverwaltung.model.*;
+import projektarbeit.immobilienverwaltung.model.QuickSearchHit.Typ;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service für die globale Schnellsuche über Mieter, Wohnungen, Mietverträge und Dokumente.
+ * Alle Entitäten liegen in einem gemeinsamen {@link InvertedIndex} im Speicher, sodass eine Suche mit einem
+ * einzigen Aufruf ohne Datenbankzugriff beantwortet wird. Der Index wird nach dem Start im Hintergrund aus
+ * Projektionen aufgebaut, ohne die Entitäten zu laden, und danach über {@link EntityChangedEvent}s nach jedem
+ * Commit aktualisiert. Bis der Aufbau abgeschlossen ist, liefert die Suche keine Treffer.
+ * <p>
+ * Ändert sich ein Mieter oder eine Wohnung, werden die Mietverträge und Dokumente, deren Texte den Namen oder
+ * die Adresse enthalten, neu geladen. Wird ein Mieter oder eine Wohnung gelöscht, entfallen auch diese Treffer.
+ * Welche Treffer betroffen sind, wird beim Indizieren je Mieter und Wohnung vermerkt, sodass eine Änderung nur
+ * die abhängigen Einträge berührt.
+ */
+@Service
+public class QuickSearchService {
+
+    /**
+     * Anzahl der Vorschläge, die die Schnellsuche standardmäßig liefert.
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(QuickSearchService.class);
+
+    private final MieterRepository mieterRepository;
+    private final WohnungRepository wohnungRepository;
+    private final MietvertragRepository mietvertragRepository;
+    private final DokumentRepository dokumentRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final InvertedIndex<Ref> index = new InvertedIndex<>();
+    private final Map<Ref, QuickSearchHit> hits = new HashMap<>();
+    private final Map<Ref, Set<Ref>> dependentsByOwner = new HashMap<>();
+    private final List<EntityChangedEvent> waehrendAufbau = new ArrayList<>();
+    private boolean aufbauLaeuft;
+    private volatile boolean loaded;
+
+    /**
+     * Konstruktor für QuickSearchService.
+     *
+     * @param mieterRepository      das Repository, aus dem die Mieter geladen werden
+     * @param wohnungRepository     das Repository, aus dem die Wohnungen geladen werden
+     * @param mietvertragRepository das Repository, aus dem die Mietverträge geladen werden
+     * @param dokumentRepository    das Repository, aus dem die Dokumente geladen werden
+     */
+    @Autowired
+    public QuickSearchService(MieterRepository mieterRepository, WohnungRepository wohnungRepository,
+                              MietvertragRepository mietvertragRepository, DokumentRepository dokumentRepository) {
+        this.mieterRepository = mieterRepository;
+        this.wohnungRepository = wohnungRepository;
+        this.mietvertragRepository = mietvertragRepository;
+        this.dokumentRepository = dokumentRepository;
+    }
+
+    /**
+     * Sucht über alle Entitätstypen nach dem angegebenen Suchbegriff.
+     * Es gelten dieselben Regeln wie bei {@link SearchIndex}: Jedes Suchwort muss als Wort, als Wortanfang oder
+     * mit einem kleinen Tippfehler vorkommen. Bei gleicher Relevanz werden Mieter vor Wohnungen, Mietverträgen
+     * und Dokumenten aufgeführt.
+     *
+     * @param term  der Suchbegriff
+     * @param limit die maximale Anzahl an Treffern
+     * @return die Treffer, der relevanteste zuerst
+     */
+    public List<QuickSearchHit> search(String term, int limit) {
+        List<String> tokens = SearchIndex.tokenize(term);
+        if (tokens.isEmpty() || limit < 1 || !loaded) return List.of();
+
+        lock.readLock().lock();
+        try {
+            return index.search(tokens, limit).stream().map(hits::get).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Startet den Aufbau des Index in einem eigenen Thread, sobald die Anwendung gestartet ist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void imHintergrundAufbauen() {
+        Thread.ofVirtual().name("schnellsuche").start(this::aufbauen);
+    }
+
+    /**
+     * Baut den Index aus den Projektionen der Repositories auf. Die Datenbank wird ohne Lock gelesen; Ereignisse,
+     * die währenddessen eintreffen, werden danach nachgeholt.
+     */
+    void aufbauen() {
+        lock.writeLock().lock();
+        try {
+            if (loaded || aufbauLaeuft) return;
+            aufbauLaeuft = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        List<QuickSearchHit> geladen = new ArrayList<>();
+        boolean vollstaendig = false;
+        try {
+            mieterRepository.findQuickSearchZeilen().forEach(zeile -> geladen.add(QuickSearchHit.ausZeile(Typ.MIETER, zeile)));
+            wohnungRepository.findQuickSearchZeilen().forEach(zeile -> geladen.add(QuickSearchHit.ausZeile(Typ.WOHNUNG, zeile)));
+            mietvertragRepository.findQuickSearchZeilen().forEach(zeile -> geladen.add(QuickSearchHit.ausZeile(Typ.MIETVERTRAG, zeile)));
+            dokumentRepository.findQuickSearchZeilen().forEach(zeile -> geladen.add(QuickSearchHit.ausZeile(Typ.DOKUMENT, zeile)));
+            vollstaendig = true;
+        } catch (RuntimeException e) {
+            logger.error("Schnellsuche konnte nicht aufgebaut werden", e);
+        }
+
+        List<EntityChangedEvent> nachzuholen = List.of();
+        lock.writeLock().lock();
+        try {
+            if (vollstaendig) {
+                geladen.forEach(this::put);
+                loaded = true;
+                nachzuholen = List.copyOf(waehrendAufbau);
+            }
+            waehrendAufbau.clear();
+            aufbauLaeuft = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!vollstaendig) return;
+        logger.info("Schnellsuche mit {} Einträgen in {} ms aufgebaut", geladen.size(), System.currentTimeMillis() - start);
+        nachzuholen.forEach(this::onEntityChanged);
+    }
+
+    /**
+     * Übernimmt eine gespeicherte oder gelöschte Entität in den Index, sobald die auslösende Transaktion
+     * erfolgreich abgeschlossen wurde. Während des Aufbaus wird das Ereignis vorgemerkt und danach übernommen,
+     * davor wird es ignoriert.
+     *
+     * @param event das Ereignis
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    if (aufbauLaeuft) waehrendAufbau.add(event);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        Ref ref = Ref.of(event.entity());
+        if (ref == null || ref.id() == null) return;
+
+        if (event.deleted()) {
+            lock.writeLock().lock();
+            try {
+                remove(ref);
+                dependents(ref).forEach(this::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        List<QuickSearchHit> updated = new ArrayList<>();
+        Set<Long> mietvertragIds = new HashSet<>();
+        Set<Long> dokumentIds = new HashSet<>();
+        switch (event.entity()) {
+            case Mieter mieter -> updated.add(QuickSearchHit.of(mieter));
+            case Wohnung wohnung -> updated.add(QuickSearchHit.of(wohnung));
+            case Mietvertrag mietvertrag -> mietvertragIds.add(mietvertrag.getMietvertrag_id());
+            case Dokument dokument -> dokumentIds.add(dokument.getDokument_id());
+            default -> {
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Ref dependent : dependents(ref)) {
+                (dependent.typ() == Typ.MIETVERTRAG ? mietvertragIds : dokumentIds).add(dependent.id());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Mieter und Wohnung der abhängigen Treffer außerhalb des Locks nachladen
+        if (!mietvertragIds.isEmpty()) {
+            mietvertragRepository.findQuickSearchZeilenByIds(mietvertragIds)
+                    .forEach(zeile -> updated.add(QuickSearchHit.ausZeile(Typ.MIETVERTRAG, zeile)));
+        }
+        if (!dokumentIds.isEmpty()) {
+            dokumentRepository.findQuickSearchZeilenByIds(dokumentIds)
+                    .forEach(zeile -> updated.add(QuickSearchHit.ausZeile(Typ.DOKUMENT, zeile)));
+        }
+
+        lock.writeLock().lock();
+        try {
+            updated.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(QuickSearchHit hit) {
+        Ref ref = new Ref(hit.typ(), hit.id());
+        QuickSearchHit previous = hits.put(ref, hit);
+        if (previous != null) unlink(ref, previous);
+        link(ref, hit);
+        index.put(ref, SearchIndex.tokenize(hit.suchtext()));
+    }
+
+    private void remove(Ref ref) {
+        QuickSearchHit previous = hits.remove(ref);
+        if (previous != null) unlink(ref, previous);
+        index.remove(ref);
+    }
+
+    /**
+     * Vermerkt einen Mietvertrag oder ein Dokument bei dem Mieter und der Wohnung, auf die es verweist.
+     */
+    private void link(Ref ref, QuickSearchHit hit) {
+        for (Ref owner : owners(hit)) {
+            dependentsByOwner.computeIfAbsent(owner, key -> new HashSet<>()).add(ref);
+        }
+    }
+
+    private void unlink(Ref ref, QuickSearchHit hit) {
+        for (Ref owner : owners(hit)) {
+            Set<Ref> dependents = dependentsByOwner.get(owner);
+            if (dependents != null && dependents.remove(ref) && dependents.isEmpty()) dependentsByOwner.remove(owner);
+        }
+    }
+
+    private static List<Ref> owners(QuickSearchHit hit) {
+        if (hit.typ() != Typ.MIETVERTRAG && hit.typ() != Typ.DOKUMENT) return List.of();
+        List<Ref> owners = new ArrayList<>(2);
+        if (hit.mieterId() != null) owners.add(new Ref(Typ.MIETER, hit.mieterId()));
+        if (hit.wohnungId() != null) owners.add(new Ref(Typ.WOHNUNG, hit.wohnungId()));
+        return owners;
+    }
+
+    /**
+     * Gibt die Mietverträge und Dokumente zurück, die auf den angegebenen Mieter oder die angegebene Wohnung verweisen.
+     */
+    private List<Ref> dependents(Ref ref) {
+        Set<Ref> dependents = dependentsByOwner.get(ref);
+        return dependents == null ? List.of() : List.copyOf(dependents);
+    }
+
+    /**
+     * Schlüssel eines Eintrags im gemeinsamen Index.
+     */
+    private record Ref(Typ typ, Long id) implements Comparable<Ref> {
+
+        private static final Comparator<Ref> ORDER = Comparator.comparing(Ref::typ).thenComparing(Ref::id);
+
+        static Ref of(Object entity) {
+            return switch (entity) {
+                case Mieter mieter -> new Ref(Typ.MIETER, mieter.getMieter_id());
+                case Wohnung wohnung -> new Ref(Typ.WOHNUNG, wohnung.getWohnung_id());
+                case Mietvertrag mietvertrag -> new Ref(Typ.MIETVERTRAG, mietvertrag.getMietvertrag_id());
+                case Dokument dokument -> new Ref(Typ.DOKUMENT, dokument.getDokument_id());
+                case null, default -> null;
+            };
+        }
+
+        @Override
+        public int compareTo(Ref other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
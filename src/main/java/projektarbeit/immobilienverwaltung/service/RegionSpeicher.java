@@ -0,0 +1,138 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import projektarbeit.immobilienverwaltung.model.CacheStatistik;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Speicher einer Region des Second-Level-Caches.
+ * Lesen und Schreiben kommen ohne Lock aus. Jeder Eintrag merkt sich, wann er zuletzt gelesen wurde; bei
+ * Überschreiten der Größe werden unter einem Lock die am längsten nicht gelesenen Einträge verdrängt, zusätzlich
+ * ein Sechzehntel der Größe, damit nicht jeder weitere Eintrag die ganze Region durchsucht. Die Reihenfolge ist
+ * bei gleichzeitigen Zugriffen nur näherungsweise. Einträge, die älter als die Ablaufzeit sind, gelten als nicht
+ * vorhanden.
+ */
+final class RegionSpeicher implements DomainDataStorageAccess {
+
+    private final String name;
+    private final int groesse;
+    private final long ttlNanos;
+    private final LongSupplier uhr;
+    private final Map<Object, Eintrag> eintraege = new ConcurrentHashMap<>();
+    private final AtomicLong zugriffe = new AtomicLong();
+    private final LongAdder treffer = new LongAdder();
+    private final LongAdder fehlversuche = new LongAdder();
+    private final Object verdraengung = new Object();
+
+    /**
+     * Konstruktor für RegionSpeicher.
+     *
+     * @param name    der Name der Region
+     * @param groesse die maximale Anzahl an Einträgen
+     * @param ttl     die Ablaufzeit der Einträge oder null, wenn Einträge nicht ablaufen
+     */
+    RegionSpeicher(String name, int groesse, Duration ttl) {
+        this(name, groesse, ttl, System::nanoTime);
+    }
+
+    RegionSpeicher(String name, int groesse, Duration ttl, LongSupplier uhr) {
+        this.name = name;
+        this.groesse = groesse;
+        this.ttlNanos = ttl != null ? ttl.toNanos() : 0;
+        this.uhr = uhr;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Eintrag eintrag = gueltigerEintrag(key);
+        if (eintrag == null) {
+            fehlversuche.increment();
+            return null;
+        }
+        eintrag.zuletztGelesen = zugriffe.incrementAndGet();
+        treffer.increment();
+        return eintrag.wert;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        eintraege.put(key, new Eintrag(value, ttlNanos > 0 ? uhr.getAsLong() + ttlNanos : 0, zugriffe.incrementAndGet()));
+        if (eintraege.size() > groesse) verdraengen();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return gueltigerEintrag(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        eintraege.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        eintraege.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+
+    /**
+     * Liefert die aktuellen Kennzahlen der Region.
+     *
+     * @return die Kennzahlen
+     */
+    CacheStatistik statistik() {
+        return CacheStatistik.of(name, eintraege.size(), groesse, treffer.sum(), fehlversuche.sum());
+    }
+
+    private void verdraengen() {
+        synchronized (verdraengung) {
+            int ueberschuss = eintraege.size() - groesse;
+            if (ueberschuss <= 0) return;
+            // Der Lesezeitpunkt wird vorab festgehalten, da er sich während der Auswahl ändern kann
+            List<Kandidat> kandidaten = eintraege.entrySet().stream()
+                    .map(e -> new Kandidat(e.getKey(), e.getValue(), e.getValue().zuletztGelesen))
+                    .toList();
+            InvertedIndex.top(kandidaten, Comparator.comparingLong(Kandidat::zuletztGelesen), 0, ueberschuss + groesse / 16)
+                    .forEach(kandidat -> eintraege.remove(kandidat.key(), kandidat.eintrag()));
+        }
+    }
+
+    private Eintrag gueltigerEintrag(Object key) {
+        Eintrag eintrag = eintraege.get(key);
+        if (eintrag != null && eintrag.ablauf != 0 && eintrag.ablauf - uhr.getAsLong() <= 0) {
+            eintraege.remove(key, eintrag);
+            return null;
+        }
+        return eintrag;
+    }
+
+    private static final class Eintrag {
+
+        private final Object wert;
+        private final long ablauf;
+        private volatile long zuletztGelesen;
+
+        private Eintrag(Object wert, long ablauf, long zuletztGelesen) {
+            this.wert = wert;
+            this.ablauf = ablauf;
+            this.zuletztGelesen = zuletztGelesen;
+        }
+    }
+
+    private record Kandidat(Object key, Eintrag eintrag, long zuletztGelesen) {
+    }
+}
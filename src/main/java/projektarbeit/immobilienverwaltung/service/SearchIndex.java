@@ -0,0 +1,157 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Volltextsuche über Mieter und Wohnungen.
+ * Bei Mietern wird in Name, Vorname, E-Mail und Telefonnummer gesucht, bei Wohnungen in Straße, Hausnummer,
+ * Postleitzahl und Stadt. Jedes Suchwort muss als Wort, als Wortanfang oder mit einem kleinen Tippfehler
+ * vorkommen. Die Treffer werden nach Relevanz sortiert als IDs zurückgegeben.
+ * <p>
+ * Paging und Zählen erfolgen im Suchbackend, damit die Übersichten keine Trefferlisten an die Datenbank
+ * zurückgeben müssen. Die Varianten ohne Limit sind für den Export gedacht.
+ * <p>
+ * Im Profil {@code prod} wird die Suche von PostgreSQL ({@code tsvector} und {@code pg_trgm}) ausgeführt,
+ * sonst von einem invertierten Index im Speicher.
+ */
+public interface SearchIndex {
+
+    /**
+     * Sucht Mieter zu dem angegebenen Suchbegriff.
+     *
+     * @param term  der Suchbegriff
+     * @param limit die maximale Anzahl an Treffern
+     * @return die IDs der gefundenen Mieter, der relevanteste Treffer zuerst
+     */
+    default List<Long> searchMieter(String term, int limit) {
+        return searchMieter(term, 0, limit);
+    }
+
+    /**
+     * Sucht eine Seite der Mieter zu dem angegebenen Suchbegriff.
+     *
+     * @param term   der Suchbegriff
+     * @param offset die Anzahl der Treffer, die übersprungen werden
+     * @param limit  die maximale Anzahl an Treffern
+     * @return die IDs der gefundenen Mieter, der relevanteste Treffer zuerst
+     */
+    List<Long> searchMieter(String term, long offset, int limit);
+
+    /**
+     * Sucht alle Mieter zu dem angegebenen Suchbegriff, ohne die Anzahl der Treffer zu begrenzen.
+     *
+     * @param term der Suchbegriff
+     * @return die IDs aller gefundenen Mieter, der relevanteste Treffer zuerst
+     */
+    default List<Long> searchMieter(String term) {
+        return searchMieter(term, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Zählt die Mieter zu dem angegebenen Suchbegriff.
+     *
+     * @param term der Suchbegriff
+     * @return die Anzahl aller Treffer
+     */
+    long countMieter(String term);
+
+    /**
+     * Sucht Wohnungen zu dem angegebenen Suchbegriff.
+     *
+     * @param term  der Suchbegriff
+     * @param limit die maximale Anzahl an Treffern
+     * @return die IDs der gefundenen Wohnungen, der relevanteste Treffer zuerst
+     */
+    default List<Long> searchWohnungen(String term, int limit) {
+        return searchWohnungen(term, 0, limit);
+    }
+
+    /**
+     * Sucht eine Seite der Wohnungen zu dem angegebenen Suchbegriff.
+     *
+     * @param term   der Suchbegriff
+     * @param offset die Anzahl der Treffer, die übersprungen werden
+     * @param limit  die maximale Anzahl an Treffern
+     * @return die IDs der gefundenen Wohnungen, der relevanteste Treffer zuerst
+     */
+    List<Long> searchWohnungen(String term, long offset, int limit);
+
+    /**
+     * Sucht alle Wohnungen zu dem angegebenen Suchbegriff, ohne die Anzahl der Treffer zu begrenzen.
+     *
+     * @param term der Suchbegriff
+     * @return die IDs aller gefundenen Wohnungen, der relevanteste Treffer zuerst
+     */
+    default List<Long> searchWohnungen(String term) {
+        return searchWohnungen(term, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sucht eine Seite der Adressen zu dem angegebenen Suchbegriff. Eine Adresse ist ein Treffer, wenn
+     * eine ihrer Wohnungen ein Treffer ist; sie wird durch ihre kleinste Wohnungs-ID vertreten.
+     *
+     * @param term   der Suchbegriff
+     * @param offset die Anzahl der Adressen, die übersprungen werden
+     * @param limit  die maximale Anzahl an Adressen
+     * @return die kleinste Wohnungs-ID jeder gefundenen Adresse, die relevanteste Adresse zuerst
+     */
+    List<Long> searchAdressen(String term, long offset, int limit);
+
+    /**
+     * Zählt die Adressen zu dem angegebenen Suchbegriff.
+     *
+     * @param term der Suchbegriff
+     * @return die Anzahl aller Adressen mit mindestens einer passenden Wohnung
+     */
+    long countAdressen(String term);
+
+    /**
+     * Sucht eine Seite der Wohnungen ohne Mietvertrag zu dem angegebenen Suchbegriff.
+     *
+     * @param term   der Suchbegriff
+     * @param offset die Anzahl der Treffer, die übersprungen werden
+     * @param limit  die maximale Anzahl an Treffern
+     * @return die IDs der gefundenen freien Wohnungen, der relevanteste Treffer zuerst
+     */
+    List<Long> searchFreieWohnungen(String term, long offset, int limit);
+
+    /**
+     * Zählt die Wohnungen ohne Mietvertrag zu dem angegebenen Suchbegriff.
+     *
+     * @param term der Suchbegriff
+     * @return die Anzahl aller freien Treffer
+     */
+    long countFreieWohnungen(String term);
+
+    /**
+     * Zerlegt einen Text in normalisierte Suchwörter.
+     * Die Wörter werden kleingeschrieben, Akzente entfernt und "ß" durch "ss" ersetzt.
+     * Trennzeichen sind alle Zeichen außer Buchstaben und Ziffern, sodass z.B. E-Mail-Adressen in ihre Bestandteile zerfallen.
+     *
+     * @param text der zu zerlegende Text, darf null sein
+     * @return die Suchwörter in der Reihenfolge des Textes
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT).replace("ß", "ss"), Normalizer.Form.NFD);
+        normalized = Tokens.DIACRITICS.matcher(normalized).replaceAll("");
+        return Arrays.stream(Tokens.SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Vorkompilierte Muster für {@link #tokenize(String)}.
+     */
+    final class Tokens {
+        private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+        private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+        private Tokens() {
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipException;
+
+/**
+ * Prüft regelmäßig den Dokumentenspeicher gegen die Datenbank.
+ * <ul>
+ *     <li>Dateien, auf die kein Dokument verweist, werden in das Verzeichnis {@code quarantaene} verschoben und
+ *     nach {@link #QUARANTAENE_DAUER} endgültig gelöscht.</li>
+ *     <li>Dokumente, deren Datei fehlt, werden gemeldet.</li>
+ *     <li>Der Inhalt jedes Blobs wird gegen den Hash in seinem Namen geprüft. Beschädigte Blobs werden gemeldet,
+ *     aber nicht verändert.</li>
+ *     <li>Vorschaubilder, deren Blob nicht mehr existiert, werden gelöscht.</li>
+ * </ul>
+ * Die Verzeichnisse werden parallel durchsucht, das Lesen ist aber über alle Threads auf
+ * {@code document.scrub.max-bytes-pro-sekunde} gedrosselt, damit die Prüfung den laufenden Betrieb nicht ausbremst.
+ * Dateien, die jünger als {@link #MINDESTALTER} sind, werden nicht als verwaist behandelt.
+ */
+@Service
+public class SpeicherPruefService {
+
+    /**
+     * Dateien, die jünger sind, gehören möglicherweise zu einem Dokument, das gerade gespeichert wird.
+     */
+    public static final Duration MINDESTALTER = Duration.ofHours(1);
+
+    /**
+     * Zeit, nach der Dateien aus der Quarantäne gelöscht werden.
+     */
+    public static final Duration QUARANTAENE_DAUER = Duration.ofDays(30);
+
+    private static final Logger logger = LoggerFactory.getLogger(SpeicherPruefService.class);
+    private static final Pattern BLOB_NAME = Pattern.compile("([0-9a-f]{64})(\\.gz)?");
+
+    /**
+     * Kosten einer Datei ohne gelesenen Inhalt für die Drosselung, etwa für das Lesen der Attribute.
+     */
+    private static final long KOSTEN_PRO_DATEI = 4096;
+
+    private final DokumentRepository dokumentRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean laeuft = new AtomicBoolean();
+
+    @Value("${document.storage.path}")
+    private String storagePath;
+
+    @Value("${document.scrub.max-bytes-pro-sekunde:20971520}")
+    private long maxBytesProSekunde = 20L * 1024 * 1024;
+
+    @Value("${document.scrub.parallelitaet:2}")
+    private int parallelitaet = 2;
+
+    /**
+     * Konstruktor für SpeicherPruefService.
+     *
+     * @param dokumentRepository das Repository, aus dem die Dateipfade der Dokumente gelesen werden
+     * @param blobStore          der Speicher, über den verwaiste Dateien in Quarantäne verschoben werden
+     * @param transactionManager der Transaktionsmanager für das Streamen der Dateipfade
+     */
+    @Autowired
+    public SpeicherPruefService(DokumentRepository dokumentRepository, BlobStore blobStore,
+                                PlatformTransactionManager transactionManager) {
+        this.dokumentRepository = dokumentRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Startet die nächtliche Prüfung. Läuft noch eine Prüfung, wird der Lauf übersprungen.
+     */
+    @Scheduled(cron = "${document.scrub.cron:0 30 3 * * *}")
+    public void geplantePruefung() {
+        if (!laeuft.compareAndSet(false, true)) return;
+        try {
+            Bericht bericht = pruefen();
+            logger.info("Speicherprüfung: {} Dateien ({} Bytes), {} verwaist, {} fehlend, {} beschädigt, {} Vorschaubilder entfernt",
+                    bericht.dateien(), bericht.bytes(), bericht.verwaist().size(), bericht.fehlend().size(),
+                    bericht.beschaedigt().size(), bericht.vorschauenEntfernt());
+        } catch (IOException e) {
+            logger.error("Fehler bei der Speicherprüfung", e);
+        } finally {
+            laeuft.set(false);
+        }
+    }
+
+    /**
+     * Prüft den Dokumentenspeicher einmal vollständig.
+     *
+     * @return der Bericht der Prüfung
+     * @throws IOException falls der Speicher nicht gelesen werden kann
+     */
+    public Bericht pruefen() throws IOException {
+        Path root = Paths.get(storagePath).toAbsolutePath().normalize();
+        Instant grenze = Instant.now().minus(MINDESTALTER);
+        Map<String, Long> referenziert = ladeReferenzen();
+
+        List<Path> verzeichnisse = new ArrayList<>();
+        verzeichnisse.add(root);
+        Path blobs = root.resolve("blobs");
+        if (Files.isDirectory(blobs)) {
+            try (DirectoryStream<Path> unterverzeichnisse = Files.newDirectoryStream(blobs, Files::isDirectory)) {
+                unterverzeichnisse.forEach(verzeichnisse::add);
+            }
+        }
+
+        Lauf lauf = new Lauf(root.resolve("quarantaene"), referenziert, grenze, new Drossel(maxBytesProSekunde));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelitaet));
+        try {
+            pool.submit(() -> verzeichnisse.parallelStream().forEach(lauf::pruefeVerzeichnis)).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Long> fehlend = new ArrayList<>();
+        referenziert.forEach((pfad, id) -> {
+            if (!lauf.gesehen.contains(pfad) && !Files.exists(Paths.get(pfad))) {
+                logger.warn("Datei von Dokument {} fehlt: {}", id, pfad);
+                fehlend.add(id);
+            }
+        });
+
+        int vorschauenEntfernt = entferneVerwaisteVorschauen(root.resolve("vorschau"), referenziert.keySet(), grenze);
+        int quarantaeneGeloescht = leereQuarantaene(root.resolve("quarantaene"));
+
+        fehlend.sort(null);
+        return new Bericht(lauf.dateien.get(), lauf.bytes.get(), List.copyOf(lauf.verwaist), fehlend,
+                List.copyOf(lauf.beschaedigt), vorschauenEntfernt, quarantaeneGeloescht);
+    }
+
+    /**
+     * Liest die normalisierten Dateipfade aller Dokumente mit der ID eines Dokuments, das auf sie verweist.
+     */
+    private Map<String, Long> ladeReferenzen() {
+        Map<String, Long> referenziert = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var zeilen = dokumentRepository.streamDateipfade()) {
+                zeilen.forEach(zeile -> {
+                    if (zeile[1] != null) referenziert.putIfAbsent(normalisieren((String) zeile[1]), (Long) zeile[0]);
+                });
+            }
+        });
+        return referenziert;
+    }
+
+    private int entferneVerwaisteVorschauen(Path vorschau, Set<String> referenziert, Instant grenze) throws IOException {
+        if (!Files.isDirectory(vorschau)) return 0;
+        Set<String> blobNamen = new HashSet<>();
+        referenziert.forEach(pfad -> blobNamen.add(Paths.get(pfad).getFileName().toString()));
+
+        int entfernt = 0;
+        try (DirectoryStream<Path> dateien = Files.newDirectoryStream(vorschau)) {
+            for (Path datei : dateien) {
+                String name = datei.getFileName().toString();
+                boolean verwaist = !name.endsWith(".png") || !blobNamen.contains(name.substring(0, name.length() - 4));
+                if (verwaist && istAelterAls(datei, grenze) && Files.deleteIfExists(datei)) entfernt++;
+            }
+        }
+        return entfernt;
+    }
+
+    private int leereQuarantaene(Path quarantaene) throws IOException {
+        if (!Files.isDirectory(quarantaene)) return 0;
+        Instant grenze = Instant.now().minus(QUARANTAENE_DAUER);
+        int geloescht = 0;
+        try (DirectoryStream<Path> dateien = Files.newDirectoryStream(quarantaene)) {
+            for (Path datei : dateien) {
+                if (istAelterAls(datei, grenze) && Files.deleteIfExists(datei)) geloescht++;
+            }
+        }
+        return geloescht;
+    }
+
+    private static boolean istAelterAls(Path datei, Instant grenze) throws IOException {
+        return Files.getLastModifiedTime(datei).toInstant().isBefore(grenze);
+    }
+
+    private static String normalisieren(String pfad) {
+        return Paths.get(pfad).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Zustand eines Prüflaufs, der von mehreren Threads gleichzeitig fortgeschrieben wird.
+     */
+    private final class Lauf {
+
+        private final Path quarantaene;
+        private final Map<String, Long> referenziert;
+        private final Instant grenze;
+        private final Drossel drossel;
+        private final Set<String> gesehen = ConcurrentHashMap.newKeySet();
+        private final Queue<String> verwaist = new ConcurrentLinkedQueue<>();
+        private final Queue<String> beschaedigt = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger dateien = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private Lauf(Path quarantaene, Map<String, Long> referenziert, Instant grenze, Drossel drossel) {
+            this.quarantaene = quarantaene;
+            this.referenziert = referenziert;
+            this.grenze = grenze;
+            this.drossel = drossel;
+        }
+
+        /**
+         * Prüft die Dateien eines Verzeichnisses ohne Unterverzeichnisse, sodass die Verzeichnisse für
+         * temporäre Dateien, Vorschaubilder und die Quarantäne im Wurzelverzeichnis übergangen werden.
+         */
+        private void pruefeVerzeichnis(Path verzeichnis) {
+            try (DirectoryStream<Path> eintraege = Files.newDirectoryStream(verzeichnis)) {
+                for (Path datei : eintraege) {
+                    if (Thread.currentThread().isInterrupted()) return;
+                    BasicFileAttributes attribute = Files.readAttributes(datei, BasicFileAttributes.class);
+                    if (!attribute.isRegularFile()) continue;
+                    pruefeDatei(datei.toAbsolutePath().normalize(), attribute);
+                }
+            } catch (IOException e) {
+                logger.error("Fehler beim Prüfen von {}", verzeichnis, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void pruefeDatei(Path datei, BasicFileAttributes attribute) throws IOException, InterruptedException {
+            dateien.incrementAndGet();
+            bytes.addAndGet(attribute.size());
+            drossel.verbrauchen(KOSTEN_PRO_DATEI);
+            String pfad = datei.toString();
+            gesehen.add(pfad);
+
+            if (!referenziert.containsKey(pfad)) {
+                if (attribute.lastModifiedTime().toInstant().isBefore(grenze) && blobStore.quarantaene(datei, quarantaene)) {
+                    logger.warn("Verwaiste Datei in Quarantäne verschoben: {}", pfad);
+                    verwaist.add(pfad);
+                }
+                return;
+            }
+
+            Matcher blob = BLOB_NAME.matcher(datei.getFileName().toString());
+            if (blob.matches() && !blob.group(1).equals(hash(datei))) {
+                logger.error("Inhalt von {} passt nicht zu seinem Hash", pfad);
+                beschaedigt.add(pfad);
+            }
+        }
+
+        /**
+         * Berechnet den Hash des unkomprimierten Inhalts, gedrosselt auf die gelesenen Bytes.
+         */
+        private String hash(Path datei) throws IOException, InterruptedException {
+            MessageDigest digest = BlobStore.newDigest();
+            byte[] puffer = new byte[64 * 1024];
+            try (InputStream in = Kompression.oeffnen(datei)) {
+                int n;
+                while ((n = in.read(puffer)) > 0) {
+                    digest.update(puffer, 0, n);
+                    drossel.verbrauchen(n);
+                }
+            } catch (ZipException e) {
+                return "";
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    /**
+     * Begrenzt die Lesegeschwindigkeit aller Threads eines Laufs gemeinsam auf eine feste Rate.
+     */
+    static final class Drossel {
+
+        private final long bytesProSekunde;
+        private final long start = System.nanoTime();
+        private long verbraucht;
+
+        Drossel(long bytesProSekunde) {
+            this.bytesProSekunde = bytesProSekunde;
+        }
+
+        /**
+         * Verbucht gelesene Bytes und wartet, bis sie im Rahmen der Rate liegen.
+         *
+         * @param anzahl die Anzahl der Bytes
+         * @throws InterruptedException falls der Thread beim Warten unterbrochen wird
+         */
+        void verbrauchen(long anzahl) throws InterruptedException {
+            if (bytesProSekunde <= 0) return;
+            long soll;
+            synchronized (this) {
+                verbraucht += anzahl;
+                soll = (long) (verbraucht * 1e9 / bytesProSekunde);
+            }
+            long warten = soll - (System.nanoTime() - start);
+            if (warten > 0) Thread.sleep(Duration.ofNanos(warten));
+        }
+    }
+
+    /**
+     * Ergebnis einer Prüfung.
+     *
+     * @param dateien              die Anzahl der geprüften Dateien.
+     * @param bytes                die Größe der geprüften Dateien in Bytes.
+     * @param verwaist             die Pfade der Dateien, die in Quarantäne verschoben wurden.
+     * @param fehlend              die IDs der Dokumente, deren Datei fehlt.
+     * @param beschaedigt          die Pfade der Blobs, deren Inhalt nicht zu ihrem Hash passt.
+     * @param vorschauenEntfernt   die Anzahl der entfernten verwaisten Vorschaubilder.
+     * @param quarantaeneGeloescht die Anzahl der endgültig gelöschten Dateien aus der Quarantäne.
+     */
+    public record Bericht(int dateien, long bytes, List<String> verwaist, List<Long> fehlend,
+                          List<String> beschaedigt, int vorschauenEntfernt, int quarantaeneGeloescht) {
+    }
+}
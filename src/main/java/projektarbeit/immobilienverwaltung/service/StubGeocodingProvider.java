@@ -0,0 +1,26 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lokaler Ersatz für einen Geokodierungsdienst in Umgebungen ohne Netzwerk.
+ * Jede Adresse erhält reproduzierbar Koordinaten innerhalb Mitteleuropas, die aus ihrem Hash berechnet werden.
+ */
+@Component
+@ConditionalOnProperty(name = "geocoding.provider", havingValue = "stub")
+public class StubGeocodingProvider implements GeocodingProvider {
+
+    private static final double LAT_MIN = 46.0;
+    private static final double LAT_SPANNE = 8.0;
+    private static final double LON_MIN = 6.0;
+    private static final double LON_SPANNE = 10.0;
+
+    @Override
+    public double[] lookup(String adresse) {
+        int hash = GeocodingService.normalisieren(adresse).hashCode();
+        double lat = LAT_MIN + ((hash >>> 16) / 65536.0) * LAT_SPANNE;
+        double lon = LON_MIN + ((hash & 0xFFFF) / 65536.0) * LON_SPANNE;
+        return new double[]{lat, lon};
+    }
+}
@@ -0,0 +1,319 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Service für Uploads, die in mehreren Teilen übertragen werden.
+ * Jeder Teil wird direkt an eine temporäre Datei im {@link BlobStore} angehängt, sodass unabhängig von der
+ * Dateigröße nur ein kleiner Puffer im Speicher liegt. Der Hash des Inhalts wird dabei fortlaufend berechnet.
+ * <p>
+ * Der Offset eines Uploads ist die Anzahl der bereits geschriebenen Bytes. Bricht die Verbindung ab, bleibt
+ * alles bis zum letzten geschriebenen Byte erhalten und der Client setzt ab diesem Offset fort.
+ * Erst {@link #abschliessen} übernimmt die Datei atomar in den Speicher.
+ * <p>
+ * Uploads werden nur im Speicher verwaltet. Nach einem Neustart oder nach {@link #SESSION_TIMEOUT} ohne
+ * Aktivität werden sie verworfen.
+ */
+@Service
+public class UploadService {
+
+    /**
+     * Zeit ohne Aktivität, nach der ein Upload verworfen wird.
+     */
+    public static final Duration SESSION_TIMEOUT = Duration.ofHours(24);
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+
+    private final BlobStore blobStore;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Konstruktor für UploadService.
+     *
+     * @param blobStore der Speicher, in den abgeschlossene Uploads übernommen werden
+     */
+    @Autowired
+    public UploadService(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Beginnt einen neuen Upload.
+     *
+     * @param dateiname der Name der hochgeladenen Datei
+     * @param mimeType  der vom Client angegebene MIME-Typ oder null
+     * @param groesse   die angekündigte Größe in Bytes oder -1, wenn sie nicht bekannt ist
+     * @return der neue Upload
+     * @throws IOException falls die temporäre Datei nicht angelegt werden kann
+     */
+    public UploadSession start(String dateiname, String mimeType, long groesse) throws IOException {
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), dateiname, mimeType, groesse, blobStore.createTempFile());
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Gibt einen laufenden Upload zurück.
+     *
+     * @param id die ID des Uploads
+     * @return der Upload
+     * @throws NoSuchElementException falls kein Upload mit dieser ID läuft
+     */
+    public UploadSession get(String id) {
+        UploadSession session = sessions.get(id);
+        if (session == null) throw new NoSuchElementException("Upload " + id + " existiert nicht");
+        return session;
+    }
+
+    /**
+     * Öffnet einen Stream, der an den Upload anhängt. Solange der Stream offen ist, kann kein weiterer Teil
+     * geschrieben werden. Jedes geschriebene Byte zählt sofort zum Offset.
+     *
+     * @param id     die ID des Uploads
+     * @param offset der Offset, ab dem der Client schreibt, oder -1, um ohne Prüfung anzuhängen
+     * @return der Stream
+     * @throws IOException            falls die temporäre Datei nicht geöffnet werden kann
+     * @throws IllegalStateException  falls der Offset nicht passt oder bereits geschrieben wird
+     */
+    public OutputStream openStream(String id, long offset) throws IOException {
+        UploadSession session = get(id);
+        synchronized (session) {
+            if (session.schreibend) throw new IllegalStateException("Upload " + id + " wird bereits geschrieben");
+            if (offset >= 0 && offset != session.offset) {
+                throw new IllegalStateException("Offset " + offset + " passt nicht zu Upload " + id + " bei " + session.offset);
+            }
+            // Bytes hinter dem Offset stammen von einem abgebrochenen Schreibvorgang und werden verworfen
+            FileChannel channel = FileChannel.open(session.temp, StandardOpenOption.WRITE);
+            try {
+                channel.truncate(session.offset);
+                channel.position(session.offset);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            session.schreibend = true;
+            session.touch();
+            return new SessionOutputStream(session, channel);
+        }
+    }
+
+    /**
+     * Hängt einen Teil an den Upload an.
+     *
+     * @param id     die ID des Uploads
+     * @param offset der Offset, ab dem der Teil geschrieben wird
+     * @param teil   der Inhalt des Teils
+     * @return der neue Offset
+     * @throws IOException falls der Teil nicht vollständig gelesen oder geschrieben werden kann. Der Offset
+     *                     enthält dann alle Bytes, die bis dahin geschrieben wurden.
+     */
+    public long append(String id, long offset, InputStream teil) throws IOException {
+        try (OutputStream out = openStream(id, offset)) {
+            teil.transferTo(out);
+        }
+        return get(id).getOffset();
+    }
+
+    /**
+     * Schließt einen vollständigen Upload ab und übernimmt die Datei in den {@link BlobStore}.
+     * Ist {@code referenzieren} erfolgreich, ist der Upload beendet. Schlägt es fehl, wird der Upload verworfen.
+     *
+     * @param id            die ID des Uploads
+     * @param mimeType      der MIME-Typ des Inhalts, nach dem über die Komprimierung entschieden wird
+     * @param referenzieren speichert das Dokument zum Blob
+     * @return der gespeicherte Blob
+     * @throws IOException           falls die Datei nicht übernommen werden kann
+     * @throws IllegalStateException falls noch geschrieben wird oder die angekündigte Größe nicht erreicht ist
+     */
+    public BlobStore.StoredBlob abschliessen(String id, String mimeType, Consumer<BlobStore.StoredBlob> referenzieren) throws IOException {
+        UploadSession session = get(id);
+        synchronized (session) {
+            if (session.schreibend) throw new IllegalStateException("Upload " + id + " wird noch geschrieben");
+            if (session.groesse >= 0 && session.offset != session.groesse) {
+                throw new IllegalStateException("Upload " + id + " ist unvollständig: " + session.offset + " von " + session.groesse + " Bytes");
+            }
+            sessions.remove(id);
+        }
+        String hash = HexFormat.of().formatHex(session.digest.digest());
+        return blobStore.store(session.temp, hash, session.offset, mimeType, referenzieren);
+    }
+
+    /**
+     * Bricht einen Upload ab und löscht die bisher empfangenen Daten.
+     *
+     * @param id die ID des Uploads
+     */
+    public void abbrechen(String id) {
+        UploadSession session = sessions.remove(id);
+        if (session != null) deleteTemp(session);
+    }
+
+    /**
+     * Verwirft Uploads, die länger als {@link #SESSION_TIMEOUT} nicht fortgesetzt wurden.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void abgelaufeneVerwerfen() {
+        Instant grenze = Instant.now().minus(SESSION_TIMEOUT);
+        sessions.values().removeIf(session -> {
+            synchronized (session) {
+                if (session.schreibend || session.letzteAktivitaet.isAfter(grenze)) return false;
+            }
+            deleteTemp(session);
+            logger.info("Abgelaufener Upload {} ({}) verworfen", session.getId(), session.getDateiname());
+            return true;
+        });
+    }
+
+    private void deleteTemp(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.temp);
+        } catch (IOException e) {
+            logger.error("Fehler beim Löschen der Datei {}", session.temp, e);
+        }
+    }
+
+    /**
+     * Ein laufender Upload.
+     */
+    public static class UploadSession {
+
+        private final String id;
+        private final String dateiname;
+        private final String mimeType;
+        private final long groesse;
+        private final Path temp;
+        private final MessageDigest digest = BlobStore.newDigest();
+        private long offset;
+        private boolean schreibend;
+        private Instant letzteAktivitaet = Instant.now();
+
+        UploadSession(String id, String dateiname, String mimeType, long groesse, Path temp) {
+            this.id = id;
+            this.dateiname = dateiname;
+            this.mimeType = mimeType;
+            this.groesse = groesse;
+            this.temp = temp;
+        }
+
+        /**
+         * Gibt die ID des Uploads zurück.
+         *
+         * @return die ID
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Gibt den Namen der hochgeladenen Datei zurück.
+         *
+         * @return der Dateiname
+         */
+        public String getDateiname() {
+            return dateiname;
+        }
+
+        /**
+         * Gibt den vom Client angegebenen MIME-Typ zurück.
+         *
+         * @return der MIME-Typ oder null
+         */
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * Gibt die angekündigte Größe zurück.
+         *
+         * @return die Größe in Bytes oder -1, wenn sie nicht bekannt ist
+         */
+        public long getGroesse() {
+            return groesse;
+        }
+
+        /**
+         * Gibt die Anzahl der bereits geschriebenen Bytes zurück.
+         *
+         * @return der Offset
+         */
+        public synchronized long getOffset() {
+            return offset;
+        }
+
+        private void touch() {
+            letzteAktivitaet = Instant.now();
+        }
+    }
+
+    /**
+     * Schreibt in die temporäre Datei eines Uploads und führt dabei Offset und Hash nach.
+     */
+    private static final class SessionOutputStream extends OutputStream {
+
+        private final UploadSession session;
+        private final FileChannel channel;
+        private boolean geschlossen;
+
+        private SessionOutputStream(UploadSession session, FileChannel channel) {
+            this.session = session;
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (session) {
+                if (session.groesse >= 0 && session.offset + len > session.groesse) {
+                    throw new IllegalArgumentException("Upload " + session.id + " überschreitet die angekündigte Größe von " + session.groesse + " Bytes");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                session.digest.update(b, off, len);
+                session.offset += len;
+                session.touch();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (geschlossen) return;
+            geschlossen = true;
+            try {
+                channel.close();
+            } finally {
+                synchronized (session) {
+                    session.schreibend = false;
+                    session.touch();
+                }
+            }
+        }
+    }
+}
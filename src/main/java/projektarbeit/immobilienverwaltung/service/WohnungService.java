@@ -2,14 +2,21 @@ package projektarbeit.immobilienverwaltung.service;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import projektarbeit.immobilienverwaltung.model.*;
 import projektarbeit.immobilienverwaltung.repository.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -19,26 +26,41 @@ import java.util.stream.Collectors;
 @Service
 public class WohnungService {
 
+    private static final Set<String> GRUPPEN_SORT_PROPERTIES = Set.of("postleitzahl", "stadt", "strasse", "hausnummer", "land");
+    private static final Sort GRUPPEN_SORT = Sort.by("postleitzahl", "stadt", "strasse", "hausnummer", "land");
+    private static final Sort SUB_WOHNUNGEN_SORT = Sort.by("stockwerk", "wohnungsnummer", "wohnung_id");
+    private static final Sort FREIE_WOHNUNGEN_SORT = GRUPPEN_SORT.and(SUB_WOHNUNGEN_SORT);
+    private static final int SEARCH_BATCH_SIZE = 1000;
+
     private final WohnungRepository wohnungRepository;
     private final DokumentRepository dokumentRepository;
+    private final DokumentService dokumentService;
     private final MieterRepository mieterRepository;
     private final MietvertragRepository mietvertragRepository;
     private final ZaehlerstandRepository zaehlerstandRepository;
     private final GeocodingService geocodingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SearchIndex searchIndex;
 
     @Autowired
     public WohnungService(WohnungRepository wohnungRepository,
                           DokumentRepository dokumentRepository,
+                          DokumentService dokumentService,
                           MieterRepository mieterRepository,
                           MietvertragRepository mietvertragRepository,
                           ZaehlerstandRepository zaehlerstandRepository,
-                          GeocodingService geocodingService) {
+                          GeocodingService geocodingService,
+                          ApplicationEventPublisher eventPublisher,
+                          SearchIndex searchIndex) {
         this.wohnungRepository = wohnungRepository;
         this.dokumentRepository = dokumentRepository;
+        this.dokumentService = dokumentService;
         this.mieterRepository = mieterRepository;
         this.mietvertragRepository = mietvertragRepository;
         this.zaehlerstandRepository = zaehlerstandRepository;
         this.geocodingService = geocodingService;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -71,46 +93,106 @@ public class WohnungService {
     }
 
     /**
-     * Findet Wohnungen und gruppiert sie in eine hierarchische Struktur basierend auf ihrer Adresse.
-     * Wenn es mehrere Wohnungen an derselben Adresse gibt, wird ein Header-Knoten mit den Adressdetails
-     * erstellt und die einzelnen Wohnungen als dessen Kinder hinzugefügt.
+     * Lädt eine Seite der obersten Ebene der hierarchischen Wohnungsübersicht.
+     * Die Wohnungen werden in der Datenbank nach ihrer Adresse gruppiert. Mit Filterstring pagt der
+     * {@link SearchIndex} die passenden Adressen und sortiert sie nach Relevanz; die gewählte Sortierung gilt dann
+     * nicht. Gibt es an einer Adresse mehrere Wohnungen,
+     * wird ein Header-Knoten mit den Adressdetails und der Anzahl der Wohnungen erstellt, dessen Kinder erst beim
+     * Aufklappen über {@link #findSubWohnungen(Wohnung, Pageable)} geladen werden. Adressen mit genau einer Wohnung
+     * werden direkt als Wohnung zurückgegeben; diese werden für die ganze Seite gemeinsam mit einer Abfrage geladen.
      *
-     * @param filter Der Filterstring, der bei der Suche nach Wohnungen angewendet wird.
+     * @param filter   Der Filterstring, der bei der Suche nach Wohnungen angewendet wird.
+     * @param pageable Der Bereich und die Sortierung; sortiert werden kann ohne Filterstring nach den Adressfeldern.
      * @return Eine Liste von Wohnungen, von denen einige Header-Knoten sind, die mehrere Wohnungen an derselben Adresse gruppieren.
      */
-    public List<Wohnung> findWohnungenWithHierarchy(String filter) {
-        // Alle Wohnungen basierend auf dem Filter abrufen
-        List<Wohnung> wohnungen = findAllWohnungen(filter);
-
-        // Wohnungen nach ihrer Adresse (strasse + hausnummer) gruppieren
-        Map<String, List<Wohnung>> groupedWohnungen = wohnungen.stream().collect(Collectors.groupingBy(this::getAddress));
-
-        List<Wohnung> wohnungenWithHierarchy = new ArrayList<>();
-        // Über jede Gruppe von Wohnungen iterieren
-        groupedWohnungen.forEach((address, wohnungenForAddress) -> {
-            if (wohnungenForAddress.size() > 1) {
-                // Wenn es mehrere Wohnungen an derselben Adresse gibt, einen Header-Knoten erstellen
-                Wohnung addressNode = new Wohnung();
-                addressNode.setStrasse(wohnungenForAddress.get(0).getStrasse());
-                addressNode.setHausnummer(wohnungenForAddress.get(0).getHausnummer());
-                addressNode.setPostleitzahl(wohnungenForAddress.get(0).getPostleitzahl());
-                addressNode.setStadt(wohnungenForAddress.get(0).getStadt());
-                addressNode.setLand(wohnungenForAddress.get(0).getLand());
-                addressNode.setHeader(true);
-                addressNode.setSubWohnungen(new ArrayList<>(wohnungenForAddress));
-                wohnungenWithHierarchy.add(addressNode);
+    @Transactional(readOnly = true)
+    public List<Wohnung> findWohnungenWithHierarchy(String filter, Pageable pageable) {
+        List<WohnungGruppe> gruppen;
+        String term = normalizeFilter(filter);
+        if (term.isEmpty()) {
+            List<Sort.Order> orders = pageable.getSort().stream()
+                    .filter(order -> GRUPPEN_SORT_PROPERTIES.contains(order.getProperty()))
+                    .toList();
+            gruppen = wohnungRepository.findGruppen(
+                    OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize(), Sort.by(orders).and(GRUPPEN_SORT)));
+        } else {
+            // Der Index liefert je Adresse die kleinste Wohnungs-ID, die auch die Gruppe trägt
+            List<Long> treffer = searchIndex.searchAdressen(term, pageable.getOffset(), pageable.getPageSize());
+            if (treffer.isEmpty()) return List.of();
+            Map<Long, WohnungGruppe> gruppenById = wohnungRepository
+                    .findGruppenByIds(treffer, OffsetPageRequest.of(0, treffer.size(), GRUPPEN_SORT)).stream()
+                    .collect(Collectors.toMap(WohnungGruppe::wohnungId, Function.identity()));
+            gruppen = treffer.stream().map(gruppenById::get).filter(Objects::nonNull).toList();
+        }
+
+        // Einzelne Wohnungen der Seite gemeinsam laden
+        List<Long> einzelneIds = gruppen.stream()
+                .filter(gruppe -> gruppe.anzahlWohnungen() == 1)
+                .map(WohnungGruppe::wohnungId)
+                .toList();
+        Map<Long, Wohnung> einzelneWohnungen = einzelneIds.isEmpty() ? Map.of() :
+                wohnungRepository.findAllWithMietvertragByIds(einzelneIds).stream()
+                        .collect(Collectors.toMap(Wohnung::getWohnung_id, Function.identity()));
+
+        List<Wohnung> wohnungenWithHierarchy = new ArrayList<>(gruppen.size());
+        for (WohnungGruppe gruppe : gruppen) {
+            if (gruppe.anzahlWohnungen() > 1) {
+                wohnungenWithHierarchy.add(gruppe.toHeader());
             } else {
-                // Wenn es nur eine Wohnung an der Adresse gibt, direkt zur Liste hinzufügen
-                wohnungenWithHierarchy.addAll(wohnungenForAddress);
+                Wohnung wohnung = einzelneWohnungen.get(gruppe.wohnungId());
+                // Zwischenzeitlich gelöschte Wohnungen auslassen
+                if (wohnung != null) wohnungenWithHierarchy.add(wohnung);
             }
-        });
-
+        }
         return wohnungenWithHierarchy;
     }
 
-    // Hilfsmethode zum Abrufen der Adresszeichenfolge
-    private String getAddress(Wohnung wohnung) {
-        return String.format("%s %s", wohnung.getStrasse(), wohnung.getHausnummer());
+    /**
+     * Zählt die Einträge der obersten Ebene der hierarchischen Wohnungsübersicht, also die Anzahl der Adressen.
+     *
+     * @param filter Der Filterstring, der bei der Suche nach Wohnungen angewendet wird.
+     * @return die Anzahl der passenden Adressen
+     */
+    @Transactional(readOnly = true)
+    public long countWohnungenWithHierarchy(String filter) {
+        String term = normalizeFilter(filter);
+        if (term.isEmpty()) return wohnungRepository.countGruppen();
+        return searchIndex.countAdressen(term);
+    }
+
+    /**
+     * Lädt eine Seite der Wohnungen, die unter einem Header-Knoten gruppiert sind.
+     * Die Wohnungen werden nach Stockwerk und Wohnungsnummer sortiert.
+     *
+     * @param header   der Header-Knoten, dessen Wohnungen geladen werden sollen
+     * @param pageable der Bereich, der geladen werden soll
+     * @return die Wohnungen an der Adresse des Header-Knotens
+     */
+    @Transactional(readOnly = true)
+    public List<Wohnung> findSubWohnungen(Wohnung header, Pageable pageable) {
+        return wohnungRepository.findByAdresse(header.getStrasse(), header.getHausnummer(),
+                header.getPostleitzahl(), header.getStadt(), header.getLand(),
+                OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize(), SUB_WOHNUNGEN_SORT));
+    }
+
+    /**
+     * Erstellt die Header-Knoten der angegebenen Gebäude, z.B. um gespeicherte aufgeklappte Knoten
+     * wiederherzustellen. Die Gebäude werden über die an den Wohnungen gespeicherte Gebäude-ID geladen. Gebäude, an
+     * deren Adresse keine zwei Wohnungen mehr existieren, werden ausgelassen.
+     *
+     * @param gebaeudeIds die Gebäude-IDs aus {@link Wohnung#getGebaeudeId()}
+     * @return nicht gespeicherte Wohnungen mit der Adresse des jeweiligen Gebäudes, die als Header-Knoten markiert sind
+     */
+    @Transactional(readOnly = true)
+    public List<Wohnung> findGebaeudeHeader(Collection<Long> gebaeudeIds) {
+        if (gebaeudeIds.isEmpty()) return List.of();
+        return wohnungRepository.findGruppenByGebaeudeIds(gebaeudeIds).stream()
+                .map(WohnungGruppe::toHeader)
+                .toList();
+    }
+
+    private String normalizeFilter(String filter) {
+        return filter == null ? "" : filter.trim();
     }
 
     /**
@@ -121,16 +203,15 @@ public class WohnungService {
     @Transactional
     public void delete(Wohnung wohnung) {
         // Dokumente löschen, die mit der Wohnung verknüpft sind
-        List<Dokument> dokumente = dokumentRepository.findByWohnung(wohnung);
-        if (dokumente != null && !dokumente.isEmpty()) {
-            dokumentRepository.deleteAll(dokumente);
-        }
+        dokumentService.deleteDokumente(dokumentRepository.findByWohnung(wohnung));
 
         // Mietverträge löschen, die mit der Wohnung verknüpft sind
         Mietvertrag mietvertrag = mietvertragRepository.findByWohnung(wohnung);
         if (mietvertrag != null) {
             mietvertrag.setMieter(null);
             mietvertragRepository.delete(mietvertrag);
+            eventPublisher.publishEvent(DashboardStatsDelta.mietvertragRemoved(mietvertrag.getMiete()));
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(mietvertrag));
         }
 
         // Zählerstand-Referenzen zur Wohnung löschen
@@ -141,6 +222,8 @@ public class WohnungService {
 
         // Wohnung-Entität löschen
         wohnungRepository.delete(wohnung);
+        eventPublisher.publishEvent(DashboardStatsDelta.wohnungRemoved());
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(wohnung));
     }
 
     /**
@@ -156,73 +239,138 @@ public class WohnungService {
     /**
      * Service-Methode, um alle Wohnungen basierend auf einem gegebenen Filterstring zu finden.
      * Wenn der Filterstring null oder leer ist, werden alle Wohnungen zurückgegeben.
-     * Wenn der Filterstring angegeben wird, werden zunächst alle passenden Wohnungen gesucht.
+     * Wenn der Filterstring angegeben wird, werden die passenden Wohnungen über den {@link SearchIndex} in Straße,
+     * Hausnummer, Postleitzahl und Stadt gesucht und nach Relevanz sortiert.
      *
      * @param stringFilter Der Filterstring, um nach passenden Wohnungen zu suchen. Wenn null oder leer, werden alle Wohnungen zurückgegeben.
      * @return Eine Liste von Wohnungen, die dem angegebenen Filterstring entsprechen. Wenn kein Filter angegeben ist, werden alle Wohnungen zurückgegeben.
      */
+    @Transactional(readOnly = true)
     public List<Wohnung> findAllWohnungen(String stringFilter) {
-        if (stringFilter == null || stringFilter.isEmpty()) {
-            return wohnungRepository.findAll();
-        } else {
-            return wohnungRepository.search(stringFilter);
-        }
+        String term = normalizeFilter(stringFilter);
+        if (term.isEmpty()) return wohnungRepository.findAll();
+
+        // Die Treffer seitenweise laden, damit keine Abfrage mehr als SEARCH_BATCH_SIZE IDs erhält
+        List<Wohnung> wohnungen = new ArrayList<>();
+        List<Long> treffer;
+        long offset = 0;
+        do {
+            treffer = searchIndex.searchWohnungen(term, offset, SEARCH_BATCH_SIZE);
+            if (!treffer.isEmpty()) wohnungen.addAll(inOrder(treffer, wohnungRepository.findAllById(treffer)));
+            offset += treffer.size();
+        } while (treffer.size() == SEARCH_BATCH_SIZE);
+        return wohnungen;
     }
 
     /**
-     * Ruft alle Wohnungen ab, die keinen zugehörigen Mietvertrag haben.
+     * Lädt eine Seite der Wohnungen, die keinen zugehörigen Mietvertrag haben.
+     * Die Prüfung erfolgt in der Datenbank über {@code NOT EXISTS}, sodass weder alle Wohnungen
+     * noch alle Mietverträge geladen werden müssen. Ohne Filterstring wird nach der Adresse sortiert,
+     * mit Filterstring pagt der {@link SearchIndex} die freien Treffer und sortiert sie nach Relevanz.
      *
+     * @param filter   der Suchbegriff für die Adresse oder null
+     * @param pageable die Seite, die geladen werden soll
      * @return eine Liste von Wohnungen ohne Mietvertrag
      */
     @Transactional(readOnly = true)
-    public List<Wohnung> findWohnungenWithoutMietvertrag() {
-        // Alle Wohnungen abrufen
-        List<Wohnung> allWohnungen = wohnungRepository.findAll();
+    public List<Wohnung> findWohnungenWithoutMietvertrag(String filter, Pageable pageable) {
+        String term = normalizeFilter(filter);
+        if (term.isEmpty()) {
+            return wohnungRepository.findWithoutMietvertrag(
+                    OffsetPageRequest.of(pageable.getOffset(), pageable.getPageSize(), FREIE_WOHNUNGEN_SORT));
+        }
+        List<Long> treffer = searchIndex.searchFreieWohnungen(term, pageable.getOffset(), pageable.getPageSize());
+        return treffer.isEmpty() ? List.of() : inOrder(treffer, wohnungRepository.findAllById(treffer));
+    }
 
-        // Alle Wohnungen mit einem Mietvertrag abrufen
-        List<Wohnung> wohnungenWithMietvertrag = mietvertragRepository.findAll().stream()
-                .map(Mietvertrag::getWohnung)
-                .collect(Collectors.toList());
+    /**
+     * Zählt die Wohnungen, die keinen zugehörigen Mietvertrag haben und dem Suchbegriff entsprechen.
+     *
+     * @param filter der Suchbegriff für die Adresse oder null
+     * @return die Anzahl der passenden Wohnungen ohne Mietvertrag
+     */
+    @Transactional(readOnly = true)
+    public long countWohnungenWithoutMietvertrag(String filter) {
+        String term = normalizeFilter(filter);
+        if (term.isEmpty()) return wohnungRepository.countWithoutMietvertrag();
+        return searchIndex.countFreieWohnungen(term);
+    }
 
-        // Wohnungen filtern, die keinen Mietvertrag haben
-        return allWohnungen.stream()
-                .filter(wohnung -> !wohnungenWithMietvertrag.contains(wohnung))
-                .collect(Collectors.toList());
+    /**
+     * Sortiert die geladenen Wohnungen in die Reihenfolge der angegebenen IDs.
+     */
+    private List<Wohnung> inOrder(List<Long> ids, List<Wohnung> wohnungen) {
+        Map<Long, Wohnung> wohnungenById = wohnungen.stream()
+                .collect(Collectors.toMap(Wohnung::getWohnung_id, Function.identity()));
+        return ids.stream().map(wohnungenById::get).filter(Objects::nonNull).toList();
     }
 
     /**
      * Speichert eine Wohnung-Entität in der Datenbank.
      * Diese Methode ist transactional und stellt sicher, dass alle Operationen
      * innerhalb der Transaktion erfolgreich abgeschlossen werden oder keine.
+     * <p>
+     * Geokodiert wird nur, wenn sich die Adresse geändert hat. Bis die neuen Koordinaten ermittelt sind, und wenn
+     * die Abfrage fehlschlägt, bleiben die gespeicherten erhalten, auch wenn die übergebene Kopie älter ist als eine
+     * inzwischen nachgetragene Geokodierung. Wird die neue Adresse sicher nicht gefunden, werden die Koordinaten der
+     * alten Adresse gelöscht.
+     * <p>
+     * Die übergebene Wohnung merkt sich danach die gespeicherte Adresse, auch wenn sie nicht verwaltet ist und
+     * das Repository eine andere Instanz zurückgibt. Ein erneutes Speichern derselben Instanz geokodiert so nicht
+     * ein zweites Mal.
      *
      * @param wohnung die zu speichernde Wohnung-Entität
      * @return die gespeicherte Wohnung-Entität
      */
     @Transactional
     public Wohnung save(@Valid Wohnung wohnung) {
-        setCoordinates(wohnung);
-        return wohnungRepository.save(wohnung);
+        boolean isNew = wohnung.getWohnung_id() == null;
+        boolean adresseGeaendert = wohnung.isAdresseGeaendert();
+        GeocodingCacheEintrag eintrag = adresseGeaendert ? geocodingService.ausCache(formatAdresse(wohnung)) : null;
+        // Ein Eintrag ohne Koordinaten steht für eine sicher nicht gefundene Adresse
+        if (eintrag != null || isNew) {
+            setCoordinates(wohnung, eintrag != null ? eintrag.getKoordinaten() : null);
+        } else {
+            // Liegt im Persistenzkontext oder im Cache und wird von merge ohnehin geladen
+            wohnungRepository.findById(wohnung.getWohnung_id()).ifPresent(gespeichert -> {
+                wohnung.setLatitude(gespeichert.getLatitude());
+                wohnung.setLongitude(gespeichert.getLongitude());
+            });
+        }
+
+        Wohnung saved = wohnungRepository.save(wohnung);
+        if (adresseGeaendert && eintrag == null) {
+            geocodingService.koordinatenNachtragen(saved.getWohnung_id(), formatAdresse(saved));
+        }
+        // merge ruft die JPA-Callbacks nur für die zurückgegebene Instanz auf
+        if (saved != wohnung) wohnung.merkeAdresse();
+        if (isNew) eventPublisher.publishEvent(DashboardStatsDelta.wohnungAdded());
+        eventPublisher.publishEvent(EntityChangedEvent.saved(saved));
+        return saved;
+    }
+
+    /**
+     * Setzt die Koordinaten (Breiten- und Längengrad) einer Wohnung.
+     *
+     * @param wohnung     die Wohnung-Entität, für die die Koordinaten gesetzt werden sollen
+     * @param coordinates Breiten- und Längengrad oder null
+     */
+    private void setCoordinates(Wohnung wohnung, double[] coordinates) {
+        wohnung.setLatitude(coordinates != null ? coordinates[0] : null);
+        wohnung.setLongitude(coordinates != null ? coordinates[1] : null);
     }
 
     /**
-     * Setzt die Koordinaten (Breiten- und Längengrad) einer Wohnung basierend auf ihrer Adresse.
+     * Formatiert die Adresse einer Wohnung für die Geokodierung.
      *
-     * @param wohnung die Wohnung-Entität, für die die Koordinaten gesetzt werden sollen
+     * @param wohnung die Wohnung
+     * @return die Adresse mit Straße, Hausnummer, Postleitzahl, Stadt und Land
      */
-    private void setCoordinates(Wohnung wohnung) {
-        String address = String.format("%s %s, %s, %s, %s",
+    static String formatAdresse(Wohnung wohnung) {
+        return String.format("%s %s, %s, %s, %s",
                 wohnung.getStrasse(), wohnung.getHausnummer(),
                 wohnung.getPostleitzahl(), wohnung.getStadt(),
                 wohnung.getLand().name());
-
-        double[] coordinates = geocodingService.getCoordinates(address);
-        if (coordinates != null) {
-            wohnung.setLatitude(coordinates[0]);
-            wohnung.setLongitude(coordinates[1]);
-        } else {
-            wohnung.setLatitude(null);
-            wohnung.setLongitude(null);
-        }
     }
 
     /**
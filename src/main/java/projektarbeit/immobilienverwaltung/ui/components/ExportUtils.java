@@ -0,0 +1,58 @@
+package projektarbeit.immobilienverwaltung.ui.components;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.contextmenu.MenuItem;
+import com.vaadin.flow.component.contextmenu.SubMenu;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.menubar.MenuBar;
+import com.vaadin.flow.component.menubar.MenuBarVariant;
+import com.vaadin.flow.function.SerializableSupplier;
+import projektarbeit.immobilienverwaltung.controller.ExportController;
+import projektarbeit.immobilienverwaltung.service.ExportService;
+
+import java.util.Map;
+
+/**
+ * Dienstprogrammklasse für das Erstellen von Export-Menüs in Vaadin.
+ */
+public class ExportUtils {
+
+    private static final Map<ExportService.Format, String> FORMAT_NAMEN = Map.of(
+            ExportService.Format.CSV, "CSV",
+            ExportService.Format.JSONL, "JSON Lines",
+            ExportService.Format.XLSX, "Excel");
+
+    /**
+     * Erstellt ein Menü, über das die angegebenen Daten mit den aktuellen Filtern der Ansicht heruntergeladen werden.
+     *
+     * @param filter liefert die aktuellen Filter der Ansicht
+     * @param arten  die Daten, die exportiert werden können
+     * @return das Menü
+     */
+    public static MenuBar createExportMenu(SerializableSupplier<ExportService.Filter> filter, ExportService.Art... arten) {
+        MenuBar menuBar = new MenuBar();
+        menuBar.addThemeVariants(MenuBarVariant.LUMO_TERTIARY);
+        MenuItem export = menuBar.addItem(VaadinIcon.DOWNLOAD.create());
+        export.add(" Exportieren");
+        SubMenu artenMenu = export.getSubMenu();
+        for (ExportService.Art art : arten) {
+            SubMenu formate = artenMenu.addItem(art.getBezeichnung()).getSubMenu();
+            for (ExportService.Format format : ExportService.Format.values()) {
+                formate.addItem(FORMAT_NAMEN.get(format), event -> download(ExportController.url(art, format, filter.get()).substring(1)));
+            }
+        }
+        return menuBar;
+    }
+
+    /**
+     * Startet den Download über einen unsichtbaren Link, damit die Ansicht nicht verlassen wird.
+     */
+    private static void download(String url) {
+        Anchor link = new Anchor(url, "Export");
+        link.getElement().setAttribute("download", true);
+        link.getStyle().set("display", "none");
+        UI.getCurrent().getElement().appendChild(link.getElement());
+        link.getElement().executeJs("this.click(); this.remove();");
+    }
+}
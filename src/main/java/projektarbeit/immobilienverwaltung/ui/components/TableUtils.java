@@ -4,6 +4,8 @@ import com.vaadin.flow.component.Html;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.treegrid.TreeGrid;
+import com.vaadin.flow.data.provider.BackEndDataProvider;
+import com.vaadin.flow.data.provider.hierarchy.HierarchicalDataProvider;
 import com.vaadin.flow.function.ValueProvider;
 
 import java.util.Collection;
@@ -26,6 +28,19 @@ public class TableUtils {
         grid.setItems(items);
     }
 
+    /**
+     * Konfiguriert ein Grid mit einem lazy ladenden DataProvider.
+     * Die Höhe wird dabei nicht an die Anzahl der Zeilen angepasst, damit das Grid nur die sichtbaren Zeilen lädt.
+     *
+     * @param <T>          Der Typ der Elemente im Grid.
+     * @param grid         Das zu konfigurierende Grid.
+     * @param dataProvider Der DataProvider, der die Elemente seitenweise aus dem Backend lädt.
+     */
+    public static <T> void configureLazyGrid(Grid<T> grid, BackEndDataProvider<T, Void> dataProvider) {
+        applyThemeVariants(grid);
+        grid.setItems(dataProvider);
+    }
+
     /**
      * Konfiguriert ein TreeGrid mit den angegebenen Elementen und passt die Höhe des Grids an die Anzahl der Zeilen an.
      *
@@ -39,6 +54,20 @@ public class TableUtils {
         treeGrid.setItems(items, childProvider);
     }
 
+    /**
+     * Konfiguriert ein TreeGrid mit einem lazy ladenden hierarchischen DataProvider.
+     * Die Höhe wird dabei nicht an die Anzahl der Zeilen angepasst, damit das TreeGrid nur die sichtbaren Zeilen
+     * und die Kinder aufgeklappter Knoten lädt.
+     *
+     * @param <T>          Der Typ der Elemente im TreeGrid.
+     * @param treeGrid     Das zu konfigurierende TreeGrid.
+     * @param dataProvider Der DataProvider, der die Elemente beider Ebenen seitenweise aus dem Backend lädt.
+     */
+    public static <T> void configureLazyTreeGrid(TreeGrid<T> treeGrid, HierarchicalDataProvider<T, Void> dataProvider) {
+        applyThemeVariants(treeGrid);
+        treeGrid.setDataProvider(dataProvider);
+    }
+
     /**
      * Konfiguriert gemeinsame Einstellungen für Grids und TreeGrids.
      *
@@ -48,9 +77,7 @@ public class TableUtils {
      * @param rowHeight Die Höhe jeder Zeile im Grid.
      */
     private static <T> void configureCommonGridSettings(Grid<T> grid, int rowCount, int rowHeight) {
-        grid.addThemeVariants(GridVariant.LUMO_NO_ROW_BORDERS);
-        grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
-        grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
+        applyThemeVariants(grid);
 
         int headerHeight = 58; // Höhe des Headers in Pixel
         int footerHeight = 0; // Höhe des Footers
@@ -59,6 +86,18 @@ public class TableUtils {
         grid.setHeight((rowCount * rowHeight + headerHeight + footerHeight) + "px");
     }
 
+    /**
+     * Setzt die einheitlichen Theme-Varianten für Grids und TreeGrids.
+     *
+     * @param <T>  Der Typ der Elemente im Grid.
+     * @param grid Das zu konfigurierende Grid.
+     */
+    private static <T> void applyThemeVariants(Grid<T> grid) {
+        grid.addThemeVariants(GridVariant.LUMO_NO_ROW_BORDERS);
+        grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
+        grid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
+    }
+
     /**
      * Erstellt eine benutzerdefinierte Überschrift für die Tabelle.
      *
@@ -6,10 +6,12 @@ import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
 import projektarbeit.immobilienverwaltung.service.DokumentService;
+import projektarbeit.immobilienverwaltung.service.UploadService;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Dienstprogrammklasse für das Erstellen von Upload-Schaltflächen in Vaadin.
@@ -28,9 +30,17 @@ public class UploadUtils {
     public static HorizontalLayout createUploadButton(String buttonText, DokumentService dokumentService, Object entity, Runnable refreshView) {
         HorizontalLayout uploadLayout = new HorizontalLayout();
 
-        // Erstellen eines Speicherpuffers für die Handhabung von Datei-Uploads
-        MemoryBuffer buffer = new MemoryBuffer();
-        Upload upload = new Upload(buffer);
+        // Der Inhalt wird direkt in eine temporäre Datei geschrieben, statt ihn im Speicher zu puffern
+        AtomicReference<String> uploadId = new AtomicReference<>();
+        Upload upload = new Upload((fileName, mimeType) -> {
+            try {
+                UploadService.UploadSession session = dokumentService.startUpload(fileName, mimeType);
+                uploadId.set(session.getId());
+                return dokumentService.openUploadStream(session.getId());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
         upload.setAcceptedFileTypes("application/pdf", "image/*");
 
         // Erstellen und Stylen der Upload-Schaltfläche
@@ -43,9 +53,9 @@ public class UploadUtils {
         upload.getElement().getStyle().set("box-shadow", "none");
         upload.getElement().getStyle().set("border", "none");
 
-        upload.addSucceededListener(event -> {
-            InputStream inputStream = buffer.getInputStream();
-            dokumentService.handleFileUpload(event.getFileName(), inputStream, event.getMIMEType(), entity, refreshView);
+        upload.addSucceededListener(event -> dokumentService.handleFileUpload(uploadId.get(), event.getFileName(), entity, refreshView));
+        upload.addFailedListener(event -> {
+            if (uploadId.get() != null) dokumentService.cancelUpload(uploadId.get());
         });
 
         uploadLayout.add(upload);
@@ -1,10 +1,13 @@
 package projektarbeit.immobilienverwaltung.ui.layout;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.applayout.AppLayout;
 import com.vaadin.flow.component.applayout.DrawerToggle;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.dependency.CssImport;
 import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
@@ -12,17 +15,22 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.sidenav.SideNav;
 import com.vaadin.flow.component.sidenav.SideNavItem;
+import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.theme.lumo.Lumo;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import projektarbeit.immobilienverwaltung.model.QuickSearchHit;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
+import projektarbeit.immobilienverwaltung.service.QuickSearchService;
 import projektarbeit.immobilienverwaltung.service.SecurityService;
 import projektarbeit.immobilienverwaltung.service.UserService;
 import projektarbeit.immobilienverwaltung.ui.views.MainView;
 import projektarbeit.immobilienverwaltung.ui.views.dialog.ChangePasswordDialog;
 import projektarbeit.immobilienverwaltung.ui.views.dokumente.DokumenteListView;
 import projektarbeit.immobilienverwaltung.ui.views.login.AdminView;
+import projektarbeit.immobilienverwaltung.ui.views.mieter.MieterDetailsView;
 import projektarbeit.immobilienverwaltung.ui.views.mieter.MieterListView;
+import projektarbeit.immobilienverwaltung.ui.views.wohnung.WohnungDetailsView;
 import projektarbeit.immobilienverwaltung.ui.views.wohnung.WohnungListView;
 
 /**
@@ -34,6 +42,7 @@ public class MainLayout extends AppLayout {
     private final SecurityService securityService;
     private final UserService userService;
     private final ConfigurationService configurationService;
+    private final QuickSearchService quickSearchService;
     private boolean isDarkMode;
 
     /**
@@ -42,11 +51,14 @@ public class MainLayout extends AppLayout {
      * @param securityService      der SecurityService zur Verwaltung der Sicherheitsfunktionen.
      * @param userService          der UserService zur Verwaltung der Benutzerdaten.
      * @param configurationService der ConfigurationService zur Verwaltung der Konfigurationseinstellungen.
+     * @param quickSearchService   der QuickSearchService für die globale Suche in der Kopfzeile.
      */
-    public MainLayout(SecurityService securityService, UserService userService, ConfigurationService configurationService) {
+    public MainLayout(SecurityService securityService, UserService userService, ConfigurationService configurationService,
+                      QuickSearchService quickSearchService) {
         this.securityService = securityService;
         this.userService = userService;
         this.configurationService = configurationService;
+        this.quickSearchService = quickSearchService;
 
         this.isDarkMode = configurationService.isDarkMode();
 
@@ -85,7 +97,7 @@ public class MainLayout extends AppLayout {
         leftHeader.setSpacing(true);
 
         // Rechte Seite des Headers
-        HorizontalLayout rightHeader = new HorizontalLayout(userButton);
+        HorizontalLayout rightHeader = new HorizontalLayout(createQuickSearch(), userButton);
         rightHeader.setAlignItems(FlexComponent.Alignment.CENTER);
         rightHeader.setSpacing(true);
 
@@ -100,6 +112,59 @@ public class MainLayout extends AppLayout {
         addToNavbar(header);
     }
 
+    /**
+     * Erstellt das Suchfeld der globalen Schnellsuche.
+     * Jede Eingabe wird mit einem einzigen Aufruf des QuickSearchService beantwortet, die Auswahl eines Vorschlags
+     * navigiert zur Detailansicht des Treffers.
+     *
+     * @return das Suchfeld
+     */
+    private ComboBox<QuickSearchHit> createQuickSearch() {
+        ComboBox<QuickSearchHit> quickSearch = new ComboBox<>();
+        quickSearch.setPlaceholder("Suche...");
+        quickSearch.setPrefixComponent(VaadinIcon.SEARCH.create());
+        quickSearch.addClassName("dark-combo-box");
+        quickSearch.setWidth("320px");
+        quickSearch.setItems(query -> quickSearchService
+                .search(query.getFilter().orElse(""), QuickSearchService.DEFAULT_LIMIT).stream()
+                .skip(query.getOffset())
+                .limit(query.getLimit()));
+        quickSearch.setItemLabelGenerator(QuickSearchHit::titel);
+        quickSearch.setRenderer(new ComponentRenderer<>(hit -> {
+            Span titel = new Span(hit.titel());
+            Span details = new Span(hit.typ().getBezeichnung()
+                    + (hit.beschreibung().isEmpty() ? "" : " · " + hit.beschreibung()));
+            details.getStyle().set("font-size", "var(--lumo-font-size-s)").set("color", "var(--lumo-secondary-text-color)");
+            VerticalLayout item = new VerticalLayout(titel, details);
+            item.setPadding(false);
+            item.setSpacing(false);
+            return item;
+        }));
+        quickSearch.addValueChangeListener(event -> {
+            if (event.getValue() == null) return;
+            navigateTo(event.getValue());
+            quickSearch.clear();
+        });
+        return quickSearch;
+    }
+
+    /**
+     * Navigiert zur Detailansicht eines Treffers der Schnellsuche.
+     * Mietverträge und Dokumente werden beim zugehörigen Mieter oder, falls keiner existiert, bei der Wohnung angezeigt.
+     *
+     * @param hit der ausgewählte Treffer
+     */
+    private void navigateTo(QuickSearchHit hit) {
+        UI ui = UI.getCurrent();
+        if (hit.mieterId() != null) {
+            ui.navigate(MieterDetailsView.class, hit.mieterId());
+        } else if (hit.wohnungId() != null) {
+            ui.navigate(WohnungDetailsView.class, hit.wohnungId());
+        } else {
+            ui.navigate(DokumenteListView.class);
+        }
+    }
+
     /**
      * Gibt den Benutzernamen des aktuellen Benutzers zurück.
      *
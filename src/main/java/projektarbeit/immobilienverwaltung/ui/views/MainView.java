@@ -18,6 +18,7 @@ import com.vaadin.flow.spring.annotation.UIScope;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.security.PermitAll;
 import org.springframework.beans.factory.annotation.Autowired;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
 import projektarbeit.immobilienverwaltung.service.DashboardService;
@@ -29,7 +30,6 @@ import projektarbeit.immobilienverwaltung.ui.views.wohnung.WohnungDetailsView;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * Die MainView-Klasse stellt die Startseite der Anwendung dar und zeigt aktuelle Statistiken
@@ -82,7 +82,7 @@ public class MainView extends VerticalLayout {
         mainLayout.setAlignItems(Alignment.START);
 
         // Initiale Erstellung der Divs
-        mieteinnahmenDiv = createMieteinnahmenDiv(dashboardService.getMieteinnahmen());
+        mieteinnahmenDiv = createStatDiv("Mieteinnahmen", new Div());
         immobilienDiv = createStatDiv("Immobilien", new Div());
         mieterDiv = createStatDiv("Anzahl der Mieter", new Div());
         leafletMap = new LeafletMap();
@@ -99,38 +99,34 @@ public class MainView extends VerticalLayout {
 
         // Hinzufügen des MainLayouts zur Hauptansicht
         add(mainLayout);
-
-        // Initiale Aktualisierung der Daten
-        updateStats();
-        updateMap();
     }
 
     @Override
     protected void onAttach(AttachEvent attachEvent) {
         super.onAttach(attachEvent);
-        // Aktualisierung der Statistiken, wenn die Seite aufgerufen wird
+        // Aktualisierung der Statistiken und der Karte, wenn die Seite aufgerufen wird
         updateStats();
         updateMap();
     }
 
     /**
-     * Aktualisiert die Statistiken.
+     * Aktualisiert die Statistiken anhand eines einzigen Schnappschusses aus dem DashboardService.
      */
     private void updateStats() {
+        DashboardStats stats = dashboardService.getDashboardStats();
+
         // Aktualisieren der Mieteinnahmen
-        double mieteinnahmen = dashboardService.getMieteinnahmen();
         mieteinnahmenDiv.removeAll();
-        Div newMieteinnahmenDiv = createMieteinnahmenDiv(mieteinnahmen);
+        Div newMieteinnahmenDiv = createMieteinnahmenDiv(stats.mieteinnahmen());
         newMieteinnahmenDiv.getChildren().forEach(mieteinnahmenDiv::add);
 
         // Aktualisieren der Immobilienstatistiken
-        Map<String, Long> immobilienStats = dashboardService.getImmobilienStats();
         immobilienDiv.removeAll();
-        Div newImmobilienDiv = createImmobilienDiv(immobilienStats);
+        Div newImmobilienDiv = createImmobilienDiv(stats.totalWohnungen(), stats.vermieteteWohnungen());
         newImmobilienDiv.getChildren().forEach(immobilienDiv::add);
 
         // Aktualisieren der Mieterstatistiken
-        long totalMieter = dashboardService.getTotalMieter();
+        long totalMieter = stats.totalMieter();
         mieterDiv.removeAll();
         Div newMieterDiv = createMieterDiv(totalMieter);
         newMieterDiv.getChildren().forEach(mieterDiv::add);
@@ -234,17 +230,18 @@ public class MainView extends VerticalLayout {
     /**
      * Erstellt ein Div-Element zur Anzeige der Immobilienstatistik.
      *
-     * @param stats eine Karte, die die Gesamtzahl der Immobilien und die Anzahl der vermieteten Immobilien enthält.
+     * @param totalWohnungen      die Gesamtzahl der Immobilien.
+     * @param vermieteteWohnungen die Anzahl der vermieteten Immobilien.
      * @return ein Div-Element, das die Immobilienstatistik anzeigt.
      */
-    private Div createImmobilienDiv(Map<String, Long> stats) {
+    private Div createImmobilienDiv(long totalWohnungen, long vermieteteWohnungen) {
         H1 title = new H1("Immobilien");
         title.getStyle().set("text-align", "center");
 
         // Formatieren der Zahlen mit Tausendertrennzeichen
         NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.GERMANY);
-        String total = "Gesamt: " + numberFormat.format(stats.get("total"));
-        String vermietet = "Vermietet: " + numberFormat.format(stats.get("vermietet"));
+        String total = "Gesamt: " + numberFormat.format(totalWohnungen);
+        String vermietet = "Vermietet: " + numberFormat.format(vermieteteWohnungen);
 
         Div totalDiv = new Div();
         totalDiv.setText(total);
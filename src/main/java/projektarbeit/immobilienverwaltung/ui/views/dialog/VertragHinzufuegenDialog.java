@@ -12,6 +12,7 @@ import com.vaadin.flow.data.binder.Binder;
 import com.vaadin.flow.data.binder.ValidationResult;
 import com.vaadin.flow.data.validator.DoubleRangeValidator;
 import com.vaadin.flow.data.validator.IntegerRangeValidator;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
@@ -52,7 +53,11 @@ public class VertragHinzufuegenDialog extends DialogLayout {
         FormLayout formLayout = new FormLayout();
 
         ComboBox<Wohnung> wohnungComboBox = new ComboBox<>("Wohnung");
-        wohnungComboBox.setItems(wohnungService.findWohnungenWithoutMietvertrag());
+        // Freie Wohnungen werden seitenweise und gefiltert nach der Eingabe aus der Datenbank geladen
+        wohnungComboBox.setItems(
+                query -> wohnungService.findWohnungenWithoutMietvertrag(query.getFilter().orElse(""),
+                        VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                query -> (int) wohnungService.countWohnungenWithoutMietvertrag(query.getFilter().orElse("")));
         wohnungComboBox.setItemLabelGenerator(Wohnung::getFormattedAddress);
         binder.forField(wohnungComboBox).asRequired("Wohnung ist erforderlich")
                 .bind(Mietvertrag::getWohnung, Mietvertrag::setWohnung);
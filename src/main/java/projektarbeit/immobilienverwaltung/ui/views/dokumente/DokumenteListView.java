@@ -6,35 +6,38 @@ import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.grid.Grid;
-import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.menubar.MenuBar;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouterLink;
 import com.vaadin.flow.spring.annotation.UIScope;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.PermitAll;
 import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DokumentFilter;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
 import projektarbeit.immobilienverwaltung.service.DokumentService;
+import projektarbeit.immobilienverwaltung.service.ExportService;
 import projektarbeit.immobilienverwaltung.service.MieterService;
 import projektarbeit.immobilienverwaltung.service.WohnungService;
+import projektarbeit.immobilienverwaltung.ui.components.ExportUtils;
 import projektarbeit.immobilienverwaltung.ui.components.TableUtils;
 import projektarbeit.immobilienverwaltung.ui.layout.MainLayout;
 import projektarbeit.immobilienverwaltung.ui.views.mieter.MieterDetailsView;
 import projektarbeit.immobilienverwaltung.ui.views.wohnung.WohnungDetailsView;
 
-import java.util.List;
-
 import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.createCustomHeader;
 
 /**
@@ -74,7 +77,12 @@ public class DokumenteListView extends VerticalLayout {
         this.configurationService = configurationService;
         this.mieterService = mieterService;
 
-        HorizontalLayout header = new HorizontalLayout(new H1("Dokumente Übersicht"));
+        MenuBar exportMenu = ExportUtils.createExportMenu(() -> {
+            DokumentFilter filter = currentFilter();
+            return new ExportService.Filter(filter.mieterId(), filter.wohnungId(), filter.suchbegriff());
+        }, ExportService.Art.DOKUMENTE);
+
+        HorizontalLayout header = new HorizontalLayout(new H1("Dokumente Übersicht"), exportMenu);
         header.setWidthFull();
         header.setAlignItems(Alignment.CENTER);
         header.expand(header.getComponentAt(0));
@@ -88,7 +96,6 @@ public class DokumenteListView extends VerticalLayout {
         dokumentGrid.setSizeFull();
 
         configureGrid();
-        updateDokumenteGrid();
 
         add(header, help, createFilterContent(), dokumentGrid);
     }
@@ -103,8 +110,8 @@ public class DokumenteListView extends VerticalLayout {
         layout.setWidthFull();
         layout.setAlignItems(Alignment.END);
 
-        // Setzt den Wertänderungsmodus auf EAGER, um das Grid sofort zu aktualisieren, während der Benutzer tippt
-        searchField.setValueChangeMode(ValueChangeMode.EAGER);
+        // Die Suche läuft in der Datenbank, daher erst nach einer kurzen Tipppause aktualisieren
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
         searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
         searchField.addValueChangeListener(event -> updateDokumenteGrid());
         searchField.setClearButtonVisible(true);
@@ -147,35 +154,25 @@ public class DokumenteListView extends VerticalLayout {
 
     /**
      * Aktualisiert das Dokumenten-Grid mit den gefilterten und/oder gesuchten Dokumenten.
+     * Das Grid lädt die sichtbaren Zeilen danach neu aus der Datenbank.
      */
     private void updateDokumenteGrid() {
-        String searchTerm = searchField.getValue().trim();
-        List<Dokument> dokumente;
+        dokumentGrid.getDataProvider().refreshAll();
+    }
 
+    /**
+     * Erstellt die Filterkriterien aus den aktuellen Eingaben.
+     *
+     * @return die Filterkriterien für die Datenbankabfrage
+     */
+    private DokumentFilter currentFilter() {
         String filterType = filterTypeComboBox.getValue();
         Mieter selectedMieter = mieterComboBox.getValue();
         Wohnung selectedWohnung = wohnungComboBox.getValue();
 
-        if ("Mieter".equals(filterType) && selectedMieter != null) {
-            dokumente = dokumentService.findDokumenteByMieter(selectedMieter);
-        } else if ("Wohnung".equals(filterType) && selectedWohnung != null) {
-            dokumente = dokumentService.findDokumenteByWohnung(selectedWohnung);
-        } else {
-            dokumente = dokumentService.findAllDokumente();
-        }
-
-        // Filtert nach Suchbegriff, falls nötig
-        if (!searchTerm.isEmpty()) {
-            dokumente = dokumente.stream()
-                    .filter(d -> d.getDokumententyp().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                            d.getDateipfad().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                            (d.getMieter() != null && d.getMieter().getFullName().toLowerCase().contains(searchTerm.toLowerCase())) ||
-                            (d.getWohnung() != null && d.getWohnung().getFormattedAddress().toLowerCase().contains(searchTerm.toLowerCase())))
-                    .toList();
-        }
-
-        int rowHeight = 53;
-        TableUtils.configureGrid(dokumentGrid, dokumente, rowHeight);
+        Long mieterId = "Mieter".equals(filterType) && selectedMieter != null ? selectedMieter.getMieter_id() : null;
+        Long wohnungId = "Wohnung".equals(filterType) && selectedWohnung != null ? selectedWohnung.getWohnung_id() : null;
+        return new DokumentFilter(mieterId, wohnungId, searchField.getValue().trim());
     }
 
     /**
@@ -185,18 +182,14 @@ public class DokumenteListView extends VerticalLayout {
     private void configureGrid() {
         dokumentGrid.removeAllColumns();
 
+        dokumentGrid.addComponentColumn(DokumentService::createVorschau).setFlexGrow(0).setWidth("72px");
+
         dokumentGrid.addColumn(Dokument::getDokumententyp)
                 .setHeader(createCustomHeader("Dokumenttyp"))
-                .setSortable(true)
+                .setSortProperty("dokumententyp")
                 .setAutoWidth(true);
 
-        // Versteckte Spalte für die Mieter-Sortierung
-        dokumentGrid.addColumn(dokument -> dokument.getMieter() != null ? dokument.getMieter().getFullName() : "Kein Mieter")
-                .setHeader("Mietername (sort)")
-                .setSortable(true)
-                .setVisible(false);
-
-        // Sichtbare Spalte für die Mieter mit Links
+        // Spalte für die Mieter mit Links, sortiert wird in der Datenbank nach Name und Vorname
         dokumentGrid.addColumn(new ComponentRenderer<>(dokument -> {
             if (dokument.getMieter() != null) {
                 RouterLink link = new RouterLink(dokument.getMieter().getFullName(), MieterDetailsView.class, dokument.getMieter().getMieter_id());
@@ -205,19 +198,9 @@ public class DokumenteListView extends VerticalLayout {
             } else {
                 return new Div(new Text("Kein Mieter"));
             }
-        })).setHeader(createCustomHeader("Mietername")).setSortable(true).setComparator((d1, d2) -> {
-            String name1 = d1.getMieter() != null ? d1.getMieter().getFullName() : "Kein Mieter";
-            String name2 = d2.getMieter() != null ? d2.getMieter().getFullName() : "Kein Mieter";
-            return name1.compareTo(name2);
-        }).setAutoWidth(true);
-
-        // Versteckte Spalte für die Wohnungs-Sortierung
-        dokumentGrid.addColumn(dokument -> dokument.getWohnung() != null ? dokument.getWohnung().getFormattedAddress() : "Keine Wohnung")
-                .setHeader("Wohnung (sort)")
-                .setSortable(true)
-                .setVisible(false);
-
-        // Sichtbare Spalte für die Wohnung mit Links
+        })).setHeader(createCustomHeader("Mietername")).setSortProperty("mieter").setAutoWidth(true);
+
+        // Spalte für die Wohnung mit Links, sortiert wird in der Datenbank nach der Adresse
         dokumentGrid.addColumn(new ComponentRenderer<>(dokument -> {
             if (dokument.getWohnung() != null) {
                 String formattedAddress = addLineBreaks(dokument.getWohnung());
@@ -227,11 +210,7 @@ public class DokumenteListView extends VerticalLayout {
                 return link;
             }
             return new Div(new Text("Keine Wohnung"));
-        })).setHeader(createCustomHeader("Wohnung")).setSortable(true).setComparator((d1, d2) -> {
-            String address1 = d1.getWohnung() != null ? d1.getWohnung().getFormattedAddress() : "Keine Wohnung";
-            String address2 = d2.getWohnung() != null ? d2.getWohnung().getFormattedAddress() : "Keine Wohnung";
-            return address1.compareTo(address2);
-        }).setAutoWidth(true);
+        })).setHeader(createCustomHeader("Wohnung")).setSortProperty("wohnung").setAutoWidth(true);
 
         dokumentGrid.addColumn(new ComponentRenderer<>(dokument -> {
             HorizontalLayout actionsLayout = new HorizontalLayout();
@@ -244,7 +223,7 @@ public class DokumenteListView extends VerticalLayout {
             Button deleteButton = new Button(new Icon("close"));
             deleteButton.addThemeVariants(ButtonVariant.LUMO_ERROR);
             deleteButton.getElement().setAttribute("title", "Delete");
-            deleteButton.addClickListener(event -> dokumentService.deleteDokument(dokument, dokumentGrid, dokument.getWohnung(), 53, configurationService, this::refreshView));
+            deleteButton.addClickListener(event -> dokumentService.deleteDokument(dokument, dokumentGrid, null, 53, configurationService, this::refreshView));
 
             Button downloadButton = new Button(new Icon("download"));
             downloadButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
@@ -255,8 +234,11 @@ public class DokumenteListView extends VerticalLayout {
             return actionsLayout;
         })).setHeader(createCustomHeader("Aktionen")).setFlexGrow(0).setAutoWidth(true);
 
-        dokumentGrid.setItems(dokumentService.findAllDokumente());
-        dokumentGrid.addThemeVariants(GridVariant.LUMO_NO_BORDER);
+        // Dokumente werden seitenweise geladen, Filter und Sortierung übernimmt die Datenbank
+        CallbackDataProvider<Dokument, Void> dataProvider = new CallbackDataProvider<>(
+                query -> dokumentService.findDokumente(currentFilter(), VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                query -> (int) dokumentService.countDokumente(currentFilter()));
+        TableUtils.configureLazyGrid(dokumentGrid, dataProvider);
     }
 
     /**
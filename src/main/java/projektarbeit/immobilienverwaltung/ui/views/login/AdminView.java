@@ -12,6 +12,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
@@ -26,6 +27,7 @@ import projektarbeit.immobilienverwaltung.model.Role;
 import projektarbeit.immobilienverwaltung.model.User;
 import projektarbeit.immobilienverwaltung.repository.RoleRepository;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
+import projektarbeit.immobilienverwaltung.service.ImportService;
 import projektarbeit.immobilienverwaltung.service.SecurityService;
 import projektarbeit.immobilienverwaltung.service.UserService;
 import projektarbeit.immobilienverwaltung.ui.components.NotificationPopup;
@@ -33,9 +35,16 @@ import projektarbeit.immobilienverwaltung.ui.components.TableUtils;
 import projektarbeit.immobilienverwaltung.ui.layout.MainLayout;
 import projektarbeit.immobilienverwaltung.ui.views.dialog.ConfirmationDialog;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.createCustomHeader;
@@ -52,6 +61,7 @@ import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.create
 public class AdminView extends VerticalLayout implements BeforeEnterObserver {
 
     private final UserService userService;
+    private final ImportService importService;
     private final Grid<User> userGrid;
 
     /**
@@ -60,11 +70,14 @@ public class AdminView extends VerticalLayout implements BeforeEnterObserver {
      * @param userService     der UserService zur Verwaltung der Benutzer
      * @param roleRepository  das RoleRepository zur Verwaltung der Rollen
      * @param securityService der SecurityService zur Handhabung der Sicherheitsfunktionen
+     * @param importService   der ImportService für den Massenimport von Wohnungen, Mietern und Mietverträgen
      */
 
     @Autowired
-    public AdminView(UserService userService, RoleRepository roleRepository, SecurityService securityService, ConfigurationService configurationService) {
+    public AdminView(UserService userService, RoleRepository roleRepository, SecurityService securityService,
+                     ConfigurationService configurationService, ImportService importService) {
         this.userService = userService;
+        this.importService = importService;
 
         if (userService == null || roleRepository == null || securityService == null) {
             throw new IllegalArgumentException("userService, roleRepository, and securityService cannot be null");
@@ -135,6 +148,9 @@ public class AdminView extends VerticalLayout implements BeforeEnterObserver {
         formLayout.add(usernameField, passwordField, roleComboBox, addButton);
         add(formLayout);
 
+        // Massenimport von Wohnungen mit ihren Mietern und Mietverträgen
+        add(createImportUpload());
+
         // Erstellen des Benutzergrids
         userGrid = new Grid<>(User.class);
         userGrid.setColumns(); // Clear existing columns
@@ -169,6 +185,86 @@ public class AdminView extends VerticalLayout implements BeforeEnterObserver {
         updateUserGrid();
     }
 
+    /**
+     * Erstellt die Upload-Schaltfläche für den Massenimport. Die Datei wird in eine temporäre Datei geschrieben,
+     * statt sie im Speicher zu puffern, und erst nach einem vollständigen Upload importiert, damit ein abgebrochener
+     * Upload keine halbe letzte Zeile speichert.
+     *
+     * @return die Upload-Komponente
+     */
+    private Upload createImportUpload() {
+        AtomicReference<Path> temp = new AtomicReference<>();
+        Upload upload = new Upload((fileName, mimeType) -> {
+            try {
+                temp.set(Files.createTempFile("import-", ".tmp"));
+                return Files.newOutputStream(temp.get());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        upload.setAcceptedFileTypes(".csv", ".json", ".jsonl", ".ndjson", "text/csv", "application/json", "application/x-ndjson");
+        upload.setUploadButton(new Button("Import Apartments", VaadinIcon.UPLOAD.create()));
+        upload.setDropAllowed(false);
+
+        upload.addSucceededListener(event -> {
+            try (InputStream in = Files.newInputStream(temp.get())) {
+                ImportService.Bericht bericht = importService.importieren(in, importFormat(event.getFileName(), event.getMIMEType()));
+                showImportBericht(bericht);
+            } catch (IOException e) {
+                NotificationPopup.showErrorNotification("Import failed: " + e.getMessage());
+            } finally {
+                deleteTemp(temp.getAndSet(null));
+                upload.clearFileList();
+            }
+        });
+        upload.addFailedListener(event -> {
+            deleteTemp(temp.getAndSet(null));
+            NotificationPopup.showErrorNotification("Upload failed: " + event.getReason().getMessage());
+        });
+        return upload;
+    }
+
+    /**
+     * Bestimmt das Format einer importierten Datei anhand ihrer Endung, ersatzweise anhand des MIME-Typs.
+     *
+     * @param fileName der Name der Datei
+     * @param mimeType der MIME-Typ der Datei
+     * @return das Format
+     */
+    private static ImportService.Format importFormat(String fileName, String mimeType) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) return ImportService.Format.CSV;
+        if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) return ImportService.Format.JSON;
+        return ImportService.Format.von(mimeType);
+    }
+
+    /**
+     * Zeigt das Ergebnis eines Imports an. Fehlerhafte Datensätze werden mit den ersten Meldungen aufgeführt.
+     *
+     * @param bericht der Bericht über den Import
+     */
+    private static void showImportBericht(ImportService.Bericht bericht) {
+        String ergebnis = String.format("Imported %d apartments, %d tenants and %d contracts from %d records",
+                bericht.wohnungen(), bericht.mieter(), bericht.mietvertraege(), bericht.datensaetze());
+        if (bericht.fehlerhaft() == 0 && !bericht.abgebrochen()) {
+            NotificationPopup.showSuccessNotification(ergebnis);
+            return;
+        }
+        String fehler = bericht.fehler().stream().limit(5)
+                .map(f -> "#" + f.nummer() + ": " + f.meldung())
+                .collect(Collectors.joining("; "));
+        NotificationPopup.showWarningNotification(ergebnis + ", " + bericht.fehlerhaft() + " failed. " + fehler);
+    }
+
+    private static void deleteTemp(Path temp) {
+        if (temp == null) return;
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            temp.toFile().deleteOnExit();
+        }
+    }
+
     private Button getDeleteButton(UserService userService, ConfigurationService configurationService, User user) {
         Button deleteButton = new Button("Delete");
         deleteButton.addClickListener(e -> {
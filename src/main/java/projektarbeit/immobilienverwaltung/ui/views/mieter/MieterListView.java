@@ -9,9 +9,11 @@ import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.menubar.MenuBar;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.function.ValueProvider;
@@ -19,13 +21,16 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouterLink;
 import com.vaadin.flow.spring.annotation.UIScope;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 import jakarta.annotation.security.PermitAll;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.MieterListItem;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
+import projektarbeit.immobilienverwaltung.service.ExportService;
 import projektarbeit.immobilienverwaltung.service.MieterService;
-import projektarbeit.immobilienverwaltung.service.MietvertragService;
+import projektarbeit.immobilienverwaltung.ui.components.ExportUtils;
 import projektarbeit.immobilienverwaltung.ui.components.TableUtils;
 import projektarbeit.immobilienverwaltung.ui.layout.MainLayout;
 import projektarbeit.immobilienverwaltung.ui.views.dialog.MieterEditDialog;
@@ -51,10 +56,9 @@ import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.create
 public class MieterListView extends VerticalLayout {
 
     private final MieterService mieterService;
-    private final MietvertragService mietvertragService;
     private final ConfigurationService configurationService;
 
-    Grid<Mieter> grid = new Grid<>(Mieter.class);
+    Grid<MieterListItem> grid = new Grid<>();
     TextField filterText = new TextField();
     Accordion filter = new Accordion();
     Checkbox name = new Checkbox("Name");
@@ -76,12 +80,10 @@ public class MieterListView extends VerticalLayout {
      * Initialisiert die Ansicht mit den benötigten Services und Konfiguriert die Ansichtselemente.
      *
      * @param mieterService         Service zur Verwaltung von Mieterdaten
-     * @param mietvertragService    Service zur Verwaltung von Mietverträgen
      * @param configurationService  Service zur Verwaltung von Konfigurationen
      */
-    public MieterListView(MieterService mieterService, MietvertragService mietvertragService, ConfigurationService configurationService) {
+    public MieterListView(MieterService mieterService, ConfigurationService configurationService) {
         this.mieterService = mieterService;
-        this.mietvertragService = mietvertragService;
         this.configurationService = configurationService;
 
         addClassName("mieter-list");
@@ -102,10 +104,10 @@ public class MieterListView extends VerticalLayout {
 
     /**
      * Aktualisiert die Liste der Mieter im Grid basierend auf dem Filtertext.
+     * Der DataProvider liest den Filtertext bei jeder Abfrage neu, daher genügt ein Neuladen.
      */
     private void updateList() {
-        List<Mieter> mieterList = mieterService.findAllMieter(filterText.getValue());
-        TableUtils.configureGrid(grid, mieterList, 50);
+        grid.getDataProvider().refreshAll();
     }
 
     /**
@@ -123,31 +125,22 @@ public class MieterListView extends VerticalLayout {
 
     /**
      * Konfiguriert das Grid für die Anzeige der Mieterdaten.
+     * Die Spalten werden in {@link #updateGridColumns()} anhand der ausgewählten Filteroptionen erstellt.
      */
     private void configureGrid() {
         grid.addClassNames("mieter-grid");
         grid.setSizeFull();
 
-        grid.setColumns("name", "vorname", "telefonnummer", "email");
-
-        grid.addColumn(new ComponentRenderer<>(item -> {
-            Double einkommen = item.getEinkommen();
-            String formattedEinkommen = NumberFormat.getCurrencyInstance(Locale.GERMANY).format(einkommen);
-            return new Span(formattedEinkommen);
-        })).setHeader(createCustomHeader("Einkommen")).setSortable(true);
-
-        addMietvertragColumn(Mietvertrag::getMiete, "Miete", true);
-        addMietvertragColumn(Mietvertrag::getKaution, "Kaution", true);
-        addMietvertragColumn(Mietvertrag::getAnzahlBewohner, "Anzahl<br>Bewohner", false);
-        addMietvertragColumn(Mietvertrag::getMietbeginn);
-        addMietvertragColumn(Mietvertrag::getMietende, "Mietende", false, true, true);
-        addMietvertragColumn(mietvertrag -> mietvertrag.getWohnung() != null ? mietvertrag.getWohnung().getFormattedAddress() : "Keine Wohnung", "Mietobjekt", false);
-
-        grid.getColumns().forEach(col -> col.setAutoWidth(true).setSortable(true));
+        // Mieter werden seitenweise geladen, Filter und Sortierung übernimmt die Datenbank
+        CallbackDataProvider<MieterListItem, Void> dataProvider = new CallbackDataProvider<>(
+                query -> mieterService.findMieterListItems(filterText.getValue(), VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                query -> (int) mieterService.countMieter(filterText.getValue()),
+                item -> item.mieter().getMieter_id());
+        TableUtils.configureLazyGrid(grid, dataProvider);
 
         grid.asSingleSelect().addValueChangeListener(e -> {
             if (e.getValue() != null) {
-                getUI().ifPresent(ui -> ui.navigate(MieterDetailsView.class, e.getValue().getMieter_id()));
+                getUI().ifPresent(ui -> ui.navigate(MieterDetailsView.class, e.getValue().mieter().getMieter_id()));
             }
         });
     }
@@ -156,15 +149,16 @@ public class MieterListView extends VerticalLayout {
      * Fügt eine Spalte für die Mietvertragsdaten zum Grid hinzu.
      *
      * @param valueProvider  eine Methode zum Abrufen des Werts aus einem Mietvertrag
+     * @param sortProperty   die Eigenschaft, nach der die Datenbank beim Sortieren der Spalte sortiert
      * @param headerHtml     der Headertext der Spalte
      * @param isCurrency     gibt an, ob der Wert als Währung formatiert werden soll
      * @param isDate         gibt an, ob der Wert als Datum formatiert werden soll
      * @param isMietende     gibt an, ob der Wert "Unbefristet" anzeigen soll, wenn er null ist
      * @param <T>            der Typ des Werts in der Spalte
      */
-    private <T> void addMietvertragColumn(ValueProvider<Mietvertrag, T> valueProvider, String headerHtml, boolean isCurrency, boolean isDate, boolean isMietende) {
-        grid.addColumn(new ComponentRenderer<>(mieter -> {
-            List<Mietvertrag> mietvertraege = mietvertragService.findByMieter(mieter.getMieter_id());
+    private <T> void addMietvertragColumn(ValueProvider<Mietvertrag, T> valueProvider, String sortProperty, String headerHtml, boolean isCurrency, boolean isDate, boolean isMietende) {
+        grid.addColumn(new ComponentRenderer<>(item -> {
+            List<Mietvertrag> mietvertraege = item.mietvertraege();
 
             String content = mietvertraege.isEmpty() ? "" : mietvertraege.stream()
                     .map(mietvertrag -> {
@@ -185,7 +179,7 @@ public class MieterListView extends VerticalLayout {
             Span span = new Span();
             span.getElement().setProperty("innerHTML", content);
             return span;
-        })).setHeader(createCustomHeader(headerHtml));
+        })).setHeader(createCustomHeader(headerHtml)).setSortProperty(sortProperty);
     }
 
     /**
@@ -195,16 +189,17 @@ public class MieterListView extends VerticalLayout {
      * headerHtml der Headertext der Spalte
      */
     private <T> void addMietvertragColumn(ValueProvider<Mietvertrag, T> valueProvider) {
-        addMietvertragColumn(valueProvider, "Mietbeginn", false, true, false);
+        addMietvertragColumn(valueProvider, "mietbeginn", "Mietbeginn", false, true, false);
     }
 
     /**
      * Überladene Methode zum Hinzufügen einer Spalte für Mietvertragsdaten ohne spezielle Headertexte.
      *
      * @param valueProvider  eine Methode zum Abrufen des Werts aus einem Mietvertrag
+     * @param sortProperty   die Eigenschaft, nach der die Datenbank beim Sortieren der Spalte sortiert
      */
-    private <T> void addMietvertragColumn(ValueProvider<Mietvertrag, T> valueProvider, String headerHtml, boolean isCurrency) {
-        addMietvertragColumn(valueProvider, headerHtml, isCurrency, false, false);
+    private <T> void addMietvertragColumn(ValueProvider<Mietvertrag, T> valueProvider, String sortProperty, String headerHtml, boolean isCurrency) {
+        addMietvertragColumn(valueProvider, sortProperty, headerHtml, isCurrency, false, false);
     }
 
     /**
@@ -214,7 +209,7 @@ public class MieterListView extends VerticalLayout {
      * @return die Toolbar als Layout
      */
     private HorizontalLayout getToolbar() {
-        filterText.setPlaceholder("Filter nach Name...");
+        filterText.setPlaceholder("Suche nach Name, E-Mail oder Telefon...");
         filterText.setClearButtonVisible(true);
         filterText.setPrefixComponent(VaadinIcon.SEARCH.create());
         filterText.setValueChangeMode(ValueChangeMode.LAZY);
@@ -224,7 +219,10 @@ public class MieterListView extends VerticalLayout {
         addMieterButton.setPrefixComponent(VaadinIcon.PLUS.create());
         addMieterButton.addClickListener(e -> addMieter());
 
-        toolbar = new HorizontalLayout(filterText, addMieterButton);
+        MenuBar exportMenu = ExportUtils.createExportMenu(() -> new ExportService.Filter(null, null, filterText.getValue()),
+                ExportService.Art.MIETER, ExportService.Art.MIETVERTRAEGE);
+
+        toolbar = new HorizontalLayout(filterText, addMieterButton, exportMenu);
         toolbar.addClassName("toolbar");
         toolbar.setWidthFull();
         toolbar.setFlexGrow(1, filterText);
@@ -327,29 +325,29 @@ public class MieterListView extends VerticalLayout {
     private void updateGridColumns() {
         grid.removeAllColumns();
 
-        grid.addColumn(Mieter::getName).setHeader(createCustomHeader("Name")).setSortable(true);
-        grid.addColumn(Mieter::getVorname).setHeader(createCustomHeader("Vorname")).setSortable(true);
+        grid.addColumn(item -> item.mieter().getName()).setHeader(createCustomHeader("Name")).setSortProperty("name");
+        grid.addColumn(item -> item.mieter().getVorname()).setHeader(createCustomHeader("Vorname")).setSortProperty("vorname");
         if (telefonnummer.getValue())
-            grid.addColumn(Mieter::getTelefonnummer).setHeader(createCustomHeader("Telefonnummer")).setSortable(true);
-        if (email.getValue()) grid.addColumn(Mieter::getEmail).setHeader(createCustomHeader("Email")).setSortable(true);
+            grid.addColumn(item -> item.mieter().getTelefonnummer()).setHeader(createCustomHeader("Telefonnummer")).setSortProperty("telefonnummer");
+        if (email.getValue()) grid.addColumn(item -> item.mieter().getEmail()).setHeader(createCustomHeader("Email")).setSortProperty("email");
 
         if (einkommen.getValue()) {
             grid.addColumn(new ComponentRenderer<>(item -> {
-                Double einkommen = item.getEinkommen();
+                Double einkommen = item.mieter().getEinkommen();
                 String formattedEinkommen = NumberFormat.getCurrencyInstance(Locale.GERMANY).format(einkommen);
                 return new Span(formattedEinkommen);
-            })).setHeader(createCustomHeader("Einkommen")).setSortable(true);
+            })).setHeader(createCustomHeader("Einkommen")).setSortProperty("einkommen");
         }
 
-        if (miete.getValue()) addMietvertragColumn(Mietvertrag::getMiete, "Miete", true);
-        if (kaution.getValue()) addMietvertragColumn(Mietvertrag::getKaution, "Kaution", true);
+        if (miete.getValue()) addMietvertragColumn(Mietvertrag::getMiete, "miete", "Miete", true);
+        if (kaution.getValue()) addMietvertragColumn(Mietvertrag::getKaution, "kaution", "Kaution", true);
         if (anzahlBewohner.getValue())
-            addMietvertragColumn(Mietvertrag::getAnzahlBewohner, "Anzahl<br>Bewohner", false);
+            addMietvertragColumn(Mietvertrag::getAnzahlBewohner, "anzahlBewohner", "Anzahl<br>Bewohner", false);
         if (mietbeginn.getValue()) addMietvertragColumn(Mietvertrag::getMietbeginn);
-        if (mietende.getValue()) addMietvertragColumn(Mietvertrag::getMietende, "Mietende", false, true, true);
+        if (mietende.getValue()) addMietvertragColumn(Mietvertrag::getMietende, "mietende", "Mietende", false, true, true);
 
-        grid.addColumn(new ComponentRenderer<>(mieter -> {
-            List<Mietvertrag> mietvertraege = mietvertragService.findByMieter(mieter.getMieter_id());
+        grid.addColumn(new ComponentRenderer<>(item -> {
+            List<Mietvertrag> mietvertraege = item.mietvertraege();
 
             String content = mietvertraege.isEmpty() ? "Keine Wohnung" : mietvertraege.stream()
                     .map(mietvertrag -> {
@@ -367,9 +365,9 @@ public class MieterListView extends VerticalLayout {
             Span span = new Span();
             span.getElement().setProperty("innerHTML", content);
             return span;
-        })).setHeader(createCustomHeader("Mietobjekt")).setSortable(true);
+        })).setHeader(createCustomHeader("Mietobjekt")).setSortProperty("mietobjekt");
 
-        grid.getColumns().forEach(col -> col.setAutoWidth(true).setSortable(true));
+        grid.getColumns().forEach(col -> col.setAutoWidth(true));
     }
 
     /**
@@ -13,6 +13,7 @@ import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.menubar.MenuBar;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.TextField;
@@ -25,18 +26,19 @@ import com.vaadin.flow.spring.annotation.UIScope;
 import jakarta.annotation.security.PermitAll;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
+import org.springframework.scheduling.TaskScheduler;
 import projektarbeit.immobilienverwaltung.service.ConfigurationService;
+import projektarbeit.immobilienverwaltung.service.ExpandedStateStore;
+import projektarbeit.immobilienverwaltung.service.ExportService;
 import projektarbeit.immobilienverwaltung.service.MietvertragService;
 import projektarbeit.immobilienverwaltung.service.WohnungService;
+import projektarbeit.immobilienverwaltung.ui.components.ExportUtils;
 import projektarbeit.immobilienverwaltung.ui.components.TableUtils;
 import projektarbeit.immobilienverwaltung.ui.layout.MainLayout;
 import projektarbeit.immobilienverwaltung.ui.views.dialog.WohnungEditDialog;
 import projektarbeit.immobilienverwaltung.ui.views.mieter.MieterDetailsView;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.time.Duration;
 
 import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.createCustomHeader;
 
@@ -51,6 +53,11 @@ import static projektarbeit.immobilienverwaltung.ui.components.TableUtils.create
 @UIScope
 public class WohnungListView extends VerticalLayout {
 
+    /**
+     * Zeit ohne Auf- oder Zuklappen, nach der die aufgeklappten Gebäude gespeichert werden.
+     */
+    private static final Duration EXPANDED_STATE_VERZOEGERUNG = Duration.ofSeconds(2);
+
     private final WohnungService wohnungService;
     private final MietvertragService mietvertragService;
     private final ConfigurationService configurationService;
@@ -67,7 +74,7 @@ public class WohnungListView extends VerticalLayout {
     Checkbox garten = new Checkbox("Garten");
     Checkbox klimaanlage = new Checkbox("Klimaanlage");
     Checkbox mieter = new Checkbox("Mieter");
-    private Set<String> expandedNodeIds = new HashSet<>();
+    private final ExpandedStateStore expandedState;
     private Grid.Column<Wohnung> wohnungsnummerColumn;
     private Grid.Column<Wohnung> stockwerkColumn;
 
@@ -78,11 +85,17 @@ public class WohnungListView extends VerticalLayout {
      * @param wohnungService       der Dienst für Wohnungsoperationen
      * @param mietvertragService   der Dienst für Mietvertragsoperationen
      * @param configurationService der Dienst für Konfigurationseinstellungen
+     * @param taskScheduler        führt das verzögerte Speichern der aufgeklappten Gebäude aus
      */
-    public WohnungListView(WohnungService wohnungService, MietvertragService mietvertragService, ConfigurationService configurationService) {
+    public WohnungListView(WohnungService wohnungService, MietvertragService mietvertragService, ConfigurationService configurationService,
+                           TaskScheduler taskScheduler) {
         this.wohnungService = wohnungService;
         this.mietvertragService = mietvertragService;
         this.configurationService = configurationService;
+        UI ui = UI.getCurrent();
+        this.expandedState = new ExpandedStateStore(configurationService.getExpandedState(), taskScheduler,
+                EXPANDED_STATE_VERZOEGERUNG, wert -> ui.access(() -> configurationService.saveExpandedState(wert)));
+        addDetachListener(event -> expandedState.flush());
         addClassName("list-view");
         setSizeFull();
 
@@ -99,6 +112,7 @@ public class WohnungListView extends VerticalLayout {
 
         add(header, help, getToolbar(), createFilterAccordion(), getContent());
 
+        restoreExpandedState();
         updateList();
     }
 
@@ -209,11 +223,12 @@ public class WohnungListView extends VerticalLayout {
     private void updateGridColumns() {
         treeGrid.removeAllColumns();
 
-        treeGrid.addHierarchyColumn(Wohnung::getPostleitzahl).setHeader(createCustomHeader("PLZ"));
-        treeGrid.addColumn(Wohnung::getStadt).setHeader(createCustomHeader("Stadt"));
-        treeGrid.addColumn(Wohnung::getStrasseMitHausnummer).setHeader(createCustomHeader("Adresse")).setAutoWidth(true);
+        treeGrid.addHierarchyColumn(Wohnung::getPostleitzahl).setHeader(createCustomHeader("PLZ")).setSortProperty("postleitzahl");
+        treeGrid.addColumn(Wohnung::getStadt).setHeader(createCustomHeader("Stadt")).setSortProperty("stadt");
+        treeGrid.addColumn(Wohnung::getStrasseMitHausnummer).setHeader(createCustomHeader("Adresse")).setAutoWidth(true)
+                .setSortProperty("strasse", "hausnummer");
         if (land.getValue())
-            treeGrid.addColumn(wohnung -> wohnung.getLand().getName()).setHeader(createCustomHeader("Land"));
+            treeGrid.addColumn(wohnung -> wohnung.getLand().getName()).setHeader(createCustomHeader("Land")).setSortProperty("land");
 
         stockwerkColumn = treeGrid.addColumn(wohnung -> {
             return wohnung.getStockwerk() != null ? wohnung.getStockwerk() : "";
@@ -238,33 +253,25 @@ public class WohnungListView extends VerticalLayout {
         if (balkon.getValue()) {
             treeGrid.addComponentColumn(wohnung -> wohnung.isHeader() ? createEmptyIcon() : createIcon(wohnung.isHatBalkon()))
                     .setHeader(createCustomHeader("Balkon"))
-                    .setTextAlign(ColumnTextAlign.CENTER)
-                    .setSortable(true)
-                    .setComparator((wohnung1, wohnung2) -> Boolean.compare(wohnung1.isHatBalkon(), wohnung2.isHatBalkon()));
+                    .setTextAlign(ColumnTextAlign.CENTER);
         }
 
         if (terasse.getValue()) {
             treeGrid.addComponentColumn(wohnung -> wohnung.isHeader() ? createEmptyIcon() : createIcon(wohnung.isHatTerrasse()))
                     .setHeader(createCustomHeader("Terrasse"))
-                    .setTextAlign(ColumnTextAlign.CENTER)
-                    .setSortable(true)
-                    .setComparator((wohnung1, wohnung2) -> Boolean.compare(wohnung1.isHatTerrasse(), wohnung2.isHatTerrasse()));
+                    .setTextAlign(ColumnTextAlign.CENTER);
         }
 
         if (garten.getValue()) {
             treeGrid.addComponentColumn(wohnung -> wohnung.isHeader() ? createEmptyIcon() : createIcon(wohnung.isHatGarten()))
                     .setHeader(createCustomHeader("Garten"))
-                    .setTextAlign(ColumnTextAlign.CENTER)
-                    .setSortable(true)
-                    .setComparator((wohnung1, wohnung2) -> Boolean.compare(wohnung1.isHatGarten(), wohnung2.isHatGarten()));
+                    .setTextAlign(ColumnTextAlign.CENTER);
         }
 
         if (klimaanlage.getValue()) {
             treeGrid.addComponentColumn(wohnung -> wohnung.isHeader() ? createEmptyIcon() : createIcon(wohnung.isHatKlimaanlage()))
                     .setHeader(createCustomHeader("<div>Klima-<br>anlage</div>"))
-                    .setTextAlign(ColumnTextAlign.CENTER)
-                    .setSortable(true)
-                    .setComparator((wohnung1, wohnung2) -> Boolean.compare(wohnung1.isHatKlimaanlage(), wohnung2.isHatKlimaanlage()));
+                    .setTextAlign(ColumnTextAlign.CENTER);
         }
 
         if (mieter.getValue()) {
@@ -284,37 +291,33 @@ public class WohnungListView extends VerticalLayout {
             }).setHeader(createCustomHeader("Mieter"));
         }
         treeGrid.setSizeFull();
-        treeGrid.setSizeFull();
 
-        treeGrid.getColumns().forEach(col -> col.setAutoWidth(true).setSortable(true));
+        // Sortiert wird in der Datenbank, daher nur nach den Adressspalten
+        treeGrid.getColumns().forEach(col -> col.setAutoWidth(true));
 
-        boolean anyExpanded = !expandedNodeIds.isEmpty();
+        boolean anyExpanded = !expandedState.isEmpty();
         stockwerkColumn.setVisible(anyExpanded);
         wohnungsnummerColumn.setVisible(anyExpanded);
     }
 
     /**
      * Aktualisiert die Liste der Wohnungen im TreeGrid.
-     * Ruft die hierarchische Liste der Wohnungen ab und erweitert die Kopfzeilen.
+     * Lädt die Adressen neu aus der Datenbank; aufgeklappte Kopfzeilen bleiben aufgeklappt.
+     * Die Wohnungen aufgeklappter Kopfzeilen werden erst geladen, wenn sie sichtbar werden.
      */
     private void updateList() {
-        List<Wohnung> wohnungen = wohnungService.findWohnungenWithHierarchy(searchField.getValue());
-        TableUtils.configureTreeGrid(treeGrid, wohnungen, 50, Wohnung::getSubWohnungen);
-        treeGrid.setItems(wohnungen, Wohnung::getSubWohnungen);
-        restoreExpandedState();
-        wohnungen.stream()
-                .filter(wohnung -> expandedNodeIds.contains(wohnung.getUniqueIdentifier()))
-                .forEach(treeGrid::expand);
+        treeGrid.getDataProvider().refreshAll();
         updateGridColumns();
     }
 
     /**
      * Konfiguriert das TreeGrid zur Anzeige von Wohnungen.
-     * Setzt Klassennamen, Größe, Spalten und Wertänderungs-Listener.
+     * Setzt Klassennamen, Größe, den lazy ladenden DataProvider, Spalten und Wertänderungs-Listener.
      */
     private void configureTreeGrid() {
         treeGrid.addClassNames("wohnung-grid");
         treeGrid.setSizeFull();
+        TableUtils.configureLazyTreeGrid(treeGrid, new WohnungTreeDataProvider(wohnungService, searchField::getValue));
 
         updateGridColumns();
 
@@ -326,14 +329,12 @@ public class WohnungListView extends VerticalLayout {
         });
 
         treeGrid.addExpandListener(event -> {
-            event.getItems().forEach(item -> expandedNodeIds.add(item.getUniqueIdentifier()));
-            saveExpandedState();
+            event.getItems().forEach(item -> expandedState.aufklappen(item.getGebaeudeId()));
             updateGridColumns();
         });
 
         treeGrid.addCollapseListener(event -> {
-            event.getItems().forEach(item -> expandedNodeIds.remove(item.getUniqueIdentifier()));
-            saveExpandedState();
+            event.getItems().forEach(item -> expandedState.zuklappen(item.getGebaeudeId()));
             updateGridColumns();
         });
     }
@@ -360,10 +361,10 @@ public class WohnungListView extends VerticalLayout {
      * @return die konfigurierte Werkzeugleiste
      */
     private HorizontalLayout getToolbar() {
-        searchField.setPlaceholder("Filter nach Adresse...");
+        searchField.setPlaceholder("Suche nach Adresse, PLZ oder Stadt...");
         searchField.setPrefixComponent(VaadinIcon.SEARCH.create());
         searchField.setClearButtonVisible(true);
-        searchField.setValueChangeMode(ValueChangeMode.EAGER);
+        searchField.setValueChangeMode(ValueChangeMode.LAZY);
         searchField.addValueChangeListener(e -> updateList());
 
         Button addButton = new Button("Wohnung hinzufügen");
@@ -378,7 +379,10 @@ public class WohnungListView extends VerticalLayout {
             dialog.open();
         });
 
-        var toolbar = new HorizontalLayout(searchField, addButton);
+        MenuBar exportMenu = ExportUtils.createExportMenu(() -> new ExportService.Filter(null, null, searchField.getValue()),
+                ExportService.Art.WOHNUNGEN, ExportService.Art.ZAEHLERSTAENDE);
+
+        var toolbar = new HorizontalLayout(searchField, addButton, exportMenu);
         toolbar.addClassName("toolbar");
         toolbar.setWidthFull();
         toolbar.setFlexGrow(1, searchField);
@@ -409,28 +413,11 @@ public class WohnungListView extends VerticalLayout {
         return icon;
     }
 
-    /**
-     * Speichert den erweiterten Zustand der TreeGrid-Knoten.
-     * Nur gültige (nicht-leere) Knotennamen werden gespeichert.
-     */
-    private void saveExpandedState() {
-        Set<String> validExpandedNodeIds = new HashSet<>();
-        for (String nodeId : expandedNodeIds) {
-            if (nodeId != null && !nodeId.isEmpty()) {
-                validExpandedNodeIds.add(nodeId);
-            }
-        }
-        configurationService.saveExpandedNodes(new ArrayList<>(validExpandedNodeIds));
-    }
-
     /**
      * Stellt den erweiterten Zustand der TreeGrid-Knoten wieder her.
-     * Basierend auf dem gespeicherten Zustand wird die Sichtbarkeit der Spalten 'stockwerk' und 'wohnungsnummer' aktualisiert.
+     * Die Adressen der gespeicherten Gebäude werden mit einer Abfrage geladen und ihre Kopfzeilen aufgeklappt.
      */
     private void restoreExpandedState() {
-        expandedNodeIds = new HashSet<>(configurationService.getExpandedNodes());
-        boolean anyExpanded = !expandedNodeIds.isEmpty();
-        stockwerkColumn.setVisible(anyExpanded);
-        wohnungsnummerColumn.setVisible(anyExpanded);
+        treeGrid.expand(wohnungService.findGebaeudeHeader(expandedState.getGebaeudeIds()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package projektarbeit.immobilienverwaltung.ui.views.wohnung;
+
+import com.vaadin.flow.data.provider.hierarchy.AbstractBackEndHierarchicalDataProvider;
+import com.vaadin.flow.data.provider.hierarchy.HierarchicalQuery;
+import com.vaadin.flow.function.SerializableSupplier;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.service.OffsetPageRequest;
+import projektarbeit.immobilienverwaltung.service.WohnungService;
+
+import java.util.stream.Stream;
+
+/**
+ * Hierarchischer DataProvider für das TreeGrid der {@link WohnungListView}.
+ * Die oberste Ebene besteht aus den in der Datenbank gruppierten Adressen, die Wohnungen eines Header-Knotens
+ * werden erst beim Aufklappen geladen. Beide Ebenen werden seitenweise abgefragt.
+ */
+public class WohnungTreeDataProvider extends AbstractBackEndHierarchicalDataProvider<Wohnung, Void> {
+
+    private final transient WohnungService wohnungService;
+    private final SerializableSupplier<String> filterSupplier;
+
+    /**
+     * Konstruktor für WohnungTreeDataProvider.
+     *
+     * @param wohnungService der Dienst, über den die Wohnungen geladen werden
+     * @param filterSupplier liefert den aktuellen Filterstring der Ansicht
+     */
+    public WohnungTreeDataProvider(WohnungService wohnungService, SerializableSupplier<String> filterSupplier) {
+        this.wohnungService = wohnungService;
+        this.filterSupplier = filterSupplier;
+    }
+
+    @Override
+    public int getChildCount(HierarchicalQuery<Wohnung, Void> query) {
+        Wohnung parent = query.getParent();
+        if (parent == null) {
+            return (int) wohnungService.countWohnungenWithHierarchy(filterSupplier.get());
+        }
+        return (int) parent.getAnzahlSubWohnungen();
+    }
+
+    @Override
+    public boolean hasChildren(Wohnung item) {
+        return item.isHeader();
+    }
+
+    @Override
+    protected Stream<Wohnung> fetchChildrenFromBackEnd(HierarchicalQuery<Wohnung, Void> query) {
+        OffsetPageRequest pageable = OffsetPageRequest.of(query.getOffset(), query.getLimit(),
+                VaadinSpringDataHelpers.toSpringDataSort(query));
+        Wohnung parent = query.getParent();
+        if (parent == null) {
+            return wohnungService.findWohnungenWithHierarchy(filterSupplier.get(), pageable).stream();
+        }
+        return wohnungService.findSubWohnungen(parent, pageable).stream();
+    }
+
+    /**
+     * Header-Knoten werden bei jedem Laden neu erstellt und daher über ihre Adresse identifiziert,
+     * Wohnungen über ihre ID. So bleiben aufgeklappte Knoten auch nach einem Neuladen erhalten.
+     */
+    @Override
+    public Object getId(Wohnung item) {
+        return item.isHeader() ? item.getUniqueIdentifier() : item.getWohnung_id();
+    }
+}
@@ -0,0 +1,16 @@
+-- Legt die Gebäude-ID an bestehenden Wohnungen an. Sie wird wie in Wohnung.gebaeudeId aus den ersten 48 Bit des
+-- SHA-256 der mit | verbundenen Adressfelder berechnet, damit gespeicherte aufgeklappte Gebäude gültig bleiben.
+-- Das Skript läuft bei jedem Start vor Hibernate und füllt nur Wohnungen ohne Gebäude-ID.
+DO $$
+BEGIN
+    IF to_regclass('wohnung') IS NOT NULL THEN
+        ALTER TABLE wohnung ADD COLUMN IF NOT EXISTS gebaeude_id bigint;
+        UPDATE wohnung
+        SET gebaeude_id = ('x' || left(encode(sha256(convert_to(
+                coalesce(strasse, 'null') || '|' || coalesce(hausnummer, 'null') || '|' ||
+                coalesce(postleitzahl, 'null') || '|' || coalesce(stadt, 'null') || '|' || coalesce(land, ''),
+                'UTF8')), 'hex'), 12))::bit(48)::bigint
+        WHERE gebaeude_id IS NULL;
+    END IF;
+END
+$$@@
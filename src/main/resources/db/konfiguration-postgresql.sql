@@ -0,0 +1,28 @@
+-- Macht die Einstellungen benutzerbezogen: Der Primärschlüssel besteht aus Benutzer und Schlüssel.
+-- Vorhandene Einstellungen bleiben als anwendungsweite Werte (leerer Benutzer) erhalten.
+-- Das Skript läuft bei jedem Start vor Hibernate und ändert die Tabelle nur einmal.
+DO $$
+BEGIN
+    IF to_regclass('configuration') IS NOT NULL AND NOT EXISTS (
+            SELECT 1 FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = 'configuration' AND column_name = 'benutzer') THEN
+        ALTER TABLE configuration ADD COLUMN benutzer varchar(255) NOT NULL DEFAULT '';
+        ALTER TABLE configuration DROP CONSTRAINT IF EXISTS configuration_pkey;
+        ALTER TABLE configuration ADD PRIMARY KEY (benutzer, config_key);
+    END IF;
+END
+$$@@
+
+-- Zeilen ohne Wert stammen aus der Zeit vor der Validierung und werden wie ein nicht gesetzter Wert behandelt.
+-- Sie werden entfernt, danach verhindert die Spalte neue.
+DO $$
+BEGIN
+    IF EXISTS (
+            SELECT 1 FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = 'configuration' AND column_name = 'config_value'
+                AND is_nullable = 'YES') THEN
+        DELETE FROM configuration WHERE config_value IS NULL;
+        ALTER TABLE configuration ALTER COLUMN config_value SET NOT NULL;
+    END IF;
+END
+$$@@
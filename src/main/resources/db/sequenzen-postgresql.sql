@@ -0,0 +1,30 @@
+-- Legt die Sequenzen der Entitäten an und setzt sie hinter die höchste vergebene ID.
+-- Hibernate reserviert je Aufruf von nextval einen Block von 50 IDs, der mit dem gelieferten Wert endet.
+-- Das Skript läuft bei jedem Start vor Hibernate und setzt eine Sequenz nur nach vorne.
+DO $$
+DECLARE
+    eintrag record;
+    sequenz text;
+    hoechste bigint;
+    letzter bigint;
+BEGIN
+    FOR eintrag IN SELECT * FROM (VALUES
+            ('wohnung', 'wohnung_id'),
+            ('mieter', 'mieter_id'),
+            ('mietvertrag', 'mietvertrag_id'),
+            ('zaehlerstand', 'zaehlerstand_id'),
+            ('dokument', 'dokument_id')) AS t(tabelle, spalte)
+    LOOP
+        sequenz := eintrag.tabelle || '_seq';
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', sequenz);
+        IF to_regclass(eintrag.tabelle) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(%I), 0) FROM %I', eintrag.spalte, eintrag.tabelle) INTO hoechste;
+            SELECT last_value INTO letzter FROM pg_sequences
+                WHERE schemaname = current_schema() AND sequencename = sequenz;
+            IF hoechste > 0 AND (letzter IS NULL OR letzter < hoechste) THEN
+                PERFORM setval(quote_ident(sequenz), hoechste + 50, false);
+            END IF;
+        END IF;
+    END LOOP;
+END
+$$@@
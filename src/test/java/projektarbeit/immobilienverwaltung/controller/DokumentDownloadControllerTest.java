@@ -0,0 +1,220 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.service.DokumentService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DokumentDownloadControllerTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @Mock
+    private DokumentService dokumentService;
+
+    @InjectMocks
+    private DokumentDownloadController controller;
+
+    @TempDir
+    Path tempDir;
+
+    private final Authentication benutzer = new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN");
+    private Dokument dokument;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path datei = Files.writeString(tempDir.resolve(HASH), "0123456789");
+        dokument = new Dokument(null, new Mieter(), "Mietvertrag.pdf", datei.toString());
+        dokument.setMimeType("application/pdf");
+        request = new MockHttpServletRequest("GET", "/api/dokumente/1");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void datei_DeliversWholeFile() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("\"" + HASH + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("inline"));
+    }
+
+    @Test
+    void datei_DeliversRequestedRange() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        controller.datei(1L, true, benutzer, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("attachment"));
+    }
+
+    @Test
+    void datei_DeliversSuffixRange() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    void datei_RejectsUnsatisfiableRange() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void datei_IgnoresRangeWhenIfRangeDoesNotMatch() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"veraltet\"");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void datei_ReturnsNotModifiedForMatchingEtag() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void datei_UsesSendfileWhenSupported() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.setAttribute(DokumentDownloadController.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(dokument.getDateipfad(), request.getAttribute(DokumentDownloadController.SENDFILE_FILENAME));
+        assertEquals(4L, request.getAttribute(DokumentDownloadController.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(DokumentDownloadController.SENDFILE_END));
+        assertEquals(6, response.getContentLengthLong());
+    }
+
+    @Test
+    void datei_HidesDocumentsWithoutAccess() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+
+        controller.datei(1L, false, null, request, response);
+        assertEquals(404, response.getStatus());
+
+        Dokument ohneBesitzer = new Dokument(null, null, "Alt.pdf", dokument.getDateipfad());
+        when(dokumentService.findById(2L)).thenReturn(ohneBesitzer);
+        MockHttpServletResponse zweiteAntwort = new MockHttpServletResponse();
+        controller.datei(2L, false, benutzer, request, zweiteAntwort);
+        assertEquals(404, zweiteAntwort.getStatus());
+    }
+
+    @Test
+    void datei_ReturnsNotFoundForMissingFile() throws IOException {
+        when(dokumentService.findById(1L)).thenReturn(null);
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    void etag_UsesSizeAndModificationTimeForLegacyFiles() throws IOException {
+        Path alt = Files.writeString(tempDir.resolve("b1946ac9-uuid.pdf"), "abc");
+        String etag = DokumentDownloadController.etag(alt, Files.readAttributes(alt, BasicFileAttributes.class), false);
+
+        assertTrue(etag.startsWith("\"3-"));
+        assertTrue(etag.endsWith("\""));
+    }
+
+    @Test
+    void datei_DeliversCompressedFileAsGzip() throws IOException {
+        Path komprimiert = komprimiertesDokument("Hausordnung");
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertEquals("\"" + HASH + "-gzip\"", response.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(Files.readAllBytes(komprimiert), response.getContentAsByteArray());
+    }
+
+    @Test
+    void datei_DecompressesForClientsWithoutGzip() throws IOException {
+        komprimiertesDokument("Hausordnung");
+        when(dokumentService.findById(1L)).thenReturn(dokument);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        controller.datei(1L, false, benutzer, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("none", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("\"" + HASH + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("Hausordnung", response.getContentAsString());
+    }
+
+    private Path komprimiertesDokument(String inhalt) throws IOException {
+        Path komprimiert = tempDir.resolve(HASH + ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(komprimiert))) {
+            out.write(inhalt.getBytes(StandardCharsets.UTF_8));
+        }
+        dokument.setDateipfad(komprimiert.toString());
+        dokument.setMimeType("text/plain");
+        return komprimiert;
+    }
+}
@@ -0,0 +1,72 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import projektarbeit.immobilienverwaltung.security.ApiSecurityConfig;
+import projektarbeit.immobilienverwaltung.service.ImportService;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prüft die Import-Schnittstelle mit aktivierter Sicherheitskonfiguration.
+ */
+@WebMvcTest(ImportController.class)
+@Import(ApiSecurityConfig.class)
+class ImportControllerTest {
+
+    private static final String CSV = "strasse;hausnummer;postleitzahl;stadt;land\nHauptstraße;1;12345;Berlin;DE\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportService importService;
+
+    @Test
+    void importieren_ImportsFileForAdmin() throws Exception {
+        when(importService.importieren(any(InputStream.class), eq(ImportService.Format.CSV)))
+                .thenReturn(new ImportService.Bericht(1, 1, 0, 0, 0, List.of(), false));
+
+        mockMvc.perform(post(ImportController.PATH).contentType("text/csv").content(CSV)
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.wohnungen").value(1));
+
+        verify(importService).importieren(any(InputStream.class), eq(ImportService.Format.CSV));
+    }
+
+    @Test
+    void importieren_RequiresHeaderOrCsrfToken() throws Exception {
+        mockMvc.perform(post(ImportController.PATH).contentType("text/csv").content(CSV)
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void importieren_RequiresAdminRole() throws Exception {
+        mockMvc.perform(post(ImportController.PATH).contentType("text/csv").content(CSV)
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest").with(user("benutzer").roles("USER")))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post(ImportController.PATH).contentType("text/csv").content(CSV)
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(importService);
+    }
+}
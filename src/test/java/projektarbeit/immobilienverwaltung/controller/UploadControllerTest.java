@@ -0,0 +1,202 @@
+package projektarbeit.immobilienverwaltung.controller;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+import projektarbeit.immobilienverwaltung.security.ApiSecurityConfig;
+import projektarbeit.immobilienverwaltung.service.BlobStore;
+import projektarbeit.immobilienverwaltung.service.DokumentService;
+import projektarbeit.immobilienverwaltung.service.MieterService;
+import projektarbeit.immobilienverwaltung.service.UploadService;
+import projektarbeit.immobilienverwaltung.service.WohnungService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prüft die Upload-Schnittstelle mit aktivierter Sicherheitskonfiguration.
+ */
+@WebMvcTest(UploadController.class)
+@Import({ApiSecurityConfig.class, UploadService.class, BlobStore.class})
+class UploadControllerTest {
+
+    private static final String ABBRUCH_NACH = "abbruchNach";
+
+    @TempDir
+    static Path tempDir;
+
+    @DynamicPropertySource
+    static void speicherpfad(DynamicPropertyRegistry registry) {
+        registry.add("document.storage.path", () -> tempDir.toString());
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @MockBean
+    private DokumentRepository dokumentRepository;
+
+    @MockBean
+    private DokumentService dokumentService;
+
+    @MockBean
+    private MieterService mieterService;
+
+    @MockBean
+    private WohnungService wohnungService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .apply(springSecurity())
+                .addFilters(new AbbrechenderFilter())
+                .build();
+    }
+
+    @Test
+    void upload_ResumesAfterInterruptedAppend() throws Exception {
+        String location = mockMvc.perform(post(UploadController.PATH)
+                        .param("dateiname", "Mietvertrag.txt").param("groesse", "10")
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest").with(user("admin")))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(UploadController.UPLOAD_OFFSET, "0"))
+                .andReturn().getResponse().getHeader("Location");
+        String id = location.substring(location.lastIndexOf('/') + 1);
+
+        // Die Verbindung bricht nach vier Bytes ab
+        assertThrows(Exception.class, () -> mockMvc.perform(patch(location).content("0123456789")
+                .header(UploadController.UPLOAD_OFFSET, "0")
+                .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest").with(user("admin"))
+                .with(abbrechenNach(4))));
+
+        mockMvc.perform(head(location).with(user("admin")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(UploadController.UPLOAD_OFFSET, "4"))
+                .andExpect(header().string(UploadController.UPLOAD_LENGTH, "10"));
+
+        mockMvc.perform(patch(location).content("456789")
+                        .header(UploadController.UPLOAD_OFFSET, "4")
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest").with(user("admin")))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(UploadController.UPLOAD_OFFSET, "10"));
+
+        BlobStore.StoredBlob blob = uploadService.abschliessen(id, "text/plain", b -> {
+        });
+        assertEquals("0123456789", Files.readString(blob.path()));
+    }
+
+    @Test
+    void upload_RequiresHeaderOrCsrfToken() throws Exception {
+        mockMvc.perform(post(UploadController.PATH)
+                        .param("dateiname", "Mietvertrag.pdf").param("groesse", "10").with(user("admin")))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post(UploadController.PATH)
+                        .param("dateiname", "Mietvertrag.pdf").param("groesse", "10").with(user("admin")).with(csrf()))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void upload_RequiresAuthentication() throws Exception {
+        mockMvc.perform(post(UploadController.PATH)
+                        .param("dateiname", "Mietvertrag.pdf").param("groesse", "10")
+                        .header(ApiSecurityConfig.API_HEADER, "XMLHttpRequest"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static RequestPostProcessor abbrechenNach(int bytes) {
+        return request -> {
+            request.setAttribute(ABBRUCH_NACH, bytes);
+            return request;
+        };
+    }
+
+    /**
+     * Liefert den Inhalt einer Anfrage mit dem Attribut {@link #ABBRUCH_NACH} nur bis zur angegebenen Anzahl an
+     * Bytes und bricht dann wie eine getrennte Verbindung ab.
+     */
+    private static final class AbbrechenderFilter implements Filter {
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+            Object abbruchNach = request.getAttribute(ABBRUCH_NACH);
+            if (abbruchNach == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            HttpServletRequest original = (HttpServletRequest) request;
+            byte[] inhalt = original.getInputStream().readAllBytes();
+            ByteArrayInputStream teil = new ByteArrayInputStream(inhalt, 0, (Integer) abbruchNach);
+            chain.doFilter(new HttpServletRequestWrapper(original) {
+                @Override
+                public ServletInputStream getInputStream() {
+                    return new ServletInputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            int b = teil.read();
+                            if (b < 0) throw new IOException("Verbindung getrennt");
+                            return b;
+                        }
+
+                        @Override
+                        public int read(byte[] b, int off, int len) throws IOException {
+                            int gelesen = teil.read(b, off, len);
+                            if (gelesen < 0) throw new IOException("Verbindung getrennt");
+                            return gelesen;
+                        }
+
+                        @Override
+                        public boolean isFinished() {
+                            return false;
+                        }
+
+                        @Override
+                        public boolean isReady() {
+                            return true;
+                        }
+
+                        @Override
+                        public void setReadListener(ReadListener listener) {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            }, response);
+        }
+    }
+}
@@ -256,4 +256,17 @@ public class WohnungTest {
         Set<ConstraintViolation<Wohnung>> violations = validator.validate(wohnung);
         assertTrue(violations.isEmpty(), "Wohnung mit minimaler Anzahl Schlafzimmer sollte keine Verstöße haben");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdresseGeaendert() {
+        wohnung = new Wohnung("Musterstraße", "11", "12345", "Musterstadt", Land.DE, 200, 2000, 2, 2, false, false, false, false, null, null);
+        assertTrue(wohnung.isAdresseGeaendert(), "Neue Wohnung sollte als geändert gelten");
+
+        wohnung.merkeAdresse();
+        wohnung.setAnzahlBaeder(3);
+        assertFalse(wohnung.isAdresseGeaendert(), "Andere Felder sollten die Adresse nicht ändern");
+
+        wohnung.setHausnummer("12");
+        assertTrue(wohnung.isAdresseGeaendert(), "Geänderte Hausnummer sollte erkannt werden");
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import projektarbeit.immobilienverwaltung.model.Configuration;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,7 +41,7 @@ public class ConfigurationRepositoryTest {
     @Test
     public void testFindById() {
         configurationRepository.save(configuration);
-        Optional<Configuration> foundConfiguration = configurationRepository.findById("testKey");
+        Optional<Configuration> foundConfiguration = configurationRepository.findById(new Configuration.Schluessel(Configuration.GLOBAL, "testKey"));
         assertTrue(foundConfiguration.isPresent());
         assertEquals("testKey", foundConfiguration.get().getConfigKey());
         assertEquals("testValue", foundConfiguration.get().getConfigValue());
@@ -55,7 +56,7 @@ public class ConfigurationRepositoryTest {
 
         configurationRepository.save(updatedConfiguration);
 
-        Optional<Configuration> foundConfiguration = configurationRepository.findById("testKey");
+        Optional<Configuration> foundConfiguration = configurationRepository.findById(new Configuration.Schluessel(Configuration.GLOBAL, "testKey"));
         assertTrue(foundConfiguration.isPresent());
         assertEquals("newValue", foundConfiguration.get().getConfigValue());
     }
@@ -63,9 +64,9 @@ public class ConfigurationRepositoryTest {
     @Test
     public void testDeleteConfiguration() {
         configurationRepository.save(configuration);
-        configurationRepository.deleteById("testKey");
+        configurationRepository.deleteById(new Configuration.Schluessel(Configuration.GLOBAL, "testKey"));
 
-        Optional<Configuration> foundConfiguration = configurationRepository.findById("testKey");
+        Optional<Configuration> foundConfiguration = configurationRepository.findById(new Configuration.Schluessel(Configuration.GLOBAL, "testKey"));
         assertFalse(foundConfiguration.isPresent());
     }
 
@@ -87,4 +88,16 @@ public class ConfigurationRepositoryTest {
         assertNotNull(configurations);
         assertEquals(3, ((Collection<?>) configurations).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindByBenutzer() {
+        configurationRepository.save(configuration);
+        configurationRepository.save(new Configuration("anna", "testKey", "annaValue"));
+        configurationRepository.save(new Configuration("bernd", "testKey", "berndValue"));
+
+        List<Configuration> configurations = configurationRepository.findByBenutzer("anna");
+        assertEquals(1, configurations.size());
+        assertEquals("annaValue", configurations.get(0).getConfigValue());
+        assertEquals(1, configurationRepository.findByBenutzer(Configuration.GLOBAL).size());
+    }
+}
@@ -5,9 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DokumentFilter;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.QuickSearchHit;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 
 import java.util.List;
@@ -119,4 +123,73 @@ public class DokumentRepositoryTest {
         assertThat(found).isNotNull();
         assertThat(found.getDokumententyp()).isEqualTo("UpdatedTyp");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindQuickSearchZeilen() {
+        Dokument dokument1 = dokumentRepository.save(new Dokument(wohnung, null, "Typ1", "/pfad/zu/datei1.pdf"));
+        Dokument dokument2 = dokumentRepository.save(new Dokument(null, mieter, "Typ2", "/pfad/zu/datei2.pdf"));
+
+        assertThat(dokumentRepository.findQuickSearchZeilen()).hasSize(2);
+
+        List<Object[]> zeilen = dokumentRepository.findQuickSearchZeilenByIds(List.of(dokument2.getDokument_id()));
+
+        assertThat(zeilen).hasSize(1);
+        QuickSearchHit hit = QuickSearchHit.ausZeile(QuickSearchHit.Typ.DOKUMENT, zeilen.getFirst());
+        assertThat(hit.titel()).isEqualTo("Typ2");
+        assertThat(hit.beschreibung()).endsWith("Mustermann");
+        assertThat(hit.wohnungId()).isNull();
+        assertThat(dokumentRepository.findQuickSearchZeilenByIds(List.of(dokument1.getDokument_id())))
+                .extracting(zeile -> QuickSearchHit.ausZeile(QuickSearchHit.Typ.DOKUMENT, zeile).wohnungId())
+                .containsExactly(wohnung.getWohnung_id());
+    }
+
+    @Test
+    public void testFindSliceWithFilter() {
+        dokumentRepository.save(new Dokument(wohnung, null, "Energieausweis", "/pfad/zu/datei1.pdf"));
+        dokumentRepository.save(new Dokument(null, mieter, "Mietvertrag", "/pfad/zu/datei2.pdf"));
+        dokumentRepository.save(new Dokument(wohnung, mieter, "Nebenkosten_2023", "/pfad/zu/datei3.pdf"));
+
+        DokumentFilter nachMieter = new DokumentFilter(mieter.getMieter_id(), null, null);
+        assertThat(dokumentRepository.findSlice(DokumentSpecifications.of(nachMieter), PageRequest.of(0, 10, Sort.by("dokumententyp"))))
+                .extracting(Dokument::getDokumententyp).containsExactly("Mietvertrag", "Nebenkosten_2023");
+        assertThat(dokumentRepository.count(DokumentSpecifications.of(nachMieter))).isEqualTo(2);
+
+        DokumentFilter nachWohnungUndName = new DokumentFilter(null, wohnung.getWohnung_id(), "energie");
+        assertThat(dokumentRepository.findSlice(DokumentSpecifications.of(nachWohnungUndName), PageRequest.of(0, 10)))
+                .extracting(Dokument::getDokumententyp).containsExactly("Energieausweis");
+
+        // Jedes Wort muss in Dokumenttyp, Mietername oder Adresse vorkommen, "_" ist kein Platzhalter
+        assertThat(dokumentRepository.count(DokumentSpecifications.of(new DokumentFilter(null, null, "max stuttgart")))).isEqualTo(1);
+        assertThat(dokumentRepository.count(DokumentSpecifications.of(new DokumentFilter(null, null, "n_ben")))).isZero();
+        assertThat(dokumentRepository.count(DokumentSpecifications.of(DokumentFilter.alle()))).isEqualTo(3);
+    }
+
+    @Test
+    public void testFindSliceSortsAndPagesByAssociation() {
+        Mieter mieter2 = new Mieter("Abel", "Anna", "071112345", "anna@abel.de", 2800.0);
+        mieter2 = mieterRepository.save(mieter2);
+        dokumentRepository.save(new Dokument(wohnung, null, "Typ1", "/pfad/zu/datei1.pdf"));
+        dokumentRepository.save(new Dokument(null, mieter, "Typ2", "/pfad/zu/datei2.pdf"));
+        dokumentRepository.save(new Dokument(null, mieter2, "Typ3", "/pfad/zu/datei3.pdf"));
+
+        Sort sort = Sort.by("mieter.name").and(Sort.by("dokument_id"));
+
+        assertThat(dokumentRepository.findSlice(DokumentSpecifications.of(DokumentFilter.alle()), PageRequest.of(0, 2, sort)))
+                .extracting(Dokument::getDokumententyp).containsExactly("Typ3", "Typ2");
+        assertThat(dokumentRepository.findSlice(DokumentSpecifications.of(DokumentFilter.alle()), PageRequest.of(1, 2, sort)))
+                .extracting(Dokument::getDokumententyp).containsExactly("Typ1");
+    }
+
+    @Test
+    public void testUpdateVerarbeitungMakesTextSearchable() {
+        Dokument verarbeitet = dokumentRepository.save(new Dokument(wohnung, null, "Scan.pdf", "/pfad/zu/datei1.pdf"));
+        Dokument offen = dokumentRepository.save(new Dokument(null, mieter, "Foto.jpg", "/pfad/zu/datei2.jpg"));
+
+        assertThat(dokumentRepository.findUnverarbeiteteIds()).containsExactlyInAnyOrder(verarbeitet.getDokument_id(), offen.getDokument_id());
+
+        dokumentRepository.updateVerarbeitung(verarbeitet.getDokument_id(), "application/pdf", false, "Betriebskostenabrechnung 2023");
+
+        assertThat(dokumentRepository.findUnverarbeiteteIds()).containsExactly(offen.getDokument_id());
+        assertThat(dokumentRepository.count(DokumentSpecifications.of(new DokumentFilter(null, null, "betriebskosten")))).isEqualTo(1);
+    }
+}
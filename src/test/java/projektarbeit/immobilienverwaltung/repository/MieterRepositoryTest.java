@@ -5,13 +5,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.SearchDocument;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.service.InMemorySearchIndex;
+import projektarbeit.immobilienverwaltung.service.SearchIndex;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static projektarbeit.immobilienverwaltung.model.Land.DE;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
@@ -20,6 +30,12 @@ public class MieterRepositoryTest {
     @Autowired
     private MieterRepository mieterRepository;
 
+    @Autowired
+    private WohnungRepository wohnungRepository;
+
+    @Autowired
+    private MietvertragRepository mietvertragRepository;
+
     @Test
     public void testSaveAndFindMieter() {
         Mieter mieter = new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3000);
@@ -42,11 +58,10 @@ public class MieterRepositoryTest {
         mieterRepository.save(mieter1);
         mieterRepository.save(mieter2);
 
-        List<Mieter> results = mieterRepository.search("Mustermann");
+        SearchIndex searchIndex = new InMemorySearchIndex(mieterRepository, wohnungRepository, mietvertragRepository);
 
-        assertThat(results).hasSize(1);
-        assertThat(results.getFirst().getName()).isEqualTo("Mustermann");
-        assertThat(results.getFirst().getVorname()).isEqualTo("Max");
+        assertThat(searchIndex.searchMieter("Mustermann")).containsExactly(mieter1.getMieter_id());
+        assertThat(searchIndex.searchMieter("Max")).containsExactly(mieter1.getMieter_id());
     }
 
     @Test
@@ -77,9 +92,9 @@ public class MieterRepositoryTest {
         mieterRepository.save(mieter1);
         mieterRepository.save(mieter2);
 
-        List<Mieter> results = mieterRepository.search("NonExistent");
+        SearchIndex searchIndex = new InMemorySearchIndex(mieterRepository, wohnungRepository, mietvertragRepository);
 
-        assertThat(results).isEmpty();
+        assertThat(searchIndex.searchMieter("NonExistent")).isEmpty();
     }
 
     @Test
@@ -92,6 +107,43 @@ public class MieterRepositoryTest {
     @Test
     public void testSaveMieterWithNullFields() {
         Mieter mieter = new Mieter(null, "Max", "491234567890", "max@mustermann.de", 3000);
-        assertThrows(ConstraintViolationException.class, () -> mieterRepository.save(mieter));
+        assertThrows(ConstraintViolationException.class, () -> mieterRepository.saveAndFlush(mieter));
+    }
+
+    @Test
+    public void testFindPageWithFilter() {
+        mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3000));
+        mieterRepository.save(new Mieter("Meier", "Anna", "491234567891", "anna@meier.de", 3200));
+        mieterRepository.save(new Mieter("Meyer", "Ben", "491234567892", "ben@meyer.de", 2800));
+
+        List<Mieter> firstPage = mieterRepository.findPage(PageRequest.of(0, 2, Sort.by("name")));
+        List<Mieter> secondPage = mieterRepository.findPage(PageRequest.of(1, 2, Sort.by("name")));
+
+        assertThat(firstPage).extracting(Mieter::getName).containsExactly("Meier", "Meyer");
+        assertThat(secondPage).extracting(Mieter::getName).containsExactly("Mustermann");
+    }
+
+    @Test
+    public void testFindPageSortedByMiete() {
+        Mieter guenstig = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3000));
+        Mieter teuer = mieterRepository.save(new Mieter("Meier", "Anna", "491234567891", "anna@meier.de", 3200));
+        Wohnung wohnung1 = wohnungRepository.save(new Wohnung("Teststraße", "11", "07111", "Stuttgart", DE, 200, 1900, 2, 1, true, true, true, true, null, null));
+        Wohnung wohnung2 = wohnungRepository.save(new Wohnung("Teststraße", "12", "07111", "Stuttgart", DE, 200, 1900, 2, 1, true, true, true, true, null, null));
+        mietvertragRepository.save(new Mietvertrag(guenstig, wohnung1, LocalDate.now(), null, 1000.0, 500.0, 1));
+        mietvertragRepository.save(new Mietvertrag(teuer, wohnung2, LocalDate.now(), null, 2000.0, 900.0, 1));
+
+        Sort sort = JpaSort.unsafe(Sort.Direction.DESC, "min(v.miete)").and(Sort.by("mieterId"));
+        List<Mieter> result = mieterRepository.findPage(PageRequest.of(0, 10, sort));
+
+        assertThat(result).extracting(Mieter::getName).containsExactly("Meier", "Mustermann");
+    }
+
+    @Test
+    public void testFindSearchDocuments() {
+        Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3000));
+
+        List<SearchDocument> documents = mieterRepository.findSearchDocuments();
+
+        assertThat(documents).containsExactly(new SearchDocument(mieter.getMieter_id(), "Mustermann Max max@mustermann.de 491234567890"));
     }
-}
\ No newline at end of file
+}
@@ -6,8 +6,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.QuickSearchHit;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 
 import java.time.LocalDate;
@@ -96,4 +98,52 @@ public class MietvertragRepositoryTest {
 
         assertThat(mietvertraege).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadDashboardStats() {
+        Mietvertrag mietvertrag = new Mietvertrag(mieter, wohnung, LocalDate.now(), LocalDate.now().plusYears(1), 1500.0, 800.0, 2);
+        mietvertragRepository.save(mietvertrag);
+
+        DashboardStats stats = mietvertragRepository.loadDashboardStats();
+
+        assertThat(stats.mieteinnahmen()).isEqualTo(mietvertrag.getMiete());
+        assertThat(stats.totalWohnungen()).isEqualTo(2);
+        assertThat(stats.vermieteteWohnungen()).isEqualTo(1);
+        assertThat(stats.totalMieter()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSumMieteWithoutMietvertraege() {
+        assertThat(mietvertragRepository.sumMiete()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void testFindByMieterIdsWithWohnung() {
+        Mieter mieter2 = mieterRepository.save(new Mieter("Musterfrau", "Erika", "491234567891", "erika@musterfrau.de", 3000.0));
+        mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.now(), LocalDate.now().plusYears(1), 1500.0, 800.0, 2));
+        mietvertragRepository.save(new Mietvertrag(mieter2, wohnung2, LocalDate.now(), LocalDate.now().plusYears(1), 1500.0, 700.0, 1));
+
+        List<Mietvertrag> mietvertraege = mietvertragRepository.findByMieterIdsWithWohnung(List.of(mieter.getMieter_id(), mieter2.getMieter_id()));
+
+        assertThat(mietvertraege).hasSize(2);
+        assertThat(mietvertraege).extracting(m -> m.getWohnung().getHausnummer()).containsExactlyInAnyOrder("11", "12");
+    }
+
+    @Test
+    public void testFindQuickSearchZeilen() {
+        Mietvertrag mietvertrag1 = mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.now(), LocalDate.now().plusYears(1), 1500.0, 800.0, 2));
+        mietvertragRepository.save(new Mietvertrag(mieter, wohnung2, LocalDate.now(), LocalDate.now().plusYears(1), 1500.0, 700.0, 1));
+
+        assertThat(mietvertragRepository.findQuickSearchZeilen()).hasSize(2);
+
+        List<Object[]> zeilen = mietvertragRepository.findQuickSearchZeilenByIds(List.of(mietvertrag1.getMietvertrag_id()));
+
+        assertThat(zeilen).hasSize(1);
+        QuickSearchHit hit = QuickSearchHit.ausZeile(QuickSearchHit.Typ.MIETVERTRAG, zeilen.getFirst());
+        assertThat(hit.id()).isEqualTo(mietvertrag1.getMietvertrag_id());
+        assertThat(hit.titel()).isEqualTo("Mietvertrag Max Mustermann");
+        assertThat(hit.mieterId()).isEqualTo(mieter.getMieter_id());
+        assertThat(hit.wohnungId()).isEqualTo(wohnung.getWohnung_id());
+        assertThat(hit.beschreibung()).isEqualTo("Teststraße 11, Stuttgart");
+    }
+}
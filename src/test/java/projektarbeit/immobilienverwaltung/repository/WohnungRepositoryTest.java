@@ -5,9 +5,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.SearchDocument;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.model.WohnungAdresse;
+import projektarbeit.immobilienverwaltung.model.WohnungGruppe;
+import projektarbeit.immobilienverwaltung.service.InMemorySearchIndex;
+import projektarbeit.immobilienverwaltung.service.SearchIndex;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -20,6 +32,15 @@ public class WohnungRepositoryTest {
     @Autowired
     private WohnungRepository wohnungRepository;
 
+    @Autowired
+    private MieterRepository mieterRepository;
+
+    @Autowired
+    private MietvertragRepository mietvertragRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Wohnung testWohnung;
 
     @BeforeEach
@@ -30,19 +51,17 @@ public class WohnungRepositoryTest {
 
     @Test
     public void testSearchWohnungen() {
-        List<Wohnung> result = wohnungRepository.search("Teststraße");
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst().getStrasse()).isEqualTo("Teststraße");
+        SearchIndex searchIndex = new InMemorySearchIndex(mieterRepository, wohnungRepository, mietvertragRepository);
 
-        result = wohnungRepository.search("11");
-        assertThat(result).hasSize(1);
-        assertThat(result).extracting(Wohnung::getHausnummer).containsOnly("11");
+        assertThat(searchIndex.searchWohnungen("Teststraße")).containsExactly(testWohnung.getWohnung_id());
+        assertThat(searchIndex.searchWohnungen("11")).containsExactly(testWohnung.getWohnung_id());
     }
 
     @Test
     public void testSearchWohnungen_NoMatches() {
-        List<Wohnung> result = wohnungRepository.search("NonExistingStrasse");
-        assertThat(result).isEmpty();
+        SearchIndex searchIndex = new InMemorySearchIndex(mieterRepository, wohnungRepository, mietvertragRepository);
+
+        assertThat(searchIndex.searchWohnungen("NonExistingStrasse")).isEmpty();
     }
 
     @Test
@@ -89,9 +108,105 @@ public class WohnungRepositoryTest {
         Wohnung w2 = new Wohnung("Teststraße", "12", "83248", "Teststadt", DE, 200, 2000, 2, 2, false, false, false, false, null, null);
         wohnungRepository.save(w1);
         wohnungRepository.save(w2);
+        SearchIndex searchIndex = new InMemorySearchIndex(mieterRepository, wohnungRepository, mietvertragRepository);
+
+        List<Long> result = searchIndex.searchWohnungen("Test");
+        assertThat(result).containsExactlyInAnyOrder(w1.getWohnung_id(), w2.getWohnung_id());
+    }
+
+    @Test
+    public void testFindGruppen() {
+        wohnungRepository.save(new Wohnung("Teststraße", "11", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, "1", "2"));
+        wohnungRepository.save(new Wohnung("Andere Straße", "3", "10115", "Berlin", DE, 80, 2000, 1, 1, false, false, false, false, null, null));
+
+        List<WohnungGruppe> gruppen = wohnungRepository.findGruppen(PageRequest.of(0, 10, Sort.by("postleitzahl")));
+
+        assertThat(gruppen).hasSize(2);
+        assertThat(gruppen.get(0).strasse()).isEqualTo("Andere Straße");
+        assertThat(gruppen.get(0).anzahlWohnungen()).isEqualTo(1);
+        assertThat(gruppen.get(1).strasse()).isEqualTo("Teststraße");
+        assertThat(gruppen.get(1).anzahlWohnungen()).isEqualTo(2);
+        assertThat(gruppen.get(1).wohnungId()).isEqualTo(testWohnung.getWohnung_id());
+        assertThat(wohnungRepository.countGruppen()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFindGruppen_GebaeudeIdSurvivesDeletingLowestApartment() {
+        wohnungRepository.save(new Wohnung("Teststraße", "11", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, "1", "2"));
+        wohnungRepository.save(new Wohnung("Teststraße", "11", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, "1", "3"));
+        Long gebaeudeId = wohnungRepository.findGruppen(PageRequest.of(0, 10)).getFirst().toHeader().getGebaeudeId();
+
+        wohnungRepository.delete(testWohnung);
+
+        WohnungGruppe gruppe = wohnungRepository.findGruppen(Pageable.unpaged()).getFirst();
+        assertThat(gruppe.wohnungId()).isNotEqualTo(testWohnung.getWohnung_id());
+        assertThat(gruppe.toHeader().getGebaeudeId()).isEqualTo(gebaeudeId);
+        assertThat(gebaeudeId).isNotNull();
+        assertThat(wohnungRepository.findGruppenByGebaeudeIds(List.of(gebaeudeId)))
+                .singleElement()
+                .extracting(WohnungGruppe::anzahlWohnungen)
+                .isEqualTo(2L);
+    }
+
+    @Test
+    public void testFindGruppenByIdsWithPaging() {
+        Wohnung w12 = wohnungRepository.save(new Wohnung("Teststraße", "12", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, null, null));
+        wohnungRepository.save(new Wohnung("Teststraße", "12", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, "1", "1"));
+        wohnungRepository.save(new Wohnung("Andere Straße", "3", "10115", "Berlin", DE, 80, 2000, 1, 1, false, false, false, false, null, null));
+        List<Long> ids = List.of(testWohnung.getWohnung_id(), w12.getWohnung_id());
+
+        List<WohnungGruppe> gruppen = wohnungRepository.findGruppenByIds(ids, PageRequest.of(1, 1, Sort.by("hausnummer")));
+
+        assertThat(gruppen).extracting(WohnungGruppe::hausnummer).containsExactly("12");
+        assertThat(gruppen.getFirst().anzahlWohnungen()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFindByAdresse() {
+        wohnungRepository.save(new Wohnung("Teststraße", "11", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, "1", "2"));
+        wohnungRepository.save(new Wohnung("Teststraße", "12", "83248", "Teststadt", DE, 80, 2000, 1, 1, false, false, false, false, null, null));
+
+        List<Wohnung> result = wohnungRepository.findByAdresse("Teststraße", "11", "83248", "Teststadt", DE,
+                PageRequest.of(0, 10, Sort.by("stockwerk", "wohnungsnummer", "wohnung_id")));
 
-        List<Wohnung> result = wohnungRepository.search("Test");
         assertThat(result).hasSize(2);
-        assertThat(result).extracting(Wohnung::getStrasse).containsOnly("Teststraße");
+        assertThat(result).extracting(Wohnung::getHausnummer).containsOnly("11");
+    }
+
+    @Test
+    public void testFindWithoutMietvertrag() {
+        Wohnung frei = wohnungRepository.save(new Wohnung("Andere Straße", "3", "10115", "Berlin", DE, 80, 2000, 1, 1, false, false, false, false, null, null));
+        Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3000));
+        mietvertragRepository.save(new Mietvertrag(mieter, testWohnung, LocalDate.now(), null, 1000, 800, 1));
+
+        List<Wohnung> result = wohnungRepository.findWithoutMietvertrag(PageRequest.of(0, 10));
+
+        assertThat(result).containsExactly(frei);
+        assertThat(wohnungRepository.countWithoutMietvertrag()).isEqualTo(1);
+        assertThat(mietvertragRepository.findWohnungIds()).containsExactly(testWohnung.getWohnung_id());
+    }
+
+    @Test
+    public void testFindAdressen() {
+        List<WohnungAdresse> adressen = wohnungRepository.findAdressen();
+
+        assertThat(adressen).containsExactly(new WohnungAdresse(testWohnung.getWohnung_id(), "Teststraße", "11", "83248", "Teststadt", DE));
+        assertThat(SearchDocument.of(adressen.getFirst()).text()).isEqualTo("Teststraße 11 83248 Teststadt");
+    }
+
+    @Test
+    public void testSaveUpdatesKoordinaten() {
+        testWohnung.setLatitude(47.85);
+        testWohnung.setLongitude(12.12);
+        testWohnung.setAnzahlBaeder(3);
+        wohnungRepository.saveAndFlush(testWohnung);
+
+        Wohnung geladen = wohnungRepository.findAll().stream()
+                .filter(w -> w.getWohnung_id().equals(testWohnung.getWohnung_id()))
+                .findFirst().orElseThrow();
+        entityManager.refresh(geladen);
+        assertThat(geladen.getAnzahlBaeder()).isEqualTo(3);
+        assertThat(geladen.getLatitude()).isEqualTo(47.85);
+        assertThat(geladen.getLongitude()).isEqualTo(12.12);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreTest {
+
+    @Mock
+    private DokumentRepository dokumentRepository;
+
+    @InjectMocks
+    private BlobStore blobStore;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(blobStore, "storagePath", tempDir.toString());
+        blobStore.init();
+    }
+
+    @Test
+    void store_WritesContentUnderItsHash() throws IOException {
+        BlobStore.StoredBlob blob = blobStore.store(stream("Hallo"), null, b -> {
+        });
+
+        // SHA-256 von "Hallo"
+        assertEquals("753692ec36adb4c794c973945eb2a99c1649703ea6f76bf259abb4fb838e013e", blob.hash());
+        assertEquals(blobStore.blobPath(blob.hash()), blob.path());
+        assertEquals("Hallo", Files.readString(blob.path()));
+        assertEquals(5, blob.groesse());
+        assertFalse(blob.dedupliziert());
+        try (var temp = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void store_DeduplicatesIdenticalContent() throws IOException {
+        BlobStore.StoredBlob first = blobStore.store(stream("Mietvertrag"), null, b -> {
+        });
+        BlobStore.StoredBlob second = blobStore.store(stream("Mietvertrag"), null, b -> {
+        });
+        BlobStore.StoredBlob other = blobStore.store(stream("Nebenkosten"), null, b -> {
+        });
+
+        assertEquals(first.path(), second.path());
+        assertTrue(second.dedupliziert());
+        assertNotEquals(first.path(), other.path());
+    }
+
+    @Test
+    void store_RemovesNewBlobWhenReferenceFails() throws IOException {
+        assertThrows(IllegalStateException.class, () -> blobStore.store(stream("Fehler"), null, b -> {
+            throw new IllegalStateException("Speichern fehlgeschlagen");
+        }));
+
+        try (var blobs = Files.walk(tempDir.resolve("blobs"))) {
+            assertTrue(blobs.noneMatch(Files::isRegularFile));
+        }
+    }
+
+    @Test
+    void store_KeepsBlobWhileReferenceIsPending() throws IOException {
+        BlobStore.StoredBlob existing = blobStore.store(stream("Grundriss"), null, b -> {
+        });
+        AtomicBoolean released = new AtomicBoolean(true);
+
+        blobStore.store(stream("Grundriss"), null, b -> released.set(blobStore.releaseNow(existing.path().toString())));
+
+        assertFalse(released.get());
+        assertTrue(Files.exists(existing.path()));
+    }
+
+    @Test
+    void store_KeepsBlobPinnedUntilTransactionCompletes() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        BlobStore.StoredBlob blob;
+        try {
+            blob = blobStore.store(stream("Übergabeprotokoll"), null, b -> {
+            });
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Das Dokument ist noch nicht committet und daher für andere Transaktionen nicht sichtbar
+        assertFalse(blobStore.releaseNow(blob.path().toString()));
+        verify(dokumentRepository, never()).countByDateipfad(anyString());
+
+        when(dokumentRepository.countByDateipfad(blob.path().toString())).thenReturn(1L);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertFalse(blobStore.releaseNow(blob.path().toString()));
+        assertTrue(Files.exists(blob.path()));
+    }
+
+    @Test
+    void store_RemovesBlobWhenTransactionRollsBack() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            BlobStore.StoredBlob blob = blobStore.store(stream("Kündigung"), null, b -> {
+            });
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            assertFalse(Files.exists(blob.path()));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void releaseNow_RecountsWhenBlobIsStoredDuringCount() throws IOException {
+        BlobStore.StoredBlob blob = blobStore.store(stream("Nebenkostenabrechnung"), null, b -> {
+        });
+        // Während der ersten Zählung wird derselbe Inhalt erneut gespeichert und referenziert
+        when(dokumentRepository.countByDateipfad(blob.path().toString())).thenAnswer(invocation -> {
+            blobStore.store(stream("Nebenkostenabrechnung"), null, b -> {
+            });
+            return 0L;
+        }).thenReturn(1L);
+
+        assertFalse(blobStore.releaseNow(blob.path().toString()));
+        assertTrue(Files.exists(blob.path()));
+        verify(dokumentRepository, times(2)).countByDateipfad(blob.path().toString());
+    }
+
+    @Test
+    void release_KeepsBlobWhileStillReferenced() throws IOException {
+        BlobStore.StoredBlob blob = blobStore.store(stream("Energieausweis"), null, b -> {
+        });
+        when(dokumentRepository.countByDateipfad(blob.path().toString())).thenReturn(1L);
+
+        blobStore.release(blob.path().toString());
+
+        assertTrue(Files.exists(blob.path()));
+    }
+
+    @Test
+    void release_DeletesUnreferencedBlob() throws IOException {
+        BlobStore.StoredBlob blob = blobStore.store(stream("Energieausweis"), null, b -> {
+        });
+        when(dokumentRepository.countByDateipfad(anyString())).thenReturn(0L);
+
+        blobStore.release(blob.path().toString());
+
+        assertFalse(Files.exists(blob.path()));
+    }
+
+    @Test
+    void store_CompressesCompressibleContent() throws IOException {
+        String text = "Nebenkostenabrechnung 2023\n".repeat(200);
+        BlobStore.StoredBlob blob = blobStore.store(stream(text), "text/plain", b -> {
+        });
+
+        assertTrue(blob.komprimiert());
+        assertEquals(blobStore.blobPath(blob.hash()) + Kompression.ENDUNG, blob.path().toString());
+        assertEquals(text.length(), blob.groesse());
+        assertEquals(Files.size(blob.path()), blob.gespeicherteGroesse());
+        assertTrue(blob.gespeicherteGroesse() < blob.groesse() / 10);
+        try (InputStream in = Kompression.oeffnen(blob.path())) {
+            assertEquals(text, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (var temp = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void store_KeepsIncompressibleContentRaw() throws IOException {
+        byte[] zufall = new byte[4096];
+        new Random(42).nextBytes(zufall);
+        BlobStore.StoredBlob blob = blobStore.store(new ByteArrayInputStream(zufall), "image/tiff", b -> {
+        });
+
+        assertFalse(blob.komprimiert());
+        assertEquals(blob.groesse(), blob.gespeicherteGroesse());
+        assertArrayEquals(zufall, Files.readAllBytes(blob.path()));
+    }
+
+    @Test
+    void store_DeduplicatesAgainstCompressedBlob() throws IOException {
+        String text = "Hausordnung\n".repeat(100);
+        BlobStore.StoredBlob first = blobStore.store(stream(text), "text/plain", b -> {
+        });
+        BlobStore.StoredBlob second = blobStore.store(stream(text), null, b -> {
+        });
+
+        assertTrue(second.dedupliziert());
+        assertEquals(first.path(), second.path());
+        assertFalse(Files.exists(blobStore.blobPath(first.hash())));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,130 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import projektarbeit.immobilienverwaltung.model.CacheStatistik;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static projektarbeit.immobilienverwaltung.model.Land.DE;
+
+/**
+ * Jeder Repository-Aufruf läuft in einer eigenen Transaktion, damit Zugriffe nicht aus dem Persistenzkontext,
+ * sondern aus dem Second-Level-Cache beantwortet werden.
+ */
+@DataJpaTest
+@Import(CacheRegionFactory.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheRegionFactoryTest {
+
+    @Autowired
+    private CacheRegionFactory cacheRegionFactory;
+
+    @Autowired
+    private WohnungRepository wohnungRepository;
+
+    @Autowired
+    private MieterRepository mieterRepository;
+
+    @Autowired
+    private MietvertragRepository mietvertragRepository;
+
+    private Wohnung wohnung;
+    private Wohnung wohnung2;
+    private Mieter mieter;
+
+    @BeforeEach
+    void setUp() {
+        wohnung = wohnungRepository.save(new Wohnung("Teststraße", "11", "07111", "Stuttgart", DE, 80, 1990, 1, 2, true, false, false, false, null, null));
+        wohnung2 = wohnungRepository.save(new Wohnung("Teststraße", "12", "07111", "Stuttgart", DE, 60, 1990, 1, 1, false, false, false, false, null, null));
+        mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3500));
+        mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.of(2023, 1, 1), null, 1500, 800, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mietvertragRepository.deleteAll();
+        wohnungRepository.deleteAll();
+        mieterRepository.deleteAll();
+    }
+
+    @Test
+    void findById_IsAnsweredFromCacheAfterFirstLoad() {
+        wohnungRepository.findById(wohnung.getWohnung_id());
+        CacheStatistik vorher = statistik("wohnung");
+
+        Wohnung geladen = wohnungRepository.findById(wohnung.getWohnung_id()).orElseThrow();
+
+        assertEquals("Teststraße", geladen.getStrasse());
+        assertEquals(vorher.treffer() + 1, statistik("wohnung").treffer());
+        assertEquals(vorher.fehlversuche(), statistik("wohnung").fehlversuche());
+    }
+
+    @Test
+    void findByMieter_IsCachedAndInvalidatedWhenContractsChange() {
+        assertEquals(1, mietvertragRepository.findByMieter_MieterId(mieter.getMieter_id()).size());
+        long treffer = statistik(MietvertragRepository.ABFRAGE_REGION).treffer();
+
+        assertEquals(1, mietvertragRepository.findByMieter_MieterId(mieter.getMieter_id()).size());
+        assertEquals(treffer + 1, statistik(MietvertragRepository.ABFRAGE_REGION).treffer());
+
+        mietvertragRepository.save(new Mietvertrag(mieter, wohnung2, LocalDate.of(2024, 1, 1), null, 1200, 600, 1));
+
+        assertEquals(2, mietvertragRepository.findByMieter_MieterId(mieter.getMieter_id()).size());
+        assertNotNull(mietvertragRepository.findByWohnung(wohnung2));
+    }
+
+    @Test
+    void regionSpeicher_EvictsLeastRecentlyReadAndExpiredEntries() {
+        AtomicLong uhr = new AtomicLong();
+        RegionSpeicher speicher = new RegionSpeicher("test", 2, Duration.ofNanos(100), uhr::get);
+
+        speicher.putIntoCache("a", 1, null);
+        speicher.putIntoCache("b", 2, null);
+        speicher.getFromCache("a", null);
+        speicher.putIntoCache("c", 3, null);
+
+        assertTrue(speicher.contains("a"));
+        assertFalse(speicher.contains("b"));
+        uhr.set(100);
+        assertNull(speicher.getFromCache("c", null));
+        assertEquals(CacheStatistik.of("test", 1, 2, 1, 1), speicher.statistik());
+    }
+
+    @Test
+    void regionSpeicher_StaysBoundedUnderConcurrentAccess() {
+        RegionSpeicher speicher = new RegionSpeicher("test", 64, null);
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            speicher.putIntoCache(i, i, null);
+            speicher.getFromCache(i - 1, null);
+        });
+
+        CacheStatistik statistik = speicher.statistik();
+        assertTrue(statistik.eintraege() <= 64);
+        assertEquals(10_000, statistik.treffer() + statistik.fehlversuche());
+    }
+
+    private CacheStatistik statistik(String region) {
+        return cacheRegionFactory.statistik().stream()
+                .filter(statistik -> statistik.region().equals(region))
+                .findFirst()
+                .orElseThrow();
+    }
+}
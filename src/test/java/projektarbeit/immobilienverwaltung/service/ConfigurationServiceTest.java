@@ -1,16 +1,28 @@
 package projektarbeit.immobilienverwaltung.service;
 
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import projektarbeit.immobilienverwaltung.model.Configuration;
 import projektarbeit.immobilienverwaltung.repository.ConfigurationRepository;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,186 +31,304 @@ class ConfigurationServiceTest {
     @Mock
     private ConfigurationRepository configurationRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private ConfigurationService configurationService;
 
+    @AfterEach
+    void tearDown() {
+        VaadinSession.setCurrent(null);
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void testSetDarkMode_NewConfig() {
-        when(configurationRepository.findById("darkMode")).thenReturn(Optional.empty());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
 
         configurationService.setDarkMode(true);
+        configurationService.flush();
 
-        verify(configurationRepository, times(1)).save(argThat(config ->
-                config.getConfigKey().equals("darkMode") && config.getConfigValue().equals("true")
-        ));
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "darkMode", "true")));
     }
 
     @Test
     void testSetDarkMode_ExistingConfig() {
-        Configuration config = new Configuration();
-        config.setConfigKey("darkMode");
-        config.setConfigValue("false");
-
-        when(configurationRepository.findById("darkMode")).thenReturn(Optional.of(config));
+        Configuration config = config("darkMode", "false");
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of(config));
 
         configurationService.setDarkMode(true);
+        configurationService.flush();
 
-        verify(configurationRepository, times(1)).save(config);
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "darkMode", "true")));
         assertEquals("true", config.getConfigValue());
     }
 
     @Test
     void testIsDarkMode_Activated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("darkMode");
-        config.setConfigValue("true");
-
-        when(configurationRepository.findById("darkMode")).thenReturn(Optional.of(config));
-
-        boolean isDarkMode = configurationService.isDarkMode();
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(config("darkMode", "true")));
 
-        assertTrue(isDarkMode);
+        assertTrue(configurationService.isDarkMode());
     }
 
     @Test
     void testIsDarkMode_Deactivated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("darkMode");
-        config.setConfigValue("false");
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(config("darkMode", "false")));
 
-        when(configurationRepository.findById("darkMode")).thenReturn(Optional.of(config));
-
-        boolean isDarkMode = configurationService.isDarkMode();
-
-        assertFalse(isDarkMode);
+        assertFalse(configurationService.isDarkMode());
     }
 
     @Test
     void testIsDarkMode_DefaultTrue() {
-        when(configurationRepository.findById("darkMode")).thenReturn(Optional.empty());
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of());
 
-        boolean isDarkMode = configurationService.isDarkMode();
-
-        assertTrue(isDarkMode);
+        assertTrue(configurationService.isDarkMode());
     }
 
     @Test
     void testSetVermieteteChecked_NewConfig() {
-        when(configurationRepository.findById("vermieteteChecked")).thenReturn(Optional.empty());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
 
         configurationService.setVermieteteChecked(true);
+        configurationService.flush();
 
-        verify(configurationRepository, times(1)).save(argThat(config ->
-                config.getConfigKey().equals("vermieteteChecked") && config.getConfigValue().equals("true")
-        ));
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "vermieteteChecked", "true")));
     }
 
     @Test
     void testSetVermieteteChecked_ExistingConfig() {
-        Configuration config = new Configuration();
-        config.setConfigKey("vermieteteChecked");
-        config.setConfigValue("false");
-
-        when(configurationRepository.findById("vermieteteChecked")).thenReturn(Optional.of(config));
+        Configuration config = config("vermieteteChecked", "false");
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of(config));
 
         configurationService.setVermieteteChecked(true);
+        configurationService.flush();
 
-        verify(configurationRepository, times(1)).save(config);
         assertEquals("true", config.getConfigValue());
     }
 
     @Test
-    void testGetVermieteteChecked_Activated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("vermieteteChecked");
-        config.setConfigValue("true");
+    void testGetVermieteteChecked_Deactivated() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(config("vermieteteChecked", "false")));
+
+        assertFalse(configurationService.getVermieteteChecked());
+    }
+
+    @Test
+    void testGetVermieteteChecked_DefaultTrue() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of());
 
-        when(configurationRepository.findById("vermieteteChecked")).thenReturn(Optional.of(config));
+        assertTrue(configurationService.getVermieteteChecked());
+    }
+
+    @Test
+    void testSetUnvermieteteChecked_NewConfig() {
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
 
-        boolean isChecked = configurationService.getVermieteteChecked();
+        configurationService.setUnvermieteteChecked(false);
+        configurationService.flush();
 
-        assertTrue(isChecked);
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "unvermieteteChecked", "false")));
     }
 
     @Test
-    void testGetVermieteteChecked_Deactivated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("vermieteteChecked");
-        config.setConfigValue("false");
+    void testGetUnvermieteteChecked_Activated() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(config("unvermieteteChecked", "true")));
 
-        when(configurationRepository.findById("vermieteteChecked")).thenReturn(Optional.of(config));
+        assertTrue(configurationService.getUnvermieteteChecked());
+    }
 
-        boolean isChecked = configurationService.getVermieteteChecked();
+    @Test
+    void testGetUnvermieteteChecked_DefaultTrue() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of());
 
-        assertFalse(isChecked);
+        assertTrue(configurationService.getUnvermieteteChecked());
     }
 
     @Test
-    void testGetVermieteteChecked_DefaultTrue() {
-        when(configurationRepository.findById("vermieteteChecked")).thenReturn(Optional.empty());
+    void testReads_LoadAllValuesOnceAndNeverQueryPerKey() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(
+                config("nameCheckbox", "false"), config("einkommenCheckbox", "true"), config("expandedState", "AQE")));
 
-        boolean isChecked = configurationService.getVermieteteChecked();
+        assertFalse(configurationService.getCheckboxState("nameCheckbox", true));
+        assertTrue(configurationService.getCheckboxState("einkommenCheckbox", false));
+        assertTrue(configurationService.getAccordionState("accordion", true));
+        assertEquals("AQE", configurationService.getExpandedState());
 
-        assertTrue(isChecked);
+        verify(configurationRepository, times(1)).findByBenutzer(Configuration.GLOBAL);
+        verify(configurationRepository, never()).findById(any());
     }
 
     @Test
-    void testSetUnvermieteteChecked_NewConfig() {
-        when(configurationRepository.findById("unvermieteteChecked")).thenReturn(Optional.empty());
+    void testSet_IsVisibleImmediatelyAndWrittenOnlyOnFlush() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of());
 
-        configurationService.setUnvermieteteChecked(true);
+        configurationService.setCheckboxState("nameCheckbox", false);
+        configurationService.setVermieteteChecked(false);
+        configurationService.saveExpandedState("AwE");
 
-        verify(configurationRepository, times(1)).save(argThat(config ->
-                config.getConfigKey().equals("unvermieteteChecked") && config.getConfigValue().equals("true")
-        ));
+        assertFalse(configurationService.getCheckboxState("nameCheckbox", true));
+        assertFalse(configurationService.getVermieteteChecked());
+        assertEquals("AwE", configurationService.getExpandedState());
+        verify(configurationRepository, never()).saveAll(any());
     }
 
     @Test
-    void testSetUnvermieteteChecked_ExistingConfig() {
-        Configuration config = new Configuration();
-        config.setConfigKey("unvermieteteChecked");
-        config.setConfigValue("false");
+    void testFlush_CoalescesRepeatedChangesIntoOneBatch() {
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        List<Configuration> gespeichert = new ArrayList<>();
+        when(configurationRepository.saveAll(any())).thenAnswer(invocation -> {
+            invocation.<Iterable<Configuration>>getArgument(0).forEach(gespeichert::add);
+            return List.of();
+        });
+
+        configurationService.setCheckboxState("nameCheckbox", false);
+        configurationService.setCheckboxState("nameCheckbox", true);
+        configurationService.setCheckboxState("nameCheckbox", false);
+        configurationService.setUnvermieteteChecked(false);
+        configurationService.flush();
+        configurationService.flush();
+
+        verify(configurationRepository, times(1)).saveAll(any());
+        assertEquals(2, gespeichert.size());
+        assertTrue(gespeichert.stream().anyMatch(config -> config.getConfigKey().equals("nameCheckbox")
+                && config.getConfigValue().equals("false")));
+    }
 
-        when(configurationRepository.findById("unvermieteteChecked")).thenReturn(Optional.of(config));
+    @Test
+    void testFlush_KeepsChangesWhenWritingFails() {
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(configurationRepository.saveAll(any())).thenThrow(new IllegalStateException("Datenbank nicht erreichbar"))
+                .thenReturn(List.of());
 
-        configurationService.setUnvermieteteChecked(true);
+        configurationService.setDemoMode(true);
+        configurationService.flush();
+        configurationService.flush();
 
-        verify(configurationRepository, times(1)).save(config);
-        assertEquals("true", config.getConfigValue());
+        verify(configurationRepository, times(2)).saveAll(argThat(configs -> einzige(configs, "demoMode", "true")));
+        assertTrue(configurationService.isDemoMode());
     }
 
     @Test
-    void testGetUnvermieteteChecked_Activated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("unvermieteteChecked");
-        config.setConfigValue("true");
+    void testUserSession_LoadsOwnValuesOnceAndFallsBackToGlobal() {
+        when(configurationRepository.findByBenutzer("anna")).thenReturn(List.of(config("anna", "expandedState", "BQ")));
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(
+                config("expandedState", "AQE"), config("darkMode", "false")));
+        anmelden("anna");
+
+        assertEquals("BQ", configurationService.getExpandedState());
+        assertFalse(configurationService.isDarkMode());
+        assertTrue(configurationService.getVermieteteChecked());
+        assertEquals("BQ", configurationService.getExpandedState());
+
+        verify(configurationRepository, times(1)).findByBenutzer("anna");
+    }
+
+    @Test
+    void testUserSession_IgnoresRowsWithoutValue() {
+        when(configurationRepository.findByBenutzer("anna")).thenReturn(List.of(
+                config("anna", "expandedState", null), config("anna", "darkMode", "true")));
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of(
+                config("expandedState", "AQE"), config("nameCheckbox", null)));
+        anmelden("anna");
+
+        assertEquals("AQE", configurationService.getExpandedState());
+        assertTrue(configurationService.isDarkMode());
+        assertTrue(configurationService.getCheckboxState("nameCheckbox", true));
+    }
+
+    @Test
+    void testUserSession_ChangesAreWrittenWhenSessionEnds() {
+        when(configurationRepository.findByBenutzer("anna")).thenReturn(List.of());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        VaadinSession session = anmelden("anna");
 
-        when(configurationRepository.findById("unvermieteteChecked")).thenReturn(Optional.of(config));
+        configurationService.setDarkMode(false);
+        configurationService.setDarkMode(true);
+        configurationService.flush();
+        verify(configurationRepository, never()).saveAll(any());
+        assertTrue(configurationService.isDarkMode());
 
-        boolean isChecked = configurationService.getUnvermieteteChecked();
+        configurationService.sitzungBeendet(session);
 
-        assertTrue(isChecked);
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "anna", "darkMode", "true")));
     }
 
     @Test
-    void testGetUnvermieteteChecked_Deactivated() {
-        Configuration config = new Configuration();
-        config.setConfigKey("unvermieteteChecked");
-        config.setConfigValue("false");
+    void testUserSession_ChangesAreWrittenAfterIdleTime() {
+        ReflectionTestUtils.setField(configurationService, "leerlaufMillis", 0L);
+        when(configurationRepository.findByBenutzer("anna")).thenReturn(List.of());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        anmelden("anna");
 
-        when(configurationRepository.findById("unvermieteteChecked")).thenReturn(Optional.of(config));
+        configurationService.setCheckboxState("nameCheckbox", false);
+        configurationService.flush();
+        configurationService.flush();
 
-        boolean isChecked = configurationService.getUnvermieteteChecked();
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "anna", "nameCheckbox", "false")));
+    }
+
+    @Test
+    void testUserSession_RecentChangesAreWrittenOnShutdown() {
+        when(configurationRepository.findByBenutzer("anna")).thenReturn(List.of());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        anmelden("anna");
 
-        assertFalse(isChecked);
+        configurationService.setCheckboxState("nameCheckbox", false);
+        configurationService.flush();
+        verify(configurationRepository, never()).saveAll(any());
+
+        configurationService.herunterfahren();
+
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, "anna", "nameCheckbox", "false")));
     }
 
     @Test
-    void testGetUnvermieteteChecked_DefaultTrue() {
-        when(configurationRepository.findById("unvermieteteChecked")).thenReturn(Optional.empty());
+    void testUserSession_DemoModeStaysGlobal() {
+        when(configurationRepository.findByBenutzer(Configuration.GLOBAL)).thenReturn(List.of());
+        when(configurationRepository.findAllById(anyCollection())).thenReturn(List.of());
+        anmelden("anna");
+
+        configurationService.setDemoMode(true);
+        configurationService.flush();
 
-        boolean isChecked = configurationService.getUnvermieteteChecked();
+        assertTrue(configurationService.isDemoMode());
+        verify(configurationRepository, times(1)).saveAll(argThat(configs -> einzige(configs, Configuration.GLOBAL, "demoMode", "true")));
+        verify(configurationRepository, never()).findByBenutzer("anna");
+    }
+
+    /**
+     * Meldet den Benutzer an und setzt eine Vaadin-Sitzung, die ihre Attribute in einer Map ablegt.
+     */
+    private static VaadinSession anmelden(String benutzer) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(benutzer, null, List.of()));
+        VaadinSession session = mock(VaadinSession.class);
+        Map<Class<?>, Object> attribute = new HashMap<>();
+        lenient().when(session.getAttribute(any(Class.class))).thenAnswer(invocation -> attribute.get(invocation.<Class<?>>getArgument(0)));
+        lenient().doAnswer(invocation -> attribute.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(session).setAttribute(any(Class.class), any());
+        VaadinSession.setCurrent(session);
+        return session;
+    }
+
+    private static boolean einzige(Iterable<Configuration> configs, String key, String value) {
+        return einzige(configs, Configuration.GLOBAL, key, value);
+    }
+
+    private static boolean einzige(Iterable<Configuration> configs, String benutzer, String key, String value) {
+        Collection<Configuration> liste = new ArrayList<>();
+        configs.forEach(liste::add);
+        return liste.size() == 1 && liste.iterator().next().getBenutzer().equals(benutzer)
+                && liste.iterator().next().getConfigKey().equals(key)
+                && liste.iterator().next().getConfigValue().equals(value);
+    }
+
+    private static Configuration config(String benutzer, String key, String value) {
+        return new Configuration(benutzer, key, value);
+    }
 
-        assertTrue(isChecked);
+    private static Configuration config(String key, String value) {
+        return config(Configuration.GLOBAL, key, value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private DashboardStatsStore dashboardStatsStore;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    @Test
+    void getDashboardStats() {
+        DashboardStats expected = new DashboardStats(2500.0, 10, 4, 3);
+        when(dashboardStatsStore.getStats()).thenReturn(expected);
+
+        DashboardStats result = dashboardService.getDashboardStats();
+
+        assertEquals(expected, result);
+        verify(dashboardStatsStore, times(1)).getStats();
+    }
+
+    @Test
+    void getMieteinnahmen() {
+        when(dashboardStatsStore.getStats()).thenReturn(new DashboardStats(1200.0, 0, 0, 0));
+
+        assertEquals(1200.0, dashboardService.getMieteinnahmen());
+    }
+
+    @Test
+    void getImmobilienStats() {
+        when(dashboardStatsStore.getStats()).thenReturn(new DashboardStats(0.0, 5, 2, 0));
+
+        Map<String, Long> stats = dashboardService.getImmobilienStats();
+
+        assertEquals(5L, stats.get("total"));
+        assertEquals(2L, stats.get("vermietet"));
+    }
+
+    @Test
+    void getTotalMieter() {
+        when(dashboardStatsStore.getStats()).thenReturn(new DashboardStats(0.0, 0, 0, 7));
+
+        assertEquals(7L, dashboardService.getTotalMieter());
+    }
+}
@@ -0,0 +1,159 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import projektarbeit.immobilienverwaltung.model.DashboardStats;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardStatsStoreTest {
+
+    @Mock
+    private MietvertragRepository mietvertragRepository;
+
+    @InjectMocks
+    private DashboardStatsStore dashboardStatsStore;
+
+    @Test
+    void getStats_LoadsOnlyOnce() {
+        when(mietvertragRepository.loadDashboardStats()).thenReturn(new DashboardStats(1000.0, 3, 1, 2));
+
+        dashboardStatsStore.getStats();
+        DashboardStats stats = dashboardStatsStore.getStats();
+
+        assertEquals(new DashboardStats(1000.0, 3, 1, 2), stats);
+        verify(mietvertragRepository, times(1)).loadDashboardStats();
+    }
+
+    @Test
+    void onStatsChanged_AppliesDeltas() {
+        when(mietvertragRepository.loadDashboardStats()).thenReturn(new DashboardStats(1000.0, 3, 1, 2));
+        dashboardStatsStore.getStats();
+
+        dashboardStatsStore.onStatsChanged(DashboardStatsDelta.wohnungAdded());
+        dashboardStatsStore.onStatsChanged(DashboardStatsDelta.mieterAdded());
+        dashboardStatsStore.onStatsChanged(DashboardStatsDelta.mietvertragAdded(500.0));
+        dashboardStatsStore.onStatsChanged(DashboardStatsDelta.mieteChanged(500.0, 600.0));
+
+        assertEquals(new DashboardStats(1600.0, 4, 2, 3), dashboardStatsStore.getStats());
+        verify(mietvertragRepository, times(1)).loadDashboardStats();
+    }
+
+    @Test
+    void onStatsChanged_IgnoredBeforeFirstLoad() {
+        dashboardStatsStore.onStatsChanged(DashboardStatsDelta.wohnungRemoved());
+        when(mietvertragRepository.loadDashboardStats()).thenReturn(new DashboardStats(0.0, 3, 0, 0));
+
+        assertEquals(3, dashboardStatsStore.getStats().totalWohnungen());
+    }
+
+    @Test
+    void reconcile_ReplacesDriftedSnapshot() {
+        when(mietvertragRepository.loadDashboardStats())
+                .thenReturn(new DashboardStats(1000.0, 3, 1, 2))
+                .thenReturn(new DashboardStats(1000.0, 5, 1, 2));
+        dashboardStatsStore.getStats();
+
+        dashboardStatsStore.reconcile();
+
+        assertEquals(5, dashboardStatsStore.getStats().totalWohnungen());
+    }
+
+    @Test
+    void reconcile_SkippedBeforeFirstLoad() {
+        dashboardStatsStore.reconcile();
+
+        verify(mietvertragRepository, never()).loadDashboardStats();
+    }
+
+    @Test
+    void getStats_ReloadsWhenDeltaCommitsDuringLoad() {
+        when(mietvertragRepository.loadDashboardStats())
+                .thenAnswer(invocation -> {
+                    // Die Änderung wird während der ersten Abfrage committet, die sie noch nicht enthält
+                    dashboardStatsStore.onStatsChanged(DashboardStatsDelta.wohnungAdded());
+                    return new DashboardStats(1000.0, 3, 1, 2);
+                })
+                .thenReturn(new DashboardStats(1000.0, 4, 1, 2));
+
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+        verify(mietvertragRepository, times(2)).loadDashboardStats();
+    }
+
+    @Test
+    void getStats_DoesNotCacheWhileTransactionWithDeltaIsOpen() {
+        when(mietvertragRepository.loadDashboardStats())
+                .thenReturn(new DashboardStats(1000.0, 3, 1, 2))
+                .thenReturn(new DashboardStats(1000.0, 4, 1, 2));
+        List<TransactionSynchronization> synchronizations = inTransaktion(DashboardStatsDelta.wohnungAdded());
+
+        // Ob die Abfrage die offene Änderung schon enthält, ist unklar
+        assertEquals(3, dashboardStatsStore.getStats().totalWohnungen());
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+        verify(mietvertragRepository, times(2)).loadDashboardStats();
+    }
+
+    @Test
+    void onStatsChanged_AppliesDeltaOnlyAfterCommit() {
+        when(mietvertragRepository.loadDashboardStats()).thenReturn(new DashboardStats(1000.0, 3, 1, 2));
+        dashboardStatsStore.getStats();
+
+        inTransaktion(DashboardStatsDelta.wohnungAdded())
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        List<TransactionSynchronization> synchronizations = inTransaktion(DashboardStatsDelta.mieterAdded());
+        assertEquals(new DashboardStats(1000.0, 3, 1, 2), dashboardStatsStore.getStats());
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals(new DashboardStats(1000.0, 3, 1, 3), dashboardStatsStore.getStats());
+    }
+
+    @Test
+    void reconcile_SkipsWhenDeltaCommitsDuringLoad() {
+        when(mietvertragRepository.loadDashboardStats())
+                .thenReturn(new DashboardStats(1000.0, 3, 1, 2))
+                .thenAnswer(invocation -> {
+                    // Die Abfrage enthält die Änderung bereits, die danach noch angewendet wird
+                    dashboardStatsStore.onStatsChanged(DashboardStatsDelta.wohnungAdded());
+                    return new DashboardStats(1000.0, 4, 1, 2);
+                })
+                .thenReturn(new DashboardStats(1000.0, 4, 1, 2));
+        dashboardStatsStore.getStats();
+
+        dashboardStatsStore.reconcile();
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+
+        dashboardStatsStore.reconcile();
+        assertEquals(4, dashboardStatsStore.getStats().totalWohnungen());
+        verify(mietvertragRepository, times(3)).loadDashboardStats();
+    }
+
+    /**
+     * Veröffentlicht die Änderung innerhalb einer Transaktion und gibt die registrierten Synchronisationen zurück,
+     * über die der Test den Abschluss der Transaktion auslöst.
+     */
+    private List<TransactionSynchronization> inTransaktion(DashboardStatsDelta delta) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dashboardStatsStore.onStatsChanged(delta);
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
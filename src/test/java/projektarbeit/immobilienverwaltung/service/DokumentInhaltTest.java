@@ -0,0 +1,89 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DokumentInhaltTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void detectMimeType_UsesMagicBytesBeforeFileName() {
+        assertEquals("application/pdf", DokumentInhalt.detectMimeType("%PDF-1.7".getBytes(StandardCharsets.ISO_8859_1), "image/png"));
+        assertEquals("image/png", DokumentInhalt.detectMimeType(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A}, "application/pdf"));
+        assertEquals("image/jpeg", DokumentInhalt.detectMimeType(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}, null));
+        assertEquals("image/webp", DokumentInhalt.detectMimeType("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1), null));
+    }
+
+    @Test
+    void detectMimeType_FallsBackToFileNameOrContent() {
+        byte[] zip = {'P', 'K', 3, 4, 0, 0};
+        String docx = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        assertEquals(docx, DokumentInhalt.detectMimeType(zip, docx));
+        assertEquals("application/zip", DokumentInhalt.detectMimeType(zip, "application/pdf"));
+        assertEquals("text/csv", DokumentInhalt.detectMimeType("a;b;c".getBytes(StandardCharsets.UTF_8), "text/csv"));
+        assertEquals("text/plain", DokumentInhalt.detectMimeType("Zählerstand: 1234".getBytes(StandardCharsets.UTF_8), null));
+        assertEquals("application/octet-stream", DokumentInhalt.detectMimeType(new byte[]{1, 0, 2, 0}, null));
+    }
+
+    @Test
+    void pdfText_ReadsCompressedAndUncompressedContentStreams() throws IOException {
+        String seite1 = "BT /F1 12 Tf 72 712 Td (Nebenkostenabrechnung) Tj ET";
+        String seite2 = "BT [(Miet) -20 (vertrag)] TJ (Klammer \\(innen\\)) Tj ET";
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pdf.write("%PDF-1.4\n1 0 obj\n<< /Length 10 /Filter /FlateDecode >>\nstream\n".getBytes(StandardCharsets.ISO_8859_1));
+        pdf.write(deflate(seite1));
+        pdf.write("\nendstream\nendobj\n2 0 obj\n<< /Length 10 >>\nstream\n".getBytes(StandardCharsets.ISO_8859_1));
+        pdf.write(seite2.getBytes(StandardCharsets.ISO_8859_1));
+        pdf.write("\nendstream\nendobj\n%%EOF".getBytes(StandardCharsets.ISO_8859_1));
+        Path datei = Files.write(tempDir.resolve("test.pdf"), pdf.toByteArray());
+
+        assertEquals("Nebenkostenabrechnung Mietvertrag Klammer (innen)", DokumentInhalt.pdfText(datei, 4000));
+        assertEquals("Nebenkosten", DokumentInhalt.pdfText(datei, 11));
+    }
+
+    @Test
+    void pdfText_ReturnsNullWithoutText() throws IOException {
+        Path datei = Files.writeString(tempDir.resolve("leer.pdf"), "%PDF-1.4\n%%EOF");
+
+        assertNull(DokumentInhalt.pdfText(datei, 4000));
+    }
+
+    @Test
+    void plainText_NormalizesWhitespace() throws IOException {
+        Path datei = Files.writeString(tempDir.resolve("notiz.txt"), "  Zähler\n\n  Keller\t12  ");
+
+        assertEquals("Zähler Keller 12", DokumentInhalt.plainText(datei, 4000));
+    }
+
+    @Test
+    void plainText_ReadsCompressedFile() throws IOException {
+        Path datei = tempDir.resolve("notiz" + Kompression.ENDUNG);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(datei))) {
+            out.write("Zählerstand Keller".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals("text/plain", DokumentInhalt.detectMimeType(datei, null));
+        assertEquals("Zählerstand Keller", DokumentInhalt.plainText(datei, 4000));
+    }
+
+    private static byte[] deflate(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DokumentPostProcessorTest {
+
+    @Mock
+    private DokumentRepository dokumentRepository;
+
+    @InjectMocks
+    private DokumentPostProcessor postProcessor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postProcessor, "storagePath", tempDir.toString());
+        postProcessor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        postProcessor.shutdown();
+    }
+
+    @Test
+    void verarbeiten_CreatesScaledPreviewForImages() throws IOException {
+        Path bild = tempDir.resolve("foto");
+        ImageIO.write(new BufferedImage(1024, 512, BufferedImage.TYPE_INT_RGB), "jpg", bild.toFile());
+        Dokument dokument = dokument(bild, "application/octet-stream");
+
+        postProcessor.verarbeiten(1L);
+
+        verify(dokumentRepository).updateVerarbeitung(1L, "image/jpeg", true, null);
+        BufferedImage vorschau = ImageIO.read(postProcessor.vorschauPfad(dokument).toFile());
+        assertEquals(DokumentPostProcessor.VORSCHAU_KANTE, vorschau.getWidth());
+        assertEquals(DokumentPostProcessor.VORSCHAU_KANTE / 2, vorschau.getHeight());
+    }
+
+    @Test
+    void verarbeiten_ExtractsTextFromTextFiles() throws IOException {
+        Path notiz = Files.writeString(tempDir.resolve("notiz"), "Schlüssel beim Hausmeister");
+        dokument(notiz, "text/plain");
+
+        postProcessor.verarbeiten(1L);
+
+        verify(dokumentRepository).updateVerarbeitung(1L, "text/plain", false, "Schlüssel beim Hausmeister");
+    }
+
+    @Test
+    void verarbeiten_MarksUnreadableImageWithoutPreview() throws IOException {
+        Path kaputt = Files.write(tempDir.resolve("kaputt"), new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3});
+        dokument(kaputt, "image/png");
+
+        postProcessor.verarbeiten(1L);
+
+        verify(dokumentRepository).updateVerarbeitung(1L, "image/png", false, null);
+    }
+
+    @Test
+    void verarbeiten_MarksMissingFileAsProcessed() throws IOException {
+        dokument(tempDir.resolve("fehlt"), "application/pdf");
+
+        postProcessor.verarbeiten(1L);
+
+        verify(dokumentRepository).updateVerarbeitung(1L, "application/pdf", false, null);
+    }
+
+    @Test
+    void verarbeiten_IgnoresDeletedDokument() throws IOException {
+        when(dokumentRepository.findById(1L)).thenReturn(Optional.empty());
+
+        postProcessor.verarbeiten(1L);
+
+        verify(dokumentRepository, never()).updateVerarbeitung(any(), anyString(), anyBoolean(), any());
+    }
+
+    private Dokument dokument(Path datei, String mimeType) {
+        Dokument dokument = new Dokument(null, null, "Dokument", datei.toString());
+        dokument.setDokument_id(1L);
+        dokument.setMimeType(mimeType);
+        when(dokumentRepository.findById(1L)).thenReturn(Optional.of(dokument));
+        return dokument;
+    }
+}
@@ -2,16 +2,26 @@ package projektarbeit.immobilienverwaltung.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.DokumentFilter;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +32,15 @@ class DokumentServiceTest {
     @Mock
     private DokumentRepository dokumentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private UploadService uploadService;
+
     @InjectMocks
     private DokumentService dokumentService;
 
@@ -45,6 +64,53 @@ class DokumentServiceTest {
         verify(dokumentRepository, times(1)).findAll();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void findDokumente_TranslatesSortToEntityPaths() {
+        List<Dokument> expected = List.of(new Dokument());
+        when(dokumentRepository.findSlice(any(Specification.class), any(Pageable.class))).thenReturn(expected);
+
+        List<Dokument> result = dokumentService.findDokumente(new DokumentFilter(1L, null, "vertrag"),
+                PageRequest.of(2, 50, Sort.by(Sort.Direction.DESC, "mieter")));
+
+        assertEquals(expected, result);
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(dokumentRepository).findSlice(any(Specification.class), captor.capture());
+        assertEquals(100, captor.getValue().getOffset());
+        assertEquals(50, captor.getValue().getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "mieter.name", "mieter.vorname").and(Sort.by("dokument_id")),
+                captor.getValue().getSort());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countDokumente() {
+        when(dokumentRepository.count(any(Specification.class))).thenReturn(3L);
+
+        assertEquals(3L, dokumentService.countDokumente(DokumentFilter.alle()));
+    }
+
+    @Test
+    void deleteDokumente_ReleasesFilesAndPublishesEvents() {
+        Dokument rechnung = new Dokument(new Wohnung(), null, "Rechnung", "valid/path/to/document1.pdf");
+        Dokument vertrag = new Dokument(new Wohnung(), new Mieter(), "Vertrag", "valid/path/to/document2.pdf");
+
+        dokumentService.deleteDokumente(List.of(rechnung, vertrag));
+
+        verify(dokumentRepository, times(1)).deleteAll(List.of(rechnung, vertrag));
+        verify(blobStore, times(1)).release("valid/path/to/document1.pdf");
+        verify(blobStore, times(1)).release("valid/path/to/document2.pdf");
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.deleted(rechnung));
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.deleted(vertrag));
+    }
+
+    @Test
+    void deleteDokumente_IgnoresEmptyList() {
+        dokumentService.deleteDokumente(List.of());
+
+        verifyNoInteractions(dokumentRepository, blobStore, eventPublisher);
+    }
+
     @Test
     void deleteDokumenteByWohnung() {
         Wohnung wohnung = new Wohnung();
@@ -68,6 +134,10 @@ class DokumentServiceTest {
         verify(dokumentRepository, times(1)).findByWohnung(wohnung);
         verify(dokumentRepository, times(1)).delete(dokumentWithoutMieter);
         verify(dokumentRepository, times(1)).save(dokumentWithMieter);
+        verify(blobStore, times(1)).release("valid/path/to/document2.pdf");
+        verify(blobStore, never()).release("valid/path/to/document1.pdf");
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.deleted(dokumentWithoutMieter));
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.saved(dokumentWithMieter));
         assertNull(dokumentWithoutMieter.getWohnung());
         assertNull(dokumentWithMieter.getWohnung());
     }
@@ -181,6 +251,8 @@ class DokumentServiceTest {
         verify(dokumentRepository, times(1)).findByWohnung(wohnung);
         verify(dokumentRepository, times(2)).delete(any(Dokument.class));
         verify(dokumentRepository, never()).save(any(Dokument.class));
+        verify(blobStore).release("valid/path/to/document1.pdf");
+        verify(blobStore).release("valid/path/to/document2.pdf");
     }
 
     @Test
@@ -194,4 +266,29 @@ class DokumentServiceTest {
         assertEquals(1, result.size());
         verify(dokumentRepository, times(1)).findByWohnung(wohnung);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveUpload_StoresDokumentForCommittedBlob() throws Exception {
+        Mieter mieter = new Mieter();
+        UploadService.UploadSession session = mock(UploadService.UploadSession.class);
+        when(session.getDateiname()).thenReturn("Mietvertrag.pdf");
+        when(uploadService.get("upload-1")).thenReturn(session);
+        when(dokumentRepository.save(any(Dokument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        BlobStore.StoredBlob blob = new BlobStore.StoredBlob("ab", Path.of("/daten/blobs/ab/ab"), 3, 3, false);
+        when(uploadService.abschliessen(eq("upload-1"), eq("application/pdf"), any())).thenAnswer(invocation -> {
+            ((Consumer<BlobStore.StoredBlob>) invocation.getArgument(2)).accept(blob);
+            return blob;
+        });
+
+        Dokument dokument = dokumentService.saveUpload("upload-1", null, mieter, "Mietvertrag");
+
+        assertEquals(mieter, dokument.getMieter());
+        assertEquals("Mietvertrag", dokument.getDokumententyp());
+        assertEquals(blob.path().toString(), dokument.getDateipfad());
+        assertEquals("application/pdf", dokument.getMimeType());
+        assertEquals(3L, dokument.getGroesse());
+        assertEquals(1.0, dokument.getKompressionsrate());
+        verify(eventPublisher).publishEvent(EntityChangedEvent.saved(dokument));
+    }
+}
@@ -0,0 +1,96 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpandedStateStoreTest {
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledFuture<Object> geplant;
+
+    @Test
+    void kodieren_RoundTripIsCompact() {
+        NavigableSet<Long> ids = new TreeSet<>(List.of(1L, 2L, 3L, 130L, 100_000L, 100_001L));
+
+        String kodiert = ExpandedStateStore.kodieren(ids);
+
+        assertEquals(ids, ExpandedStateStore.dekodieren(kodiert));
+        // 1 + 1 + 1 + 1 + 3 + 1 Byte, Base64 ohne Auffüllung
+        assertEquals(11, kodiert.length());
+        assertEquals("", ExpandedStateStore.kodieren(new TreeSet<>()));
+    }
+
+    @Test
+    void kodieren_RoundTripOf48BitIds() {
+        NavigableSet<Long> ids = new TreeSet<>(List.of(0L, 0x7A3F_0000_0001L, 0xFFFF_FFFF_FFFFL));
+
+        String kodiert = ExpandedStateStore.kodieren(ids);
+
+        assertEquals(ids, ExpandedStateStore.dekodieren(kodiert));
+        // Höchstens sieben Byte je Gebäude
+        assertTrue(Base64.getUrlDecoder().decode(kodiert).length <= 3 * 7);
+    }
+
+    @Test
+    void dekodieren_InvalidValueIsEmpty() {
+        assertTrue(ExpandedStateStore.dekodieren(null).isEmpty());
+        assertTrue(ExpandedStateStore.dekodieren("1,2,3").isEmpty());
+        assertTrue(ExpandedStateStore.dekodieren("gA").isEmpty());
+    }
+
+    @Test
+    void aufklappen_ChangesAreDebouncedIntoOneWrite() {
+        doReturn(geplant).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        List<String> gespeichert = new ArrayList<>();
+        ExpandedStateStore store = new ExpandedStateStore(ExpandedStateStore.kodieren(new TreeSet<>(List.of(5L))),
+                taskScheduler, Duration.ofSeconds(2), gespeichert::add);
+
+        store.aufklappen(7L);
+        store.aufklappen(9L);
+        store.zuklappen(5L);
+        store.aufklappen(null);
+
+        assertTrue(gespeichert.isEmpty());
+        verify(geplant, times(2)).cancel(false);
+        ArgumentCaptor<Runnable> aufgabe = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(3)).schedule(aufgabe.capture(), any(Instant.class));
+
+        aufgabe.getValue().run();
+        store.flush();
+
+        assertEquals(List.of(ExpandedStateStore.kodieren(new TreeSet<>(List.of(7L, 9L)))), gespeichert);
+        assertEquals(new TreeSet<>(List.of(7L, 9L)), store.getGebaeudeIds());
+    }
+
+    @Test
+    void zuklappen_UnknownBuildingIsNoChange() {
+        ExpandedStateStore store = new ExpandedStateStore(null, taskScheduler, Duration.ofSeconds(2), wert -> fail());
+
+        store.zuklappen(3L);
+        store.flush();
+
+        assertTrue(store.isEmpty());
+        verifyNoInteractions(taskScheduler);
+    }
+}
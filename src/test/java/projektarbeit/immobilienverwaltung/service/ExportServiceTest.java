@@ -0,0 +1,201 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.model.Zaehlerstand;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+import projektarbeit.immobilienverwaltung.repository.ZaehlerstandRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static projektarbeit.immobilienverwaltung.model.Land.DE;
+
+/**
+ * Der Export liest über eine eigene Session, deshalb werden die Testdaten festgeschrieben und danach wieder gelöscht.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportServiceTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WohnungRepository wohnungRepository;
+
+    @Autowired
+    private MieterRepository mieterRepository;
+
+    @Autowired
+    private MietvertragRepository mietvertragRepository;
+
+    @Autowired
+    private ZaehlerstandRepository zaehlerstandRepository;
+
+    private final SearchIndex searchIndex = mock(SearchIndex.class);
+    private ExportService exportService;
+    private Wohnung wohnung;
+    private Wohnung wohnung2;
+    private Mieter mieter;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(entityManagerFactory, searchIndex);
+        wohnung = wohnungRepository.save(new Wohnung("Alte Straße", "11", "07111", "Stuttgart", DE, 80, 1990, 1, 2, true, false, false, false, null, null));
+        wohnung2 = wohnungRepository.save(new Wohnung("Ring", "2", "07111", "Stuttgart", DE, 45, 2001, 1, 1, false, false, false, false, "3", "12"));
+        mieter = mieterRepository.save(new Mieter("Müller", "Anna", "491234567890", "anna@example.com", 3200.5));
+        mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.of(2023, 2, 1), null, 1500.0, 750.5, 2));
+        zaehlerstandRepository.save(new Zaehlerstand(wohnung2, LocalDate.of(2024, 1, 31), 1234.5, "Strom"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        zaehlerstandRepository.deleteAll();
+        mietvertragRepository.deleteAll();
+        wohnungRepository.deleteAll();
+        mieterRepository.deleteAll();
+    }
+
+    @Test
+    void exportieren_WritesCsvWithHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long zeilen = exportService.exportieren(ExportService.Art.WOHNUNGEN, ExportService.Filter.alle(), ExportService.Format.CSV, out);
+
+        String[] csv = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, zeilen);
+        assertEquals(3, csv.length);
+        assertTrue(csv[0].startsWith("\uFEFFid;strasse;hausnummer;postleitzahl;stadt;land;stockwerk;wohnungsnummer;gesamtQuadratmeter"));
+        assertEquals(wohnung.getWohnung_id() + ";Alte Straße;11;07111;Stuttgart;DE;;;80;1990;1;2;true;false;false;false;;", csv[1]);
+        assertTrue(csv[2].startsWith(wohnung2.getWohnung_id() + ";Ring;2;07111;Stuttgart;DE;3;12;45;"));
+    }
+
+    @Test
+    void exportieren_WritesJsonLinesForFilteredContracts() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long zeilen = exportService.exportieren(ExportService.Art.MIETVERTRAEGE,
+                new ExportService.Filter(mieter.getMieter_id(), null, null), ExportService.Format.JSONL, out);
+
+        List<JsonNode> zeilenJson = new ArrayList<>();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String zeile : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            zeilenJson.add(mapper.readTree(zeile));
+        }
+        assertEquals(1, zeilen);
+        assertEquals(1, zeilenJson.size());
+        JsonNode vertrag = zeilenJson.getFirst();
+        assertEquals(mieter.getMieter_id(), vertrag.get("mieter_id").asLong());
+        assertEquals(wohnung.getWohnung_id(), vertrag.get("wohnung_id").asLong());
+        assertEquals("anna@example.com", vertrag.get("email").asText());
+        assertEquals("2023-02-01", vertrag.get("mietbeginn").asText());
+        assertTrue(vertrag.get("mietende").isNull());
+        assertEquals(750.5, vertrag.get("miete").asDouble());
+
+        ByteArrayOutputStream leer = new ByteArrayOutputStream();
+        assertEquals(0, exportService.exportieren(ExportService.Art.MIETVERTRAEGE,
+                new ExportService.Filter(null, wohnung2.getWohnung_id(), null), ExportService.Format.JSONL, leer));
+    }
+
+    @Test
+    void exportieren_ResolvesSearchTermThroughSearchIndex() throws IOException {
+        when(searchIndex.searchWohnungen("ring")).thenReturn(List.of(wohnung2.getWohnung_id()));
+        when(searchIndex.searchWohnungen("nichts")).thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long zeilen = exportService.exportieren(ExportService.Art.ZAEHLERSTAENDE,
+                new ExportService.Filter(null, null, " ring "), ExportService.Format.CSV, out);
+
+        assertEquals(1, zeilen);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(";Strom;2024-01-31;1234.5\r\n"));
+        assertEquals(0, exportService.exportieren(ExportService.Art.WOHNUNGEN,
+                new ExportService.Filter(null, null, "nichts"), ExportService.Format.CSV, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void exportieren_ExportsAllSearchMatches() throws IOException {
+        List<Mieter> treffer = new ArrayList<>();
+        for (int i = 0; i < 750; i++) {
+            treffer.add(new Mieter("Meier", "Max", "491234567890", "max" + i + "@example.com", 2000));
+        }
+        List<Long> ids = mieterRepository.saveAll(treffer).stream().map(Mieter::getMieter_id).toList();
+        when(searchIndex.searchMieter("meier")).thenReturn(ids);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long zeilen = exportService.exportieren(ExportService.Art.MIETER,
+                new ExportService.Filter(null, null, "meier"), ExportService.Format.CSV, out);
+
+        assertEquals(750, zeilen);
+        // Kopfzeile und eine Zeile je Treffer
+        assertEquals(751, out.toString(StandardCharsets.UTF_8).split("\r\n").length);
+        verify(searchIndex, never()).searchMieter(anyString(), anyInt());
+    }
+
+    @Test
+    void exportieren_WritesXlsxWorkbook() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportieren(ExportService.Art.MIETER, ExportService.Filter.alle(), ExportService.Format.XLSX, out);
+
+        List<String> eintraege = new ArrayList<>();
+        String blatt = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry eintrag; (eintrag = zip.getNextEntry()) != null; ) {
+                eintraege.add(eintrag.getName());
+                if (eintrag.getName().equals("xl/worksheets/sheet1.xml")) {
+                    blatt = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertEquals(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels",
+                "xl/worksheets/sheet1.xml"), eintraege);
+        assertNotNull(blatt);
+        assertTrue(blatt.contains("<t xml:space=\"preserve\">Müller</t>"));
+        assertTrue(blatt.contains("<c><v>3200.5</v></c>"));
+        assertTrue(blatt.endsWith("</sheetData></worksheet>"));
+    }
+
+    @Test
+    void csv_QuotesDelimitersQuotesAndLineBreaks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ExportSchreiber schreiber = ExportSchreiber.fuer(ExportService.Format.CSV, out, "Test")) {
+            schreiber.zeile(new Object[]{"a;b", "sagt \"Hallo\"", "zwei\nZeilen", 1.0E-7, null});
+        }
+
+        assertEquals("\uFEFF\"a;b\";\"sagt \"\"Hallo\"\"\";\"zwei\nZeilen\";0.00000010;\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void xml_EscapesSpecialAndControlCharacters() {
+        assertEquals("a &lt;b&gt; &amp; &quot;c&quot;d", ExportSchreiber.Xlsx.xml("a <b> & \"c\"\u0001d"));
+    }
+}
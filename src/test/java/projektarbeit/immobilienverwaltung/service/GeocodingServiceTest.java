@@ -0,0 +1,127 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import projektarbeit.immobilienverwaltung.model.GeocodingCacheEintrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.repository.GeocodingCacheRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeocodingServiceTest {
+
+    private static final String ADRESSE = "Ring 1, 1010, Wien, AT";
+    private static final String SCHLUESSEL = "ring 1, 1010, wien, at";
+
+    @Mock
+    private GeocodingProvider provider;
+
+    @Mock
+    private GeocodingCacheRepository cacheRepository;
+
+    @Mock
+    private WohnungRepository wohnungRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GeocodingService geocodingService;
+
+    @BeforeEach
+    void setUp() {
+        geocodingService = new GeocodingService(provider, cacheRepository, wohnungRepository, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        geocodingService.shutdown();
+    }
+
+    @Test
+    void normalisieren_IgnoresCaseWhitespaceAndPunctuation() {
+        assertEquals(SCHLUESSEL, GeocodingService.normalisieren("  RING  1 ,1010;Wien,  AT "));
+    }
+
+    @Test
+    void getCoordinates_QueriesProviderOnceAndCachesResult() throws IOException {
+        when(cacheRepository.findById(SCHLUESSEL)).thenReturn(Optional.empty());
+        when(provider.lookup(ADRESSE)).thenReturn(new double[]{48.2, 16.37});
+        when(provider.mindestabstand()).thenReturn(Duration.ZERO);
+        when(cacheRepository.save(any(GeocodingCacheEintrag.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertArrayEquals(new double[]{48.2, 16.37}, geocodingService.getCoordinates(ADRESSE));
+        assertArrayEquals(new double[]{48.2, 16.37}, geocodingService.getCoordinates("ring 1,1010,wien,at"));
+
+        verify(provider, times(1)).lookup(anyString());
+        verify(cacheRepository).save(argThat(eintrag -> eintrag.getAdresse().equals(SCHLUESSEL)));
+    }
+
+    @Test
+    void ausCache_LoadsPersistentEntryAndIgnoresExpiredOnes() {
+        when(cacheRepository.findById(SCHLUESSEL)).thenReturn(Optional.of(
+                new GeocodingCacheEintrag(SCHLUESSEL, new double[]{48.2, 16.37}, Instant.now())));
+        when(cacheRepository.findById("nirgendwo")).thenReturn(Optional.of(
+                new GeocodingCacheEintrag("nirgendwo", null, Instant.now().minus(GeocodingService.NEGATIV_TTL).minusSeconds(1))));
+
+        assertNotNull(geocodingService.ausCache(ADRESSE));
+        assertNotNull(geocodingService.ausCache(ADRESSE));
+        assertNull(geocodingService.ausCache("Nirgendwo"));
+
+        verify(cacheRepository, times(1)).findById(SCHLUESSEL);
+    }
+
+    @Test
+    void aufloesen_SharesConcurrentLookupsAndDoesNotCacheFailures() throws Exception {
+        CountDownLatch freigabe = new CountDownLatch(1);
+        when(cacheRepository.findById(SCHLUESSEL)).thenReturn(Optional.empty());
+        when(provider.mindestabstand()).thenReturn(Duration.ZERO);
+        when(provider.lookup(ADRESSE)).thenAnswer(invocation -> {
+            freigabe.await();
+            throw new IOException("nicht erreichbar");
+        });
+
+        CompletableFuture<double[]> erste = geocodingService.aufloesen(ADRESSE);
+        CompletableFuture<double[]> zweite = geocodingService.aufloesen(ADRESSE);
+        freigabe.countDown();
+
+        assertSame(erste, zweite);
+        assertThrows(ExecutionException.class, () -> erste.get(5, TimeUnit.SECONDS));
+        verify(cacheRepository, never()).save(any());
+    }
+
+    @Test
+    void koordinatenNachtragen_UpdatesWohnungInBackground() throws Exception {
+        when(cacheRepository.findById(SCHLUESSEL)).thenReturn(Optional.empty());
+        when(provider.mindestabstand()).thenReturn(Duration.ZERO);
+        when(provider.lookup(ADRESSE)).thenReturn(new double[]{48.2, 16.37});
+        when(cacheRepository.save(any(GeocodingCacheEintrag.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Wohnung wohnung = new Wohnung();
+        when(wohnungRepository.findAllById(List.of(7L))).thenReturn(List.of(wohnung));
+
+        geocodingService.koordinatenNachtragen(7L, ADRESSE);
+
+        verify(transactionManager, timeout(5000)).commit(any());
+        assertEquals(48.2, wohnung.getLatitude());
+        assertEquals(16.37, wohnung.getLongitude());
+    }
+}
@@ -0,0 +1,201 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceTest {
+
+    private static final String KOPF = "strasse;hausnummer;postleitzahl;stadt;land;gesamtQuadratmeter;baujahr;anzahlBaeder;"
+            + "anzahlSchlafzimmer;hatBalkon;stockwerk;wohnungsnummer;name;vorname;telefonnummer;email;einkommen;"
+            + "mietbeginn;mietende;kaution;miete;anzahlBewohner\n";
+
+    @Mock
+    private MieterRepository mieterRepository;
+
+    @Mock
+    private GeocodingService geocodingService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final AtomicLong ids = new AtomicLong();
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ImportService(mieterRepository, geocodingService, eventPublisher,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager);
+        ReflectionTestUtils.setField(importService, "entityManager", entityManager);
+    }
+
+    @Test
+    void importieren_SavesCsvAndSharesTenantsByEmail() {
+        vergibtIds();
+        String csv = KOPF
+                + "Ring;1;1010;Wien;AT;80;1990;1;2;ja;1;1;Muster;Max;06641234;max@example.com;3000,50;01.02.2023;;1500;750,5;2\n"
+                + "\"Ring\";1;1010;Wien;Österreich;60;1990;1;1;nein;2;2;Muster;Max;06641234;max@example.com;3000;2023-03-01;;1200;600;1\n"
+                + "\n"
+                + "Hauptstraße;5a;80331;München;DE;45;2001;1;0;;;;;;;;;;;;;\n";
+
+        ImportService.Bericht bericht = importService.importieren(stream(csv), ImportService.Format.CSV);
+
+        assertEquals(new ImportService.Bericht(3, 3, 1, 2, 0, List.of(), false), bericht);
+        verify(entityManager, times(1)).persist(any(Mieter.class));
+        verify(entityManager, times(3)).persist(any(Wohnung.class));
+        verify(entityManager, times(2)).persist(argThat(entity -> entity instanceof Mietvertrag mietvertrag
+                && mietvertrag.getMieter().getEmail().equals("max@example.com")));
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(eventPublisher).publishEvent(new DashboardStatsDelta(1350.5, 3, 2, 1));
+        verify(geocodingService).alleKoordinatenNachtragen(List.of(2L, 4L), "Ring 1, 1010, Wien, AT");
+        verify(geocodingService).alleKoordinatenNachtragen(List.of(6L), "Hauptstraße 5a, 80331, München, DE");
+    }
+
+    @Test
+    void importieren_ReportsInvalidRowsWithLineNumbers() {
+        vergibtIds();
+        String csv = KOPF
+                + "Ring;1;10;Wien;AT;80;1990;1;2;;;;;;;;;;;;;\n"
+                + "Ring;1;1010;Wien;AT;achtzig;1990;1;2;;;;;;;;;;;;;\n"
+                + "Ring;1;1010;Wien;AT;80;1990;1;2;;;;;;;;;01.01.2024;;1000;500;1\n"
+                + "Ring;1;1010;Wien;Atlantis;80;1990;1;2;;;;;;;;;;;;;\n"
+                + "Ring;2;1010;Wien;AT;80;1990;1;2;;;;;;;;;;;;;\n";
+
+        ImportService.Bericht bericht = importService.importieren(stream(csv), ImportService.Format.CSV);
+
+        assertEquals(5, bericht.datensaetze());
+        assertEquals(1, bericht.wohnungen());
+        assertEquals(4, bericht.fehlerhaft());
+        assertEquals(List.of(2L, 3L, 4L, 5L), bericht.fehler().stream().map(ImportService.Fehler::nummer).toList());
+        assertEquals("Illegal Postleitzahl", bericht.fehler().get(0).meldung());
+        assertTrue(bericht.fehler().get(1).meldung().contains("gesamtquadratmeter"));
+        assertEquals("Mietvertrag ohne Mieter", bericht.fehler().get(2).meldung());
+        assertEquals("Unbekanntes Land: Atlantis", bericht.fehler().get(3).meldung());
+    }
+
+    @Test
+    void importieren_ReadsJsonAndReusesExistingTenants() {
+        vergibtIds();
+        Mieter vorhanden = new Mieter("Muster", "Erika", "06641234", "erika@example.com", 2500);
+        vorhanden.setMieter_id(42L);
+        Mieter referenz = new Mieter();
+        when(mieterRepository.findByEmailIn(any())).thenReturn(List.of(vorhanden));
+        when(entityManager.getReference(Mieter.class, 42L)).thenReturn(referenz);
+        String json = """
+                [{"strasse": "Ring", "hausnummer": "1", "postleitzahl": "1010", "stadt": "Wien", "land": "AT",
+                  "gesamtQuadratmeter": 80, "baujahr": 1990, "anzahlBaeder": 1, "hatBalkon": true,
+                  "name": "Muster", "vorname": "Erika", "telefonnummer": "06641234", "email": "erika@example.com",
+                  "einkommen": 2500, "mietbeginn": "2024-01-01", "kaution": 1500, "miete": 750.0, "anzahlBewohner": 1}]
+                """;
+
+        ImportService.Bericht bericht = importService.importieren(stream(json), ImportService.Format.JSON);
+
+        assertEquals(new ImportService.Bericht(1, 1, 0, 1, 0, List.of(), false), bericht);
+        verify(entityManager, never()).persist(any(Mieter.class));
+        verify(entityManager).persist(argThat(entity -> entity instanceof Mietvertrag mietvertrag
+                && mietvertrag.getMieter() == referenz));
+    }
+
+    @Test
+    void importieren_SavesInBatchesAndRetriesFailedBatchRowByRow() {
+        ReflectionTestUtils.setField(importService, "batchGroesse", 2);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof Wohnung wohnung) {
+                if (wohnung.getStadt().equals("Graz")) throw new PersistenceException("Constraint verletzt");
+                wohnung.setWohnung_id(ids.incrementAndGet());
+            }
+            return null;
+        }).when(entityManager).persist(any());
+        String csv = KOPF
+                + "Ring;1;1010;Wien;AT;80;1990;1;2;;;;;;;;;;;;;\n"
+                + "Platz;1;8010;Graz;AT;80;1990;1;2;;;;;;;;;;;;;\n"
+                + "Ring;2;1010;Wien;AT;80;1990;1;2;;;;;;;;;;;;;\n";
+
+        ImportService.Bericht bericht = importService.importieren(stream(csv), ImportService.Format.CSV);
+
+        assertEquals(2, bericht.wohnungen());
+        assertEquals(List.of(new ImportService.Fehler(3, "Speichern fehlgeschlagen: Constraint verletzt")), bericht.fehler());
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(geocodingService, times(2)).alleKoordinatenNachtragen(any(), anyString());
+    }
+
+    @Test
+    void importieren_KeepsSavedBatchesWhenInputIsTruncated() {
+        ReflectionTestUtils.setField(importService, "batchGroesse", 1);
+        vergibtIds();
+        String json = """
+                {"strasse": "Ring", "hausnummer": "1", "postleitzahl": "1010", "stadt": "Wien", "land": "AT", "gesamtQuadratmeter": 80, "baujahr": 1990, "anzahlBaeder": 1}
+                {"strasse": "Ring", "hausnummer": "2", "postleitzahl": "1010", "stadt": "Wien", "land": "AT", "gesamtQuadratmeter": 80, "baujahr": 1990, "anzahlBaeder": 1}
+                {"strasse": "Ring", "hausnummer": "3", "postl""";
+
+        ImportService.Bericht bericht = importService.importieren(stream(json), ImportService.Format.JSON);
+
+        assertTrue(bericht.abgebrochen());
+        assertEquals(2, bericht.wohnungen());
+        assertTrue(bericht.fehler().getFirst().meldung().startsWith("Import abgebrochen"));
+    }
+
+    @Test
+    void csvLeser_HandlesQuotesLineBreaksAndCommas() throws IOException {
+        CsvLeser leser = new CsvLeser(new StringReader("﻿Name,Notiz\r\n\"Muster, Max\",\"sagt \"\"Hallo\"\"\nund tschüss\"\r\nX,\r\n"));
+
+        assertEquals(',', leser.trennzeichen());
+        assertEquals(Map.of("name", "Muster, Max", "notiz", "sagt \"Hallo\"\nund tschüss"), leser.naechster());
+        assertEquals(2, leser.zeile());
+        assertEquals(Map.of("name", "X", "notiz", ""), leser.naechster());
+        assertEquals(4, leser.zeile());
+        assertNull(leser.naechster());
+    }
+
+    private void vergibtIds() {
+        doAnswer(invocation -> {
+            switch (invocation.getArgument(0)) {
+                case Wohnung wohnung -> wohnung.setWohnung_id(ids.incrementAndGet());
+                case Mieter mieter -> mieter.setMieter_id(ids.incrementAndGet());
+                case Mietvertrag mietvertrag -> mietvertrag.setMietvertrag_id(ids.incrementAndGet());
+                default -> {
+                }
+            }
+            return null;
+        }).when(entityManager).persist(any());
+    }
+
+    private static ByteArrayInputStream stream(String inhalt) {
+        return new ByteArrayInputStream(inhalt.getBytes(StandardCharsets.UTF_8));
+    }
+}
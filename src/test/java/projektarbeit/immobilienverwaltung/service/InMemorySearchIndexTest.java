@@ -0,0 +1,227 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
+import projektarbeit.immobilienverwaltung.model.Land;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.SearchDocument;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.model.WohnungAdresse;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InMemorySearchIndexTest {
+
+    @Mock
+    private MieterRepository mieterRepository;
+
+    @Mock
+    private WohnungRepository wohnungRepository;
+
+    @Mock
+    private MietvertragRepository mietvertragRepository;
+
+    @InjectMocks
+    private InMemorySearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mieterRepository.findSearchDocuments()).thenReturn(List.of(
+                new SearchDocument(1L, "Müller Hans hans.mueller@example.com 0151 1234567"),
+                new SearchDocument(2L, "Müllermann Anna anna@example.com 0170 7654321"),
+                new SearchDocument(3L, "Schmidt Peter peter.schmidt@example.com 089 555")));
+        lenient().when(wohnungRepository.findAdressen()).thenReturn(List.of(
+                new WohnungAdresse(10L, "Hauptstraße", "1", "10115", "Berlin", Land.DE),
+                new WohnungAdresse(11L, "Ringstrasse", "5", "1010", "Wien", Land.AT),
+                new WohnungAdresse(12L, "Bahnhofstraße", "12", "80331", "München", Land.DE)));
+    }
+
+    @Test
+    void searchMieter_RanksExactWordBeforePrefix() {
+        assertEquals(List.of(1L, 2L), searchIndex.searchMieter("müller", 10));
+    }
+
+    @Test
+    void searchMieter_AllTokensMustMatch() {
+        assertEquals(List.of(1L), searchIndex.searchMieter("Müller Hans", 10));
+        assertTrue(searchIndex.searchMieter("Müller Peter", 10).isEmpty());
+    }
+
+    @Test
+    void searchMieter_FindsEmailAndPhoneParts() {
+        assertEquals(List.of(3L), searchIndex.searchMieter("peter.schmidt@", 10));
+        assertEquals(List.of(2L), searchIndex.searchMieter("7654", 10));
+    }
+
+    @Test
+    void searchMieter_ToleratesTypos() {
+        assertEquals(List.of(3L), searchIndex.searchMieter("Schmidz", 10));
+        assertTrue(searchIndex.searchMieter("Sch", 10).contains(3L));
+        assertTrue(searchIndex.searchMieter("Xyz", 10).isEmpty());
+    }
+
+    @Test
+    void searchMieter_RespectsLimit() {
+        assertEquals(List.of(1L), searchIndex.searchMieter("mull", 1));
+        assertTrue(searchIndex.searchMieter("mull", 0).isEmpty());
+    }
+
+    @Test
+    void searchMieter_PagesAndCountsAllMatches() {
+        when(mieterRepository.findSearchDocuments()).thenReturn(LongStream.rangeClosed(1, 1200)
+                .mapToObj(id -> new SearchDocument(id, "Meier " + id))
+                .toList());
+
+        assertEquals(1200, searchIndex.countMieter("meier"));
+        assertEquals(1200, searchIndex.searchMieter("meier").size());
+        assertEquals(List.of(1001L, 1002L), searchIndex.searchMieter("meier", 1000, 2));
+        assertTrue(searchIndex.searchMieter("meier", 1200, 2).isEmpty());
+        assertEquals(0, searchIndex.countMieter("schulz"));
+    }
+
+    @Test
+    void searchWohnungen_NormalizesUmlautsAndSharpS() {
+        assertEquals(List.of(12L), searchIndex.searchWohnungen("Munchen", 10));
+        assertEquals(List.of(10L), searchIndex.searchWohnungen("hauptstrasse", 10));
+        assertEquals(List.of(11L), searchIndex.searchWohnungen("wien", 10));
+    }
+
+    @Test
+    void searchAdressen_PagesAndCountsAddressesInsteadOfApartments() {
+        when(wohnungRepository.findAdressen()).thenReturn(List.of(
+                new WohnungAdresse(10L, "Hauptstraße", "1", "10115", "Berlin", Land.DE),
+                new WohnungAdresse(14L, "Hauptstraße", "1", "10115", "Berlin", Land.DE),
+                new WohnungAdresse(13L, "Hauptstraße", "1", "10115", "Berlin", Land.DE),
+                new WohnungAdresse(11L, "Hauptstraße", "2", "10115", "Berlin", Land.DE),
+                new WohnungAdresse(12L, "Ringstrasse", "5", "1010", "Wien", Land.AT)));
+
+        assertEquals(List.of(10L, 11L), searchIndex.searchAdressen("Hauptstrasse", 0, 10));
+        assertEquals(List.of(11L), searchIndex.searchAdressen("Hauptstrasse", 1, 10));
+        assertEquals(2, searchIndex.countAdressen("berlin"));
+        assertEquals(0, searchIndex.countAdressen("graz"));
+    }
+
+    @Test
+    void searchFreieWohnungen_SkipsRentedApartments() {
+        when(mietvertragRepository.findWohnungIds()).thenReturn(List.of(10L));
+
+        assertTrue(searchIndex.searchFreieWohnungen("Berlin", 0, 10).isEmpty());
+        assertEquals(List.of(11L), searchIndex.searchFreieWohnungen("Wien", 0, 10));
+        assertEquals(0, searchIndex.countFreieWohnungen("Berlin"));
+
+        Wohnung wohnung = new Wohnung();
+        wohnung.setWohnung_id(10L);
+        Mietvertrag mietvertrag = new Mietvertrag();
+        mietvertrag.setMietvertrag_id(1L);
+        mietvertrag.setWohnung(wohnung);
+        searchIndex.onEntityChanged(EntityChangedEvent.deleted(mietvertrag));
+
+        assertEquals(List.of(10L), searchIndex.searchFreieWohnungen("Berlin", 0, 10));
+        assertEquals(1, searchIndex.countFreieWohnungen("Berlin"));
+    }
+
+    @Test
+    void search_BlankTermDoesNotLoadIndex() {
+        assertTrue(searchIndex.searchMieter("  ", 10).isEmpty());
+
+        verify(mieterRepository, never()).findSearchDocuments();
+    }
+
+    @Test
+    void search_LoadsIndexOnlyOnce() {
+        searchIndex.searchMieter("Hans", 10);
+        searchIndex.searchWohnungen("Berlin", 10);
+
+        verify(mieterRepository, times(1)).findSearchDocuments();
+        verify(wohnungRepository, times(1)).findAdressen();
+    }
+
+    @Test
+    void onEntityChanged_UpdatesAndRemovesEntries() {
+        searchIndex.searchMieter("Hans", 10);
+
+        Mieter mieter = new Mieter("Weber", "Hans", "0160 111", "hans@weber.de", 3000);
+        mieter.setMieter_id(1L);
+        searchIndex.onEntityChanged(EntityChangedEvent.saved(mieter));
+
+        assertEquals(List.of(1L), searchIndex.searchMieter("Weber", 10));
+        assertEquals(List.of(2L), searchIndex.searchMieter("Müller", 10));
+
+        searchIndex.onEntityChanged(EntityChangedEvent.deleted(mieter));
+
+        assertTrue(searchIndex.searchMieter("Weber", 10).isEmpty());
+    }
+
+    @Test
+    void onEntityChanged_AddsNewWohnung() {
+        searchIndex.searchWohnungen("Berlin", 10);
+
+        Wohnung wohnung = new Wohnung("Gartenweg", "7", "10117", "Berlin", Land.DE, 60, 2000,
+                1, 2, false, false, true, false, "1", "1");
+        wohnung.setWohnung_id(13L);
+        searchIndex.onEntityChanged(EntityChangedEvent.saved(wohnung));
+
+        assertEquals(List.of(10L, 13L), searchIndex.searchWohnungen("Berlin", 10));
+    }
+
+    @Test
+    void onEntityChanged_IgnoredBeforeIndexIsLoaded() {
+        Mieter mieter = new Mieter("Weber", "Hans", "0160 111", "hans@weber.de", 3000);
+        mieter.setMieter_id(4L);
+        searchIndex.onEntityChanged(EntityChangedEvent.saved(mieter));
+
+        assertTrue(searchIndex.searchMieter("Weber", 10).isEmpty());
+        verify(mieterRepository, times(1)).findSearchDocuments();
+    }
+
+    @Test
+    void onEntityChanged_AppliedWhenCommittedDuringBuild() throws Exception {
+        CountDownLatch liestMieter = new CountDownLatch(1);
+        CountDownLatch weiter = new CountDownLatch(1);
+        when(mieterRepository.findSearchDocuments()).thenAnswer(invocation -> {
+            liestMieter.countDown();
+            assertTrue(weiter.await(5, TimeUnit.SECONDS));
+            // Die Projektion wurde vor dem Commit gelesen und enthält den neuen Mieter nicht
+            return List.of(new SearchDocument(1L, "Müller Hans hans.mueller@example.com 0151 1234567"));
+        });
+        Mieter mieter = new Mieter("Weber", "Hans", "0160 111", "hans@weber.de", 3000);
+        mieter.setMieter_id(4L);
+
+        Thread aufbau = Thread.ofVirtual().start(() -> searchIndex.searchMieter("Müller", 10));
+        assertTrue(liestMieter.await(5, TimeUnit.SECONDS));
+        Thread commit = Thread.ofVirtual().start(() -> searchIndex.onEntityChanged(EntityChangedEvent.saved(mieter)));
+        // Das Ereignis trifft während des Aufbaus ein und wartet auf die Sperre oder ist bereits verarbeitet
+        while (commit.getState() == Thread.State.NEW || commit.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(1);
+        }
+        weiter.countDown();
+        aufbau.join(5000);
+        commit.join(5000);
+
+        assertEquals(List.of(4L), searchIndex.searchMieter("Weber", 10));
+    }
+
+    @Test
+    void prefixDistance_MatchesTyposAgainstWordStart() {
+        assertEquals(0, InvertedIndex.prefixDistance("haupt", "hauptstrasse", 1));
+        assertEquals(1, InvertedIndex.prefixDistance("hapt", "hauptstrasse", 1));
+        assertTrue(InvertedIndex.prefixDistance("berlin", "wien", 1) > 1);
+    }
+}
@@ -2,10 +2,20 @@ package projektarbeit.immobilienverwaltung.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.MieterListItem;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
 import projektarbeit.immobilienverwaltung.repository.*;
 
@@ -14,6 +24,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +42,18 @@ class MieterServiceTest {
     @Mock
     private DokumentRepository dokumentRepository;
 
+    @Mock
+    private DokumentService dokumentService;
+
+    @Mock
+    private MietvertragRepository mietvertragRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SearchIndex searchIndex;
+
     @InjectMocks
     private MieterService mieterService;
 
@@ -89,13 +112,17 @@ class MieterServiceTest {
 
     @Test
     void findAllMieter_WithFilter() {
-        when(mieterRepository.search("Filter")).thenReturn(new ArrayList<>());
+        Mieter mieter1 = new Mieter();
+        mieter1.setMieter_id(1L);
+        Mieter mieter2 = new Mieter();
+        mieter2.setMieter_id(2L);
+        when(searchIndex.searchMieter("Filter", 0, 1000)).thenReturn(List.of(2L, 1L));
+        when(mieterRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(mieter1, mieter2));
 
         List<Mieter> mieterList = mieterService.findAllMieter("Filter");
 
-        assertNotNull(mieterList);
-        assertEquals(0, mieterList.size());
-        verify(mieterRepository, times(1)).search("Filter");
+        assertEquals(List.of(mieter2, mieter1), mieterList);
+        verify(mieterRepository, never()).findAll();
     }
 
     @Test
@@ -111,6 +138,85 @@ class MieterServiceTest {
         verify(mieterRepository, times(1)).findAll();
     }
 
+    @Test
+    void toListItems_LoadsMietvertraegeInOneQuery() {
+        Mieter mieter1 = new Mieter();
+        mieter1.setMieter_id(1L);
+        Mieter mieter2 = new Mieter();
+        mieter2.setMieter_id(2L);
+        Mietvertrag mietvertrag = new Mietvertrag();
+        mietvertrag.setMieter(mieter1);
+        when(mietvertragRepository.findByMieterIdsWithWohnung(List.of(1L, 2L))).thenReturn(List.of(mietvertrag));
+
+        List<MieterListItem> items = mieterService.toListItems(List.of(mieter1, mieter2));
+
+        assertEquals(2, items.size());
+        assertEquals(List.of(mietvertrag), items.get(0).mietvertraege());
+        assertTrue(items.get(1).mietvertraege().isEmpty());
+        verify(mietvertragRepository, times(1)).findByMieterIdsWithWohnung(anyCollection());
+        verify(mietvertragRepository, never()).findByMieter_MieterId(anyLong());
+    }
+
+    @Test
+    void findMieterListItems_TranslatesSortToQueryExpressions() {
+        when(mieterRepository.findPage(any(Pageable.class))).thenReturn(List.of());
+
+        // Das Grid fordert Seiten ab beliebigen Offsets an, die kein Vielfaches der Seitengröße sind
+        mieterService.findMieterListItems(null, OffsetPageRequest.of(125, 50, Sort.by(Sort.Direction.DESC, "miete")));
+
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(mieterRepository).findPage(captor.capture());
+        Pageable pageable = captor.getValue();
+        assertEquals(125, pageable.getOffset());
+        assertEquals(50, pageable.getPageSize());
+        assertEquals(List.of("min(v.miete)", "mieterId"), pageable.getSort().stream().map(Sort.Order::getProperty).toList());
+        assertEquals(Sort.Direction.DESC, pageable.getSort().iterator().next().getDirection());
+    }
+
+    @Test
+    void findMieterListItems_WithFilterKeepsRelevanceOrder() {
+        Mieter mieter2 = new Mieter();
+        mieter2.setMieter_id(2L);
+        Mieter mieter3 = new Mieter();
+        mieter3.setMieter_id(3L);
+        when(searchIndex.searchMieter("Max", 600L, 2)).thenReturn(List.of(3L, 2L));
+        when(mieterRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(mieter2, mieter3));
+
+        List<MieterListItem> items = mieterService.findMieterListItems("Max", PageRequest.of(300, 2, Sort.by("miete")));
+
+        assertEquals(List.of(mieter3, mieter2), items.stream().map(MieterListItem::mieter).toList());
+        verify(searchIndex, never()).searchMieter("Max");
+    }
+
+    @Test
+    void findMieterListItems_NoFilter() {
+        when(mieterRepository.findPage(any(Pageable.class))).thenReturn(List.of());
+
+        assertTrue(mieterService.findMieterListItems(null, PageRequest.of(0, 50)).isEmpty());
+        verify(searchIndex, never()).searchMieter(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void countMieter_NullFilter() {
+        when(mieterRepository.count()).thenReturn(3L);
+
+        assertEquals(3L, mieterService.countMieter(null));
+    }
+
+    @Test
+    void countMieter_WithFilter() {
+        when(searchIndex.countMieter("max")).thenReturn(1200L);
+
+        assertEquals(1200L, mieterService.countMieter("max"));
+        verify(searchIndex, never()).searchMieter("max");
+    }
+
+    @Test
+    void toListItems_EmptyList() {
+        assertTrue(mieterService.toListItems(List.of()).isEmpty());
+        verify(mietvertragRepository, never()).findByMieterIdsWithWohnung(anyCollection());
+    }
+
     @Test
     void saveMieter() {
         Mieter mieter = new Mieter();
@@ -118,6 +224,8 @@ class MieterServiceTest {
         mieterService.saveMieter(mieter);
 
         verify(mieterRepository, times(1)).save(mieter);
+        verify(eventPublisher, times(1)).publishEvent(DashboardStatsDelta.mieterAdded());
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.saved(mieter));
     }
 
     @Test
@@ -145,4 +253,21 @@ class MieterServiceTest {
 
         verify(mieterRepository, times(1)).findById(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteMieter_DeletesDocumentsThroughDokumentService() {
+        Mieter mieter = new Mieter();
+        mieter.setMieter_id(1L);
+        Dokument dokument = new Dokument(null, mieter, "Rechnung", "/pfad/rechnung.pdf");
+        when(mietvertragRepository.findByMieterIdsWithWohnung(List.of(1L))).thenReturn(List.of());
+        when(mieterRepository.findById(1L)).thenReturn(Optional.of(mieter));
+        when(dokumentRepository.findByMieter(mieter)).thenReturn(List.of(dokument));
+
+        mieterService.deleteMieter(mieter);
+
+        verify(dokumentService).deleteDokumente(List.of(dokument));
+        verify(dokumentRepository, never()).deleteAll(anyList());
+        verify(mieterRepository).delete(mieter);
+        verify(eventPublisher).publishEvent(EntityChangedEvent.deleted(mieter));
+    }
+}
@@ -6,6 +6,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import projektarbeit.immobilienverwaltung.model.DashboardStatsDelta;
+import projektarbeit.immobilienverwaltung.model.EntityChangedEvent;
 import projektarbeit.immobilienverwaltung.model.Mieter;
 import projektarbeit.immobilienverwaltung.model.Mietvertrag;
 import projektarbeit.immobilienverwaltung.model.Wohnung;
@@ -14,9 +17,11 @@ import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +30,9 @@ class MietvertragServiceTest {
     @Mock
     private MietvertragRepository mietvertragRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MietvertragService mietvertragService;
 
@@ -37,6 +45,30 @@ class MietvertragServiceTest {
         verify(mietvertragRepository, times(1)).save(mietvertrag);
     }
 
+    @Test
+    void saveMietvertrag_PublishesAddedDelta() {
+        Mietvertrag mietvertrag = new Mietvertrag();
+        mietvertrag.setMiete(750.0);
+
+        mietvertragService.saveMietvertrag(mietvertrag);
+
+        verify(mietvertragRepository, never()).findMieteById(any());
+        verify(eventPublisher, times(1)).publishEvent(DashboardStatsDelta.mietvertragAdded(750.0));
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.saved(mietvertrag));
+    }
+
+    @Test
+    void saveMietvertrag_PublishesMieteChangedDelta() {
+        Mietvertrag mietvertrag = new Mietvertrag();
+        mietvertrag.setMietvertrag_id(1L);
+        mietvertrag.setMiete(900.0);
+        when(mietvertragRepository.findMieteById(1L)).thenReturn(Optional.of(800.0));
+
+        mietvertragService.saveMietvertrag(mietvertrag);
+
+        verify(eventPublisher, times(1)).publishEvent(DashboardStatsDelta.mieteChanged(800.0, 900.0));
+    }
+
     @Test
     void findAll() {
         Mietvertrag mietvertrag1 = new Mietvertrag();
@@ -0,0 +1,201 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import projektarbeit.immobilienverwaltung.model.Dokument;
+import projektarbeit.immobilienverwaltung.model.Mieter;
+import projektarbeit.immobilienverwaltung.model.MieterListItem;
+import projektarbeit.immobilienverwaltung.model.Mietvertrag;
+import projektarbeit.immobilienverwaltung.model.Wohnung;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+import projektarbeit.immobilienverwaltung.repository.ZaehlerstandRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static projektarbeit.immobilienverwaltung.model.Land.DE;
+
+/**
+ * Zählt die SQL-Anweisungen zentraler Service-Methoden über die Hibernate-Statistik.
+ * Jede Methode wird mit unterschiedlich vielen Datensätzen ausgeführt und muss dabei genau die erwartete Anzahl
+ * an Anweisungen absetzen. Wächst die Anzahl mit den Daten, ist eine N+1-Abfrage entstanden.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class QueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private WohnungRepository wohnungRepository;
+
+    @Autowired
+    private MieterRepository mieterRepository;
+
+    @Autowired
+    private MietvertragRepository mietvertragRepository;
+
+    @Autowired
+    private ZaehlerstandRepository zaehlerstandRepository;
+
+    @Autowired
+    private DokumentRepository dokumentRepository;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private Statistics statistics;
+    private WohnungService wohnungService;
+    private MieterService mieterService;
+    private DokumentService dokumentService;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        dokumentService = new DokumentService(dokumentRepository, eventPublisher, mock(BlobStore.class), mock(UploadService.class));
+        wohnungService = new WohnungService(wohnungRepository, dokumentRepository, dokumentService, mieterRepository,
+                mietvertragRepository, zaehlerstandRepository, mock(GeocodingService.class), eventPublisher, mock(SearchIndex.class));
+        MietvertragService mietvertragService = new MietvertragService(mietvertragRepository, wohnungService, eventPublisher);
+        ReflectionTestUtils.setField(mietvertragService, "entityManager", entityManager);
+        mieterService = new MieterService(wohnungRepository, mieterRepository, zaehlerstandRepository, dokumentRepository,
+                dokumentService, mietvertragRepository, mietvertragService, eventPublisher, mock(SearchIndex.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    void findWohnungenWithHierarchy(int n) {
+        for (int i = 0; i < n; i++) {
+            wohnungRepository.save(wohnung("Ring", Integer.toString(i)));
+            wohnungRepository.save(wohnung("Ring", Integer.toString(i)));
+            Wohnung einzelne = wohnungRepository.save(wohnung("Weg", Integer.toString(i)));
+            Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max" + i + "@mustermann.de", 3500));
+            mietvertragRepository.save(new Mietvertrag(mieter, einzelne, LocalDate.of(2023, 1, 1), null, 1000, 500, 1));
+        }
+        neuLaden();
+
+        long anweisungen = anweisungen(() -> {
+            List<Wohnung> wohnungen = wohnungService.findWohnungenWithHierarchy(null, OffsetPageRequest.of(0, 100, Sort.unsorted()));
+            assertEquals(2 * n, wohnungen.size());
+            // Die Übersicht zeigt den Mieter jeder einzelnen Wohnung an
+            wohnungen.stream()
+                    .filter(wohnung -> !wohnung.isHeader())
+                    .forEach(wohnung -> assertEquals("Mustermann", wohnung.getMietvertrag().getMieter().getName()));
+        });
+
+        // Adressen und einzelne Wohnungen mit Mietvertrag und Mieter
+        assertEquals(2, anweisungen);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    void findMieterListItems(int n) {
+        seedVertraege(n);
+
+        long anweisungen = anweisungen(() -> {
+            List<MieterListItem> zeilen = mieterService.findMieterListItems(null, PageRequest.of(0, 50));
+            assertEquals(n, zeilen.size());
+            zeilen.forEach(zeile -> assertEquals("Ring", zeile.mietvertraege().get(0).getWohnung().getStrasse()));
+        });
+
+        // Seite der Mieter und alle ihre Verträge mit Wohnung
+        assertEquals(2, anweisungen);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    void dashboard(int n) {
+        seedVertraege(n);
+        DashboardService dashboardService = new DashboardService(new DashboardStatsStore(mietvertragRepository));
+
+        long anweisungen = anweisungen(() -> {
+            assertEquals(n, dashboardService.getTotalMieter());
+            assertEquals(n, dashboardService.getImmobilienStats().get("vermietet"));
+            assertEquals(500.0 * n, dashboardService.getMieteinnahmen());
+            dashboardService.getDashboardStats();
+        });
+
+        // Eine Aggregation beim ersten Zugriff, danach aus dem Schnappschuss
+        assertEquals(1, anweisungen);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    void deleteMieter(int n) {
+        Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max@mustermann.de", 3500));
+        for (int i = 0; i < n; i++) {
+            Wohnung wohnung = wohnungRepository.save(wohnung("Ring", Integer.toString(i)));
+            mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.of(2023, 1, 1), null, 1000, 500, 1));
+            dokumentRepository.save(new Dokument(null, mieter, "Rechnung", "/pfad/" + i));
+        }
+        neuLaden();
+
+        long anweisungen = anweisungen(() -> mieterService.deleteMieter(mieter));
+
+        // Verträge mit Mieter und Wohnung, Vertragsliste des Mieters, Dokumente, Löschen der Verträge,
+        // Dokumente und des Mieters
+        assertEquals(6, anweisungen);
+        assertEquals(0, mieterRepository.count());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    void deleteDokumenteByWohnung(int n) {
+        Wohnung wohnung = wohnungRepository.save(wohnung("Ring", "1"));
+        for (int i = 0; i < n; i++) {
+            Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max" + i + "@mustermann.de", 3500));
+            dokumentRepository.save(new Dokument(wohnung, null, "Rechnung", "/pfad/a" + i));
+            dokumentRepository.save(new Dokument(wohnung, mieter, "Vertrag", "/pfad/b" + i));
+        }
+        neuLaden();
+
+        long anweisungen = anweisungen(() -> dokumentService.deleteDokumenteByWohnung(wohnung));
+
+        // Dokumente mit Mieter, Mietvertrag der Wohnung, Aktualisieren und Löschen
+        assertEquals(4, anweisungen);
+        assertEquals(n, dokumentRepository.count());
+    }
+
+    private void seedVertraege(int n) {
+        for (int i = 0; i < n; i++) {
+            Wohnung wohnung = wohnungRepository.save(wohnung("Ring", Integer.toString(i)));
+            Mieter mieter = mieterRepository.save(new Mieter("Mustermann", "Max", "491234567890", "max" + i + "@mustermann.de", 3500));
+            mietvertragRepository.save(new Mietvertrag(mieter, wohnung, LocalDate.of(2023, 1, 1), null, 1000, 500, 1));
+        }
+        neuLaden();
+    }
+
+    /**
+     * Schreibt die Testdaten und leert den Persistenzkontext, damit die gemessene Methode aus der Datenbank lädt.
+     */
+    private void neuLaden() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Führt die Aktion aus, schreibt ihre Änderungen und gibt die Anzahl der dabei abgesetzten SQL-Anweisungen zurück.
+     */
+    private long anweisungen(Runnable aktion) {
+        statistics.clear();
+        aktion.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Wohnung wohnung(String strasse, String hausnummer) {
+        return new Wohnung(strasse, hausnummer, "70173", "Stuttgart", DE, 60, 1990, 1, 2, false, false, false, false, null, null);
+    }
+}
@@ -0,0 +1,215 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import projektarbeit.immobilienverwaltung.model.*;
+import projektarbeit.immobilienverwaltung.model.QuickSearchHit.Typ;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+import projektarbeit.immobilienverwaltung.repository.MieterRepository;
+import projektarbeit.immobilienverwaltung.repository.MietvertragRepository;
+import projektarbeit.immobilienverwaltung.repository.WohnungRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuickSearchServiceTest {
+
+    @Mock
+    private MieterRepository mieterRepository;
+
+    @Mock
+    private WohnungRepository wohnungRepository;
+
+    @Mock
+    private MietvertragRepository mietvertragRepository;
+
+    @Mock
+    private DokumentRepository dokumentRepository;
+
+    @InjectMocks
+    private QuickSearchService quickSearchService;
+
+    private Mieter mieter;
+    private Wohnung wohnung;
+    private Mietvertrag mietvertrag;
+    private Dokument dokument;
+
+    @BeforeEach
+    void setUp() {
+        mieter = new Mieter("Mustermann", "Max", "0711 123456", "max@mustermann.de", 3500.0);
+        mieter.setMieter_id(1L);
+        wohnung = new Wohnung("Königstraße", "11", "70173", "Stuttgart", Land.DE, 80, 1990,
+                1, 2, true, false, false, false, "2", "5");
+        wohnung.setWohnung_id(2L);
+        mietvertrag = new Mietvertrag(mieter, wohnung, LocalDate.now(), null, 800.0, 2400.0, 2);
+        mietvertrag.setMietvertrag_id(3L);
+        dokument = new Dokument(wohnung, null, "Energieausweis.pdf", "/pfad/zu/datei.pdf");
+        dokument.setDokument_id(4L);
+
+        lenient().when(mieterRepository.findQuickSearchZeilen()).thenReturn(List.<Object[]>of(zeile(mieter)));
+        lenient().when(wohnungRepository.findQuickSearchZeilen()).thenReturn(List.<Object[]>of(zeile(wohnung)));
+        lenient().when(mietvertragRepository.findQuickSearchZeilen()).thenReturn(List.<Object[]>of(zeile(mietvertrag)));
+        lenient().when(dokumentRepository.findQuickSearchZeilen()).thenReturn(List.<Object[]>of(zeile(dokument)));
+    }
+
+    @Test
+    void search_FindsAllEntityTypes() {
+        quickSearchService.aufbauen();
+
+        List<QuickSearchHit> hits = quickSearchService.search("Königstr", QuickSearchService.DEFAULT_LIMIT);
+
+        assertEquals(List.of(Typ.WOHNUNG, Typ.MIETVERTRAG, Typ.DOKUMENT), hits.stream().map(QuickSearchHit::typ).toList());
+        assertEquals("Königstraße 11, Wohnung 5", hits.getFirst().titel());
+        assertEquals("70173 Stuttgart", hits.getFirst().beschreibung());
+    }
+
+    @Test
+    void search_RanksExactMatchesFirst() {
+        quickSearchService.aufbauen();
+        List<QuickSearchHit> hits = quickSearchService.search("max", QuickSearchService.DEFAULT_LIMIT);
+
+        assertEquals(List.of(Typ.MIETER, Typ.MIETVERTRAG), hits.stream().map(QuickSearchHit::typ).toList());
+        assertEquals(1L, hits.getFirst().mieterId());
+        assertEquals(2L, hits.get(1).wohnungId());
+    }
+
+    @Test
+    void search_ToleratesTyposAndRespectsLimit() {
+        quickSearchService.aufbauen();
+        assertEquals(List.of(Typ.DOKUMENT), quickSearchService.search("Energieauswies", 5).stream().map(QuickSearchHit::typ).toList());
+        assertEquals(1, quickSearchService.search("Stuttgart", 1).size());
+        assertTrue(quickSearchService.search(" ", 5).isEmpty());
+    }
+
+    @Test
+    void search_DoesNotLoadIndexInsideRequest() {
+        assertTrue(quickSearchService.search("Max", 5).isEmpty());
+
+        verifyNoInteractions(mieterRepository, wohnungRepository, mietvertragRepository, dokumentRepository);
+    }
+
+    @Test
+    void aufbauen_LoadsIndexOnlyOnce() {
+        quickSearchService.aufbauen();
+        quickSearchService.aufbauen();
+
+        assertEquals(1, quickSearchService.search("Max", 5).stream().filter(hit -> hit.typ() == Typ.MIETER).count());
+        verify(mieterRepository, times(1)).findQuickSearchZeilen();
+        verify(dokumentRepository, times(1)).findQuickSearchZeilen();
+    }
+
+    @Test
+    void aufbauen_AppliesEventsReceivedWhileLoading() {
+        when(mieterRepository.findQuickSearchZeilen()).thenAnswer(invocation -> {
+            quickSearchService.onEntityChanged(EntityChangedEvent.deleted(mieter));
+            return List.<Object[]>of(zeile(mieter));
+        });
+
+        quickSearchService.aufbauen();
+
+        // Mit dem Mieter entfällt auch sein Mietvertrag
+        assertTrue(quickSearchService.search("Max", 5).isEmpty());
+        assertEquals(List.of(Typ.WOHNUNG), quickSearchService.search("Stuttgart", 5).stream().map(QuickSearchHit::typ).toList());
+    }
+
+    @Test
+    void onEntityChanged_ReloadsDependentEntries() {
+        quickSearchService.aufbauen();
+
+        mieter.setName("Musterfrau");
+        when(mietvertragRepository.findQuickSearchZeilenByIds(Set.of(3L))).thenReturn(List.<Object[]>of(zeile(mietvertrag)));
+        quickSearchService.onEntityChanged(EntityChangedEvent.saved(mieter));
+
+        List<QuickSearchHit> hits = quickSearchService.search("Musterfrau", 5);
+        assertEquals(List.of(Typ.MIETER, Typ.MIETVERTRAG), hits.stream().map(QuickSearchHit::typ).toList());
+        assertEquals("Mietvertrag Max Musterfrau", hits.get(1).titel());
+        verify(dokumentRepository, never()).findQuickSearchZeilenByIds(any());
+    }
+
+    @Test
+    void onEntityChanged_AddsNewDokument() {
+        quickSearchService.aufbauen();
+
+        Dokument neu = new Dokument(null, mieter, "Mietvertrag.pdf", "/pfad/zu/vertrag.pdf");
+        neu.setDokument_id(5L);
+        when(dokumentRepository.findQuickSearchZeilenByIds(Set.of(5L))).thenReturn(List.<Object[]>of(zeile(neu)));
+        quickSearchService.onEntityChanged(EntityChangedEvent.saved(neu));
+
+        List<QuickSearchHit> hits = quickSearchService.search("Mietvertrag pdf", 5);
+        assertEquals(1, hits.size());
+        assertEquals(5L, hits.getFirst().id());
+        assertEquals("Max Mustermann", hits.getFirst().beschreibung());
+    }
+
+    @Test
+    void onEntityChanged_ReloadsOnlyCurrentDependents() {
+        quickSearchService.aufbauen();
+
+        // Das Dokument gehört danach zum Mieter statt zur Wohnung
+        dokument.setWohnung(null);
+        dokument.setMieter(mieter);
+        when(dokumentRepository.findQuickSearchZeilenByIds(Set.of(4L))).thenReturn(List.<Object[]>of(zeile(dokument)));
+        quickSearchService.onEntityChanged(EntityChangedEvent.saved(dokument));
+
+        when(mietvertragRepository.findQuickSearchZeilenByIds(Set.of(3L))).thenReturn(List.<Object[]>of(zeile(mietvertrag)));
+        quickSearchService.onEntityChanged(EntityChangedEvent.saved(wohnung));
+
+        verify(dokumentRepository, times(1)).findQuickSearchZeilenByIds(any());
+        verify(mietvertragRepository).findQuickSearchZeilenByIds(Set.of(3L));
+    }
+
+    @Test
+    void onEntityChanged_DeletedWohnungRemovesDependentEntries() {
+        quickSearchService.aufbauen();
+
+        quickSearchService.onEntityChanged(EntityChangedEvent.deleted(wohnung));
+
+        assertTrue(quickSearchService.search("Stuttgart", 5).isEmpty());
+        assertEquals(List.of(Typ.MIETER), quickSearchService.search("Max", 5).stream().map(QuickSearchHit::typ).toList());
+    }
+
+    @Test
+    void onEntityChanged_IgnoredBeforeIndexIsLoaded() {
+        quickSearchService.onEntityChanged(EntityChangedEvent.deleted(mieter));
+        quickSearchService.aufbauen();
+
+        assertEquals(1, quickSearchService.search("Mustermann", 5).stream().filter(hit -> hit.typ() == Typ.MIETER).count());
+        verify(mietvertragRepository, never()).findQuickSearchZeilenByIds(any());
+    }
+
+    private static Object[] zeile(Mieter mieter) {
+        return new Object[]{mieter.getMieter_id(), mieter.getVorname(), mieter.getName(), mieter.getEmail(), mieter.getTelefonnummer()};
+    }
+
+    private static Object[] zeile(Wohnung wohnung) {
+        return new Object[]{wohnung.getWohnung_id(), wohnung.getStrasse(), wohnung.getHausnummer(), wohnung.getPostleitzahl(),
+                wohnung.getStadt(), wohnung.getWohnungsnummer()};
+    }
+
+    private static Object[] zeile(Mietvertrag mietvertrag) {
+        Mieter mieter = mietvertrag.getMieter();
+        Wohnung wohnung = mietvertrag.getWohnung();
+        return new Object[]{mietvertrag.getMietvertrag_id(), mieter.getMieter_id(), mieter.getVorname(), mieter.getName(),
+                wohnung.getWohnung_id(), wohnung.getStrasse(), wohnung.getHausnummer(), wohnung.getStadt()};
+    }
+
+    private static Object[] zeile(Dokument dokument) {
+        Mieter mieter = dokument.getMieter();
+        Wohnung wohnung = dokument.getWohnung();
+        return new Object[]{dokument.getDokument_id(), dokument.getDokumententyp(),
+                mieter != null ? mieter.getMieter_id() : null, mieter != null ? mieter.getVorname() : null,
+                mieter != null ? mieter.getName() : null, wohnung != null ? wohnung.getWohnung_id() : null,
+                wohnung != null ? wohnung.getStrasse() : null, wohnung != null ? wohnung.getHausnummer() : null};
+    }
+}
@@ -0,0 +1,148 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpeicherPruefServiceTest {
+
+    @Mock
+    private DokumentRepository dokumentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private BlobStore blobStore;
+    private SpeicherPruefService pruefService;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new BlobStore(dokumentRepository);
+        ReflectionTestUtils.setField(blobStore, "storagePath", tempDir.toString());
+        blobStore.init();
+        pruefService = new SpeicherPruefService(dokumentRepository, blobStore, transactionManager);
+        ReflectionTestUtils.setField(pruefService, "storagePath", tempDir.toString());
+        ReflectionTestUtils.setField(pruefService, "maxBytesProSekunde", 0L);
+    }
+
+    @Test
+    void pruefen_QuarantinesOldOrphans() throws IOException {
+        Path referenziert = store("Mietvertrag");
+        Path verwaist = altern(store("Kündigung"));
+        Path neu = store("Übergabeprotokoll");
+        Path alteDatei = altern(Files.writeString(tempDir.resolve("b1946ac9-uuid.pdf"), "alt"));
+        referenzen(referenziert);
+        when(dokumentRepository.countByDateipfad(anyString())).thenReturn(0L);
+
+        SpeicherPruefService.Bericht bericht = pruefService.pruefen();
+
+        assertEquals(4, bericht.dateien());
+        assertEquals(2, bericht.verwaist().size());
+        assertTrue(Files.exists(referenziert));
+        assertTrue(Files.exists(neu));
+        assertFalse(Files.exists(verwaist));
+        assertFalse(Files.exists(alteDatei));
+        assertTrue(Files.exists(tempDir.resolve("quarantaene").resolve(verwaist.getFileName())));
+        assertTrue(Files.exists(tempDir.resolve("quarantaene").resolve(alteDatei.getFileName())));
+    }
+
+    @Test
+    void pruefen_KeepsOrphanReferencedInTheMeantime() throws IOException {
+        Path verwaist = altern(store("Kündigung"));
+        referenzen();
+        when(dokumentRepository.countByDateipfad(verwaist.toString())).thenReturn(1L);
+
+        SpeicherPruefService.Bericht bericht = pruefService.pruefen();
+
+        assertTrue(bericht.verwaist().isEmpty());
+        assertTrue(Files.exists(verwaist));
+    }
+
+    @Test
+    void pruefen_ReportsMissingAndCorruptedBlobs() throws IOException {
+        Path intakt = store("Mietvertrag");
+        Path beschaedigt = store("Nebenkosten");
+        Files.writeString(beschaedigt, "manipuliert");
+        Path fehlend = tempDir.resolve("blobs").resolve("ff").resolve("f".repeat(64));
+        when(dokumentRepository.streamDateipfade()).thenReturn(Stream.of(
+                new Object[]{1L, intakt.toString()},
+                new Object[]{2L, beschaedigt.toString()},
+                new Object[]{3L, fehlend.toString()}));
+
+        SpeicherPruefService.Bericht bericht = pruefService.pruefen();
+
+        assertEquals(List.of(3L), bericht.fehlend());
+        assertEquals(List.of(beschaedigt.toString()), bericht.beschaedigt());
+        assertTrue(bericht.verwaist().isEmpty());
+    }
+
+    @Test
+    void pruefen_RemovesOrphanedPreviewsAndExpiredQuarantine() throws IOException {
+        Path blob = store("Grundriss");
+        Path vorschau = Files.createDirectories(tempDir.resolve("vorschau"));
+        Path gueltig = altern(Files.writeString(vorschau.resolve(blob.getFileName() + ".png"), "png"));
+        Path verwaist = altern(Files.writeString(vorschau.resolve("0".repeat(64) + ".png"), "png"));
+        Path quarantaene = Files.createDirectories(tempDir.resolve("quarantaene"));
+        Path abgelaufen = Files.writeString(quarantaene.resolve("1".repeat(64)), "alt");
+        Files.setLastModifiedTime(abgelaufen, FileTime.from(Instant.now().minus(SpeicherPruefService.QUARANTAENE_DAUER).minusSeconds(60)));
+        referenzen(blob);
+
+        SpeicherPruefService.Bericht bericht = pruefService.pruefen();
+
+        assertEquals(1, bericht.vorschauenEntfernt());
+        assertEquals(1, bericht.quarantaeneGeloescht());
+        assertTrue(Files.exists(gueltig));
+        assertFalse(Files.exists(verwaist));
+        assertFalse(Files.exists(abgelaufen));
+    }
+
+    @Test
+    void drossel_LimitsRate() throws InterruptedException {
+        SpeicherPruefService.Drossel drossel = new SpeicherPruefService.Drossel(1000);
+        long start = System.nanoTime();
+
+        drossel.verbrauchen(100);
+        drossel.verbrauchen(100);
+
+        assertTrue(System.nanoTime() - start >= 190_000_000L);
+    }
+
+    private Path store(String inhalt) throws IOException {
+        return blobStore.store(new ByteArrayInputStream(inhalt.getBytes(StandardCharsets.UTF_8)), null, b -> {
+        }).path();
+    }
+
+    private void referenzen(Path... pfade) {
+        when(dokumentRepository.streamDateipfade()).thenReturn(Stream.of(pfade)
+                .map(pfad -> new Object[]{(long) pfad.hashCode(), pfad.toString()}));
+    }
+
+    private static Path altern(Path datei) throws IOException {
+        Files.setLastModifiedTime(datei, FileTime.from(Instant.now().minus(SpeicherPruefService.MINDESTALTER).minusSeconds(60)));
+        return datei;
+    }
+}
@@ -0,0 +1,157 @@
+package projektarbeit.immobilienverwaltung.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import projektarbeit.immobilienverwaltung.repository.DokumentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadServiceTest {
+
+    @Mock
+    private DokumentRepository dokumentRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private UploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        BlobStore blobStore = new BlobStore(dokumentRepository);
+        ReflectionTestUtils.setField(blobStore, "storagePath", tempDir.toString());
+        blobStore.init();
+        uploadService = new UploadService(blobStore);
+    }
+
+    @Test
+    void append_WritesChunksInOrder() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", "text/plain", 5);
+
+        assertEquals(3, uploadService.append(session.getId(), 0, stream("Hal")));
+        assertEquals(5, uploadService.append(session.getId(), 3, stream("lo")));
+
+        BlobStore.StoredBlob blob = uploadService.abschliessen(session.getId(), null, b -> {
+        });
+        // SHA-256 von "Hallo"
+        assertEquals("753692ec36adb4c794c973945eb2a99c1649703ea6f76bf259abb4fb838e013e", blob.hash());
+        assertEquals("Hallo", Files.readString(blob.path()));
+        assertThrows(NoSuchElementException.class, () -> uploadService.get(session.getId()));
+    }
+
+    @Test
+    void append_RejectsWrongOffset() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, 5);
+        uploadService.append(session.getId(), 0, stream("Hal"));
+
+        assertThrows(IllegalStateException.class, () -> uploadService.append(session.getId(), 0, stream("Hal")));
+        assertEquals(3, session.getOffset());
+    }
+
+    @Test
+    void append_RejectsMoreThanAnnouncedSize() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> uploadService.append(session.getId(), 0, stream("Hallo")));
+        assertEquals(0, session.getOffset());
+    }
+
+    @Test
+    void append_ResumesAfterInterruptedChunk() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, 5);
+        InputStream abgebrochen = new InputStream() {
+            private int gelesen;
+
+            @Override
+            public int read() throws IOException {
+                if (gelesen == 2) throw new IOException("Verbindung abgebrochen");
+                return "Ha".charAt(gelesen++);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (gelesen == 2) throw new IOException("Verbindung abgebrochen");
+                b[off] = (byte) read();
+                return 1;
+            }
+        };
+
+        assertThrows(IOException.class, () -> uploadService.append(session.getId(), 0, abgebrochen));
+        assertEquals(2, session.getOffset());
+
+        uploadService.append(session.getId(), 2, stream("llo"));
+        BlobStore.StoredBlob blob = uploadService.abschliessen(session.getId(), null, b -> {
+        });
+        assertEquals("Hallo", Files.readString(blob.path()));
+    }
+
+    @Test
+    void openStream_AllowsOnlyOneWriter() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, -1);
+
+        try (OutputStream out = uploadService.openStream(session.getId(), -1)) {
+            out.write("Hallo".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalStateException.class, () -> uploadService.openStream(session.getId(), -1));
+            assertThrows(IllegalStateException.class, () -> uploadService.abschliessen(session.getId(), null, b -> {
+            }));
+        }
+
+        assertEquals(5, uploadService.abschliessen(session.getId(), null, b -> {
+        }).groesse());
+    }
+
+    @Test
+    void abschliessen_RejectsIncompleteUpload() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, 5);
+        uploadService.append(session.getId(), 0, stream("Hal"));
+
+        assertThrows(IllegalStateException.class, () -> uploadService.abschliessen(session.getId(), null, b -> {
+        }));
+        assertEquals(3, uploadService.get(session.getId()).getOffset());
+    }
+
+    @Test
+    void abbrechen_DeletesReceivedData() throws IOException {
+        UploadService.UploadSession session = uploadService.start("Hallo.txt", null, 5);
+        uploadService.append(session.getId(), 0, stream("Hal"));
+
+        uploadService.abbrechen(session.getId());
+
+        assertThrows(NoSuchElementException.class, () -> uploadService.get(session.getId()));
+        try (var temp = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void abgelaufeneVerwerfen_RemovesIdleUploads() throws IOException {
+        UploadService.UploadSession alt = uploadService.start("Alt.txt", null, 5);
+        UploadService.UploadSession neu = uploadService.start("Neu.txt", null, 5);
+        ReflectionTestUtils.setField(alt, "letzteAktivitaet", Instant.now().minus(UploadService.SESSION_TIMEOUT).minusSeconds(1));
+
+        uploadService.abgelaufeneVerwerfen();
+
+        assertThrows(NoSuchElementException.class, () -> uploadService.get(alt.getId()));
+        assertSame(neu, uploadService.get(neu.getId()));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}